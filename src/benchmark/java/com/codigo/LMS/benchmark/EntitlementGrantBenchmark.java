@@ -0,0 +1,153 @@
+package com.codigo.LMS.benchmark;
+
+import com.codigo.LMS.entity.*;
+import com.codigo.LMS.entity.Module;
+import com.codigo.LMS.repository.*;
+import com.codigo.LMS.service.EntitlementService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-enrollment latency of granting course entitlements, against course size.
+ *
+ * Compares the old path (one {@code save} per module and lesson) with the course-level
+ * grant of {@link EntitlementService}, which writes one row whatever the course size.
+ * All data is created inside one transaction per course size and rolled back afterwards.
+ *
+ * Lives outside the application sources; the {@code benchmark} Maven profile adds it. Run
+ * with {@code mvn -Pbenchmark spring-boot:run}, which uses an in-memory H2 database, or
+ * set {@code SPRING_DATASOURCE_URL} to a scratch database.
+ */
+@Component
+@Profile("benchmark")
+public class EntitlementGrantBenchmark implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitlementGrantBenchmark.class);
+
+    private static final int LESSONS_PER_MODULE = 10;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private EntitlementRepository entitlementRepository;
+
+    @Autowired
+    private EntitlementService entitlementService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${lms.benchmark.course-sizes:10,50,200,500}")
+    private int[] courseSizes;
+
+    @Value("${lms.benchmark.enrollments:20}")
+    private int enrollments;
+
+    @Value("${lms.benchmark.exit-after-run:true}")
+    private boolean exitAfterRun;
+
+    @Override
+    public void run(String... args) {
+        logger.info("Entitlement grant benchmark: {} enrollments per course size", enrollments);
+        logger.info(String.format("%8s %10s %16s %16s %8s", "lessons", "rows/enr", "per-row ms/enr", "course ms/enr", "speedup"));
+        for (int lessons : courseSizes) {
+            transactionTemplate.executeWithoutResult(status -> {
+                runCourseSize(lessons);
+                status.setRollbackOnly();
+            });
+        }
+        if (exitAfterRun) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private void runCourseSize(int lessons) {
+        User instructor = userRepository.save(benchmarkUser("bench-instructor"));
+        Course course = courseRepository.save(new Course("Benchmark " + lessons, "Entitlement benchmark", "Benchmark", instructor));
+        int modules = Math.max(1, lessons / LESSONS_PER_MODULE);
+        for (int m = 0; m < modules; m++) {
+            Module module = moduleRepository.save(new Module("Module " + m, course, m));
+            for (int l = 0; l < lessons / modules; l++) {
+                lessonRepository.save(new Lesson("Lesson " + l, "", module, l));
+            }
+        }
+        List<Long> contentIds = new ArrayList<>(moduleRepository.findIdsByCourseId(course.getId()));
+        contentIds.addAll(lessonRepository.findIdsByCourseId(course.getId()));
+
+        List<Enrollment> perRowEnrollments = createEnrollments(course, "bench-a");
+        List<Enrollment> courseEnrollments = createEnrollments(course, "bench-b");
+        resetSession();
+
+        // Old path: one persist, and with IDENTITY ids one INSERT round trip, per module and lesson
+        long start = System.nanoTime();
+        for (Enrollment enrollment : perRowEnrollments) {
+            for (Long contentId : contentIds) {
+                entitlementRepository.save(new Entitlement(enrollment.getStudent(), ResourceType.LESSON, contentId, enrollment.getId()));
+            }
+        }
+        entityManager.flush();
+        double perRowMs = (System.nanoTime() - start) / 1_000_000.0 / enrollments;
+        // Keep the per-row entities out of the course-level run's dirty checking
+        resetSession();
+
+        start = System.nanoTime();
+        for (Enrollment enrollment : courseEnrollments) {
+            entitlementService.grantCourseEntitlements(enrollment.getStudent(), course, enrollment);
+        }
+        double courseMs = (System.nanoTime() - start) / 1_000_000.0 / enrollments;
+
+        logger.info(String.format("%8d %10d %16.2f %16.2f %7.1fx", lessons, contentIds.size(), perRowMs, courseMs,
+            courseMs > 0 ? perRowMs / courseMs : 0));
+    }
+
+    private void resetSession() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private List<Enrollment> createEnrollments(Course course, String prefix) {
+        List<Enrollment> created = new ArrayList<>(enrollments);
+        for (int i = 0; i < enrollments; i++) {
+            User student = userRepository.save(benchmarkUser(prefix + "-" + i));
+            created.add(enrollmentRepository.save(new Enrollment(student, course)));
+        }
+        return created;
+    }
+
+    private User benchmarkUser(String name) {
+        String username = name + "-" + System.nanoTime();
+        return new User(username, username + "@benchmark.invalid", "benchmark", "Bench", "User", Role.STUDENT);
+    }
+}
@@ -0,0 +1,137 @@
+package com.codigo.LMS.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler and compares time and allocation per
+ * operation with the baseline committed in {@code src/jmh/baselines}.
+ *
+ * A benchmark that got more than 15% slower or allocates more than 5% more per
+ * operation fails the run. Rerun with {@code -Djmh.updateBaseline=true} to rewrite the
+ * baseline, and commit it with the change so the difference shows up in review. Times
+ * only compare on the same machine; allocation per operation compares anywhere.
+ */
+public class BenchmarkRunner {
+
+    private static final String PACKAGE_PREFIX = BenchmarkRunner.class.getPackageName() + ".";
+
+    private static final double TIME_TOLERANCE = 0.15;
+
+    private static final double ALLOCATION_TOLERANCE = 0.05;
+
+    // Allocation is measured in whole objects; ignore changes smaller than one
+    private static final double ALLOCATION_SLACK_BYTES = 16;
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : ".*";
+        File resultFile = new File(System.getProperty("jmh.result", "target/jmh-result.json"));
+        File baselineFile = new File(System.getProperty("jmh.baseline", "src/jmh/baselines/domain.json"));
+        boolean updateBaseline = Boolean.getBoolean("jmh.updateBaseline");
+
+        resultFile.getParentFile().mkdirs();
+        Options options = new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(resultFile.getPath())
+            .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, Map<String, Double>> current = new TreeMap<>();
+        for (RunResult result : results) {
+            Map<String, Double> measurement = new LinkedHashMap<>();
+            measurement.put("nsPerOp", round(result.getPrimaryResult().getScore()));
+            Result allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            if (allocation == null) {
+                allocation = result.getSecondaryResults().get("·gc.alloc.rate.norm");
+            }
+            if (allocation != null) {
+                measurement.put("bytesPerOp", round(allocation.getScore()));
+            }
+            current.put(name(result.getParams()), measurement);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Map<String, Map<String, Double>> baseline = baselineFile.exists()
+            ? objectMapper.readValue(baselineFile, new TypeReference<TreeMap<String, Map<String, Double>>>() { })
+            : new TreeMap<>();
+
+        int regressions = 0;
+        System.out.println();
+        System.out.printf("%-58s %12s %8s %12s %8s%n", "Benchmark", "ns/op", "change", "B/op", "change");
+        for (Map.Entry<String, Map<String, Double>> entry : current.entrySet()) {
+            Map<String, Double> before = baseline.getOrDefault(entry.getKey(), Map.of());
+            Double nsPerOp = entry.getValue().get("nsPerOp");
+            Double bytesPerOp = entry.getValue().get("bytesPerOp");
+            Double nsBefore = before.get("nsPerOp");
+            Double bytesBefore = before.get("bytesPerOp");
+
+            boolean slower = nsBefore != null && nsPerOp > nsBefore * (1 + TIME_TOLERANCE);
+            boolean allocatesMore = bytesBefore != null && bytesPerOp != null
+                && bytesPerOp > bytesBefore * (1 + ALLOCATION_TOLERANCE) + ALLOCATION_SLACK_BYTES;
+            if (slower || allocatesMore) {
+                regressions++;
+            }
+            System.out.printf("%-58s %12.1f %8s %12s %8s%s%n", entry.getKey(), nsPerOp, change(nsPerOp, nsBefore),
+                bytesPerOp != null ? String.format("%.1f", bytesPerOp) : "-", change(bytesPerOp, bytesBefore),
+                slower || allocatesMore ? "  REGRESSION" : "");
+        }
+
+        if (updateBaseline) {
+            baseline.putAll(current);
+            baselineFile.getParentFile().mkdirs();
+            objectMapper.writeValue(baselineFile, baseline);
+            System.out.println("Baseline written to " + baselineFile);
+        } else if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed against " + baselineFile);
+            System.exit(1);
+        }
+    }
+
+    private static String name(BenchmarkParams params) {
+        String name = params.getBenchmark();
+        if (name.startsWith(PACKAGE_PREFIX)) {
+            name = name.substring(PACKAGE_PREFIX.length());
+        }
+        StringBuilder label = new StringBuilder(name);
+        for (String key : params.getParamsKeys()) {
+            label.append(label.length() == name.length() ? " [" : ", ").append(key).append('=').append(params.getParam(key));
+        }
+        if (label.length() > name.length()) {
+            label.append(']');
+        }
+        return label.toString();
+    }
+
+    private static String change(Double now, Double before) {
+        if (now == null) {
+            return "-";
+        }
+        if (before == null || before == 0) {
+            return "new";
+        }
+        return String.format("%+.0f%%", (now - before) * 100 / before);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
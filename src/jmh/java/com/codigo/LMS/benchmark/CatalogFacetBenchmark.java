@@ -0,0 +1,89 @@
+package com.codigo.LMS.benchmark;
+
+import com.codigo.LMS.entity.Course;
+import com.codigo.LMS.entity.EnrollmentPolicy;
+import com.codigo.LMS.entity.Role;
+import com.codigo.LMS.entity.User;
+import com.codigo.LMS.service.CatalogSnapshot;
+import com.codigo.LMS.service.CourseFacets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Faceted catalog filtering: the matching courses and every facet count for no filter,
+ * two filters, and two filters within a set of search matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogFacetBenchmark {
+
+    private static final String[] CATEGORIES = {
+        "Programming", "Data", "Design", "Business", "Marketing", "Languages", "Music", "Health"
+    };
+
+    @Param({"1000", "10000"})
+    private int courses;
+
+    private CourseFacets facets;
+
+    private BitSet searchMatches;
+
+    private Map<String, String> twoFilters;
+
+    @Setup
+    public void setUp() {
+        User instructor = new User("instructor", "instructor@example.com", "password", "Ada", "Instructor", Role.INSTRUCTOR);
+        Course.DifficultyLevel[] levels = Course.DifficultyLevel.values();
+        EnrollmentPolicy[] policies = EnrollmentPolicy.values();
+        List<Course> catalog = new ArrayList<>(courses);
+        searchMatches = new BitSet(courses);
+        for (int i = 0; i < courses; i++) {
+            Course course = new Course("Course " + i, "Description " + i, CATEGORIES[i % CATEGORIES.length], instructor);
+            course.setId((long) i + 1);
+            course.setDifficultyLevel(levels[i % levels.length]);
+            course.setEnrollmentPolicy(policies[i % policies.length]);
+            course.setPrice(BigDecimal.valueOf((i * 37L) % 300));
+            catalog.add(course);
+            if (i % 10 == 0) {
+                searchMatches.set(i);
+            }
+        }
+        facets = new CatalogSnapshot(catalog, System.currentTimeMillis()).getFacets();
+        twoFilters = Map.of(CourseFacets.CATEGORY, "Data", CourseFacets.DIFFICULTY, "BEGINNER");
+    }
+
+    @Benchmark
+    public CourseFacets.Result unfiltered() {
+        return facets.filter(Map.of(), null);
+    }
+
+    @Benchmark
+    public CourseFacets.Result twoFilters() {
+        return facets.filter(twoFilters, null);
+    }
+
+    @Benchmark
+    public CourseFacets.Result twoFiltersWithinSearch() {
+        return facets.filter(twoFilters, searchMatches);
+    }
+}
@@ -0,0 +1,37 @@
+package com.codigo.LMS.benchmark;
+
+import com.codigo.LMS.entity.AuditLog;
+import com.codigo.LMS.entity.EnrollmentSource;
+import com.codigo.LMS.entity.EnrollmentStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The audit payload written for every new enrollment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnrollmentPayloadBenchmark {
+
+    private Long studentId = 48213L;
+
+    private Long courseId = 1207L;
+
+    @Benchmark
+    public String enrollmentCreatedPayload() {
+        return AuditLog.enrollmentCreatedPayload(studentId, courseId, EnrollmentStatus.ACTIVE, EnrollmentSource.SELF);
+    }
+}
@@ -0,0 +1,93 @@
+package com.codigo.LMS.benchmark;
+
+import com.codigo.LMS.entity.Course;
+import com.codigo.LMS.entity.Lesson;
+import com.codigo.LMS.entity.Module;
+import com.codigo.LMS.entity.Role;
+import com.codigo.LMS.entity.User;
+import com.codigo.LMS.entity.UserProgress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lesson progress updates and the course completion percentage recomputed after each
+ * of them, for a student who has started every lesson and finished half.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgressBenchmark {
+
+    private static final int LESSONS_PER_MODULE = 10;
+
+    @Param({"10", "100"})
+    private int lessons;
+
+    private User student;
+
+    private Lesson lesson;
+
+    private Course course;
+
+    private List<UserProgress> progressRecords;
+
+    private UserProgress inProgress;
+
+    @Setup
+    public void setUp() {
+        User instructor = new User("instructor", "instructor@example.com", "password", "Ada", "Instructor", Role.INSTRUCTOR);
+        student = new User("student", "student@example.com", "password", "Sam", "Student", Role.STUDENT);
+        course = new Course("Java Fundamentals", "Learn the basics of Java programming", instructor);
+        progressRecords = new ArrayList<>();
+
+        for (int m = 0; m < lessons / LESSONS_PER_MODULE; m++) {
+            Module module = new Module("Module " + m, course, m);
+            course.getModules().add(module);
+            for (int l = 0; l < LESSONS_PER_MODULE; l++) {
+                Lesson courseLesson = new Lesson("Lesson " + l, "Content", module, l);
+                module.getLessons().add(courseLesson);
+                UserProgress progress = new UserProgress(student, courseLesson);
+                progress.updateProgress(l % 2 == 0 ? 100.0 : 40.0);
+                progressRecords.add(progress);
+            }
+        }
+
+        lesson = course.getModules().get(0).getLessons().get(0);
+        inProgress = new UserProgress(student, lesson);
+        inProgress.updateProgress(40.0);
+    }
+
+    @Benchmark
+    public UserProgress updateProgress() {
+        inProgress.updateProgress(60.0);
+        return inProgress;
+    }
+
+    @Benchmark
+    public UserProgress completeLesson() {
+        UserProgress progress = new UserProgress(student, lesson);
+        progress.updateProgress(100.0);
+        return progress;
+    }
+
+    @Benchmark
+    public double completionPercentage() {
+        return course.completionPercentage(progressRecords);
+    }
+}
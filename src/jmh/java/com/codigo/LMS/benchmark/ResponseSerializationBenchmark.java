@@ -0,0 +1,87 @@
+package com.codigo.LMS.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the map-shaped responses built in {@code ApiController}: the
+ * course list and the user profile, with the mapper settings the web layer uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private static final int COURSES = 20;
+
+    private ObjectMapper objectMapper;
+
+    private List<Map<String, Object>> courses;
+
+    private Map<String, Object> profile;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        courses = new ArrayList<>();
+        for (long id = 1; id <= COURSES; id++) {
+            Map<String, Object> courseData = new HashMap<>();
+            courseData.put("id", id);
+            courseData.put("title", "Course " + id);
+            courseData.put("description", "Learn the basics of course " + id + " through hands-on projects");
+            courseData.put("category", "Programming");
+            courseData.put("difficulty", "BEGINNER");
+            courseData.put("price", new BigDecimal("99.99"));
+            courseData.put("enrollmentCount", 1200 + (int) id);
+            courseData.put("rating", 4.6);
+            courseData.put("thumbnailUrl", "/images/course-" + id + ".jpg");
+            courseData.put("instructor", "John Instructor");
+            courseData.put("isPublished", true);
+            courses.add(courseData);
+        }
+
+        profile = new HashMap<>();
+        profile.put("id", 48213L);
+        profile.put("username", "student");
+        profile.put("email", "student@example.com");
+        profile.put("fullName", "Sam Student");
+        profile.put("role", "STUDENT");
+        profile.put("totalPoints", 1350);
+        profile.put("currentStreak", 4);
+        profile.put("longestStreak", 12);
+        profile.put("memberSince", LocalDateTime.of(2025, 3, 14, 9, 30));
+    }
+
+    @Benchmark
+    public byte[] courseList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(courses);
+    }
+
+    @Benchmark
+    public byte[] userProfile() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(profile);
+    }
+}
@@ -0,0 +1,64 @@
+package com.codigo.LMS.benchmark;
+
+import com.codigo.LMS.entity.DiscountType;
+import com.codigo.LMS.entity.Voucher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Voucher pricing as done at checkout: a capped percentage voucher with a minimum
+ * order amount, and a fixed amount voucher.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoucherBenchmark {
+
+    private final BigDecimal price = new BigDecimal("149.99");
+
+    private Voucher percentVoucher;
+
+    private Voucher amountVoucher;
+
+    @Setup
+    public void setUp() {
+        percentVoucher = new Voucher("LAUNCH20", "Launch week", DiscountType.PERCENT, new BigDecimal("20"));
+        percentVoucher.setMinimumAmount(new BigDecimal("50.00"));
+        percentVoucher.setMaximumDiscount(new BigDecimal("25.00"));
+        percentVoucher.setMaxUses(1000);
+        percentVoucher.setUses(10);
+        percentVoucher.setExpiresAt(LocalDateTime.now().plusDays(30));
+
+        amountVoucher = new Voucher("TENOFF", "Ten off", DiscountType.AMOUNT, new BigDecimal("10.00"));
+    }
+
+    @Benchmark
+    public BigDecimal calculatePercentDiscount() {
+        return percentVoucher.calculateDiscount(price);
+    }
+
+    @Benchmark
+    public BigDecimal calculateAmountDiscount() {
+        return amountVoucher.calculateDiscount(price);
+    }
+
+    @Benchmark
+    public boolean canBeUsedForAmount() {
+        return percentVoucher.canBeUsedForAmount(price);
+    }
+}
@@ -0,0 +1,404 @@
+package com.codigo.LMS.benchmark;
+
+import com.codigo.LMS.dto.CourseEnrollmentCounters;
+import com.codigo.LMS.dto.EnrollmentRequest;
+import com.codigo.LMS.dto.EnrollmentResult;
+import com.codigo.LMS.entity.*;
+import com.codigo.LMS.repository.CourseRepository;
+import com.codigo.LMS.repository.UserRepository;
+import com.codigo.LMS.service.EnrollmentService;
+import com.codigo.LMS.service.SeatLedgerService;
+import com.codigo.LMS.service.WaitlistService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Course-launch load test of the enrollment path.
+ *
+ * Seeds students and one course per {@link EnrollmentPolicy}, then fires concurrent
+ * traffic at {@link EnrollmentService} in phases: everyone racing for the seats of an
+ * open course, a burst against every other policy, withdrawals and waitlist departures
+ * (which promote from the waitlist), instructor approvals and denials, and payment
+ * webhooks with redeliveries. Reports throughput, latency percentiles and SQL statements
+ * per request for each operation, then checks that no course is oversold, the seat
+ * ledger agrees with the enrollments, and waitlist positions run from 1 to the queue size.
+ *
+ * Lives outside the application sources; the {@code loadtest} Maven profile adds it. Run
+ * with {@code mvn -Ploadtest spring-boot:run}, which uses an in-memory H2 database, or
+ * set {@code SPRING_DATASOURCE_URL} to a scratch database. Exits with status 1 if an
+ * invariant is violated.
+ */
+@Component
+@Profile("loadtest")
+public class EnrollmentLoadTest implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentLoadTest.class);
+
+    private static final int SEED_CHUNK = 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private SeatLedgerService seatLedgerService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${lms.loadtest.students:10000}")
+    private int studentCount;
+
+    @Value("${lms.loadtest.seats:500}")
+    private int seats;
+
+    @Value("${lms.loadtest.policy-students:1000}")
+    private int policyStudents;
+
+    @Value("${lms.loadtest.concurrency:200}")
+    private int concurrency;
+
+    @Value("${lms.loadtest.withdraw-fraction:0.2}")
+    private double withdrawFraction;
+
+    @Value("${lms.loadtest.payment-failure-rate:0.1}")
+    private double paymentFailureRate;
+
+    @Value("${lms.loadtest.seed:42}")
+    private long seed;
+
+    @Value("${lms.loadtest.exit-after-run:true}")
+    private boolean exitAfterRun;
+
+    private final Map<String, ConcurrentLinkedQueue<Sample>> samples = new LinkedHashMap<>();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+
+    @Override
+    public void run(String... args) throws InterruptedException {
+        logger.info("Enrollment load test: {} students, {} seats, {} concurrent clients", studentCount, seats, concurrency);
+        Random random = new Random(seed);
+        String run = Long.toString(System.currentTimeMillis(), 36);
+
+        User instructor = userRepository.save(loadTestUser(run + "-instructor", Role.INSTRUCTOR));
+        List<Long> students = seedStudents(run);
+        Map<EnrollmentPolicy, Course> courses = seedCourses(run, instructor);
+        Course launch = courses.get(EnrollmentPolicy.OPEN);
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            // Everyone races for the launch course at once
+            Map<Long, EnrollmentResult> launchResults = new ConcurrentHashMap<>();
+            List<Runnable> launchTraffic = new ArrayList<>();
+            for (Long studentId : students) {
+                launchTraffic.add(() -> launchResults.put(studentId, record("enroll.OPEN", () ->
+                    enrollmentService.enrollStudent(studentId, launch.getId(), new EnrollmentRequest()))));
+            }
+            runPhase("launch", clients, launchTraffic, random);
+
+            // A burst against every other policy
+            Map<EnrollmentPolicy, Map<Long, EnrollmentResult>> policyResults = new EnumMap<>(EnrollmentPolicy.class);
+            List<Runnable> policyTraffic = new ArrayList<>();
+            for (Map.Entry<EnrollmentPolicy, Course> entry : courses.entrySet()) {
+                if (entry.getKey() == EnrollmentPolicy.OPEN) {
+                    continue;
+                }
+                Map<Long, EnrollmentResult> results = new ConcurrentHashMap<>();
+                policyResults.put(entry.getKey(), results);
+                Long courseId = entry.getValue().getId();
+                for (Long studentId : students.subList(0, Math.min(policyStudents, students.size()))) {
+                    policyTraffic.add(() -> results.put(studentId, record("enroll." + entry.getKey(), () ->
+                        enrollmentService.enrollStudent(studentId, courseId, new EnrollmentRequest()))));
+                }
+            }
+            runPhase("policies", clients, policyTraffic, random);
+
+            // Withdrawals free seats and promote the waitlist while waitlisted students leave
+            List<Runnable> churn = new ArrayList<>();
+            for (EnrollmentResult result : pick(launchResults, EnrollmentStatus.ACTIVE, withdrawFraction, random)) {
+                churn.add(() -> record("withdraw", () -> enrollmentService.withdrawEnrollment(
+                    result.getEnrollment().getId(), result.getEnrollment().getStudent().getId(), "Load test")));
+            }
+            for (EnrollmentResult result : pick(launchResults, EnrollmentStatus.WAITLISTED, withdrawFraction, random)) {
+                churn.add(() -> record("leave-waitlist", () -> enrollmentService.withdrawEnrollment(
+                    result.getEnrollment().getId(), result.getEnrollment().getStudent().getId(), "Load test")));
+            }
+            runPhase("churn", clients, churn, random);
+
+            // Instructor works through the approval queue; every fifth request is denied
+            List<Runnable> approvals = new ArrayList<>();
+            int index = 0;
+            for (EnrollmentResult result : pick(policyResults.get(EnrollmentPolicy.APPROVAL_REQUIRED), EnrollmentStatus.PENDING_REVIEW, 1.0, random)) {
+                Long enrollmentId = result.getEnrollment().getId();
+                if (index++ % 5 == 0) {
+                    approvals.add(() -> record("deny", () -> enrollmentService.denyEnrollment(enrollmentId, instructor.getId(), "Load test")));
+                } else {
+                    approvals.add(() -> record("approve", () -> enrollmentService.approveEnrollment(enrollmentId, instructor.getId(), "Load test")));
+                }
+            }
+            runPhase("approvals", clients, approvals, random);
+
+            // Payment webhooks for every checkout, a tenth of them delivered twice
+            List<Runnable> webhooks = new ArrayList<>();
+            for (EnrollmentResult result : policyResults.get(EnrollmentPolicy.PAID).values()) {
+                if (!result.isPaymentRequired()) {
+                    continue;
+                }
+                Long paymentId = result.getPayment().getId();
+                String status = random.nextDouble() < paymentFailureRate ? "failed" : "succeeded";
+                int deliveries = random.nextInt(10) == 0 ? 2 : 1;
+                for (int i = 0; i < deliveries; i++) {
+                    webhooks.add(() -> record("payment-webhook", () -> {
+                        enrollmentService.processPaymentWebhook(paymentId, status);
+                        return null;
+                    }));
+                }
+            }
+            runPhase("payments", clients, webhooks, random);
+        } finally {
+            clients.shutdown();
+            clients.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        report();
+        boolean ok = checkInvariants(courses.values());
+        logger.info("Enrollment load test {}", ok ? "passed" : "FAILED");
+        if (exitAfterRun) {
+            int status = ok ? 0 : 1;
+            System.exit(SpringApplication.exit(applicationContext, () -> status));
+        }
+    }
+
+    private List<Long> seedStudents(String run) {
+        List<Long> ids = new ArrayList<>(studentCount);
+        for (int from = 0; from < studentCount; from += SEED_CHUNK) {
+            int to = Math.min(studentCount, from + SEED_CHUNK);
+            int start = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                List<User> chunk = new ArrayList<>(to - start);
+                for (int i = start; i < to; i++) {
+                    chunk.add(loadTestUser(run + "-s" + i, Role.STUDENT));
+                }
+                userRepository.saveAll(chunk).forEach(user -> ids.add(user.getId()));
+            });
+        }
+        return ids;
+    }
+
+    private Map<EnrollmentPolicy, Course> seedCourses(String run, User instructor) {
+        Map<EnrollmentPolicy, Course> courses = new EnumMap<>(EnrollmentPolicy.class);
+        for (EnrollmentPolicy policy : EnrollmentPolicy.values()) {
+            Course course = new Course("Load test " + policy + " " + run, "Enrollment load test", "Load test", instructor);
+            course.setIsPublished(true);
+            course.setEnrollmentPolicy(policy);
+            // The launch course gets the configured seats; the others fill up partway through their burst
+            course.setCapacity(policy == EnrollmentPolicy.OPEN ? seats : Math.max(1, policyStudents / 2));
+            if (policy == EnrollmentPolicy.PAID) {
+                course.setPrice(new BigDecimal("49.00"));
+            }
+            courses.put(policy, courseRepository.save(course));
+        }
+        return courses;
+    }
+
+    private void runPhase(String phase, ExecutorService clients, List<Runnable> traffic, Random random) throws InterruptedException {
+        Collections.shuffle(traffic, random);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(traffic.size());
+        for (Runnable request : traffic) {
+            clients.execute(() -> {
+                try {
+                    start.await();
+                    request.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        done.await();
+        phaseNanos.put(phase, System.nanoTime() - began);
+        logger.info("Phase '{}': {} requests in {} ms", phase, traffic.size(), (System.nanoTime() - began) / 1_000_000);
+    }
+
+    private EnrollmentResult record(String operation, Supplier<EnrollmentResult> request) {
+        long statements = StatementCounter.current();
+        long began = System.nanoTime();
+        EnrollmentResult result = null;
+        String outcome;
+        try {
+            result = request.get();
+            outcome = result == null || result.isSuccess() ? null : result.getMessage();
+        } catch (RuntimeException e) {
+            outcome = "exception: " + e.getClass().getSimpleName();
+        }
+        Sample sample = new Sample(System.nanoTime() - began, StatementCounter.current() - statements, outcome);
+        samples(operation).add(sample);
+        return result;
+    }
+
+    private synchronized ConcurrentLinkedQueue<Sample> samples(String operation) {
+        return samples.computeIfAbsent(operation, op -> new ConcurrentLinkedQueue<>());
+    }
+
+    private static List<EnrollmentResult> pick(Map<Long, EnrollmentResult> results, EnrollmentStatus status, double fraction, Random random) {
+        List<EnrollmentResult> matching = new ArrayList<>();
+        for (EnrollmentResult result : results.values()) {
+            if (result != null && result.isSuccess() && result.getEnrollment() != null && result.getEnrollment().getStatus() == status) {
+                matching.add(result);
+            }
+        }
+        matching.sort((a, b) -> a.getEnrollment().getId().compareTo(b.getEnrollment().getId()));
+        Collections.shuffle(matching, random);
+        return matching.subList(0, (int) Math.round(matching.size() * fraction));
+    }
+
+    private void report() {
+        long totalNanos = phaseNanos.values().stream().mapToLong(Long::longValue).sum();
+        long totalRequests = samples.values().stream().mapToLong(ConcurrentLinkedQueue::size).sum();
+        logger.info(String.format("%-26s %7s %8s %9s %8s %8s %8s %8s %9s", "operation", "count", "rejected",
+            "errors", "p50 ms", "p95 ms", "p99 ms", "max ms", "stmts/req"));
+        for (Map.Entry<String, ConcurrentLinkedQueue<Sample>> entry : samples.entrySet()) {
+            List<Sample> operationSamples = new ArrayList<>(entry.getValue());
+            long[] latencies = operationSamples.stream().mapToLong(sample -> sample.nanos).sorted().toArray();
+            long rejected = operationSamples.stream().filter(s -> s.outcome != null && !s.outcome.startsWith("exception")).count();
+            long errors = operationSamples.stream().filter(s -> s.outcome != null && s.outcome.startsWith("exception")).count();
+            double statements = operationSamples.stream().mapToLong(sample -> sample.statements).average().orElse(0);
+            logger.info(String.format("%-26s %7d %8d %9d %8.1f %8.1f %8.1f %8.1f %9.1f", entry.getKey(), latencies.length,
+                rejected, errors, percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                percentile(latencies, 1.0), statements));
+            operationSamples.stream()
+                .filter(sample -> sample.outcome != null)
+                .collect(Collectors.groupingBy(sample -> sample.outcome, Collectors.counting()))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(3)
+                .forEach(outcome -> logger.info(String.format("    %6d x %s", outcome.getValue(), outcome.getKey())));
+        }
+        logger.info(String.format("Overall: %d requests in %.1f s, %.0f requests/s", totalRequests, totalNanos / 1e9,
+            totalNanos > 0 ? totalRequests / (totalNanos / 1e9) : 0));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+    }
+
+    private boolean checkInvariants(Iterable<Course> courses) {
+        boolean ok = true;
+        for (Course course : courses) {
+            Long courseId = course.getId();
+            long active = count("SELECT COUNT(*) FROM enrollments WHERE course_id = ? AND status = 'ACTIVE'", courseId);
+            long waitlisted = count("SELECT COUNT(*) FROM enrollments WHERE course_id = ? AND status = 'WAITLISTED'", courseId);
+            long pendingApprovals = count("SELECT COUNT(*) FROM enrollments WHERE course_id = ? AND status = 'PENDING_REVIEW' " +
+                "AND payment_id IS NULL", courseId);
+            long duplicateStudents = count("SELECT COUNT(*) FROM (SELECT student_id FROM enrollments WHERE course_id = ? " +
+                "GROUP BY student_id HAVING COUNT(*) > 1) d", courseId);
+            long duplicatePositions = count("SELECT COUNT(*) FROM (SELECT waitlist_position FROM enrollments WHERE course_id = ? " +
+                "AND status = 'WAITLISTED' GROUP BY waitlist_position HAVING COUNT(*) > 1) d", courseId);
+            Integer firstTicket = jdbcTemplate.queryForObject("SELECT MIN(waitlist_position) FROM enrollments " +
+                "WHERE course_id = ? AND status = 'WAITLISTED'", Integer.class, courseId);
+            Integer lastTicket = jdbcTemplate.queryForObject("SELECT MAX(waitlist_position) FROM enrollments " +
+                "WHERE course_id = ? AND status = 'WAITLISTED'", Integer.class, courseId);
+
+            seatLedgerService.evictCounters(courseId);
+            CourseEnrollmentCounters counters = seatLedgerService.getCounters(courseId);
+            String label = course.getEnrollmentPolicy().name();
+
+            ok &= check(label, "no oversell", active + counters.getHeld() <= course.getCapacity(),
+                active + " active + " + counters.getHeld() + " held, capacity " + course.getCapacity());
+            ok &= check(label, "ledger seats match enrollments", counters.getEnrolled() == active,
+                "ledger " + counters.getEnrolled() + ", enrollments " + active);
+            ok &= check(label, "ledger waitlist matches enrollments", counters.getWaitlisted() == waitlisted,
+                "ledger " + counters.getWaitlisted() + ", enrollments " + waitlisted);
+            ok &= check(label, "ledger approvals match enrollments", counters.getPendingApprovals() == pendingApprovals,
+                "ledger " + counters.getPendingApprovals() + ", enrollments " + pendingApprovals);
+            ok &= check(label, "one enrollment per student", duplicateStudents == 0, duplicateStudents + " students enrolled twice");
+            ok &= check(label, "unique waitlist positions", duplicatePositions == 0, duplicatePositions + " positions shared");
+            if (waitlisted > 0) {
+                Integer lastPosition = waitlistService.positionOf(courseId, lastTicket);
+                ok &= check(label, "gap-free waitlist", Integer.valueOf(1).equals(waitlistService.positionOf(courseId, firstTicket))
+                        && lastPosition != null && lastPosition == waitlisted
+                        && waitlistService.size(courseId) == waitlisted,
+                    "positions 1.." + lastPosition + " for " + waitlisted + " students, queue size "
+                        + waitlistService.size(courseId));
+            }
+        }
+        return ok;
+    }
+
+    private long count(String sql, Long courseId) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, courseId);
+        return count != null ? count : 0;
+    }
+
+    private static boolean check(String course, String invariant, boolean holds, String detail) {
+        if (holds) {
+            logger.info(String.format("  ok   %-18s %-36s %s", course, invariant, detail));
+        } else {
+            logger.error(String.format("  FAIL %-18s %-36s %s", course, invariant, detail));
+        }
+        return holds;
+    }
+
+    private static User loadTestUser(String name, Role role) {
+        return new User("lt-" + name, "lt-" + name + "@loadtest.invalid", "loadtest", "Load", "Test", role);
+    }
+
+    private static final class Sample {
+        private final long nanos;
+        private final long statements;
+        private final String outcome;
+
+        Sample(long nanos, long statements, String outcome) {
+            this.nanos = nanos;
+            this.statements = statements;
+            this.outcome = outcome;
+        }
+    }
+}
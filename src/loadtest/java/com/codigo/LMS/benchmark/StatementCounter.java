@@ -0,0 +1,88 @@
+package com.codigo.LMS.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Counts the SQL statements each thread executes, so the load test can report queries
+ * per request. Wraps the application's {@link DataSource}; a batch counts as one
+ * statement, as it is one round trip. Work handed to other threads, such as after-commit
+ * side effects, is not attributed to the request.
+ */
+@Component
+@Profile("loadtest")
+public class StatementCounter implements BeanPostProcessor {
+
+    private static final ThreadLocal<long[]> executed = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Statements executed so far on the current thread.
+     */
+    public static long current() {
+        return executed.get()[0];
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !Proxy.isProxyClass(bean.getClass())) {
+            return wrap(dataSource, DataSource.class);
+        }
+        return bean;
+    }
+
+    private static Object wrap(Object target, Class<?> type) {
+        return Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[] {type}, new Counting(target));
+    }
+
+    private static final class Counting implements InvocationHandler {
+        private final Object target;
+
+        Counting(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("unwrap") && args[0] instanceof Class<?> type && type.isInstance(target)) {
+                return target;
+            }
+            if (name.equals("isWrapperFor") && args[0] instanceof Class<?> type && type.isInstance(target)) {
+                return true;
+            }
+            if (name.startsWith("execute")) {
+                executed.get()[0]++;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection connection) {
+                return wrap(connection, Connection.class);
+            }
+            if (result instanceof CallableStatement statement) {
+                return wrap(statement, CallableStatement.class);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return wrap(statement, PreparedStatement.class);
+            }
+            if (result instanceof Statement statement) {
+                return wrap(statement, Statement.class);
+            }
+            return result;
+        }
+    }
+}
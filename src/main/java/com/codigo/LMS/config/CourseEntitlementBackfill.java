@@ -0,0 +1,60 @@
+package com.codigo.LMS.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Applies the course-level entitlement backfill on databases that Flyway does not
+ * manage (the default profile: {@code spring.flyway.enabled=false}, schema kept by
+ * {@code ddl-auto=update}).
+ *
+ * Hibernate never rewrites the check constraint it generated for
+ * {@code entitlements.resource_type} before COURSE existed, so course grants would be
+ * rejected, and enrollments granted per lesson would have no course grant. Runs the
+ * same script as Flyway's V16, once: a row in {@code lms_backfills} records that it was
+ * applied, so later startups do not re-grant anything revoked since.
+ */
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "spring.flyway.enabled", havingValue = "false")
+public class CourseEntitlementBackfill implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseEntitlementBackfill.class);
+
+    static final String SCRIPT = "db/migration/V16__Backfill_course_entitlements.sql";
+
+    private static final String MARKER = "V16__Backfill_course_entitlements";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public void run(String... args) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS lms_backfills (" +
+            "name VARCHAR(100) PRIMARY KEY, applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        Integer applied = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lms_backfills WHERE name = ?", Integer.class, MARKER);
+        if (applied != null && applied > 0) {
+            return;
+        }
+
+        new ResourceDatabasePopulator(new ClassPathResource(SCRIPT)).execute(dataSource);
+        try {
+            jdbcTemplate.update("INSERT INTO lms_backfills (name) VALUES (?)", MARKER);
+        } catch (DuplicateKeyException e) {
+            // Another node applied it at the same time; the script is idempotent
+        }
+        logger.info("Applied {} outside Flyway", SCRIPT);
+    }
+}
@@ -0,0 +1,25 @@
+package com.codigo.LMS.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tagging rules for the application's own meters.
+ *
+ * Tags only carry values from a fixed set: enums, error codes and operation names, never
+ * ids, messages or user input. The one exception is the {@code course} tag of the course
+ * gauges, which only ever cover the busiest {@code lms.metrics.courses.max-tracked} courses.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Enrollment failures are tagged with their error code; stop at 30 distinct codes in
+     * case a message ever ends up there instead.
+     */
+    @Bean
+    public MeterFilter enrollmentReasonTagLimit() {
+        return MeterFilter.maximumAllowableTags("lms.enrollment.requests", "reason", 30, MeterFilter.deny());
+    }
+}
@@ -1,19 +1,31 @@
 package com.codigo.LMS.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.List;
+import java.util.function.Supplier;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    // Addresses or CIDR ranges of the Prometheus scrapers
+    @Value("${lms.metrics.allowed-addresses:127.0.0.1,::1}")
+    private List<String> metricsAllowedAddresses;
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
         return authConfig.getAuthenticationManager();
@@ -24,6 +36,8 @@ public class SecurityConfig {
         http
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/", "/login", "/signup", "/register", "/css/**", "/js/**", "/images/**", "/h2-console/**").permitAll()
+                .requestMatchers("/webhooks/**").permitAll()
+                .requestMatchers("/actuator/prometheus").access(this::canScrapeMetrics)
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 .requestMatchers("/teacher/**").hasAnyRole("TEACHER", "ADMIN")
                 .anyRequest().authenticated()
@@ -45,11 +59,30 @@ public class SecurityConfig {
                 .permitAll()
             )
             .csrf(csrf -> csrf
-                .ignoringRequestMatchers("/h2-console/**")
+                .ignoringRequestMatchers("/h2-console/**", "/webhooks/**")
             )
             .headers(headers -> headers
                 .frameOptions(frameOptions -> frameOptions.disable())); // Allow H2 console frames
 
         return http.build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Metrics are served to scrapers on the allowlist without a login, and to signed-in
+     * admins from anywhere.
+     */
+    private AuthorizationDecision canScrapeMetrics(Supplier<Authentication> authentication,
+                                                   RequestAuthorizationContext context) {
+        boolean allowlisted = metricsAllowedAddresses.stream()
+            .map(String::trim)
+            .filter(address -> !address.isEmpty())
+            .anyMatch(address -> new IpAddressMatcher(address).matches(context.getRequest()));
+        if (allowlisted) {
+            return new AuthorizationDecision(true);
+        }
+        Authentication user = authentication.get();
+        boolean admin = user != null && user.isAuthenticated()
+            && user.getAuthorities().stream().anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        return new AuthorizationDecision(admin);
+    }
+}
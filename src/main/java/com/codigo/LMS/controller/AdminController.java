@@ -1,8 +1,15 @@
 package com.codigo.LMS.controller;
 
+import com.codigo.LMS.dto.CursorPage;
 import com.codigo.LMS.entity.*;
+import com.codigo.LMS.service.CourseService;
+import com.codigo.LMS.service.EnrollmentService;
+import com.codigo.LMS.service.PaymentWebhookService;
 import com.codigo.LMS.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -12,7 +19,9 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/admin")
@@ -21,6 +30,15 @@ public class AdminController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private CourseService courseService;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+    
     @GetMapping
     public String adminDashboard(@AuthenticationPrincipal User user, Model model) {
         if (user.getRole() != Role.ADMIN) {
@@ -113,6 +131,101 @@ public class AdminController {
         return "admin/course-form";
     }
     
+    @PostMapping("/courses/{id}/unpublish")
+    public String unpublishCourse(@PathVariable Long id, @AuthenticationPrincipal User user,
+                                  RedirectAttributes redirectAttributes) {
+        if (user.getRole() != Role.ADMIN) {
+            return "redirect:/dashboard";
+        }
+        
+        Course course = courseService.unpublish(id, user.getId());
+        if (course == null) {
+            redirectAttributes.addFlashAttribute("error", "Course not found");
+        } else {
+            redirectAttributes.addFlashAttribute("success",
+                "Course unpublished. Student access is being revoked in the background.");
+        }
+        
+        return "redirect:/admin/courses";
+    }
+    
+    @GetMapping("/enrollments")
+    public String manageEnrollments(@AuthenticationPrincipal User user) {
+        if (user.getRole() != Role.ADMIN) {
+            return "redirect:/dashboard";
+        }
+        return "admin/enrollments";
+    }
+    
+    /**
+     * Enrollment rows for the admin table, newest first, one keyset page at a time;
+     * follow {@code nextCursor} or the {@code Link} header for the next page.
+     */
+    @GetMapping("/enrollments/data")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> enrollmentData(@AuthenticationPrincipal User user,
+                                                              @RequestParam(required = false) Long course,
+                                                              @RequestParam(required = false) EnrollmentStatus status,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer size,
+                                                              HttpServletResponse response) {
+        if (user.getRole() != Role.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        CursorPage<Enrollment> page;
+        try {
+            page = enrollmentService.findEnrollments(course, status, cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Enrollment enrollment : page.getItems()) {
+            Map<String, Object> student = new HashMap<>();
+            student.put("firstName", enrollment.getStudent().getFirstName());
+            student.put("lastName", enrollment.getStudent().getLastName());
+            student.put("email", enrollment.getStudent().getEmail());
+            
+            Map<String, Object> enrolledCourse = new HashMap<>();
+            enrolledCourse.put("id", enrollment.getCourse().getId());
+            enrolledCourse.put("title", enrollment.getCourse().getTitle());
+            enrolledCourse.put("category", enrollment.getCourse().getCategory());
+            enrolledCourse.put("price", enrollment.getCourse().getPrice());
+            
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", enrollment.getId());
+            row.put("user", student);
+            row.put("course", enrolledCourse);
+            row.put("status", enrollment.getStatus().name());
+            row.put("enrolledAt", enrollment.getEnrolledAt());
+            row.put("source", enrollment.getSource() != null ? enrollment.getSource().name() : null);
+            row.put("paymentId", enrollment.getPaymentId());
+            rows.add(row);
+        }
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("data", rows);
+        body.put("nextCursor", page.getNextCursor());
+        CursorLinks.addNext(response, page);
+        return ResponseEntity.ok(body);
+    }
+    
+    /**
+     * Retry payment webhooks that used up their attempts, those of one payment or all of them.
+     */
+    @PostMapping("/payments/webhooks/requeue")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> requeueFailedWebhooks(@AuthenticationPrincipal User user,
+                                                                     @RequestParam(required = false) Long payment) {
+        if (user.getRole() != Role.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        int requeued = paymentWebhookService.requeueFailed(payment);
+        return ResponseEntity.ok(Map.of("requeued", requeued));
+    }
+    
     @PostMapping("/users/{id}/toggle-status")
     public String toggleUserStatus(@PathVariable Long id, @AuthenticationPrincipal User user,
                                   RedirectAttributes redirectAttributes) {
@@ -1,9 +1,18 @@
 package com.codigo.LMS.controller;
 
+import com.codigo.LMS.dto.CourseFilter;
+import com.codigo.LMS.dto.CourseRating;
+import com.codigo.LMS.dto.CourseSearchPage;
+import com.codigo.LMS.dto.CursorPage;
+import com.codigo.LMS.dto.FacetedCourses;
 import com.codigo.LMS.entity.*;
 import com.codigo.LMS.repository.UserRepository;
+import com.codigo.LMS.service.CoursePopularityService;
+import com.codigo.LMS.service.CourseReviewService;
+import com.codigo.LMS.service.CourseService;
 import javax.sql.DataSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +31,12 @@ public class ApiController {
     private UserRepository userRepository;
     @Autowired
     private DataSource dataSource;
+    @Autowired
+    private CourseService courseService;
+    @Autowired
+    private CoursePopularityService coursePopularityService;
+    @Autowired
+    private CourseReviewService courseReviewService;
     @GetMapping("/dev/users")
     public ResponseEntity<List<Map<String, Object>>> listRecentUsers(@AuthenticationPrincipal User user) {
         if (user == null) {
@@ -147,30 +162,82 @@ public class ApiController {
         }
     }
     
+    /**
+     * Published courses matching {@code category}, {@code difficulty}, {@code price} (a
+     * {@link PriceBucket}), {@code policy} and {@code search}, with per-facet counts.
+     * Pages of {@code size} courses; follow {@code nextCursor} or the {@code Link} header.
+     */
     @GetMapping("/courses")
-    public ResponseEntity<List<Map<String, Object>>> getCourses(@RequestParam(required = false) String category,
-                                                              @RequestParam(required = false) String difficulty,
-                                                              @RequestParam(required = false) String search) {
-        List<Course> courses = createSampleCourses();
-        List<Map<String, Object>> response = new ArrayList<>();
+    public ResponseEntity<Map<String, Object>> getCourses(CourseFilter filter) {
+        FacetedCourses results;
+        try {
+            results = courseService.filterCatalog(filter);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+        List<Map<String, Object>> courses = new ArrayList<>();
         
-        for (Course course : courses) {
+        for (Course course : results.getCourses()) {
             Map<String, Object> courseData = new HashMap<>();
             courseData.put("id", course.getId());
             courseData.put("title", course.getTitle());
             courseData.put("description", course.getDescription());
             courseData.put("category", course.getCategory());
-            courseData.put("difficulty", course.getDifficultyLevel().name());
+            courseData.put("difficulty", course.getDifficultyLevel() != null ? course.getDifficultyLevel().name() : null);
             courseData.put("price", course.getPrice());
-            courseData.put("enrollmentCount", course.getEnrollmentCount());
-            courseData.put("rating", course.getRating());
+            courseData.put("enrollmentCount", coursePopularityService.getEnrollmentCount(course.getId()));
+            courseData.put("rating", courseReviewService.getCourseRating(course.getId()).getAverage());
             courseData.put("thumbnailUrl", course.getThumbnailUrl());
             courseData.put("instructor", course.getInstructor().getFullName());
-            courseData.put("isPublished", course.getIsPublished());
+            courseData.put("enrollmentPolicy", course.getEnrollmentPolicy());
             
-            response.add(courseData);
+            courses.add(courseData);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("courses", courses);
+        response.put("total", results.getTotal());
+        response.put("facets", results.getFacets());
+        response.put("nextCursor", results.getPage().getNextCursor());
+        
+        String next = CursorLinks.next(results.getPage());
+        if (next != null) {
+            return ResponseEntity.ok().header(HttpHeaders.LINK, next).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/courses/search")
+    public ResponseEntity<Map<String, Object>> searchCourses(@RequestParam("q") String query,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(defaultValue = "20") int size) {
+        CourseSearchPage results = courseService.searchCourses(query, page, size);
+        List<Map<String, Object>> courses = new ArrayList<>();
+        
+        for (CourseSearchPage.Hit hit : results.getHits()) {
+            Course course = hit.getCourse();
+            Map<String, Object> courseData = new HashMap<>();
+            courseData.put("id", course.getId());
+            courseData.put("title", course.getTitle());
+            courseData.put("description", course.getDescription());
+            courseData.put("category", course.getCategory());
+            courseData.put("difficulty", course.getDifficultyLevel() != null ? course.getDifficultyLevel().name() : null);
+            courseData.put("price", course.getPrice());
+            courseData.put("rating", courseReviewService.getCourseRating(course.getId()).getAverage());
+            courseData.put("thumbnailUrl", course.getThumbnailUrl());
+            courseData.put("score", hit.getScore());
+            courses.add(courseData);
         }
         
+        Map<String, Object> response = new HashMap<>();
+        response.put("query", results.getQuery());
+        response.put("page", results.getPage());
+        response.put("size", results.getSize());
+        response.put("total", results.getTotal());
+        response.put("hasNext", results.hasNext());
+        response.put("courses", courses);
         return ResponseEntity.ok(response);
     }
     
@@ -191,15 +258,103 @@ public class ApiController {
         courseData.put("difficulty", course.getDifficultyLevel().name());
         courseData.put("price", course.getPrice());
         courseData.put("enrollmentCount", course.getEnrollmentCount());
-        courseData.put("rating", course.getRating());
+        courseData.put("rating", courseReviewService.getCourseRating(course.getId()).getAverage());
         courseData.put("thumbnailUrl", course.getThumbnailUrl());
         courseData.put("instructor", course.getInstructor().getFullName());
+        courseData.put("reviewCount", courseReviewService.getCourseRating(course.getId()).getReviewCount());
         courseData.put("modules", course.getModules().size());
         courseData.put("createdAt", course.getCreatedAt());
         
         return ResponseEntity.ok(courseData);
     }
     
+    @GetMapping("/courses/{id}/rating")
+    public ResponseEntity<Map<String, Object>> getCourseRating(@PathVariable Long id) {
+        CourseRating rating = courseReviewService.getCourseRating(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("courseId", id);
+        response.put("reviewCount", rating.getReviewCount());
+        response.put("average", rating.getAverage());
+        response.put("bayesianScore", rating.getBayesianScore());
+        response.put("histogram", rating.getHistogram());
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/courses/{id}/reviews")
+    public ResponseEntity<Map<String, Object>> getCourseReviews(@PathVariable Long id,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer size) {
+        CursorPage<CourseReview> page;
+        try {
+            page = courseReviewService.findReviews(id, cursor, size);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        List<Map<String, Object>> reviews = new ArrayList<>();
+        for (CourseReview review : page.getItems()) {
+            Map<String, Object> reviewData = new HashMap<>();
+            reviewData.put("id", review.getId());
+            reviewData.put("student", review.getStudent().getFullName());
+            reviewData.put("rating", review.getRating());
+            reviewData.put("comment", review.getComment());
+            reviewData.put("createdAt", review.getCreatedAt());
+            reviewData.put("updatedAt", review.getUpdatedAt());
+            reviews.add(reviewData);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("reviews", reviews);
+        response.put("nextCursor", page.getNextCursor());
+        
+        String next = CursorLinks.next(page);
+        if (next != null) {
+            return ResponseEntity.ok().header(HttpHeaders.LINK, next).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
+    @PutMapping("/courses/{id}/review")
+    public ResponseEntity<Map<String, Object>> submitReview(@PathVariable Long id,
+                                                            @AuthenticationPrincipal User user,
+                                                            @RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        if (user == null) {
+            response.put("error", "User not authenticated");
+            return ResponseEntity.status(401).body(response);
+        }
+        
+        try {
+            Object rating = request.get("rating");
+            Object comment = request.get("comment");
+            CourseReview review = courseReviewService.submitReview(user.getId(), id,
+                rating != null ? Integer.valueOf(rating.toString()) : null,
+                comment != null ? comment.toString() : null);
+            response.put("id", review.getId());
+            response.put("rating", review.getRating());
+            response.put("comment", review.getComment());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(403).body(response);
+        }
+    }
+    
+    @DeleteMapping("/courses/{id}/review")
+    public ResponseEntity<Void> deleteReview(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        if (user == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return courseReviewService.deleteReview(user.getId(), id)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+    
     @PostMapping("/courses/{id}/enroll")
     public ResponseEntity<Map<String, String>> enrollInCourse(@PathVariable Long id, 
                                                             @AuthenticationPrincipal User user) {
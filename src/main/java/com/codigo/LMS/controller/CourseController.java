@@ -1,6 +1,7 @@
 package com.codigo.LMS.controller;
 
 import com.codigo.LMS.entity.*;
+import com.codigo.LMS.service.EntitlementCheckService;
 import com.codigo.LMS.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -21,6 +22,9 @@ public class CourseController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private EntitlementCheckService entitlementCheckService;
+    
     @GetMapping
     public String courseList(Model model) {
         // For now, we'll create sample courses
@@ -97,11 +101,8 @@ public class CourseController {
             return "redirect:/courses";
         }
         
-        // Check enrollment
-        boolean isEnrolled = user.getEnrollments().stream()
-            .anyMatch(enrollment -> enrollment.getCourse().getId().equals(courseId));
-        
-        if (!isEnrolled) {
+        // Course grant, free preview or lesson-level override
+        if (!entitlementCheckService.canAccessLesson(user.getId(), lessonId)) {
             return "redirect:/courses/" + courseId;
         }
         
@@ -192,18 +193,7 @@ public class CourseController {
         
         if (enrollment != null) {
             // Calculate progress based on completed lessons
-            Course course = enrollment.getCourse();
-            int totalLessons = course.getModules().stream()
-                .mapToInt(module -> module.getLessons().size())
-                .sum();
-            
-            long completedLessons = user.getProgressRecords().stream()
-                .filter(progress -> progress.getStatus() == UserProgress.ProgressStatus.COMPLETED)
-                .filter(progress -> course.getModules().stream()
-                    .anyMatch(module -> module.getLessons().contains(progress.getLesson())))
-                .count();
-            
-            double progressPercentage = totalLessons > 0 ? (completedLessons * 100.0 / totalLessons) : 0.0;
+            double progressPercentage = enrollment.getCourse().completionPercentage(user.getProgressRecords());
             enrollment.setProgressPercentage(progressPercentage);
             
             if (progressPercentage >= 100.0) {
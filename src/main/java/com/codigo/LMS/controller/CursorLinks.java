@@ -0,0 +1,32 @@
+package com.codigo.LMS.controller;
+
+import com.codigo.LMS.dto.CursorPage;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * {@code Link: <...>; rel="next"} headers for keyset-paginated listings: the current
+ * request's URL with its {@code cursor} parameter moved to the next page.
+ */
+final class CursorLinks {
+    
+    private CursorLinks() {}
+    
+    static String next(CursorPage<?> page) {
+        if (!page.hasNext()) {
+            return null;
+        }
+        String url = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("cursor", page.getNextCursor())
+            .toUriString();
+        return "<" + url + ">; rel=\"next\"";
+    }
+    
+    static void addNext(HttpServletResponse response, CursorPage<?> page) {
+        String link = next(page);
+        if (link != null) {
+            response.addHeader(HttpHeaders.LINK, link);
+        }
+    }
+}
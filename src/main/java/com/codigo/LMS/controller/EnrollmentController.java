@@ -2,16 +2,31 @@ package com.codigo.LMS.controller;
 
 import com.codigo.LMS.dto.*;
 import com.codigo.LMS.entity.*;
+import com.codigo.LMS.service.BulkEnrollmentJobService;
+import com.codigo.LMS.service.EnrollmentEventDispatcher;
+import com.codigo.LMS.service.EnrollmentFeedService;
 import com.codigo.LMS.service.EnrollmentService;
 import com.codigo.LMS.service.CourseService;
 import com.codigo.LMS.service.VoucherService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +34,8 @@ import java.util.Map;
 @RequestMapping("/enrollment")
 public class EnrollmentController {
     
+    private static final int MAX_ELIGIBILITY_COURSES = 1000;
+    
     @Autowired
     private EnrollmentService enrollmentService;
     
@@ -28,6 +45,15 @@ public class EnrollmentController {
     @Autowired
     private VoucherService voucherService;
     
+    @Autowired
+    private BulkEnrollmentJobService bulkEnrollmentJobService;
+    
+    @Autowired
+    private EnrollmentFeedService enrollmentFeedService;
+    
+    @Autowired
+    private EnrollmentEventDispatcher enrollmentEventDispatcher;
+    
     /**
      * Show enrollment page for a course
      */
@@ -147,6 +173,31 @@ public class EnrollmentController {
         }
     }
     
+    /**
+     * Current user's waitlist position
+     */
+    @GetMapping("/waitlist-position/{courseId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getWaitlistPosition(@PathVariable Long courseId,
+                                                                  @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            User currentUser = courseService.getCurrentUser(userDetails);
+            Integer position = enrollmentService.getWaitlistPosition(currentUser.getId(), courseId);
+            
+            Map<String, Object> response = new java.util.HashMap<>();
+            response.put("waitlisted", position != null);
+            response.put("position", position);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> response = Map.of(
+                "error", "Failed to get waitlist position: " + e.getMessage()
+            );
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
     /**
      * Validate prerequisites
      */
@@ -162,6 +213,7 @@ public class EnrollmentController {
                 "met", result.isMet(),
                 "missing", result.getMissingPrerequisites(),
                 "completed", result.getCompletedPrerequisites(),
+                "path", result.getRemainingPath(),
                 "canRequestWaiver", result.isCanRequestWaiver()
             );
             
@@ -175,16 +227,57 @@ public class EnrollmentController {
         }
     }
     
+    /**
+     * Prerequisite eligibility of the current user for many courses at once, for
+     * catalog badges: {@code eligible} course ids and the missing prerequisites of the rest
+     */
+    @GetMapping("/eligibility")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> checkEligibility(@RequestParam List<Long> courseIds,
+                                                                @AuthenticationPrincipal UserDetails userDetails) {
+        if (courseIds.size() > MAX_ELIGIBILITY_COURSES) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "At most " + MAX_ELIGIBILITY_COURSES + " courses per request"));
+        }
+        try {
+            User currentUser = courseService.getCurrentUser(userDetails);
+            Map<Long, List<Long>> missing = enrollmentService.checkPrerequisiteEligibility(currentUser.getId(), courseIds);
+            
+            List<Long> eligible = new ArrayList<>();
+            Map<Long, List<Long>> blocked = new LinkedHashMap<>();
+            missing.forEach((courseId, prerequisites) -> {
+                if (prerequisites.isEmpty()) {
+                    eligible.add(courseId);
+                } else {
+                    blocked.put(courseId, prerequisites);
+                }
+            });
+            
+            return ResponseEntity.ok(Map.of("eligible", eligible, "missing", blocked));
+            
+        } catch (Exception e) {
+            Map<String, Object> response = Map.of(
+                "error", "Failed to check eligibility: " + e.getMessage()
+            );
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
     /**
      * My enrollments page
      */
     @GetMapping("/my-enrollments")
-    public String myEnrollments(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+    public String myEnrollments(@AuthenticationPrincipal UserDetails userDetails,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(required = false) Integer size,
+                                HttpServletResponse response, Model model) {
         try {
             User currentUser = courseService.getCurrentUser(userDetails);
-            List<Enrollment> enrollments = enrollmentService.findByStudentId(currentUser.getId());
+            CursorPage<Enrollment> enrollments = enrollmentService.findByStudentId(currentUser.getId(), cursor, size);
+            CursorLinks.addNext(response, enrollments);
             
-            model.addAttribute("enrollments", enrollments);
+            model.addAttribute("enrollments", enrollments.getItems());
+            model.addAttribute("nextCursor", enrollments.getNextCursor());
             model.addAttribute("currentUser", currentUser);
             
             return "enrollment/my-enrollments";
@@ -229,7 +322,10 @@ public class EnrollmentController {
      * Instructor: View pending approvals
      */
     @GetMapping("/pending-approvals")
-    public String pendingApprovals(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+    public String pendingApprovals(@AuthenticationPrincipal UserDetails userDetails,
+                                   @RequestParam(required = false) String cursor,
+                                   @RequestParam(required = false) Integer size,
+                                   HttpServletResponse response, Model model) {
         try {
             User currentUser = courseService.getCurrentUser(userDetails);
             
@@ -238,8 +334,11 @@ public class EnrollmentController {
                 return "error/403";
             }
             
-            List<Enrollment> pendingApprovals = enrollmentService.findPendingApprovalsByInstructor(currentUser.getId());
-            model.addAttribute("pendingApprovals", pendingApprovals);
+            CursorPage<Enrollment> pendingApprovals =
+                enrollmentService.findPendingApprovalsByInstructor(currentUser.getId(), cursor, size);
+            CursorLinks.addNext(response, pendingApprovals);
+            model.addAttribute("pendingApprovals", pendingApprovals.getItems());
+            model.addAttribute("nextCursor", pendingApprovals.getNextCursor());
             model.addAttribute("currentUser", currentUser);
             
             return "enrollment/pending-approvals";
@@ -336,7 +435,9 @@ public class EnrollmentController {
                 "message", result.getMessage(),
                 "successCount", result.getSuccessCount(),
                 "failureCount", result.getFailureCount(),
-                "failures", result.getFailures()
+                "waitlistedCount", result.getWaitlistedCount(),
+                "failures", result.getFailures(),
+                "results", result.getResults()
             );
             
             return ResponseEntity.ok(response);
@@ -351,7 +452,163 @@ public class EnrollmentController {
     }
     
     /**
-     * Real-time enrollment updates via WebSocket endpoint
+     * Admin: Upload a CSV roster as a background bulk enrollment job
+     */
+    @PostMapping("/bulk-enroll/jobs")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> submitBulkEnrollmentJob(@RequestParam("file") MultipartFile file,
+                                                                      @RequestParam Long courseId,
+                                                                      @RequestParam(required = false) String voucherCode,
+                                                                      @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            User currentUser = courseService.getCurrentUser(userDetails);
+            
+            if (!hasRole(currentUser, "ADMIN")) {
+                Map<String, Object> response = Map.of(
+                    "success", false,
+                    "message", "Insufficient permissions"
+                );
+                return ResponseEntity.status(403).body(response);
+            }
+            
+            if (file.isEmpty()) {
+                Map<String, Object> response = Map.of(
+                    "success", false,
+                    "message", "Roster file is empty"
+                );
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            BulkEnrollmentJob job = bulkEnrollmentJobService.submit(courseId, file.getInputStream(),
+                file.getOriginalFilename(), voucherCode, currentUser.getId());
+            
+            Map<String, Object> response = createJobResponse(job);
+            response.put("success", true);
+            return ResponseEntity.accepted().body(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> response = Map.of(
+                "success", false,
+                "message", "Bulk enrollment upload failed: " + e.getMessage()
+            );
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    /**
+     * Admin: Poll the progress of a bulk enrollment job
+     */
+    @GetMapping("/bulk-enroll/jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getBulkEnrollmentJob(@PathVariable Long jobId,
+                                                                   @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = courseService.getCurrentUser(userDetails);
+        if (!hasRole(currentUser, "ADMIN")) {
+            return ResponseEntity.status(403).body(Map.of("success", false, "message", "Insufficient permissions"));
+        }
+        
+        BulkEnrollmentJob job = bulkEnrollmentJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(createJobResponse(job));
+    }
+    
+    /**
+     * Admin: Download the failed rows of a bulk enrollment job as CSV
+     */
+    @GetMapping("/bulk-enroll/jobs/{jobId}/failures")
+    public ResponseEntity<StreamingResponseBody> downloadBulkEnrollmentFailures(@PathVariable Long jobId,
+                                                                               @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = courseService.getCurrentUser(userDetails);
+        if (!hasRole(currentUser, "ADMIN")) {
+            return ResponseEntity.status(403).build();
+        }
+        if (bulkEnrollmentJobService.getJob(jobId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            bulkEnrollmentJobService.writeFailureReport(jobId, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bulk-enrollment-" + jobId + "-failures.csv\"")
+            .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+            .body(body);
+    }
+    
+    /**
+     * Admin: Enrollment side effects that failed after every retry, newest first
+     */
+    @GetMapping("/events/dead-letters")
+    @ResponseBody
+    public ResponseEntity<Object> getEnrollmentEventDeadLetters(@RequestParam(defaultValue = "50") int limit,
+                                                                @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = courseService.getCurrentUser(userDetails);
+        if (!hasRole(currentUser, "ADMIN")) {
+            return ResponseEntity.status(403).body(Map.of("success", false, "message", "Insufficient permissions"));
+        }
+        
+        List<Map<String, Object>> deadLetters = new ArrayList<>();
+        for (EnrollmentEventDeadLetter deadLetter : enrollmentEventDispatcher.getDeadLetters(Math.max(1, Math.min(limit, 500)))) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", deadLetter.getId());
+            row.put("handler", deadLetter.getHandler());
+            row.put("eventType", deadLetter.getEventType());
+            row.put("enrollmentId", deadLetter.getEnrollmentId());
+            row.put("attempts", deadLetter.getAttempts());
+            row.put("lastError", deadLetter.getLastError());
+            row.put("createdAt", deadLetter.getCreatedAt());
+            deadLetters.add(row);
+        }
+        return ResponseEntity.ok(deadLetters);
+    }
+    
+    /**
+     * Admin: Run a dead-lettered enrollment event through its handler again
+     */
+    @PostMapping("/events/dead-letters/{id}/redeliver")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> redeliverEnrollmentEvent(@PathVariable Long id,
+                                                                        @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = courseService.getCurrentUser(userDetails);
+        if (!hasRole(currentUser, "ADMIN")) {
+            return ResponseEntity.status(403).body(Map.of("success", false, "message", "Insufficient permissions"));
+        }
+        
+        if (!enrollmentEventDispatcher.redeliver(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().body(Map.of("success", true));
+    }
+    
+    /**
+     * Live enrollment counters as Server-Sent Events. Answers 503 when this node is at its
+     * connection cap; the page then falls back to polling {@code /updates/{courseId}}.
+     */
+    @GetMapping(value = "/stream/{courseId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public ResponseEntity<SseEmitter> streamEnrollmentUpdates(@PathVariable Long courseId,
+                                                              @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (courseService.findById(courseId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = enrollmentFeedService.subscribe(courseId, lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .build();
+        }
+        // Stops nginx from buffering the stream
+        return ResponseEntity.ok()
+            .header("X-Accel-Buffering", "no")
+            .body(emitter);
+    }
+    
+    /**
+     * Polling fallback for clients that cannot hold an event stream
      */
     @GetMapping("/updates/{courseId}")
     @ResponseBody
@@ -380,4 +637,22 @@ public class EnrollmentController {
     private boolean hasRole(User user, String role) {
         return user.getRole().name().equals(role);
     }
+    
+    private Map<String, Object> createJobResponse(BulkEnrollmentJob job) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jobId", job.getId());
+        response.put("courseId", job.getCourseId());
+        response.put("status", job.getStatus());
+        response.put("totalRows", job.getTotalRows());
+        response.put("processedRows", job.getProcessedRows());
+        response.put("succeededRows", job.getSucceededRows());
+        response.put("waitlistedRows", job.getWaitlistedRows());
+        response.put("failedRows", job.getFailedRows());
+        response.put("createdAt", job.getCreatedAt());
+        response.put("startedAt", job.getStartedAt());
+        response.put("finishedAt", job.getFinishedAt());
+        response.put("errorMessage", job.getErrorMessage());
+        response.put("failureReportUrl", "/enrollment/bulk-enroll/jobs/" + job.getId() + "/failures");
+        return response;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.codigo.LMS.controller;
 
+import com.codigo.LMS.service.CourseService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,10 +10,15 @@ import org.springframework.web.bind.annotation.ResponseBody;
 @Controller
 public class HomeController {
 
+    @Autowired
+    private CourseService courseService;
+
     @GetMapping("/")
     public String home(Model model) {
         model.addAttribute("pageTitle", "Home");
         model.addAttribute("pageDescription", "Experience the future of education with our innovative LMS platform");
+        model.addAttribute("popularCourses", courseService.getMostPopularCourses());
+        model.addAttribute("trendingCourses", courseService.getTrendingCourses());
         return "index";
     }
 
@@ -0,0 +1,70 @@
+package com.codigo.LMS.controller;
+
+import com.codigo.LMS.service.PaymentWebhookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Payment processor callbacks. Deliveries are stored and acknowledged at once, and
+ * applied in the background by {@link PaymentWebhookService}.
+ */
+@RestController
+@RequestMapping("/webhooks")
+public class PaymentWebhookController {
+
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Shared with the payment gateway; webhooks are refused while it is not configured
+    @Value("${lms.payments.webhooks.secret:}")
+    private String secret;
+
+    /**
+     * Payment status change, as {@code {"id": "<event id>", "paymentId": 123, "status": "succeeded|failed"}}.
+     * Answers 202 for a new event and 200 for a redelivery.
+     */
+    @PostMapping("/payments")
+    public ResponseEntity<Map<String, Object>> receivePaymentWebhook(@RequestBody String payload,
+                                                                     @RequestHeader(value = "X-Webhook-Secret", required = false) String providedSecret) {
+        if (!isAuthorized(providedSecret)) {
+            return ResponseEntity.status(401).body(Map.of("success", false, "message", "Invalid webhook secret"));
+        }
+
+        JsonNode event;
+        try {
+            event = objectMapper.readTree(payload);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Malformed webhook payload"));
+        }
+        String eventId = event.path("id").asText("");
+        String status = event.path("status").asText("");
+        if (eventId.isBlank() || eventId.length() > 255 || !event.path("paymentId").canConvertToLong() || status.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "id, paymentId and status are required"));
+        }
+
+        boolean accepted = paymentWebhookService.ingest(eventId, event.path("paymentId").asLong(), status, payload);
+        if (!accepted) {
+            return ResponseEntity.ok(Map.of("success", true, "duplicate", true));
+        }
+        return ResponseEntity.accepted().body(Map.of("success", true));
+    }
+
+    private boolean isAuthorized(String providedSecret) {
+        if (secret == null || secret.isBlank() || providedSecret == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), providedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -10,6 +10,8 @@ public class BulkEnrollmentResult {
     private int successCount;
     private int failureCount;
     private List<Map<String, Object>> failures;
+    private int waitlistedCount;
+    private List<Map<String, Object>> results;
     
     public BulkEnrollmentResult() {}
     
@@ -21,6 +23,13 @@ public class BulkEnrollmentResult {
         this.failures = failures;
     }
     
+    public BulkEnrollmentResult(boolean success, String message, int successCount, int failureCount, List<Map<String, Object>> failures,
+                                int waitlistedCount, List<Map<String, Object>> results) {
+        this(success, message, successCount, failureCount, failures);
+        this.waitlistedCount = waitlistedCount;
+        this.results = results;
+    }
+    
     public boolean isSuccess() { return success; }
     public void setSuccess(boolean success) { this.success = success; }
     
@@ -35,4 +44,10 @@ public class BulkEnrollmentResult {
     
     public List<Map<String, Object>> getFailures() { return failures; }
     public void setFailures(List<Map<String, Object>> failures) { this.failures = failures; }
+    
+    public int getWaitlistedCount() { return waitlistedCount; }
+    public void setWaitlistedCount(int waitlistedCount) { this.waitlistedCount = waitlistedCount; }
+    
+    public List<Map<String, Object>> getResults() { return results; }
+    public void setResults(List<Map<String, Object>> results) { this.results = results; }
 }
\ No newline at end of file
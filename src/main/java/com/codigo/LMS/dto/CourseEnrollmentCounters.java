@@ -0,0 +1,36 @@
+package com.codigo.LMS.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of a course's seat ledger counters, as served from memory.
+ */
+public class CourseEnrollmentCounters {
+    
+    private final Long courseId;
+    private final Integer capacity;
+    private final long enrolled;
+    private final long held;
+    private final long waitlisted;
+    private final long pendingApprovals;
+    private final LocalDateTime updatedAt;
+    
+    public CourseEnrollmentCounters(Long courseId, Integer capacity, long enrolled, long held,
+                                    long waitlisted, long pendingApprovals, LocalDateTime updatedAt) {
+        this.courseId = courseId;
+        this.capacity = capacity;
+        this.enrolled = enrolled;
+        this.held = held;
+        this.waitlisted = waitlisted;
+        this.pendingApprovals = pendingApprovals;
+        this.updatedAt = updatedAt;
+    }
+    
+    public Long getCourseId() { return courseId; }
+    public Integer getCapacity() { return capacity; }
+    public long getEnrolled() { return enrolled; }
+    public long getHeld() { return held; }
+    public long getWaitlisted() { return waitlisted; }
+    public long getPendingApprovals() { return pendingApprovals; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,44 @@
+package com.codigo.LMS.dto;
+
+import com.codigo.LMS.entity.Course.DifficultyLevel;
+import com.codigo.LMS.entity.EnrollmentPolicy;
+import com.codigo.LMS.entity.PriceBucket;
+
+/**
+ * Catalog filters and page position, bound from the {@code /api/courses} query string.
+ * Unset filters match every course.
+ */
+public class CourseFilter {
+    
+    private String category;
+    private DifficultyLevel difficulty;
+    private PriceBucket price;
+    private EnrollmentPolicy policy;
+    private String search;
+    private String cursor;
+    private Integer size;
+    
+    public CourseFilter() {}
+    
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    
+    public DifficultyLevel getDifficulty() { return difficulty; }
+    public void setDifficulty(DifficultyLevel difficulty) { this.difficulty = difficulty; }
+    
+    public PriceBucket getPrice() { return price; }
+    public void setPrice(PriceBucket price) { this.price = price; }
+    
+    public EnrollmentPolicy getPolicy() { return policy; }
+    public void setPolicy(EnrollmentPolicy policy) { this.policy = policy; }
+    
+    public String getSearch() { return search; }
+    public void setSearch(String search) { this.search = search; }
+    
+    /** Where the previous page ended; unset for the first page. */
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+    
+    public Integer getSize() { return size; }
+    public void setSize(Integer size) { this.size = size; }
+}
@@ -0,0 +1,54 @@
+package com.codigo.LMS.dto;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a course's review aggregates, as served from memory.
+ *
+ * The Bayesian score pulls the average toward the platform mean as if the course had
+ * {@code priorWeight} extra reviews at that mean, so a single 5-star review does not
+ * outrank fifty 4.8-star ones.
+ */
+public class CourseRating {
+
+    private final Long courseId;
+    private final long reviewCount;
+    private final long ratingSum;
+    private final int[] stars;
+    private final double bayesianScore;
+
+    public CourseRating(Long courseId, long reviewCount, long ratingSum, int[] stars, double bayesianScore) {
+        this.courseId = courseId;
+        this.reviewCount = reviewCount;
+        this.ratingSum = ratingSum;
+        this.stars = Arrays.copyOf(stars, 5);
+        this.bayesianScore = bayesianScore;
+    }
+
+    /**
+     * The same aggregates scored against a platform mean.
+     */
+    public CourseRating scored(double priorMean, double priorWeight) {
+        double score = priorWeight + reviewCount == 0 ? 0 : (priorWeight * priorMean + ratingSum) / (priorWeight + reviewCount);
+        return new CourseRating(courseId, reviewCount, ratingSum, stars, score);
+    }
+
+    public Long getCourseId() { return courseId; }
+    public long getReviewCount() { return reviewCount; }
+    public long getRatingSum() { return ratingSum; }
+    public double getAverage() { return reviewCount == 0 ? 0 : (double) ratingSum / reviewCount; }
+    public double getBayesianScore() { return bayesianScore; }
+
+    /**
+     * Reviews per star, 1 to 5.
+     */
+    public Map<Integer, Integer> getHistogram() {
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        for (int star = 1; star <= 5; star++) {
+            histogram.put(star, stars[star - 1]);
+        }
+        return histogram;
+    }
+}
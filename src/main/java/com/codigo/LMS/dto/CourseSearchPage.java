@@ -0,0 +1,60 @@
+package com.codigo.LMS.dto;
+
+import com.codigo.LMS.entity.Course;
+
+import java.util.List;
+
+/**
+ * One page of course search results, best match first.
+ */
+public class CourseSearchPage {
+
+    private final String query;
+    private final int page;
+    private final int size;
+    private final long total;
+    private final List<Hit> hits;
+
+    public CourseSearchPage(String query, int page, int size, long total, List<Hit> hits) {
+        this.query = query;
+        this.page = page;
+        this.size = size;
+        this.total = total;
+        this.hits = hits;
+    }
+
+    public static CourseSearchPage empty(String query, int page, int size) {
+        return new CourseSearchPage(query, page, size, 0, List.of());
+    }
+
+    public String getQuery() { return query; }
+    public int getPage() { return page; }
+    public int getSize() { return size; }
+    public long getTotal() { return total; }
+    public List<Hit> getHits() { return hits; }
+
+    public boolean hasNext() {
+        return (long) (page + 1) * size < total;
+    }
+
+    /**
+     * A matching course and its rank; the course itself is attached by {@code CourseService}.
+     */
+    public static class Hit {
+
+        private final Long courseId;
+        private final double score;
+        private Course course;
+
+        public Hit(Long courseId, double score) {
+            this.courseId = courseId;
+            this.score = score;
+        }
+
+        public Long getCourseId() { return courseId; }
+        public double getScore() { return score; }
+
+        public Course getCourse() { return course; }
+        public void setCourse(Course course) { this.course = course; }
+    }
+}
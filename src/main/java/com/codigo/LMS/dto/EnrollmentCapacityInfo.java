@@ -4,6 +4,7 @@ public class EnrollmentCapacityInfo {
     
     private Integer capacity;
     private long enrolled;
+    private long seatsHeld;
     private Integer available;
     private long waitlistSize;
     private boolean atCapacity;
@@ -18,12 +19,24 @@ public class EnrollmentCapacityInfo {
         this.atCapacity = capacity != null && enrolled >= capacity;
     }
     
+    public EnrollmentCapacityInfo(Integer capacity, long enrolled, long seatsHeld, long waitlistSize) {
+        this.capacity = capacity;
+        this.enrolled = enrolled;
+        this.seatsHeld = seatsHeld;
+        this.available = capacity != null ? Math.max(0, capacity - (int)(enrolled + seatsHeld)) : null;
+        this.waitlistSize = waitlistSize;
+        this.atCapacity = capacity != null && enrolled + seatsHeld >= capacity;
+    }
+    
     public Integer getCapacity() { return capacity; }
     public void setCapacity(Integer capacity) { this.capacity = capacity; }
     
     public long getEnrolled() { return enrolled; }
     public void setEnrolled(long enrolled) { this.enrolled = enrolled; }
     
+    public long getSeatsHeld() { return seatsHeld; }
+    public void setSeatsHeld(long seatsHeld) { this.seatsHeld = seatsHeld; }
+    
     public Integer getAvailable() { return available; }
     public void setAvailable(Integer available) { this.available = available; }
     
@@ -10,6 +10,7 @@ public class EnrollmentStats {
     private LocalDateTime lastUpdated;
     private double enrollmentRate;
     private long pendingApprovals;
+    private long seatsHeld;
     
     public EnrollmentStats() {
         this.lastUpdated = LocalDateTime.now();
@@ -27,6 +28,15 @@ public class EnrollmentStats {
         }
     }
     
+    public EnrollmentStats(long enrolled, Integer capacity, long waitlistSize, long pendingApprovals,
+                           long seatsHeld, LocalDateTime lastUpdated) {
+        this(enrolled, capacity, waitlistSize, pendingApprovals);
+        this.seatsHeld = seatsHeld;
+        if (lastUpdated != null) {
+            this.lastUpdated = lastUpdated;
+        }
+    }
+    
     public long getEnrolled() { return enrolled; }
     public void setEnrolled(long enrolled) { this.enrolled = enrolled; }
     
@@ -44,4 +54,7 @@ public class EnrollmentStats {
     
     public long getPendingApprovals() { return pendingApprovals; }
     public void setPendingApprovals(long pendingApprovals) { this.pendingApprovals = pendingApprovals; }
+    
+    public long getSeatsHeld() { return seatsHeld; }
+    public void setSeatsHeld(long seatsHeld) { this.seatsHeld = seatsHeld; }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.codigo.LMS.dto;
+
+import com.codigo.LMS.entity.Course;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of the courses matching a {@link CourseFilter}, with the facet counts for
+ * the whole filter.
+ *
+ * Each facet's counts apply every filter except that facet's own, so they show how many
+ * courses picking a different value would give: facet name to value to course count.
+ */
+public class FacetedCourses {
+    
+    private final CursorPage<Course> page;
+    private final int total;
+    private final Map<String, Map<String, Integer>> facets;
+    
+    public FacetedCourses(CursorPage<Course> page, int total, Map<String, Map<String, Integer>> facets) {
+        this.page = page;
+        this.total = total;
+        this.facets = facets;
+    }
+    
+    public CursorPage<Course> getPage() { return page; }
+    public List<Course> getCourses() { return page.getItems(); }
+    public Map<String, Map<String, Integer>> getFacets() { return facets; }
+    
+    /** Courses matching the filter across all pages. */
+    public int getTotal() { return total; }
+}
@@ -0,0 +1,63 @@
+package com.codigo.LMS.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by (timestamp, id) or by id alone: the sort key of the
+ * last row served. The next page is read with a range condition on those keys, so it
+ * costs the same however deep it is. Sent to clients as an opaque URL-safe string.
+ */
+public final class KeysetCursor {
+    
+    private static final String SEPARATOR = "|";
+    
+    private final LocalDateTime at;
+    private final Long id;
+    
+    private KeysetCursor(LocalDateTime at, Long id) {
+        this.at = at;
+        this.id = id;
+    }
+    
+    public static KeysetCursor of(LocalDateTime at, Long id) {
+        return new KeysetCursor(at, id);
+    }
+    
+    public static KeysetCursor of(Long id) {
+        return new KeysetCursor(null, id);
+    }
+    
+    /**
+     * The cursor a client sent back, or null for none (the first page).
+     *
+     * @throws IllegalArgumentException if it was not issued by {@link #encode()}
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String at = decoded.substring(0, separator);
+            Long id = Long.valueOf(decoded.substring(separator + 1));
+            return new KeysetCursor(at.isEmpty() ? null : LocalDateTime.parse(at), id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+    
+    public String encode() {
+        String raw = (at != null ? at.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public LocalDateTime getAt() { return at; }
+    public Long getId() { return id; }
+}
@@ -9,6 +9,7 @@ public class PrerequisiteCheckResult {
     private List<Course> missingPrerequisites;
     private List<Course> completedPrerequisites;
     private boolean canRequestWaiver;
+    private List<Course> remainingPath;
     
     public PrerequisiteCheckResult() {}
     
@@ -30,4 +31,10 @@ public class PrerequisiteCheckResult {
     
     public boolean isCanRequestWaiver() { return canRequestWaiver; }
     public void setCanRequestWaiver(boolean canRequestWaiver) { this.canRequestWaiver = canRequestWaiver; }
+    
+    /**
+     * Every course, direct or transitive, still to complete first, in an order they can be taken
+     */
+    public List<Course> getRemainingPath() { return remainingPath; }
+    public void setRemainingPath(List<Course> remainingPath) { this.remainingPath = remainingPath; }
 }
\ No newline at end of file
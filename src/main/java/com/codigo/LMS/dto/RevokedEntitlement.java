@@ -0,0 +1,32 @@
+package com.codigo.LMS.dto;
+
+import com.codigo.LMS.entity.ResourceType;
+
+public class RevokedEntitlement {
+    
+    private Long entitlementId;
+    private Long userId;
+    private ResourceType resourceType;
+    private Long resourceId;
+    
+    public RevokedEntitlement() {}
+    
+    public RevokedEntitlement(Long entitlementId, Long userId, ResourceType resourceType, Long resourceId) {
+        this.entitlementId = entitlementId;
+        this.userId = userId;
+        this.resourceType = resourceType;
+        this.resourceId = resourceId;
+    }
+    
+    public Long getEntitlementId() { return entitlementId; }
+    public void setEntitlementId(Long entitlementId) { this.entitlementId = entitlementId; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public ResourceType getResourceType() { return resourceType; }
+    public void setResourceType(ResourceType resourceType) { this.resourceType = resourceType; }
+    
+    public Long getResourceId() { return resourceId; }
+    public void setResourceId(Long resourceId) { this.resourceId = resourceId; }
+}
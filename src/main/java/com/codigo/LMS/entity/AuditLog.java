@@ -95,6 +95,11 @@ public class AuditLog {
         return log;
     }
     
+    public static String enrollmentCreatedPayload(Long studentId, Long courseId, EnrollmentStatus status, EnrollmentSource source) {
+        return String.format("{\"student_id\":%d,\"course_id\":%d,\"status\":\"%s\",\"source\":\"%s\"}",
+            studentId, courseId, status, source);
+    }
+    
     public static AuditLog enrollmentApproved(Long actorId, Long enrollmentId, Long targetUserId) {
         AuditLog log = new AuditLog(actorId, "ENROLLMENT_APPROVED", "enrollment", enrollmentId);
         log.setTargetUserId(targetUserId);
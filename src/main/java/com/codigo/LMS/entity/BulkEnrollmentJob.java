@@ -0,0 +1,139 @@
+package com.codigo.LMS.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * A background bulk enrollment of an uploaded roster. The roster itself is staged in
+ * {@link BulkEnrollmentJobRow}, so a job interrupted by a restart resumes from its
+ * pending rows. {@code updatedAt} doubles as the worker heartbeat.
+ */
+@Entity
+@Table(name = "bulk_enrollment_jobs", indexes = {
+    @Index(name = "idx_bulk_job_status", columnList = "status,updated_at")
+})
+public class BulkEnrollmentJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+    
+    @NotNull
+    @Column(name = "created_by", nullable = false)
+    private Long createdBy;
+    
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private BulkEnrollmentJobStatus status = BulkEnrollmentJobStatus.QUEUED;
+    
+    @Column(name = "voucher_code")
+    private String voucherCode;
+    
+    @Column(name = "file_name")
+    private String fileName;
+    
+    @Column(name = "total_rows", nullable = false)
+    private Integer totalRows = 0;
+    
+    @Column(name = "processed_rows", nullable = false)
+    private Integer processedRows = 0;
+    
+    @Column(name = "succeeded_rows", nullable = false)
+    private Integer succeededRows = 0;
+    
+    @Column(name = "waitlisted_rows", nullable = false)
+    private Integer waitlistedRows = 0;
+    
+    @Column(name = "failed_rows", nullable = false)
+    private Integer failedRows = 0;
+    
+    @Column(name = "error_message")
+    private String errorMessage;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+    
+    // Constructors
+    public BulkEnrollmentJob() {}
+    
+    public BulkEnrollmentJob(Long courseId, Long createdBy, String voucherCode, String fileName) {
+        this.courseId = courseId;
+        this.createdBy = createdBy;
+        this.voucherCode = voucherCode;
+        this.fileName = fileName;
+    }
+    
+    public boolean isFinished() {
+        return status == BulkEnrollmentJobStatus.COMPLETED || status == BulkEnrollmentJobStatus.FAILED;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+    
+    public Long getCreatedBy() { return createdBy; }
+    public void setCreatedBy(Long createdBy) { this.createdBy = createdBy; }
+    
+    public BulkEnrollmentJobStatus getStatus() { return status; }
+    public void setStatus(BulkEnrollmentJobStatus status) { this.status = status; }
+    
+    public String getVoucherCode() { return voucherCode; }
+    public void setVoucherCode(String voucherCode) { this.voucherCode = voucherCode; }
+    
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    
+    public Integer getTotalRows() { return totalRows; }
+    public void setTotalRows(Integer totalRows) { this.totalRows = totalRows; }
+    
+    public Integer getProcessedRows() { return processedRows; }
+    public void setProcessedRows(Integer processedRows) { this.processedRows = processedRows; }
+    
+    public Integer getSucceededRows() { return succeededRows; }
+    public void setSucceededRows(Integer succeededRows) { this.succeededRows = succeededRows; }
+    
+    public Integer getWaitlistedRows() { return waitlistedRows; }
+    public void setWaitlistedRows(Integer waitlistedRows) { this.waitlistedRows = waitlistedRows; }
+    
+    public Integer getFailedRows() { return failedRows; }
+    public void setFailedRows(Integer failedRows) { this.failedRows = failedRows; }
+    
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,78 @@
+package com.codigo.LMS.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * One roster line of a {@link BulkEnrollmentJob} and its outcome.
+ */
+@Entity
+@Table(name = "bulk_enrollment_job_rows", indexes = {
+    @Index(name = "idx_bulk_job_row", columnList = "job_id,status,line_number")
+})
+public class BulkEnrollmentJobRow {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+    
+    @NotNull
+    @Column(name = "line_number", nullable = false)
+    private Integer lineNumber;
+    
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "email")
+    private String email;
+    
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private BulkEnrollmentRowStatus status = BulkEnrollmentRowStatus.PENDING;
+    
+    @Column(name = "enrollment_id")
+    private Long enrollmentId;
+    
+    @Column(name = "error")
+    private String error;
+    
+    // Constructors
+    public BulkEnrollmentJobRow() {}
+    
+    public BulkEnrollmentJobRow(Long jobId, Integer lineNumber, Long userId, String email) {
+        this.jobId = jobId;
+        this.lineNumber = lineNumber;
+        this.userId = userId;
+        this.email = email;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getJobId() { return jobId; }
+    public void setJobId(Long jobId) { this.jobId = jobId; }
+    
+    public Integer getLineNumber() { return lineNumber; }
+    public void setLineNumber(Integer lineNumber) { this.lineNumber = lineNumber; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    
+    public BulkEnrollmentRowStatus getStatus() { return status; }
+    public void setStatus(BulkEnrollmentRowStatus status) { this.status = status; }
+    
+    public Long getEnrollmentId() { return enrollmentId; }
+    public void setEnrollmentId(Long enrollmentId) { this.enrollmentId = enrollmentId; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,8 @@
+package com.codigo.LMS.entity;
+
+public enum BulkEnrollmentJobStatus {
+    QUEUED,     // Roster uploaded, waiting for a worker
+    RUNNING,    // A worker is enrolling the roster
+    COMPLETED,  // Every row has an outcome
+    FAILED      // The job stopped on an unexpected error
+}
@@ -0,0 +1,8 @@
+package com.codigo.LMS.entity;
+
+public enum BulkEnrollmentRowStatus {
+    PENDING,     // Not processed yet
+    ENROLLED,    // Active enrollment created
+    WAITLISTED,  // Course was full, student added to the waitlist
+    FAILED       // Row rejected, see the error column
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Entity
@@ -43,10 +44,12 @@ public class Course {
     @Column(name = "is_published")
     private Boolean isPublished = false;
     
-    @Column(name = "enrollment_count")
+    // Maintained by CoursePopularityService; never written back from an edited entity
+    @Column(name = "enrollment_count", updatable = false)
     private Integer enrollmentCount = 0;
     
-    @Column(name = "rating")
+    // Average review rating, maintained by CourseReviewService like enrollmentCount
+    @Column(name = "rating", updatable = false)
     private Double rating = 0.0;
     
     // Enrollment related fields
@@ -365,6 +368,30 @@ public class Course {
                 .anyMatch(enrollment -> enrollment.getStudent().equals(user));
     }
     
+    /**
+     * Share of this course's lessons, 0 to 100, among the completed ones in {@code progressRecords}.
+     */
+    public double completionPercentage(Collection<UserProgress> progressRecords) {
+        int totalLessons = modules.stream()
+            .mapToInt(module -> module.getLessons().size())
+            .sum();
+        if (totalLessons == 0) {
+            return 0.0;
+        }
+        
+        long completedLessons = progressRecords.stream()
+            .filter(progress -> progress.getStatus() == UserProgress.ProgressStatus.COMPLETED)
+            .filter(progress -> modules.stream()
+                .anyMatch(module -> module.getLessons().contains(progress.getLesson())))
+            .count();
+        return completedLessons * 100.0 / totalLessons;
+    }
+    
+    public boolean isEnrollmentWindowOpen(LocalDateTime now) {
+        return (enrollmentWindowStart == null || enrollmentWindowStart.isBefore(now)) &&
+               (enrollmentWindowEnd == null || enrollmentWindowEnd.isAfter(now));
+    }
+    
     // Additional helper methods
     public void setImageUrl(String imageUrl) {
         this.thumbnailUrl = imageUrl;
@@ -0,0 +1,84 @@
+package com.codigo.LMS.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of a course's reviews: how many, the sum of their ratings and how many
+ * gave each star. Every review insert, edit and removal moves these with one atomic
+ * update in the same transaction, so a course's rating is one row read and never a scan
+ * of its reviews.
+ */
+@Entity
+@Table(name = "course_rating_aggregates")
+public class CourseRatingAggregate {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "review_count", nullable = false)
+    private Integer reviewCount = 0;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum = 0L;
+
+    @Column(name = "rating_1", nullable = false)
+    private Integer rating1 = 0;
+
+    @Column(name = "rating_2", nullable = false)
+    private Integer rating2 = 0;
+
+    @Column(name = "rating_3", nullable = false)
+    private Integer rating3 = 0;
+
+    @Column(name = "rating_4", nullable = false)
+    private Integer rating4 = 0;
+
+    @Column(name = "rating_5", nullable = false)
+    private Integer rating5 = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public CourseRatingAggregate() {}
+
+    public CourseRatingAggregate(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    // Getters and Setters
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+
+    public Integer getReviewCount() { return reviewCount; }
+    public void setReviewCount(Integer reviewCount) { this.reviewCount = reviewCount; }
+
+    public Long getRatingSum() { return ratingSum; }
+    public void setRatingSum(Long ratingSum) { this.ratingSum = ratingSum; }
+
+    public Integer getRating1() { return rating1; }
+    public void setRating1(Integer rating1) { this.rating1 = rating1; }
+
+    public Integer getRating2() { return rating2; }
+    public void setRating2(Integer rating2) { this.rating2 = rating2; }
+
+    public Integer getRating3() { return rating3; }
+    public void setRating3(Integer rating3) { this.rating3 = rating3; }
+
+    public Integer getRating4() { return rating4; }
+    public void setRating4(Integer rating4) { this.rating4 = rating4; }
+
+    public Integer getRating5() { return rating5; }
+    public void setRating5(Integer rating5) { this.rating5 = rating5; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,69 @@
+package com.codigo.LMS.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Per-course seat counter. Admission increments {@code seatsTaken} with a single
+ * conditional update, so the row doubles as the serialization point for a course
+ * and no enrollment ever has to count the enrollments table. Seats reserved for an
+ * in-flight checkout are tracked in {@code seatsHeld} and count against capacity.
+ * {@code waitlisted} and {@code pendingApprovals} do not affect admission; they are
+ * kept here so enrollment stats are one row read.
+ */
+@Entity
+@Table(name = "course_seat_ledger")
+public class CourseSeatLedger {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "seats_taken", nullable = false)
+    private Integer seatsTaken = 0;
+
+    @Column(name = "seats_held", nullable = false)
+    private Integer seatsHeld = 0;
+
+    @Column(name = "waitlisted", nullable = false)
+    private Integer waitlisted = 0;
+
+    @Column(name = "pending_approvals", nullable = false)
+    private Integer pendingApprovals = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public CourseSeatLedger() {}
+
+    public CourseSeatLedger(Long courseId, Integer seatsTaken) {
+        this.courseId = courseId;
+        this.seatsTaken = seatsTaken;
+    }
+
+    // Getters and Setters
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+
+    public Integer getSeatsTaken() { return seatsTaken; }
+    public void setSeatsTaken(Integer seatsTaken) { this.seatsTaken = seatsTaken; }
+
+    public Integer getSeatsHeld() { return seatsHeld; }
+    public void setSeatsHeld(Integer seatsHeld) { this.seatsHeld = seatsHeld; }
+
+    public Integer getWaitlisted() { return waitlisted; }
+    public void setWaitlisted(Integer waitlisted) { this.waitlisted = waitlisted; }
+
+    public Integer getPendingApprovals() { return pendingApprovals; }
+    public void setPendingApprovals(Integer pendingApprovals) { this.pendingApprovals = pendingApprovals; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,59 @@
+package com.codigo.LMS.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Per-course waitlist queue pointers. Every waitlisted enrollment holds a ticket in
+ * {@code waitlistPosition}, issued from {@code tailTicket} and never renumbered. No
+ * waiting ticket is below {@code headTicket}; a student's position is the number of
+ * students still waiting from the head up to their ticket.
+ */
+@Entity
+@Table(name = "course_waitlists")
+public class CourseWaitlist {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "head_ticket", nullable = false)
+    private Integer headTicket = 1;
+
+    @Column(name = "tail_ticket", nullable = false)
+    private Integer tailTicket = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public CourseWaitlist() {}
+
+    public CourseWaitlist(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    // Business methods
+    public int size() {
+        return Math.max(0, tailTicket - headTicket + 1);
+    }
+
+    // Getters and Setters
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+
+    public Integer getHeadTicket() { return headTicket; }
+    public void setHeadTicket(Integer headTicket) { this.headTicket = headTicket; }
+
+    public Integer getTailTicket() { return tailTicket; }
+    public void setTailTicket(Integer tailTicket) { this.tailTicket = tailTicket; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,123 @@
+package com.codigo.LMS.entity;
+
+import com.codigo.LMS.event.EnrollmentEvent;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * An enrollment event one handler still failed on after its last retry. The row holds
+ * the whole event, so it can be redelivered to that handler once the cause is fixed.
+ */
+@Entity
+@Table(name = "enrollment_event_dead_letters", indexes = {
+    @Index(name = "idx_event_dead_letter_created", columnList = "created_at")
+})
+public class EnrollmentEventDeadLetter {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull
+    @Column(name = "handler", nullable = false, length = 50)
+    private String handler;
+    
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private EnrollmentEventType eventType;
+    
+    @Column(name = "enrollment_id")
+    private Long enrollmentId;
+    
+    @Column(name = "student_id")
+    private Long studentId;
+    
+    @Column(name = "course_id")
+    private Long courseId;
+    
+    @Column(name = "actor_id")
+    private Long actorId;
+    
+    @Column(name = "payment_id")
+    private Long paymentId;
+    
+    @Column(name = "voucher_id")
+    private Long voucherId;
+    
+    @Column(name = "reason", columnDefinition = "TEXT")
+    private String reason;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public EnrollmentEventDeadLetter() {}
+    
+    public EnrollmentEventDeadLetter(String handler, EnrollmentEvent event, int attempts, String lastError) {
+        this.handler = handler;
+        this.eventType = event.getType();
+        this.enrollmentId = event.getEnrollmentId();
+        this.studentId = event.getStudentId();
+        this.courseId = event.getCourseId();
+        this.actorId = event.getActorId();
+        this.paymentId = event.getPaymentId();
+        this.voucherId = event.getVoucherId();
+        this.reason = event.getReason();
+        this.attempts = attempts;
+        this.lastError = lastError;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public EnrollmentEvent toEvent() {
+        return new EnrollmentEvent(eventType, enrollmentId, studentId, courseId, actorId, paymentId, voucherId, reason);
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getHandler() { return handler; }
+    public void setHandler(String handler) { this.handler = handler; }
+    
+    public EnrollmentEventType getEventType() { return eventType; }
+    public void setEventType(EnrollmentEventType eventType) { this.eventType = eventType; }
+    
+    public Long getEnrollmentId() { return enrollmentId; }
+    public void setEnrollmentId(Long enrollmentId) { this.enrollmentId = enrollmentId; }
+    
+    public Long getStudentId() { return studentId; }
+    public void setStudentId(Long studentId) { this.studentId = studentId; }
+    
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+    
+    public Long getActorId() { return actorId; }
+    public void setActorId(Long actorId) { this.actorId = actorId; }
+    
+    public Long getPaymentId() { return paymentId; }
+    public void setPaymentId(Long paymentId) { this.paymentId = paymentId; }
+    
+    public Long getVoucherId() { return voucherId; }
+    public void setVoucherId(Long voucherId) { this.voucherId = voucherId; }
+    
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+    
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+    
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,11 @@
+package com.codigo.LMS.entity;
+
+public enum EnrollmentEventType {
+    ACTIVATED,           // Student got a seat: open enrollment, free voucher or captured payment
+    APPROVAL_REQUESTED,  // Pending enrollment waiting for an instructor
+    APPROVED,            // Pending enrollment approved and activated
+    DENIED,              // Pending enrollment denied
+    WAITLISTED,          // Course was full, student joined the waitlist
+    WITHDRAWN,           // Student left the course or its waitlist
+    PAYMENT_FAILED       // Checkout payment failed, enrollment denied
+}
@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "entitlements", indexes = {
     @Index(name = "idx_entitlement_user", columnList = "user_id"),
+    @Index(name = "idx_entitlement_user_resource", columnList = "user_id,resource_type,resource_id"),
     @Index(name = "idx_entitlement_resource", columnList = "resource_type,resource_id"),
     @Index(name = "idx_entitlement_enrollment", columnList = "granted_by_enrollment_id")
 })
@@ -2,10 +2,12 @@ package com.codigo.LMS.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import com.codigo.LMS.service.ContentChangeListener;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "lessons")
+@EntityListeners(ContentChangeListener.class)
 public class Lesson {
     
     @Id
@@ -2,12 +2,14 @@ package com.codigo.LMS.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import com.codigo.LMS.service.ContentChangeListener;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "modules")
+@EntityListeners(ContentChangeListener.class)
 public class Module {
     
     @Id
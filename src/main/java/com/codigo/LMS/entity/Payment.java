@@ -49,7 +49,7 @@ public class Payment {
     @Column(name = "status", nullable = false)
     private PaymentStatus status = PaymentStatus.PENDING;
     
-    @NotBlank
+    @NotNull
     @Enumerated(EnumType.STRING)
     @Column(name = "processor", nullable = false)
     private PaymentProcessor processor;
@@ -0,0 +1,105 @@
+package com.codigo.LMS.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * A payment webhook delivery as received. The processor's event id is unique, so a
+ * redelivered webhook is recognised and acknowledged without being applied twice.
+ */
+@Entity
+@Table(name = "payment_webhook_events", indexes = {
+    @Index(name = "idx_webhook_event_id", columnList = "event_id", unique = true),
+    @Index(name = "idx_webhook_status", columnList = "status,id"),
+    @Index(name = "idx_webhook_payment", columnList = "payment_id,status,id"),
+    @Index(name = "idx_webhook_due", columnList = "status,next_attempt_at")
+})
+public class PaymentWebhookEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotBlank
+    @Column(name = "event_id", nullable = false)
+    private String eventId;
+    
+    @NotNull
+    @Column(name = "payment_id", nullable = false)
+    private Long paymentId;
+    
+    @Column(name = "payment_status", length = 50)
+    private String paymentStatus;
+    
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+    
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private PaymentWebhookStatus status = PaymentWebhookStatus.RECEIVED;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "error")
+    private String error;
+    
+    @NotNull
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    
+    // Not picked up again before this time; null when due straight away
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    // Constructors
+    public PaymentWebhookEvent() {}
+    
+    public PaymentWebhookEvent(String eventId, Long paymentId, String paymentStatus, String payload) {
+        this.eventId = eventId;
+        this.paymentId = paymentId;
+        this.paymentStatus = paymentStatus;
+        this.payload = payload;
+        this.receivedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    
+    public Long getPaymentId() { return paymentId; }
+    public void setPaymentId(Long paymentId) { this.paymentId = paymentId; }
+    
+    public String getPaymentStatus() { return paymentStatus; }
+    public void setPaymentStatus(String paymentStatus) { this.paymentStatus = paymentStatus; }
+    
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+    
+    public PaymentWebhookStatus getStatus() { return status; }
+    public void setStatus(PaymentWebhookStatus status) { this.status = status; }
+    
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
+    
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+    
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+}
@@ -0,0 +1,8 @@
+package com.codigo.LMS.entity;
+
+public enum PaymentWebhookStatus {
+    RECEIVED,   // Stored and acknowledged, waiting for the webhook worker
+    PROCESSED,  // Applied to the payment and its enrollment
+    IGNORED,    // Nothing to apply: unknown payment, unknown status or a stale transition
+    FAILED      // Processing failed after every attempt, see the error column
+}
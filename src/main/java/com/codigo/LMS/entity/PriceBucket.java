@@ -0,0 +1,34 @@
+package com.codigo.LMS.entity;
+
+import java.math.BigDecimal;
+
+public enum PriceBucket {
+    FREE,           // Price of zero
+    UNDER_50,       // Above zero, below 50
+    FROM_50_TO_100, // 50 up to, not including, 100
+    FROM_100_TO_200,
+    FROM_200;       // 200 and above
+
+    private static final BigDecimal FIFTY = BigDecimal.valueOf(50);
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal TWO_HUNDRED = BigDecimal.valueOf(200);
+
+    /**
+     * The bucket a price falls in, or null for a missing or negative price.
+     */
+    public static PriceBucket of(BigDecimal price) {
+        if (price == null || price.signum() < 0) {
+            return null;
+        }
+        if (price.signum() == 0) {
+            return FREE;
+        }
+        if (price.compareTo(FIFTY) < 0) {
+            return UNDER_50;
+        }
+        if (price.compareTo(HUNDRED) < 0) {
+            return FROM_50_TO_100;
+        }
+        return price.compareTo(TWO_HUNDRED) < 0 ? FROM_100_TO_200 : FROM_200;
+    }
+}
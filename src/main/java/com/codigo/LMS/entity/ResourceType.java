@@ -1,6 +1,7 @@
 package com.codigo.LMS.entity;
 
 public enum ResourceType {
+    COURSE,     // Whole course; covers its modules and lessons
     LESSON,     // Course lesson/module
     LAB,        // Hands-on lab exercise
     GAME_KEY,   // Game access key/license
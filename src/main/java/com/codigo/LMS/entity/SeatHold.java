@@ -0,0 +1,85 @@
+package com.codigo.LMS.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "seat_holds", indexes = {
+    @Index(name = "idx_seat_hold_payment", columnList = "payment_id", unique = true),
+    @Index(name = "idx_seat_hold_course_status", columnList = "course_id,status"),
+    @Index(name = "idx_seat_hold_expires", columnList = "status,expires_at")
+})
+public class SeatHold {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+    
+    @NotNull
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @NotNull
+    @Column(name = "payment_id", nullable = false)
+    private Long paymentId;
+    
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private SeatHoldStatus status = SeatHoldStatus.HELD;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @NotNull
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    // Constructors
+    public SeatHold() {}
+    
+    public SeatHold(Long courseId, Long userId, Long paymentId, LocalDateTime expiresAt) {
+        this.courseId = courseId;
+        this.userId = userId;
+        this.paymentId = paymentId;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Long getPaymentId() { return paymentId; }
+    public void setPaymentId(Long paymentId) { this.paymentId = paymentId; }
+    
+    public SeatHoldStatus getStatus() { return status; }
+    public void setStatus(SeatHoldStatus status) { this.status = status; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    
+    public LocalDateTime getResolvedAt() { return resolvedAt; }
+    public void setResolvedAt(LocalDateTime resolvedAt) { this.resolvedAt = resolvedAt; }
+}
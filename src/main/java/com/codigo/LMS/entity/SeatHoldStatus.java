@@ -0,0 +1,7 @@
+package com.codigo.LMS.entity;
+
+public enum SeatHoldStatus {
+    HELD,       // Seat reserved while the student completes checkout
+    CONVERTED,  // Payment succeeded, hold turned into an active seat
+    RELEASED    // Payment failed or expired, seat returned to the pool
+}
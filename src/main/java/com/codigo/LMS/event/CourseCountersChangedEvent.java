@@ -0,0 +1,15 @@
+package com.codigo.LMS.event;
+
+/**
+ * Published after a transaction that changed a course's enrollment counters has committed.
+ */
+public class CourseCountersChangedEvent {
+    
+    private final Long courseId;
+    
+    public CourseCountersChangedEvent(Long courseId) {
+        this.courseId = courseId;
+    }
+    
+    public Long getCourseId() { return courseId; }
+}
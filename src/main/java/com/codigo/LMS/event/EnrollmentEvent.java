@@ -0,0 +1,80 @@
+package com.codigo.LMS.event;
+
+import com.codigo.LMS.entity.Enrollment;
+import com.codigo.LMS.entity.EnrollmentEventType;
+
+/**
+ * An enrollment status transition, handed to side-effect handlers once the transaction
+ * that made it has committed. Carries ids only; handlers load what they need.
+ */
+public class EnrollmentEvent {
+    
+    private final EnrollmentEventType type;
+    private final Long enrollmentId;
+    private final Long studentId;
+    private final Long courseId;
+    private final Long actorId;
+    private final Long paymentId;
+    private final Long voucherId;
+    private final String reason;
+    
+    public EnrollmentEvent(EnrollmentEventType type, Long enrollmentId, Long studentId, Long courseId,
+                           Long actorId, Long paymentId, Long voucherId, String reason) {
+        this.type = type;
+        this.enrollmentId = enrollmentId;
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.actorId = actorId;
+        this.paymentId = paymentId;
+        this.voucherId = voucherId;
+        this.reason = reason;
+    }
+    
+    public static EnrollmentEvent activated(Enrollment enrollment, Long voucherId) {
+        return of(EnrollmentEventType.ACTIVATED, enrollment, enrollment.getStudent().getId(), null, voucherId, null);
+    }
+    
+    public static EnrollmentEvent approvalRequested(Enrollment enrollment) {
+        return of(EnrollmentEventType.APPROVAL_REQUESTED, enrollment, enrollment.getStudent().getId(), null, null, null);
+    }
+    
+    public static EnrollmentEvent approved(Enrollment enrollment, Long approverId) {
+        return of(EnrollmentEventType.APPROVED, enrollment, approverId, null, null, null);
+    }
+    
+    public static EnrollmentEvent denied(Enrollment enrollment, Long denierId, String reason) {
+        return of(EnrollmentEventType.DENIED, enrollment, denierId, null, null, reason);
+    }
+    
+    public static EnrollmentEvent waitlisted(Enrollment enrollment) {
+        return of(EnrollmentEventType.WAITLISTED, enrollment, enrollment.getStudent().getId(), null, null, null);
+    }
+    
+    public static EnrollmentEvent withdrawn(Enrollment enrollment) {
+        return of(EnrollmentEventType.WITHDRAWN, enrollment, enrollment.getStudent().getId(), null, null, null);
+    }
+    
+    public static EnrollmentEvent paymentFailed(Enrollment enrollment, Long paymentId) {
+        return of(EnrollmentEventType.PAYMENT_FAILED, enrollment, null, paymentId, null, "Payment failed");
+    }
+    
+    private static EnrollmentEvent of(EnrollmentEventType type, Enrollment enrollment, Long actorId,
+                                      Long paymentId, Long voucherId, String reason) {
+        return new EnrollmentEvent(type, enrollment.getId(), enrollment.getStudent().getId(),
+            enrollment.getCourse().getId(), actorId, paymentId, voucherId, reason);
+    }
+    
+    public EnrollmentEventType getType() { return type; }
+    public Long getEnrollmentId() { return enrollmentId; }
+    public Long getStudentId() { return studentId; }
+    public Long getCourseId() { return courseId; }
+    public Long getActorId() { return actorId; }
+    public Long getPaymentId() { return paymentId; }
+    public Long getVoucherId() { return voucherId; }
+    public String getReason() { return reason; }
+    
+    @Override
+    public String toString() {
+        return type + " enrollment " + enrollmentId + " (student " + studentId + ", course " + courseId + ")";
+    }
+}
@@ -0,0 +1,43 @@
+package com.codigo.LMS.event;
+
+import com.codigo.LMS.entity.ResourceType;
+
+import java.util.List;
+
+/**
+ * Published after a chunk of entitlements has been marked EXPIRED and committed.
+ */
+public class EntitlementsExpiredEvent {
+    
+    private final List<ExpiredEntitlement> entitlements;
+    
+    public EntitlementsExpiredEvent(List<ExpiredEntitlement> entitlements) {
+        this.entitlements = List.copyOf(entitlements);
+    }
+    
+    public List<ExpiredEntitlement> getEntitlements() { return entitlements; }
+    
+    public List<Long> getUserIds() {
+        return entitlements.stream().map(ExpiredEntitlement::getUserId).distinct().toList();
+    }
+    
+    public static class ExpiredEntitlement {
+        
+        private final Long entitlementId;
+        private final Long userId;
+        private final ResourceType resourceType;
+        private final Long resourceId;
+        
+        public ExpiredEntitlement(Long entitlementId, Long userId, ResourceType resourceType, Long resourceId) {
+            this.entitlementId = entitlementId;
+            this.userId = userId;
+            this.resourceType = resourceType;
+            this.resourceId = resourceId;
+        }
+        
+        public Long getEntitlementId() { return entitlementId; }
+        public Long getUserId() { return userId; }
+        public ResourceType getResourceType() { return resourceType; }
+        public Long getResourceId() { return resourceId; }
+    }
+}
@@ -0,0 +1,62 @@
+package com.codigo.LMS.event;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A batch of cache invalidations delivered by the invalidation bus, published on this
+ * node or received from another one. Listeners must be idempotent: a node also receives
+ * its own invalidations.
+ */
+public class InvalidationEvent {
+    
+    public enum Type {
+        COURSE,              // Course row changed; key is the course id
+        ENROLLMENT_COUNTERS, // Seat ledger counters; key is the course id
+        COURSE_RATING,       // A course's review aggregates; key is the course id
+        ENTITLEMENTS,        // A user's entitlements; key is the user id
+        VOUCHER              // Voucher changed; key is the voucher id
+    }
+    
+    private final Map<Type, Set<Long>> keys = new EnumMap<>(Type.class);
+    private final Set<Type> all = EnumSet.noneOf(Type.class);
+    private final boolean remote;
+    
+    public InvalidationEvent(boolean remote) {
+        this.remote = remote;
+    }
+    
+    /**
+     * Add one key, or every key of the type when {@code key} is null.
+     */
+    public void add(Type type, Long key) {
+        if (key == null) {
+            all.add(type);
+            keys.remove(type);
+        } else if (!all.contains(type)) {
+            keys.computeIfAbsent(type, t -> new HashSet<>()).add(key);
+        }
+    }
+    
+    public Set<Long> getKeys(Type type) {
+        return keys.getOrDefault(type, Set.of());
+    }
+    
+    /**
+     * Whether every cached entry of the type is stale, e.g. after a node missed notifications.
+     */
+    public boolean isAll(Type type) { return all.contains(type); }
+    
+    public boolean contains(Type type) {
+        return all.contains(type) || keys.containsKey(type);
+    }
+    
+    public boolean isRemote() { return remote; }
+    
+    public boolean isEmpty() {
+        return all.isEmpty() && keys.isEmpty();
+    }
+}
@@ -0,0 +1,51 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.BulkEnrollmentJob;
+import com.codigo.LMS.entity.BulkEnrollmentJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BulkEnrollmentJobRepository extends JpaRepository<BulkEnrollmentJob, Long> {
+    
+    @Query("SELECT j.id FROM BulkEnrollmentJob j WHERE j.status = :status ORDER BY j.createdAt ASC")
+    List<Long> findIdsByStatus(@Param("status") BulkEnrollmentJobStatus status, Pageable pageable);
+    
+    List<BulkEnrollmentJob> findByCreatedByOrderByCreatedAtDesc(Long createdBy, Pageable pageable);
+    
+    /**
+     * Moves a queued job to RUNNING. Only one worker across all nodes gets a 1 back.
+     */
+    @Modifying
+    @Query("UPDATE BulkEnrollmentJob j SET j.status = 'RUNNING', j.startedAt = COALESCE(j.startedAt, :now), j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = 'QUEUED'")
+    int claimJob(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE BulkEnrollmentJob j SET j.processedRows = j.processedRows + :processed, " +
+           "j.succeededRows = j.succeededRows + :succeeded, j.waitlistedRows = j.waitlistedRows + :waitlisted, " +
+           "j.failedRows = j.failedRows + :failed, j.updatedAt = :now WHERE j.id = :id")
+    int recordProgress(@Param("id") Long id, @Param("processed") int processed, @Param("succeeded") int succeeded,
+                       @Param("waitlisted") int waitlisted, @Param("failed") int failed, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE BulkEnrollmentJob j SET j.status = :status, j.errorMessage = :error, j.finishedAt = :now, j.updatedAt = :now " +
+           "WHERE j.id = :id")
+    int finishJob(@Param("id") Long id, @Param("status") BulkEnrollmentJobStatus status,
+                  @Param("error") String error, @Param("now") LocalDateTime now);
+    
+    /**
+     * Hands RUNNING jobs whose worker stopped sending heartbeats (e.g. the node restarted) back to the queue.
+     */
+    @Modifying
+    @Query("UPDATE BulkEnrollmentJob j SET j.status = 'QUEUED', j.updatedAt = :now " +
+           "WHERE j.status = 'RUNNING' AND j.updatedAt < :cutoff")
+    int requeueStaleJobs(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+}
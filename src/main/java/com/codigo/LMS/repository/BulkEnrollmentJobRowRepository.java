@@ -0,0 +1,21 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.BulkEnrollmentJobRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BulkEnrollmentJobRowRepository extends JpaRepository<BulkEnrollmentJobRow, Long>, BulkEnrollmentJobRowRepositoryCustom {
+    
+    @Query("SELECT r FROM BulkEnrollmentJobRow r WHERE r.jobId = :jobId AND r.status = 'PENDING' ORDER BY r.lineNumber ASC")
+    List<BulkEnrollmentJobRow> findPendingRows(@Param("jobId") Long jobId, Pageable pageable);
+    
+    @Query("SELECT r FROM BulkEnrollmentJobRow r WHERE r.jobId = :jobId AND r.status = 'FAILED' AND r.lineNumber > :afterLine " +
+           "ORDER BY r.lineNumber ASC")
+    List<BulkEnrollmentJobRow> findFailedRowsAfter(@Param("jobId") Long jobId, @Param("afterLine") int afterLine, Pageable pageable);
+}
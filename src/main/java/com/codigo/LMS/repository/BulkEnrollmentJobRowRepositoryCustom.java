@@ -0,0 +1,18 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.BulkEnrollmentJobRow;
+
+import java.util.List;
+
+/**
+ * JDBC batch writes for staged roster rows, which arrive and are resolved by the thousand.
+ */
+public interface BulkEnrollmentJobRowRepositoryCustom {
+
+    void batchInsert(List<BulkEnrollmentJobRow> rows);
+
+    /**
+     * Writes status, enrollment id and error of each row, matched by id.
+     */
+    void batchUpdateOutcomes(List<BulkEnrollmentJobRow> rows);
+}
@@ -0,0 +1,54 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.BulkEnrollmentJobRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.List;
+
+public class BulkEnrollmentJobRowRepositoryCustomImpl implements BulkEnrollmentJobRowRepositoryCustom {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO bulk_enrollment_job_rows (job_id, line_number, user_id, email, status, error) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+        "UPDATE bulk_enrollment_job_rows SET status = ?, enrollment_id = ?, error = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${lms.jdbc.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public void batchInsert(List<BulkEnrollmentJobRow> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, batchSize, (ps, row) -> {
+            ps.setLong(1, row.getJobId());
+            ps.setInt(2, row.getLineNumber());
+            if (row.getUserId() != null) {
+                ps.setLong(3, row.getUserId());
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setString(4, row.getEmail());
+            ps.setString(5, row.getStatus().name());
+            ps.setString(6, row.getError());
+        });
+    }
+
+    @Override
+    public void batchUpdateOutcomes(List<BulkEnrollmentJobRow> rows) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows, batchSize, (ps, row) -> {
+            ps.setString(1, row.getStatus().name());
+            if (row.getEnrollmentId() != null) {
+                ps.setLong(2, row.getEnrollmentId());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setString(3, row.getError());
+            ps.setLong(4, row.getId());
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.CourseRatingAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CourseRatingAggregateRepository extends JpaRepository<CourseRatingAggregate, Long> {
+
+    /**
+     * Move a course's totals by one review change; the star deltas are per rating 1 to 5.
+     */
+    @Modifying
+    @Query("UPDATE CourseRatingAggregate a SET a.reviewCount = a.reviewCount + :count, " +
+           "a.ratingSum = a.ratingSum + :sum, a.rating1 = a.rating1 + :d1, a.rating2 = a.rating2 + :d2, " +
+           "a.rating3 = a.rating3 + :d3, a.rating4 = a.rating4 + :d4, a.rating5 = a.rating5 + :d5, " +
+           "a.updatedAt = :now WHERE a.courseId = :courseId")
+    int applyChange(@Param("courseId") Long courseId,
+                    @Param("count") int count,
+                    @Param("sum") long sum,
+                    @Param("d1") int d1, @Param("d2") int d2, @Param("d3") int d3,
+                    @Param("d4") int d4, @Param("d5") int d5,
+                    @Param("now") LocalDateTime now);
+
+    /**
+     * Create the course's row at zero. Reviews only ever reach the aggregates through
+     * {@link #applyChange}, so zero is right for a course that has none yet.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO course_rating_aggregates " +
+                   "(course_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+                   "VALUES (:courseId, 0, 0, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int initializeAggregate(@Param("courseId") Long courseId);
+
+    /**
+     * Count, sum and star counts read straight from the row, past the persistence context.
+     */
+    @Query("SELECT a.reviewCount, a.ratingSum, a.rating1, a.rating2, a.rating3, a.rating4, a.rating5 " +
+           "FROM CourseRatingAggregate a WHERE a.courseId = :courseId")
+    List<Object[]> findCounts(@Param("courseId") Long courseId);
+
+    // Rebuild: aggregates for courses reviewed without one, then every row that drifted
+
+    @Modifying
+    @Query(value = "INSERT INTO course_rating_aggregates " +
+                   "(course_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+                   "SELECT DISTINCT r.course_id, 0, 0, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP FROM course_reviews r " +
+                   "ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertMissingAggregates();
+
+    @Modifying
+    @Query(value = "UPDATE course_rating_aggregates a SET updated_at = CURRENT_TIMESTAMP, " +
+                   "review_count = (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id), " +
+                   "rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM course_reviews r WHERE r.course_id = a.course_id), " +
+                   "rating_1 = (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 1), " +
+                   "rating_2 = (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 2), " +
+                   "rating_3 = (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 3), " +
+                   "rating_4 = (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 4), " +
+                   "rating_5 = (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 5) " +
+                   "WHERE a.review_count <> (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id) " +
+                   "OR a.rating_sum <> (SELECT COALESCE(SUM(r.rating), 0) FROM course_reviews r WHERE r.course_id = a.course_id) " +
+                   "OR a.rating_1 <> (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 1) " +
+                   "OR a.rating_2 <> (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 2) " +
+                   "OR a.rating_3 <> (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 3) " +
+                   "OR a.rating_4 <> (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 4) " +
+                   "OR a.rating_5 <> (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = a.course_id AND r.rating = 5)",
+           nativeQuery = true)
+    int reconcileWithReviews();
+}
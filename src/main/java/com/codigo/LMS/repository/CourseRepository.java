@@ -4,6 +4,7 @@ import com.codigo.LMS.entity.Course;
 import com.codigo.LMS.entity.EnrollmentPolicy;
 import com.codigo.LMS.entity.Course.DifficultyLevel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -28,6 +29,12 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     
     List<Course> findByIsPublishedTrueOrderByRatingDesc();
     
+    /**
+     * Published courses with their instructor, in id order, for the catalog snapshot.
+     */
+    @Query("SELECT c FROM Course c JOIN FETCH c.instructor WHERE c.isPublished = true ORDER BY c.id")
+    List<Course> findPublishedForCatalog();
+    
     @Query("SELECT c FROM Course c WHERE c.isPublished = true AND " +
            "(c.enrollmentWindowStart IS NULL OR c.enrollmentWindowStart <= :now) AND " +
            "(c.enrollmentWindowEnd IS NULL OR c.enrollmentWindowEnd >= :now)")
@@ -49,17 +56,27 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     
     List<Course> findByDifficultyLevel(DifficultyLevel difficultyLevel);
     
-    @Query("SELECT c FROM Course c WHERE c.isPublished = true AND " +
-           "LOWER(c.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(c.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(c.category) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    List<Course> searchCourses(@Param("searchTerm") String searchTerm);
+    /**
+     * The searchable text of every published course as (id, title, category, description)
+     * rows, for the in-memory search index.
+     */
+    @Query("SELECT c.id, c.title, c.category, c.description FROM Course c WHERE c.isPublished = true")
+    List<Object[]> findPublishedSearchFields();
     
     @Query("SELECT c FROM Course c WHERE c.isPublished = true AND " +
            "c.capacity IS NOT NULL AND " +
            "(SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = c.id AND e.status = 'ACTIVE') >= c.capacity")
     List<Course> findCoursesAtCapacity();
     
+    @Query("SELECT c.capacity FROM Course c WHERE c.id = :courseId")
+    Integer findCapacityById(@Param("courseId") Long courseId);
+    
+    /**
+     * Every prerequisite edge as (courseId, prerequisiteCourseId) rows.
+     */
+    @Query("SELECT c.id, p FROM Course c JOIN c.prerequisiteCourseIds p")
+    List<Object[]> findPrerequisiteEdges();
+    
     @Query("SELECT c FROM Course c WHERE c.isPublished = true AND " +
            "c.capacity IS NOT NULL AND " +
            "(SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = c.id AND e.status = 'ACTIVE') >= (c.capacity * 0.8)")
@@ -80,13 +97,42 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     @Query("SELECT c FROM Course c WHERE c.createdAt BETWEEN :start AND :end")
     List<Course> findCoursesCreatedInPeriod(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
-    @Query("SELECT c, COUNT(e) as enrollmentCount FROM Course c " +
-           "LEFT JOIN c.enrollments e WHERE e.status = 'ACTIVE' " +
-           "GROUP BY c ORDER BY enrollmentCount DESC")
-    List<Object[]> findMostPopularCourses();
-    
-    @Query("SELECT AVG(c.rating) FROM Course c WHERE c.isPublished = true")
-    Double getAverageRating();
+    @Query("SELECT c.id, c.enrollmentCount FROM Course c WHERE c.enrollmentCount > 0")
+    List<Object[]> findEnrollmentCounts();
+    
+    @Modifying
+    @Query("UPDATE Course c SET c.enrollmentCount = :enrollmentCount " +
+           "WHERE c.id = :courseId AND (c.enrollmentCount IS NULL OR c.enrollmentCount <> :enrollmentCount)")
+    int updateEnrollmentCount(@Param("courseId") Long courseId, @Param("enrollmentCount") Integer enrollmentCount);
+    
+    /**
+     * Rewrites every course whose enrollment count drifted from its active enrollments.
+     */
+    @Modifying
+    @Query(value = "UPDATE courses c SET enrollment_count = " +
+                   "(SELECT COUNT(*) FROM enrollments e WHERE e.course_id = c.id AND e.status = 'ACTIVE') " +
+                   "WHERE COALESCE(c.enrollment_count, -1) <> " +
+                   "(SELECT COUNT(*) FROM enrollments e WHERE e.course_id = c.id AND e.status = 'ACTIVE')",
+           nativeQuery = true)
+    int reconcileEnrollmentCounts();
+    
+    @Modifying
+    @Query("UPDATE Course c SET c.rating = :rating WHERE c.id = :courseId")
+    int updateRating(@Param("courseId") Long courseId, @Param("rating") Double rating);
+    
+    /**
+     * Rewrites the rating of every reviewed course whose column drifted from its aggregate.
+     */
+    @Modifying
+    @Query(value = "UPDATE courses c SET rating = " +
+                   "(SELECT CASE WHEN a.review_count = 0 THEN 0 ELSE ROUND(1.0 * a.rating_sum / a.review_count, 2) END " +
+                   "FROM course_rating_aggregates a WHERE a.course_id = c.id) " +
+                   "WHERE c.id IN (SELECT a.course_id FROM course_rating_aggregates a) " +
+                   "AND COALESCE(c.rating, -1) <> " +
+                   "(SELECT CASE WHEN a.review_count = 0 THEN 0 ELSE ROUND(1.0 * a.rating_sum / a.review_count, 2) END " +
+                   "FROM course_rating_aggregates a WHERE a.course_id = c.id)",
+           nativeQuery = true)
+    int reconcileRatings();
     
     @Query("SELECT COUNT(c) FROM Course c WHERE c.isPublished = true AND c.price = 0")
     long countFreeCourses();
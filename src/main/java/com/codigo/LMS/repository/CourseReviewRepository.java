@@ -0,0 +1,52 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.CourseReview;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CourseReviewRepository extends JpaRepository<CourseReview, Long> {
+
+    /**
+     * The student's review, locked so the rating it replaces is the one the aggregates hold.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM CourseReview r WHERE r.courseId = :courseId AND r.student.id = :studentId")
+    Optional<CourseReview> lockByCourseAndStudent(@Param("courseId") Long courseId, @Param("studentId") Long studentId);
+
+    /**
+     * Writes the student's first review of the course. A concurrent first submit of the
+     * same review races on uk_course_review_student, so the loser simply does nothing.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO course_reviews (course_id, student_id, rating, comment, created_at, updated_at) " +
+                   "VALUES (:courseId, :studentId, :rating, :comment, :now, :now) " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("courseId") Long courseId, @Param("studentId") Long studentId,
+                       @Param("rating") Integer rating, @Param("comment") String comment,
+                       @Param("now") LocalDateTime now);
+
+    // Keyset pages of a course's reviews, newest first
+
+    @Query("SELECT r FROM CourseReview r JOIN FETCH r.student WHERE r.courseId = :courseId " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<CourseReview> findPageByCourse(@Param("courseId") Long courseId, Pageable pageable);
+
+    @Query("SELECT r FROM CourseReview r JOIN FETCH r.student WHERE r.courseId = :courseId " +
+           "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<CourseReview> findPageByCourseAfter(@Param("courseId") Long courseId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+}
@@ -0,0 +1,135 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.CourseSeatLedger;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CourseSeatLedgerRepository extends JpaRepository<CourseSeatLedger, Long>, CourseSeatLedgerRepositoryCustom {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM CourseSeatLedger l WHERE l.courseId = :courseId")
+    Optional<CourseSeatLedger> lockByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.seatsTaken = l.seatsTaken + 1, l.updatedAt = :now " +
+           "WHERE l.courseId = :courseId AND l.seatsTaken + l.seatsHeld < :capacity")
+    int acquireSeatWithinCapacity(@Param("courseId") Long courseId,
+                                  @Param("capacity") int capacity,
+                                  @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.seatsTaken = l.seatsTaken + 1, l.updatedAt = :now WHERE l.courseId = :courseId")
+    int acquireSeat(@Param("courseId") Long courseId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.seatsTaken = l.seatsTaken + :count, l.updatedAt = :now " +
+           "WHERE l.courseId = :courseId AND l.seatsTaken + l.seatsHeld + :count <= :capacity")
+    int acquireSeatsWithinCapacity(@Param("courseId") Long courseId,
+                                   @Param("count") int count,
+                                   @Param("capacity") int capacity,
+                                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.seatsTaken = l.seatsTaken + :count, l.updatedAt = :now WHERE l.courseId = :courseId")
+    int acquireSeats(@Param("courseId") Long courseId, @Param("count") int count, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.seatsTaken = l.seatsTaken - 1, l.updatedAt = :now " +
+           "WHERE l.courseId = :courseId AND l.seatsTaken > 0")
+    int releaseSeat(@Param("courseId") Long courseId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.seatsHeld = l.seatsHeld + 1, l.updatedAt = :now " +
+           "WHERE l.courseId = :courseId AND l.seatsTaken + l.seatsHeld < :capacity")
+    int holdSeatWithinCapacity(@Param("courseId") Long courseId,
+                               @Param("capacity") int capacity,
+                               @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.seatsHeld = l.seatsHeld + 1, l.updatedAt = :now WHERE l.courseId = :courseId")
+    int holdSeat(@Param("courseId") Long courseId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.seatsHeld = l.seatsHeld - 1, l.seatsTaken = l.seatsTaken + 1, " +
+           "l.updatedAt = :now WHERE l.courseId = :courseId AND l.seatsHeld > 0")
+    int convertHeldSeat(@Param("courseId") Long courseId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.seatsHeld = CASE WHEN l.seatsHeld > :count THEN l.seatsHeld - :count ELSE 0 END, " +
+           "l.updatedAt = :now WHERE l.courseId = :courseId")
+    int releaseHeldSeats(@Param("courseId") Long courseId, @Param("count") int count, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.waitlisted = CASE WHEN l.waitlisted + :delta > 0 THEN l.waitlisted + :delta ELSE 0 END, " +
+           "l.updatedAt = :now WHERE l.courseId = :courseId")
+    int adjustWaitlisted(@Param("courseId") Long courseId, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CourseSeatLedger l SET l.pendingApprovals = CASE WHEN l.pendingApprovals + :delta > 0 THEN l.pendingApprovals + :delta ELSE 0 END, " +
+           "l.updatedAt = :now WHERE l.courseId = :courseId")
+    int adjustPendingApprovals(@Param("courseId") Long courseId, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    /**
+     * All counters of a course as (seatsTaken, seatsHeld, waitlisted, pendingApprovals, updatedAt),
+     * read from the row rather than the persistence context.
+     */
+    @Query("SELECT l.seatsTaken, l.seatsHeld, l.waitlisted, l.pendingApprovals, l.updatedAt " +
+           "FROM CourseSeatLedger l WHERE l.courseId = :courseId")
+    List<Object[]> findCounters(@Param("courseId") Long courseId);
+
+    /**
+     * Course id, seats in use, waitlisted and capacity of the courses with the longest
+     * waitlists, then the fullest.
+     */
+    @Query("SELECT l.courseId, l.seatsTaken + l.seatsHeld, l.waitlisted, c.capacity " +
+           "FROM CourseSeatLedger l JOIN Course c ON c.id = l.courseId " +
+           "ORDER BY l.waitlisted DESC, l.seatsTaken + l.seatsHeld DESC")
+    List<Object[]> findBusiestCourses(Pageable pageable);
+
+    /**
+     * Students waitlisted across all courses, and the number of courses with no free seat.
+     */
+    @Query("SELECT COALESCE(SUM(l.waitlisted), 0), " +
+           "COALESCE(SUM(CASE WHEN c.capacity IS NOT NULL AND l.seatsTaken + l.seatsHeld >= c.capacity THEN 1 ELSE 0 END), 0) " +
+           "FROM CourseSeatLedger l JOIN Course c ON c.id = l.courseId")
+    List<Object[]> findTotals();
+
+    @Query("SELECT l.seatsTaken FROM CourseSeatLedger l WHERE l.courseId = :courseId")
+    Integer findSeatsTaken(@Param("courseId") Long courseId);
+
+    @Query("SELECT l.waitlisted FROM CourseSeatLedger l WHERE l.courseId = :courseId")
+    Integer findWaitlisted(@Param("courseId") Long courseId);
+
+    @Query("SELECT l.seatsTaken + l.seatsHeld FROM CourseSeatLedger l WHERE l.courseId = :courseId")
+    Integer findSeatsInUse(@Param("courseId") Long courseId);
+
+    /**
+     * Creates the ledger row seeded from the current active enrollments. Concurrent
+     * initializers race on the primary key, so the loser simply does nothing.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO course_seat_ledger (course_id, seats_taken, seats_held, waitlisted, pending_approvals, updated_at) " +
+                   "SELECT :courseId, COUNT(*), " +
+                   "(SELECT COUNT(*) FROM seat_holds h WHERE h.course_id = :courseId AND h.status = 'HELD'), " +
+                   "(SELECT COUNT(*) FROM enrollments w WHERE w.course_id = :courseId AND w.status = 'WAITLISTED'), " +
+                   "(SELECT COUNT(*) FROM enrollments p WHERE p.course_id = :courseId AND p.status = 'PENDING_REVIEW' " +
+                   "AND p.payment_id IS NULL), " +
+                   "CURRENT_TIMESTAMP FROM enrollments " +
+                   "WHERE course_id = :courseId AND status = 'ACTIVE' " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int initializeLedger(@Param("courseId") Long courseId);
+
+    @Query("SELECT l.courseId FROM CourseSeatLedger l ORDER BY l.courseId")
+    List<Long> findAllCourseIds();
+}
@@ -0,0 +1,15 @@
+package com.codigo.LMS.repository;
+
+/**
+ * Ledger writes that must also create the row when the course has none yet.
+ */
+public interface CourseSeatLedgerRepositoryCustom {
+
+    /**
+     * Moves the waitlist and approval request counters of a course by the given deltas,
+     * first seeding the ledger row from the enrollments table if it does not exist.
+     * Seed and delta are applied exactly once however many transactions race to create
+     * the row. Call before writing the enrollment's own status change.
+     */
+    void seedAndAdjustQueues(Long courseId, int waitlistDelta, int pendingDelta);
+}
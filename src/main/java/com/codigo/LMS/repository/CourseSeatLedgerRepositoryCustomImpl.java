@@ -0,0 +1,94 @@
+package com.codigo.LMS.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * On Postgres the seed and the delta are one {@code INSERT ... ON CONFLICT DO UPDATE}:
+ * the loser of a race to create the row waits for the winner and adds its delta to the
+ * committed row. Other databases insert the seed with {@code ON CONFLICT DO NOTHING},
+ * which waits the same way, and then apply the delta to the row that now exists.
+ *
+ * Statements go through the persistence context so pending enrollment writes of the
+ * transaction are flushed before the seed counts them.
+ */
+public class CourseSeatLedgerRepositoryCustomImpl implements CourseSeatLedgerRepositoryCustom {
+
+    private static final String SEED_COLUMNS =
+        "INSERT INTO course_seat_ledger (course_id, seats_taken, seats_held, waitlisted, pending_approvals, updated_at) ";
+
+    private static final String HELD = "(SELECT COUNT(*) FROM seat_holds h WHERE h.course_id = :courseId AND h.status = 'HELD')";
+
+    private static final String WAITLISTED =
+        "(SELECT COUNT(*) FROM enrollments w WHERE w.course_id = :courseId AND w.status = 'WAITLISTED')";
+
+    private static final String PENDING =
+        "(SELECT COUNT(*) FROM enrollments p WHERE p.course_id = :courseId AND p.status = 'PENDING_REVIEW' AND p.payment_id IS NULL)";
+
+    private static final String ACTIVE = " FROM enrollments WHERE course_id = :courseId AND status = 'ACTIVE' ";
+
+    private static final String UPSERT_SQL =
+        SEED_COLUMNS + "SELECT :courseId, COUNT(*), " + HELD + ", " +
+        "GREATEST(" + WAITLISTED + " + :waitlistDelta, 0), GREATEST(" + PENDING + " + :pendingDelta, 0), :now" + ACTIVE +
+        "ON CONFLICT (course_id) DO UPDATE SET " +
+        "waitlisted = GREATEST(course_seat_ledger.waitlisted + :waitlistDelta, 0), " +
+        "pending_approvals = GREATEST(course_seat_ledger.pending_approvals + :pendingDelta, 0), " +
+        "updated_at = EXCLUDED.updated_at";
+
+    private static final String SEED_SQL =
+        SEED_COLUMNS + "SELECT :courseId, COUNT(*), " + HELD + ", " + WAITLISTED + ", " + PENDING + ", :now" + ACTIVE +
+        "ON CONFLICT DO NOTHING";
+
+    private static final String ADJUST_SQL =
+        "UPDATE course_seat_ledger SET " +
+        "waitlisted = CASE WHEN waitlisted + :waitlistDelta > 0 THEN waitlisted + :waitlistDelta ELSE 0 END, " +
+        "pending_approvals = CASE WHEN pending_approvals + :pendingDelta > 0 THEN pending_approvals + :pendingDelta ELSE 0 END, " +
+        "updated_at = :now WHERE course_id = :courseId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres;
+
+    @Override
+    public void seedAndAdjustQueues(Long courseId, int waitlistDelta, int pendingDelta) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (isPostgres()) {
+            entityManager.createNativeQuery(UPSERT_SQL)
+                .setParameter("courseId", courseId)
+                .setParameter("waitlistDelta", waitlistDelta)
+                .setParameter("pendingDelta", pendingDelta)
+                .setParameter("now", now)
+                .executeUpdate();
+            return;
+        }
+        entityManager.createNativeQuery(SEED_SQL)
+            .setParameter("courseId", courseId)
+            .setParameter("now", now)
+            .executeUpdate();
+        int updated = entityManager.createNativeQuery(ADJUST_SQL)
+            .setParameter("courseId", courseId)
+            .setParameter("waitlistDelta", waitlistDelta)
+            .setParameter("pendingDelta", pendingDelta)
+            .setParameter("now", now)
+            .executeUpdate();
+        if (updated == 0) {
+            throw new IllegalStateException("Seat ledger row for course " + courseId + " was not created");
+        }
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = entityManager.unwrap(Session.class).doReturningWork(connection ->
+                connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equalsIgnoreCase(product);
+            postgres = result;
+        }
+        return result;
+    }
+}
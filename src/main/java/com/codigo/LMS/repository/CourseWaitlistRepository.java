@@ -0,0 +1,61 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.CourseWaitlist;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CourseWaitlistRepository extends JpaRepository<CourseWaitlist, Long> {
+
+    /**
+     * Appends a ticket. The update row-locks the queue until commit, so a follow-up
+     * {@link #findTailTicket} in the same transaction reads the caller's own ticket.
+     */
+    @Modifying
+    @Query("UPDATE CourseWaitlist w SET w.tailTicket = w.tailTicket + 1, w.updatedAt = :now WHERE w.courseId = :courseId")
+    int appendTicket(@Param("courseId") Long courseId, @Param("now") LocalDateTime now);
+
+    /**
+     * Appends {@code count} consecutive tickets; the last one is the new tail.
+     */
+    @Modifying
+    @Query("UPDATE CourseWaitlist w SET w.tailTicket = w.tailTicket + :count, w.updatedAt = :now WHERE w.courseId = :courseId")
+    int appendTickets(@Param("courseId") Long courseId, @Param("count") int count, @Param("now") LocalDateTime now);
+
+    /**
+     * Takes the ticket just below the head, putting its holder in front of everyone waiting.
+     */
+    @Modifying
+    @Query("UPDATE CourseWaitlist w SET w.headTicket = w.headTicket - 1, w.updatedAt = :now WHERE w.courseId = :courseId")
+    int prependTicket(@Param("courseId") Long courseId, @Param("now") LocalDateTime now);
+
+    /**
+     * Moves the head past the last promoted ticket; no waiting ticket is below it.
+     */
+    @Modifying
+    @Query("UPDATE CourseWaitlist w SET w.headTicket = :head, w.updatedAt = :now " +
+           "WHERE w.courseId = :courseId AND w.headTicket < :head")
+    int advanceHead(@Param("courseId") Long courseId, @Param("head") int head, @Param("now") LocalDateTime now);
+
+    @Query("SELECT w.tailTicket FROM CourseWaitlist w WHERE w.courseId = :courseId")
+    Integer findTailTicket(@Param("courseId") Long courseId);
+
+    @Query("SELECT w.headTicket FROM CourseWaitlist w WHERE w.courseId = :courseId")
+    Integer findHeadTicket(@Param("courseId") Long courseId);
+
+    /**
+     * Creates the queue row seeded from any existing waitlisted enrollments.
+     * Concurrent initializers race on the primary key and the loser does nothing.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO course_waitlists (course_id, head_ticket, tail_ticket, updated_at) " +
+                   "SELECT :courseId, COALESCE(MIN(waitlist_position), 1), COALESCE(MAX(waitlist_position), 0), CURRENT_TIMESTAMP " +
+                   "FROM enrollments WHERE course_id = :courseId AND status = 'WAITLISTED' " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int initializeWaitlist(@Param("courseId") Long courseId);
+}
@@ -0,0 +1,16 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.EnrollmentEventDeadLetter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EnrollmentEventDeadLetterRepository extends JpaRepository<EnrollmentEventDeadLetter, Long> {
+    
+    @Query("SELECT d FROM EnrollmentEventDeadLetter d ORDER BY d.createdAt DESC")
+    List<EnrollmentEventDeadLetter> findLatest(Pageable pageable);
+}
@@ -3,17 +3,22 @@ package com.codigo.LMS.repository;
 import com.codigo.LMS.entity.Enrollment;
 import com.codigo.LMS.entity.EnrollmentStatus;
 import com.codigo.LMS.entity.EnrollmentSource;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
+public interface EnrollmentRepository extends JpaRepository<Enrollment, Long>, EnrollmentRepositoryCustom {
     
     List<Enrollment> findByStudentIdOrderByEnrolledAtDesc(Long studentId);
     
@@ -23,6 +28,12 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     
     Optional<Enrollment> findByStudentIdAndCourseId(Long studentId, Long courseId);
     
+    Optional<Enrollment> findByPaymentId(Long paymentId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Enrollment e WHERE e.id = :id")
+    Optional<Enrollment> lockById(@Param("id") Long id);
+    
     List<Enrollment> findByStudentIdAndStatus(Long studentId, EnrollmentStatus status);
     
     List<Enrollment> findByCourseIdAndStatus(Long courseId, EnrollmentStatus status);
@@ -35,6 +46,63 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     
     @Query("SELECT e FROM Enrollment e WHERE e.course.id = :courseId AND e.status = 'PENDING_REVIEW' ORDER BY e.approvalRequestedAt ASC")
     List<Enrollment> findPendingApprovalsByCourse(@Param("courseId") Long courseId);
+
+    // Keyset pages: the first page, then the rows after the last one served. Callers ask
+    // for one row more than the page size to tell whether there is a next page. Paid
+    // checkouts waiting in PENDING_REVIEW are not up for approval and are left out.
+    
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.course WHERE e.student.id = :studentId " +
+           "ORDER BY e.enrolledAt DESC, e.id DESC")
+    List<Enrollment> findPageByStudent(@Param("studentId") Long studentId, Pageable pageable);
+    
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.course WHERE e.student.id = :studentId AND " +
+           "(e.enrolledAt < :enrolledAt OR (e.enrolledAt = :enrolledAt AND e.id < :id)) " +
+           "ORDER BY e.enrolledAt DESC, e.id DESC")
+    List<Enrollment> findPageByStudentAfter(@Param("studentId") Long studentId,
+                                            @Param("enrolledAt") LocalDateTime enrolledAt,
+                                            @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.student JOIN FETCH e.course c " +
+           "WHERE c.instructor.id = :instructorId AND e.status = 'PENDING_REVIEW' AND e.paymentId IS NULL " +
+           "ORDER BY e.approvalRequestedAt ASC, e.id ASC")
+    List<Enrollment> findPendingApprovalPage(@Param("instructorId") Long instructorId, Pageable pageable);
+    
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.student JOIN FETCH e.course c " +
+           "WHERE c.instructor.id = :instructorId AND e.status = 'PENDING_REVIEW' AND e.paymentId IS NULL AND " +
+           "(e.approvalRequestedAt > :requestedAt OR (e.approvalRequestedAt = :requestedAt AND e.id > :id)) " +
+           "ORDER BY e.approvalRequestedAt ASC, e.id ASC")
+    List<Enrollment> findPendingApprovalPageAfter(@Param("instructorId") Long instructorId,
+                                                  @Param("requestedAt") LocalDateTime requestedAt,
+                                                  @Param("id") Long id, Pageable pageable);
+    
+    /**
+     * Admin listing, newest first; a null course or status matches any.
+     */
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.student JOIN FETCH e.course " +
+           "WHERE (:courseId IS NULL OR e.course.id = :courseId) AND (:status IS NULL OR e.status = :status) " +
+           "ORDER BY e.enrolledAt DESC, e.id DESC")
+    List<Enrollment> findPage(@Param("courseId") Long courseId, @Param("status") EnrollmentStatus status,
+                              Pageable pageable);
+    
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.student JOIN FETCH e.course " +
+           "WHERE (:courseId IS NULL OR e.course.id = :courseId) AND (:status IS NULL OR e.status = :status) AND " +
+           "(e.enrolledAt < :enrolledAt OR (e.enrolledAt = :enrolledAt AND e.id < :id)) " +
+           "ORDER BY e.enrolledAt DESC, e.id DESC")
+    List<Enrollment> findPageAfter(@Param("courseId") Long courseId, @Param("status") EnrollmentStatus status,
+                                   @Param("enrolledAt") LocalDateTime enrolledAt, @Param("id") Long id,
+                                   Pageable pageable);
+    
+    /**
+     * (status, count) of a course's active, waitlisted and pending-approval enrollments.
+     * Paid checkouts waiting in PENDING_REVIEW are left out.
+     */
+    @Query("SELECT e.status, COUNT(e) FROM Enrollment e WHERE e.course.id = :courseId AND " +
+           "(e.status IN ('ACTIVE', 'WAITLISTED') OR (e.status = 'PENDING_REVIEW' AND e.paymentId IS NULL)) " +
+           "GROUP BY e.status")
+    List<Object[]> countOpenEnrollmentsByStatus(@Param("courseId") Long courseId);
+    
+    @Query("SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = :courseId AND e.status = 'WAITLISTED'")
+    long countWaitlistedByCourse(@Param("courseId") Long courseId);
     
     @Query("SELECT e FROM Enrollment e WHERE e.status = 'WAITLISTED' AND e.course.id = :courseId ORDER BY e.enrolledAt ASC")
     List<Enrollment> findWaitlistByCourse(@Param("courseId") Long courseId);
@@ -45,6 +113,39 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     @Query("SELECT MAX(e.waitlistPosition) FROM Enrollment e WHERE e.course.id = :courseId AND e.status = 'WAITLISTED'")
     Integer findMaxWaitlistPosition(@Param("courseId") Long courseId);
     
+    @Query("SELECT e.id FROM Enrollment e WHERE e.course.id = :courseId AND e.status = 'WAITLISTED' " +
+           "ORDER BY e.waitlistPosition ASC, e.enrolledAt ASC")
+    List<Long> findWaitlistHeadIds(@Param("courseId") Long courseId, Pageable pageable);
+    
+    @Query("SELECT e.student.id FROM Enrollment e WHERE e.id IN :ids")
+    List<Long> findStudentIdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.student WHERE e.id IN :ids")
+    List<Enrollment> findAllWithStudentByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Enrollment e SET e.status = 'ACTIVE', e.activatedAt = :now, e.waitlistPosition = NULL " +
+           "WHERE e.id IN :ids AND e.status = 'WAITLISTED'")
+    int activateWaitlisted(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT e.waitlistPosition FROM Enrollment e WHERE e.id = :id AND e.status = 'WAITLISTED'")
+    Integer findWaitlistTicket(@Param("id") Long id);
+    
+    @Query("SELECT MAX(e.waitlistPosition) FROM Enrollment e WHERE e.id IN :ids")
+    Integer findMaxWaitlistTicketByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Waiting students ahead of a ticket: a range scan of idx_enrollments_waitlist from the head.
+     */
+    @Query("SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = :courseId AND e.status = 'WAITLISTED' " +
+           "AND e.waitlistPosition >= :head AND e.waitlistPosition < :ticket")
+    long countWaitlistedAhead(@Param("courseId") Long courseId, @Param("head") Integer head, @Param("ticket") Integer ticket);
+    
+    @Modifying
+    @Query("UPDATE Enrollment e SET e.status = 'EXPIRED', e.denialReason = :reason " +
+           "WHERE e.paymentId IN :paymentIds AND e.status = 'PENDING_REVIEW'")
+    int expirePendingPaymentEnrollments(@Param("paymentIds") Collection<Long> paymentIds, @Param("reason") String reason);
+    
     @Query("SELECT e FROM Enrollment e WHERE e.invitationToken = :token")
     Optional<Enrollment> findByInvitationToken(@Param("token") String token);
     
@@ -57,6 +158,24 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     @Query("SELECT e FROM Enrollment e WHERE e.student.id = :studentId AND e.course.id IN :courseIds AND e.status = 'COMPLETED'")
     List<Enrollment> findCompletedPrerequisites(@Param("studentId") Long studentId, @Param("courseIds") List<Long> courseIds);
     
+    @Query("SELECT DISTINCT e.course.id FROM Enrollment e WHERE e.student.id = :studentId AND e.status = 'COMPLETED'")
+    List<Long> findCompletedCourseIds(@Param("studentId") Long studentId);
+    
+    /**
+     * Number of distinct completed prerequisite courses per student, as (studentId, count) rows.
+     */
+    @Query("SELECT e.student.id, COUNT(DISTINCT e.course.id) FROM Enrollment e WHERE e.student.id IN :studentIds " +
+           "AND e.course.id IN :courseIds AND e.status = 'COMPLETED' GROUP BY e.student.id")
+    List<Object[]> countCompletedPrerequisitesByStudent(@Param("studentIds") Collection<Long> studentIds,
+                                                        @Param("courseIds") Collection<Long> courseIds);
+    
+    /**
+     * Existing enrollments of the given students in a course, as (studentId, enrollmentId, status) rows.
+     */
+    @Query("SELECT e.student.id, e.id, e.status FROM Enrollment e WHERE e.course.id = :courseId AND e.student.id IN :studentIds")
+    List<Object[]> findEnrollmentStatesByCourseAndStudents(@Param("courseId") Long courseId,
+                                                           @Param("studentIds") Collection<Long> studentIds);
+    
     @Query("SELECT e FROM Enrollment e WHERE e.refundEligibleUntil > :now AND e.status = 'ACTIVE'")
     List<Enrollment> findRefundEligibleEnrollments(@Param("now") LocalDateTime now);
     
@@ -72,8 +191,8 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     @Query("SELECT e FROM Enrollment e WHERE e.enrolledAt BETWEEN :start AND :end")
     List<Enrollment> findEnrollmentsInPeriod(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
-    @Query("SELECT e.course.id, COUNT(e) FROM Enrollment e WHERE e.status = 'ACTIVE' GROUP BY e.course.id ORDER BY COUNT(e) DESC")
-    List<Object[]> findMostPopularCourses();
+    @Query("SELECT e.course.id, e.activatedAt FROM Enrollment e WHERE e.activatedAt >= :since")
+    List<Object[]> findActivationsSince(@Param("since") LocalDateTime since);
     
     @Query("SELECT e FROM Enrollment e WHERE e.student.id = :instructorId AND e.course.id = :courseId")
     Optional<Enrollment> findInstructorSelfEnrollment(@Param("instructorId") Long instructorId, @Param("courseId") Long courseId);
@@ -0,0 +1,29 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.Enrollment;
+
+import java.util.List;
+
+/**
+ * JDBC batch writes for enrollments, used where one statement per row through the
+ * persistence context would be too slow (bulk imports).
+ */
+public interface EnrollmentRepositoryCustom {
+
+    /**
+     * Inserts the enrollments in JDBC batches and sets their generated ids.
+     * Student and course only need their ids populated. Returns the update count of
+     * each row: 0 where the student already has a live enrollment for the course
+     * (uk_enrollments_live_student_course), in which case the row is skipped and its
+     * id left unset.
+     */
+    int[] batchInsert(List<Enrollment> enrollments);
+
+    /**
+     * Re-opens existing (withdrawn, denied or expired) enrollment rows with the status,
+     * source, waitlist position and voucher of the given enrollments, matched by id.
+     * Returns the update count of each row: 0 where the enrollment was re-opened by
+     * someone else in the meantime and is left untouched.
+     */
+    int[] batchReopen(List<Enrollment> enrollments);
+}
@@ -0,0 +1,114 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.Enrollment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class EnrollmentRepositoryCustomImpl implements EnrollmentRepositoryCustom {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO enrollments (student_id, course_id, status, source, enrolled_at, last_accessed_at, " +
+        "activated_at, waitlist_position, voucher_code_used, progress_percentage, total_points) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0.0, 0) ON CONFLICT DO NOTHING";
+
+    private static final String REOPEN_SQL =
+        "UPDATE enrollments SET status = ?, source = ?, enrolled_at = ?, last_accessed_at = ?, activated_at = ?, " +
+        "waitlist_position = ?, voucher_code_used = ?, denial_reason = NULL, payment_id = NULL, " +
+        "progress_percentage = 0.0, total_points = 0, grade = NULL, completed_at = NULL, prereq_override_by = NULL, " +
+        "approval_requested_at = NULL, approved_at = NULL, approved_by = NULL, refund_eligible_until = NULL, " +
+        "invitation_token = NULL, invited_by = NULL " +
+        "WHERE id = ? AND status NOT IN ('ACTIVE', 'COMPLETED', 'PENDING_REVIEW', 'WAITLISTED')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] batchInsert(List<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return new int[0];
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int[] counts = jdbcTemplate.batchUpdate(
+            con -> con.prepareStatement(INSERT_SQL, new String[] {"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Enrollment enrollment = enrollments.get(i);
+                    ps.setLong(1, enrollment.getStudent().getId());
+                    ps.setLong(2, enrollment.getCourse().getId());
+                    ps.setString(3, enrollment.getStatus().name());
+                    ps.setString(4, enrollment.getSource().name());
+                    ps.setTimestamp(5, toTimestamp(enrollment.getEnrolledAt()));
+                    ps.setTimestamp(6, toTimestamp(enrollment.getLastAccessedAt()));
+                    ps.setTimestamp(7, toTimestamp(enrollment.getActivatedAt()));
+                    setNullableInt(ps, 8, enrollment.getWaitlistPosition());
+                    ps.setString(9, enrollment.getVoucherCodeUsed());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return enrollments.size();
+                }
+            },
+            keyHolder);
+
+        // Rows skipped by the conflict clause return no key, so keys line up with inserted rows only
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        int key = 0;
+        for (int i = 0; i < enrollments.size(); i++) {
+            if (counts[i] != 0) {
+                enrollments.get(i).setId(((Number) keys.get(key++).get("id")).longValue());
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public int[] batchReopen(List<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(REOPEN_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Enrollment enrollment = enrollments.get(i);
+                ps.setString(1, enrollment.getStatus().name());
+                ps.setString(2, enrollment.getSource().name());
+                ps.setTimestamp(3, toTimestamp(enrollment.getEnrolledAt()));
+                ps.setTimestamp(4, toTimestamp(enrollment.getLastAccessedAt()));
+                ps.setTimestamp(5, toTimestamp(enrollment.getActivatedAt()));
+                setNullableInt(ps, 6, enrollment.getWaitlistPosition());
+                ps.setString(7, enrollment.getVoucherCodeUsed());
+                ps.setLong(8, enrollment.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return enrollments.size();
+            }
+        });
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+}
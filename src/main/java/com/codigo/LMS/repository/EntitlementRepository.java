@@ -3,17 +3,20 @@ package com.codigo.LMS.repository;
 import com.codigo.LMS.entity.Entitlement;
 import com.codigo.LMS.entity.EntitlementStatus;
 import com.codigo.LMS.entity.ResourceType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EntitlementRepository extends JpaRepository<Entitlement, Long> {
+public interface EntitlementRepository extends JpaRepository<Entitlement, Long>, EntitlementRepositoryCustom {
     
     List<Entitlement> findByUserIdAndStatus(Long userId, EntitlementStatus status);
     
@@ -35,8 +38,20 @@ public interface EntitlementRepository extends JpaRepository<Entitlement, Long>
            "(e.expiresAt IS NULL OR e.expiresAt > :now)")
     List<Entitlement> findActiveEntitlementsByUser(@Param("userId") Long userId, @Param("now") LocalDateTime now);
     
-    @Query("SELECT e FROM Entitlement e WHERE e.expiresAt < :now AND e.status = 'ACTIVE'")
-    List<Entitlement> findExpiredActiveEntitlements(@Param("now") LocalDateTime now);
+    /**
+     * Next page of active entitlements past their expiry, as (id, userId, resourceType, resourceId),
+     * keyset-paginated on id.
+     */
+    @Query("SELECT e.id, e.user.id, e.resourceType, e.resourceId FROM Entitlement e " +
+           "WHERE e.status = 'ACTIVE' AND e.expiresAt < :now AND e.id > :afterId ORDER BY e.id")
+    List<Object[]> findExpiredActiveAfter(@Param("now") LocalDateTime now, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Entitlement e SET e.status = 'EXPIRED' WHERE e.id IN :ids AND e.status = 'ACTIVE' AND e.expiresAt < :now")
+    int markExpired(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT e.id FROM Entitlement e WHERE e.id IN :ids AND e.status = 'EXPIRED'")
+    List<Long> findExpiredIdsIn(@Param("ids") Collection<Long> ids);
     
     @Query("SELECT COUNT(e) FROM Entitlement e WHERE e.user.id = :userId AND e.resourceType = :resourceType AND e.status = 'ACTIVE'")
     long countActiveEntitlementsByUserAndType(@Param("userId") Long userId, @Param("resourceType") ResourceType resourceType);
@@ -46,4 +61,22 @@ public interface EntitlementRepository extends JpaRepository<Entitlement, Long>
     List<Long> findAccessibleResourceIds(@Param("userId") Long userId, 
                                        @Param("resourceType") ResourceType resourceType,
                                        @Param("now") LocalDateTime now);
-}
\ No newline at end of file
+    
+    /**
+     * What decides a user's access, as (resourceType, resourceId, status, grantedByEnrollmentId, expiresAt):
+     * active rows plus explicit revokes and suspensions.
+     */
+    @Query("SELECT e.resourceType, e.resourceId, e.status, e.grantedByEnrollmentId, e.expiresAt FROM Entitlement e " +
+           "WHERE e.user.id = :userId AND (e.status = 'ACTIVE' OR " +
+           "(e.grantedByEnrollmentId IS NULL AND e.status IN ('REVOKED', 'SUSPENDED')))")
+    List<Object[]> findAccessRowsByUser(@Param("userId") Long userId);
+    
+    /**
+     * Explicit per-resource override, i.e. a row not derived from an enrollment.
+     */
+    @Query("SELECT e FROM Entitlement e WHERE e.user.id = :userId AND e.resourceType = :resourceType AND " +
+           "e.resourceId = :resourceId AND e.grantedByEnrollmentId IS NULL ORDER BY e.id DESC")
+    List<Entitlement> findOverrides(@Param("userId") Long userId,
+                                    @Param("resourceType") ResourceType resourceType,
+                                    @Param("resourceId") Long resourceId);
+}
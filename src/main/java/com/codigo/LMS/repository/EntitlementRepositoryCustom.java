@@ -0,0 +1,36 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.dto.RevokedEntitlement;
+import com.codigo.LMS.entity.Entitlement;
+
+import java.util.List;
+
+/**
+ * Bulk writes for entitlements. Bulk and waitlist enrollments grant hundreds of course
+ * entitlements at a time, and unpublishing a course revokes thousands; through the
+ * persistence context each row would be its own statement.
+ */
+public interface EntitlementRepositoryCustom {
+
+    /**
+     * Which active entitlements a bulk revoke applies to.
+     */
+    enum RevocationScope {
+        ENROLLMENT,   // Rows granted by one enrollment
+        COURSE,       // Grants from the course's enrollments, explicit course grants and lesson overrides
+        ORGANIZATION  // Rows granted by enrollments redeemed with the organization's vouchers
+    }
+
+    /**
+     * Inserts the entitlements with multi-row statements. The user only needs its id populated;
+     * generated ids are not read back.
+     */
+    void batchInsert(List<Entitlement> entitlements);
+
+    /**
+     * Revokes up to {@code limit} active entitlements in the scope with one set-based update
+     * and returns what was revoked. Revoked rows leave the active set, so calling again
+     * until fewer than {@code limit} come back walks the whole scope.
+     */
+    List<RevokedEntitlement> revokeActive(RevocationScope scope, Long key, int limit, Long revokedBy, String reason);
+}
@@ -0,0 +1,153 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.dto.RevokedEntitlement;
+import com.codigo.LMS.entity.Entitlement;
+import com.codigo.LMS.entity.EntitlementStatus;
+import com.codigo.LMS.entity.ResourceType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes entitlements as multi-row INSERT statements of up to {@code lms.jdbc.batch-size}
+ * rows, so a chunk costs one round trip however many enrollments it grants. Ids come
+ * from the table's identity column.
+ *
+ * Revocations are one {@code UPDATE ... RETURNING} per chunk on Postgres. Other
+ * databases lock the chunk with {@code SELECT ... FOR UPDATE} and update it by id.
+ */
+public class EntitlementRepositoryCustomImpl implements EntitlementRepositoryCustom {
+
+    private static final String INSERT_PREFIX =
+        "INSERT INTO entitlements (user_id, resource_type, resource_id, granted_by_enrollment_id, status, granted_at, expires_at) VALUES ";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int PARAMS_PER_ROW = 7;
+
+    // Postgres accepts at most 32767 bind parameters per statement
+    private static final int MAX_ROWS_PER_STATEMENT = 32767 / PARAMS_PER_ROW;
+
+    private static final String REVOKE_SET =
+        "UPDATE entitlements SET status = 'REVOKED', revoked_at = ?, revoked_by = ?, revoke_reason = ? ";
+
+    private static final String RETURNED_COLUMNS = "id, user_id, resource_type, resource_id";
+
+    private static final RowMapper<RevokedEntitlement> REVOKED_MAPPER = (rs, rowNum) -> new RevokedEntitlement(
+        rs.getLong("id"), rs.getLong("user_id"), ResourceType.valueOf(rs.getString("resource_type")), rs.getLong("resource_id"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    @Value("${lms.jdbc.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public void batchInsert(List<Entitlement> entitlements) {
+        int rowsPerStatement = Math.min(batchSize, MAX_ROWS_PER_STATEMENT);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < entitlements.size(); from += rowsPerStatement) {
+            List<Entitlement> chunk = entitlements.subList(from, Math.min(from + rowsPerStatement, entitlements.size()));
+            jdbcTemplate.update(insertSql(chunk.size()), ps -> {
+                int index = 1;
+                for (Entitlement entitlement : chunk) {
+                    index = bindRow(ps, index, entitlement, now);
+                }
+            });
+        }
+    }
+
+    @Override
+    public List<RevokedEntitlement> revokeActive(RevocationScope scope, Long key, int limit, Long revokedBy, String reason) {
+        String condition = scopeCondition(scope);
+        List<Object> params = new ArrayList<>();
+        params.add(Timestamp.valueOf(LocalDateTime.now()));
+        params.add(revokedBy);
+        params.add(reason);
+        List<Object> chunkParams = new ArrayList<>(Collections.nCopies((int) condition.chars().filter(c -> c == '?').count(), key));
+        chunkParams.add(limit);
+        String chunkFilter = " FROM entitlements WHERE status = 'ACTIVE' AND " + condition + " ORDER BY id LIMIT ? FOR UPDATE";
+
+        if (isPostgres()) {
+            params.addAll(chunkParams);
+            return jdbcTemplate.query(REVOKE_SET + "WHERE id IN (SELECT id" + chunkFilter + ") RETURNING " + RETURNED_COLUMNS,
+                REVOKED_MAPPER, params.toArray());
+        }
+
+        List<RevokedEntitlement> revoked = jdbcTemplate.query("SELECT " + RETURNED_COLUMNS + chunkFilter,
+            REVOKED_MAPPER, chunkParams.toArray());
+        if (!revoked.isEmpty()) {
+            StringBuilder update = new StringBuilder(REVOKE_SET).append("WHERE id IN (");
+            for (int i = 0; i < revoked.size(); i++) {
+                update.append(i > 0 ? ", ?" : "?");
+                params.add(revoked.get(i).getEntitlementId());
+            }
+            jdbcTemplate.update(update.append(")").toString(), params.toArray());
+        }
+        return revoked;
+    }
+
+    private static String scopeCondition(RevocationScope scope) {
+        return switch (scope) {
+            case ENROLLMENT -> "granted_by_enrollment_id = ?";
+            case COURSE -> "(granted_by_enrollment_id IN (SELECT id FROM enrollments WHERE course_id = ?)" +
+                " OR (resource_type = 'COURSE' AND resource_id = ?)" +
+                " OR (resource_type = 'LESSON' AND granted_by_enrollment_id IS NULL AND resource_id IN" +
+                " (SELECT l.id FROM lessons l JOIN modules m ON m.id = l.module_id WHERE m.course_id = ?)))";
+            case ORGANIZATION -> "granted_by_enrollment_id IN (SELECT en.id FROM enrollments en" +
+                " JOIN vouchers v ON v.code = en.voucher_code_used WHERE v.org_id = ?)";
+        };
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equalsIgnoreCase(product);
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+
+    private static int bindRow(PreparedStatement ps, int index, Entitlement entitlement, Timestamp now) throws SQLException {
+        ps.setLong(index++, entitlement.getUser().getId());
+        ps.setString(index++, entitlement.getResourceType().name());
+        ps.setLong(index++, entitlement.getResourceId());
+        if (entitlement.getGrantedByEnrollmentId() != null) {
+            ps.setLong(index++, entitlement.getGrantedByEnrollmentId());
+        } else {
+            ps.setNull(index++, Types.BIGINT);
+        }
+        EntitlementStatus status = entitlement.getStatus() != null ? entitlement.getStatus() : EntitlementStatus.ACTIVE;
+        ps.setString(index++, status.name());
+        ps.setTimestamp(index++, entitlement.getGrantedAt() != null ? Timestamp.valueOf(entitlement.getGrantedAt()) : now);
+        ps.setTimestamp(index++, entitlement.getExpiresAt() != null ? Timestamp.valueOf(entitlement.getExpiresAt()) : null);
+        return index;
+    }
+}
@@ -26,6 +26,12 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
     @Query("SELECT l FROM Lesson l WHERE l.module.course = :course ORDER BY l.module.orderIndex ASC, l.orderIndex ASC")
     List<Lesson> findByCourseOrderByModuleAndLessonIndex(@Param("course") Course course);
     
+    @Query("SELECT l.id FROM Lesson l WHERE l.module.course.id = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
+    
+    @Query("SELECT l.id, l.module.id, l.isFree FROM Lesson l")
+    List<Object[]> findLessonHierarchyRows();
+    
     @Query("SELECT COUNT(l) FROM Lesson l WHERE l.module = :module")
     long countByModule(@Param("module") Module module);
     
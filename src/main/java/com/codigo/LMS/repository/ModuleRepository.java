@@ -22,6 +22,12 @@ public interface ModuleRepository extends JpaRepository<Module, Long> {
     @Query("SELECT m FROM Module m WHERE m.course.id = :courseId ORDER BY m.orderIndex ASC")
     List<Module> findByCourseIdOrderByOrderIndex(@Param("courseId") Long courseId);
     
+    @Query("SELECT m.id FROM Module m WHERE m.course.id = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
+    
+    @Query("SELECT m.id, m.course.id FROM Module m")
+    List<Object[]> findModuleCourseIds();
+    
     @Query("SELECT COUNT(m) FROM Module m WHERE m.course = :course")
     long countByCourse(@Param("course") Course course);
     
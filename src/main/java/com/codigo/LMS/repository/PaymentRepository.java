@@ -2,12 +2,17 @@ package com.codigo.LMS.repository;
 
 import com.codigo.LMS.entity.Payment;
 import com.codigo.LMS.entity.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +29,10 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     Optional<Payment> findByExternalTxnId(String externalTxnId);
     
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id = :id")
+    Optional<Payment> lockById(@Param("id") Long id);
+    
     List<Payment> findByInvoiceNumber(String invoiceNumber);
     
     @Query("SELECT p FROM Payment p WHERE p.user.id = :userId AND p.course.id = :courseId AND p.status = :status")
@@ -34,6 +43,23 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT p FROM Payment p WHERE p.status = 'PENDING' AND p.createdAt < :cutoffTime")
     List<Payment> findExpiredPendingPayments(@Param("cutoffTime") LocalDateTime cutoffTime);
     
+    @Query("SELECT p.id FROM Payment p WHERE p.status = 'PENDING' AND p.createdAt < :cutoffTime ORDER BY p.id")
+    List<Long> findExpiredPendingPaymentIds(@Param("cutoffTime") LocalDateTime cutoffTime, Pageable pageable);
+    
+    /**
+     * Locks the payments that are still pending and past the cutoff, in id order, so
+     * concurrent expiry batches and webhooks (which lock the payment first too) queue
+     * up instead of deadlocking.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id IN :paymentIds AND p.status = 'PENDING' AND p.createdAt < :cutoffTime ORDER BY p.id")
+    List<Payment> lockExpiredPendingPayments(@Param("paymentIds") Collection<Long> paymentIds,
+                                             @Param("cutoffTime") LocalDateTime cutoffTime);
+    
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = 'EXPIRED', p.failureReason = :reason WHERE p.id IN :paymentIds AND p.status = 'PENDING'")
+    int markPaymentsExpired(@Param("paymentIds") Collection<Long> paymentIds, @Param("reason") String reason);
+    
     @Query("SELECT COUNT(p) FROM Payment p WHERE p.user.id = :userId AND p.status = 'SUCCEEDED'")
     long countSuccessfulPaymentsByUser(@Param("userId") Long userId);
     
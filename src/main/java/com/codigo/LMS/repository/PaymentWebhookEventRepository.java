@@ -0,0 +1,56 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.PaymentWebhookEvent;
+import com.codigo.LMS.entity.PaymentWebhookStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+    
+    boolean existsByEventId(String eventId);
+    
+    /**
+     * Payments with webhooks due, oldest delivery first. Webhooks backing off after a
+     * failure are left out until their next attempt.
+     */
+    @Query("SELECT w.paymentId FROM PaymentWebhookEvent w WHERE w.status = 'RECEIVED' " +
+           "AND (w.nextAttemptAt IS NULL OR w.nextAttemptAt <= :now) " +
+           "GROUP BY w.paymentId ORDER BY MIN(w.id)")
+    List<Long> findPendingPaymentIds(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    @Query("SELECT w FROM PaymentWebhookEvent w WHERE w.paymentId = :paymentId AND w.status = 'RECEIVED' ORDER BY w.id")
+    List<PaymentWebhookEvent> findPendingByPaymentId(@Param("paymentId") Long paymentId);
+    
+    @Query("SELECT MAX(w.attempts) FROM PaymentWebhookEvent w WHERE w.paymentId = :paymentId AND w.status = 'RECEIVED'")
+    Integer findMaxPendingAttempts(@Param("paymentId") Long paymentId);
+    
+    @Modifying
+    @Query("UPDATE PaymentWebhookEvent w SET w.attempts = w.attempts + 1, w.error = :error, " +
+           "w.nextAttemptAt = :nextAttemptAt, " +
+           "w.status = CASE WHEN w.attempts + 1 >= :maxAttempts THEN :failed ELSE w.status END " +
+           "WHERE w.paymentId = :paymentId AND w.status = 'RECEIVED'")
+    int recordFailure(@Param("paymentId") Long paymentId, @Param("error") String error,
+                      @Param("maxAttempts") int maxAttempts, @Param("failed") PaymentWebhookStatus failed,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+    
+    /**
+     * Put FAILED webhooks back in the queue with a fresh set of attempts, those of one
+     * payment or all of them when {@code paymentId} is null.
+     */
+    @Modifying
+    @Query("UPDATE PaymentWebhookEvent w SET w.status = 'RECEIVED', w.attempts = 0, w.nextAttemptAt = NULL " +
+           "WHERE w.status = 'FAILED' AND (:paymentId IS NULL OR w.paymentId = :paymentId)")
+    int requeueFailed(@Param("paymentId") Long paymentId);
+    
+    @Modifying
+    @Query("DELETE FROM PaymentWebhookEvent w WHERE w.status IN ('PROCESSED', 'IGNORED') AND w.receivedAt < :cutoff")
+    int deleteHandledBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,38 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.RatingTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RatingTotalsRepository extends JpaRepository<RatingTotals, Integer> {
+
+    @Modifying
+    @Query("UPDATE RatingTotals t SET t.reviewCount = t.reviewCount + :count, t.ratingSum = t.ratingSum + :sum, " +
+           "t.updatedAt = :now WHERE t.id = 1")
+    int applyChange(@Param("count") long count, @Param("sum") long sum, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO rating_totals (id, review_count, rating_sum, updated_at) " +
+                   "VALUES (1, 0, 0, CURRENT_TIMESTAMP) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int initializeTotals();
+
+    @Query("SELECT t.reviewCount, t.ratingSum FROM RatingTotals t WHERE t.id = 1")
+    List<Object[]> findTotals();
+
+    @Modifying
+    @Query(value = "UPDATE rating_totals SET updated_at = CURRENT_TIMESTAMP, " +
+                   "review_count = (SELECT COUNT(*) FROM course_reviews), " +
+                   "rating_sum = (SELECT COALESCE(SUM(rating), 0) FROM course_reviews) " +
+                   "WHERE id = 1 AND (review_count <> (SELECT COUNT(*) FROM course_reviews) " +
+                   "OR rating_sum <> (SELECT COALESCE(SUM(rating), 0) FROM course_reviews))",
+           nativeQuery = true)
+    int reconcileWithReviews();
+}
@@ -0,0 +1,42 @@
+package com.codigo.LMS.repository;
+
+import com.codigo.LMS.entity.SeatHold;
+import com.codigo.LMS.entity.SeatHoldStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SeatHoldRepository extends JpaRepository<SeatHold, Long> {
+    
+    Optional<SeatHold> findByPaymentId(Long paymentId);
+    
+    @Query("SELECT COUNT(h) FROM SeatHold h WHERE h.courseId = :courseId AND h.status = 'HELD'")
+    long countActiveHoldsByCourse(@Param("courseId") Long courseId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM SeatHold h WHERE h.paymentId IN :paymentIds AND h.status = :status ORDER BY h.id")
+    List<SeatHold> lockByPaymentIdsAndStatus(@Param("paymentIds") Collection<Long> paymentIds,
+                                            @Param("status") SeatHoldStatus status);
+    
+    @Modifying
+    @Query("UPDATE SeatHold h SET h.status = :newStatus, h.resolvedAt = :now " +
+           "WHERE h.paymentId = :paymentId AND h.status = 'HELD'")
+    int resolveHold(@Param("paymentId") Long paymentId,
+                    @Param("newStatus") SeatHoldStatus newStatus,
+                    @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE SeatHold h SET h.status = 'RELEASED', h.resolvedAt = :now " +
+           "WHERE h.id IN :holdIds AND h.status = 'HELD'")
+    int releaseHolds(@Param("holdIds") Collection<Long> holdIds, @Param("now") LocalDateTime now);
+}
@@ -3,10 +3,12 @@ package com.codigo.LMS.repository;
 import com.codigo.LMS.entity.User;
 import com.codigo.LMS.entity.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +25,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role")
     long countByRole(@Param("role") Role role);
     
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * (id, email) rows for the users with the given emails.
+     */
+    @Query("SELECT u.id, u.email FROM User u WHERE u.email IN :emails")
+    List<Object[]> findIdsByEmailIn(@Param("emails") Collection<String> emails);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.totalPoints = u.totalPoints + :points WHERE u.id IN :ids")
+    int addPoints(@Param("ids") Collection<Long> ids, @Param("points") int points);
+    
+    /**
+     * Users among {@code ids} whose points reached {@code threshold} with the last {@code awarded} points.
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids AND u.totalPoints >= :threshold AND u.totalPoints - :awarded < :threshold")
+    List<Long> findIdsCrossingPoints(@Param("ids") Collection<Long> ids, @Param("awarded") int awarded,
+                                     @Param("threshold") int threshold);
+    
     @Query("SELECT u FROM User u ORDER BY u.totalPoints DESC")
     List<User> findTopUsersByPoints(@Param("limit") int limit);
 }
\ No newline at end of file
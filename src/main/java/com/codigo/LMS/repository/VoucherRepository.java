@@ -2,6 +2,7 @@ package com.codigo.LMS.repository;
 
 import com.codigo.LMS.entity.Voucher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -42,6 +43,15 @@ public interface VoucherRepository extends JpaRepository<Voucher, Long> {
     @Query("SELECT v FROM Voucher v WHERE v.maxUses IS NOT NULL AND v.uses >= v.maxUses AND v.isActive = true")
     List<Voucher> findFullyUsedActiveVouchers();
     
+    /**
+     * Count {@code count} more uses, only if they all fit under the voucher's limit; 0 if
+     * they do not.
+     */
+    @Modifying
+    @Query("UPDATE Voucher v SET v.uses = COALESCE(v.uses, 0) + :count WHERE v.id = :id " +
+           "AND (v.maxUses IS NULL OR COALESCE(v.uses, 0) + :count <= v.maxUses)")
+    int incrementUsage(@Param("id") Long id, @Param("count") int count);
+    
     @Query("SELECT COUNT(v) FROM Voucher v WHERE v.orgId = :orgId AND v.isActive = true")
     long countActiveVouchersByOrg(@Param("orgId") Long orgId);
 }
\ No newline at end of file
@@ -0,0 +1,412 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.dto.BulkEnrollmentRequest;
+import com.codigo.LMS.dto.BulkEnrollmentResult;
+import com.codigo.LMS.entity.BulkEnrollmentJob;
+import com.codigo.LMS.entity.BulkEnrollmentJobRow;
+import com.codigo.LMS.entity.BulkEnrollmentJobStatus;
+import com.codigo.LMS.entity.BulkEnrollmentRowStatus;
+import com.codigo.LMS.repository.BulkEnrollmentJobRepository;
+import com.codigo.LMS.repository.BulkEnrollmentJobRowRepository;
+import com.codigo.LMS.repository.CourseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background bulk enrollment of uploaded CSV rosters.
+ *
+ * The upload is read line by line and staged in {@code bulk_enrollment_job_rows} with
+ * JDBC batches, so the roster is never held in memory. Jobs run on a small bounded
+ * pool, one {@link BulkEnrollmentService} call per chunk of pending rows, and record
+ * their progress after every chunk. Because both the job and its rows are persisted,
+ * a job whose node went away is requeued by {@link #dispatchQueuedJobs} and resumes
+ * from its remaining pending rows.
+ */
+@Service
+public class BulkEnrollmentJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkEnrollmentJobService.class);
+
+    private static final int STAGING_BATCH_SIZE = 1000;
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    @Autowired
+    private BulkEnrollmentJobRepository jobRepository;
+
+    @Autowired
+    private BulkEnrollmentJobRowRepository jobRowRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${lms.bulk-jobs.workers:2}")
+    private int workers;
+
+    @Value("${lms.bulk-jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${lms.bulk-jobs.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${lms.bulk-jobs.max-rows:100000}")
+    private int maxRows;
+
+    @Value("${lms.bulk-jobs.stale-after-minutes:5}")
+    private long staleAfterMinutes;
+
+    // Jobs running or queued on this node
+    private final Set<Long> localJobs = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void startExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "bulk-enroll-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        // Unfinished jobs stay RUNNING and are requeued once their heartbeat goes stale
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stage a CSV roster and queue it. The roster has one student per line, either
+     * with a header naming {@code user_id} and/or {@code email} columns, or as a single
+     * column of user ids or emails.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkEnrollmentJob submit(Long courseId, InputStream roster, String fileName, String voucherCode, Long adminId) throws IOException {
+        if (courseId == null || !courseRepository.existsById(courseId)) {
+            throw new IllegalArgumentException("Course not found");
+        }
+
+        BulkEnrollmentJob job = transactionTemplate.execute(status -> {
+            BulkEnrollmentJob created = jobRepository.save(new BulkEnrollmentJob(courseId, adminId, voucherCode, fileName));
+            try {
+                stageRoster(created, roster);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Could not read roster: " + e.getMessage(), e);
+            }
+            return jobRepository.save(created);
+        });
+
+        logger.info("Queued bulk enrollment job {} with {} rows for course {}", job.getId(), job.getTotalRows(), courseId);
+        dispatch(job.getId());
+        return job;
+    }
+
+    @Transactional(readOnly = true)
+    public BulkEnrollmentJob getJob(Long jobId) {
+        return jobRepository.findById(jobId).orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BulkEnrollmentJob> findRecentJobs(Long adminId, int limit) {
+        return jobRepository.findByCreatedByOrderByCreatedAtDesc(adminId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Write the failed rows of a job as CSV, one page at a time.
+     */
+    public void writeFailureReport(Long jobId, Writer writer) throws IOException {
+        writer.write("line,user_id,email,error\n");
+        int afterLine = 0;
+        List<BulkEnrollmentJobRow> page;
+        do {
+            page = jobRowRepository.findFailedRowsAfter(jobId, afterLine, PageRequest.of(0, STAGING_BATCH_SIZE));
+            for (BulkEnrollmentJobRow row : page) {
+                writer.write(row.getLineNumber() + "," + csvValue(row.getUserId()) + "," + csvValue(row.getEmail()) + ","
+                    + csvValue(row.getError()) + "\n");
+                afterLine = row.getLineNumber();
+            }
+            writer.flush();
+        } while (page.size() == STAGING_BATCH_SIZE);
+    }
+
+    /**
+     * Requeue jobs orphaned by a stopped node and hand queued jobs to free workers.
+     */
+    @Scheduled(fixedDelayString = "${lms.bulk-jobs.dispatch-interval-ms:15000}",
+               initialDelayString = "${lms.bulk-jobs.dispatch-initial-delay-ms:10000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void dispatchQueuedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer requeued = transactionTemplate.execute(status ->
+            jobRepository.requeueStaleJobs(now.minusMinutes(staleAfterMinutes), now));
+        if (requeued != null && requeued > 0) {
+            logger.warn("Requeued {} stalled bulk enrollment jobs", requeued);
+        }
+
+        int capacity = workers + queueCapacity - localJobs.size();
+        if (capacity <= 0) {
+            return;
+        }
+        for (Long jobId : jobRepository.findIdsByStatus(BulkEnrollmentJobStatus.QUEUED, PageRequest.of(0, capacity))) {
+            dispatch(jobId);
+        }
+    }
+
+    private void dispatch(Long jobId) {
+        if (!localJobs.add(jobId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    runJob(jobId);
+                } finally {
+                    localJobs.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool is saturated; the job stays QUEUED for the next dispatch round
+            localJobs.remove(jobId);
+        }
+    }
+
+    private void runJob(Long jobId) {
+        Integer claimed = transactionTemplate.execute(status -> jobRepository.claimJob(jobId, LocalDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+
+        BulkEnrollmentJob job = jobRepository.findById(jobId).orElseThrow();
+        try {
+            List<BulkEnrollmentJobRow> rows;
+            do {
+                // Processed rows leave PENDING, so the first page is always the next chunk
+                rows = jobRowRepository.findPendingRows(jobId, PageRequest.of(0, chunkSize));
+                if (!rows.isEmpty()) {
+                    processChunk(job, rows);
+                }
+            } while (rows.size() == chunkSize && !Thread.currentThread().isInterrupted());
+
+            if (!Thread.currentThread().isInterrupted()) {
+                transactionTemplate.executeWithoutResult(status ->
+                    jobRepository.finishJob(jobId, BulkEnrollmentJobStatus.COMPLETED, null, LocalDateTime.now()));
+                logger.info("Bulk enrollment job {} completed", jobId);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Bulk enrollment job {} failed", jobId, e);
+            transactionTemplate.executeWithoutResult(status ->
+                jobRepository.finishJob(jobId, BulkEnrollmentJobStatus.FAILED, truncate(e.getMessage()), LocalDateTime.now()));
+        }
+    }
+
+    private void processChunk(BulkEnrollmentJob job, List<BulkEnrollmentJobRow> rows) {
+        // Rows are sent as ids first, then emails; results come back in the same order
+        List<BulkEnrollmentJobRow> ordered = new ArrayList<>(rows.size());
+        List<Long> userIds = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        for (BulkEnrollmentJobRow row : rows) {
+            if (row.getUserId() != null) {
+                ordered.add(row);
+                userIds.add(row.getUserId());
+            }
+        }
+        for (BulkEnrollmentJobRow row : rows) {
+            if (row.getUserId() == null) {
+                ordered.add(row);
+                emails.add(row.getEmail());
+            }
+        }
+
+        BulkEnrollmentRequest request = new BulkEnrollmentRequest();
+        request.setCourseId(job.getCourseId());
+        request.setUserIds(userIds);
+        request.setUserEmails(emails);
+        request.setVoucherCode(job.getVoucherCode());
+        BulkEnrollmentResult result = bulkEnrollmentService.bulkEnroll(request, job.getCreatedBy());
+
+        int enrolled = 0;
+        int waitlisted = 0;
+        int failed = 0;
+        List<Map<String, Object>> results = result.getResults();
+        for (int i = 0; i < ordered.size(); i++) {
+            BulkEnrollmentJobRow row = ordered.get(i);
+            Map<String, Object> outcome = results.get(i);
+            String status = (String) outcome.get("status");
+            if ("ACTIVE".equals(status)) {
+                row.setStatus(BulkEnrollmentRowStatus.ENROLLED);
+                enrolled++;
+            } else if ("WAITLISTED".equals(status)) {
+                row.setStatus(BulkEnrollmentRowStatus.WAITLISTED);
+                waitlisted++;
+            } else {
+                row.setStatus(BulkEnrollmentRowStatus.FAILED);
+                row.setError(truncate((String) outcome.get("error")));
+                failed++;
+            }
+            row.setEnrollmentId((Long) outcome.get("enrollmentId"));
+        }
+
+        int succeeded = enrolled + waitlisted;
+        int failures = failed;
+        int onWaitlist = waitlisted;
+        transactionTemplate.executeWithoutResult(status -> {
+            jobRowRepository.batchUpdateOutcomes(rows);
+            jobRepository.recordProgress(job.getId(), rows.size(), succeeded, onWaitlist, failures, LocalDateTime.now());
+        });
+    }
+
+    /**
+     * Parse the roster stream into staged rows, flushing every {@link #STAGING_BATCH_SIZE} lines.
+     * Unparseable lines are staged as already failed.
+     */
+    private void stageRoster(BulkEnrollmentJob job, InputStream roster) throws IOException {
+        Long jobId = job.getId();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(roster, StandardCharsets.UTF_8));
+        List<BulkEnrollmentJobRow> batch = new ArrayList<>(STAGING_BATCH_SIZE);
+        int idColumn = -1;
+        int emailColumn = -1;
+        int lineNumber = 0;
+        int staged = 0;
+        int rejected = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] values = splitCsvLine(line);
+
+            if (lineNumber == 1) {
+                for (int i = 0; i < values.length; i++) {
+                    String header = values[i].toLowerCase(Locale.ROOT).replace("_", "").replace(" ", "");
+                    if (header.equals("userid") || header.equals("id")) {
+                        idColumn = i;
+                    } else if (header.equals("email") || header.equals("useremail")) {
+                        emailColumn = i;
+                    }
+                }
+                if (idColumn >= 0 || emailColumn >= 0) {
+                    continue;
+                }
+            }
+
+            if (++staged > maxRows) {
+                throw new IllegalArgumentException("Roster exceeds the limit of " + maxRows + " rows");
+            }
+            BulkEnrollmentJobRow row = parseRow(jobId, lineNumber, values, idColumn, emailColumn);
+            if (row.getStatus() == BulkEnrollmentRowStatus.FAILED) {
+                rejected++;
+            }
+            batch.add(row);
+            if (batch.size() == STAGING_BATCH_SIZE) {
+                jobRowRepository.batchInsert(batch);
+                batch.clear();
+            }
+        }
+        jobRowRepository.batchInsert(batch);
+
+        job.setTotalRows(staged);
+        job.setProcessedRows(rejected);
+        job.setFailedRows(rejected);
+    }
+
+    private BulkEnrollmentJobRow parseRow(Long jobId, int lineNumber, String[] values, int idColumn, int emailColumn) {
+        String idValue = idColumn >= 0 && idColumn < values.length ? values[idColumn] : null;
+        String emailValue = emailColumn >= 0 && emailColumn < values.length ? values[emailColumn] : null;
+        if (idColumn < 0 && emailColumn < 0) {
+            // Headerless single column: a number is a user id, anything else an email
+            String value = values[0];
+            if (value.chars().allMatch(Character::isDigit)) {
+                idValue = value;
+            } else {
+                emailValue = value;
+            }
+        }
+
+        if (idValue != null && !idValue.isEmpty()) {
+            try {
+                return new BulkEnrollmentJobRow(jobId, lineNumber, Long.parseLong(idValue), emailValue);
+            } catch (NumberFormatException e) {
+                return failedRow(jobId, lineNumber, emailValue, "Invalid user id: " + idValue);
+            }
+        }
+        if (emailValue != null && !emailValue.isEmpty()) {
+            return new BulkEnrollmentJobRow(jobId, lineNumber, null, emailValue);
+        }
+        return failedRow(jobId, lineNumber, null, "Row has no user id or email");
+    }
+
+    private BulkEnrollmentJobRow failedRow(Long jobId, int lineNumber, String email, String error) {
+        BulkEnrollmentJobRow row = new BulkEnrollmentJobRow(jobId, lineNumber, null, email);
+        row.setStatus(BulkEnrollmentRowStatus.FAILED);
+        row.setError(truncate(error));
+        return row;
+    }
+
+    private static String[] splitCsvLine(String line) {
+        String[] values = line.split(",", -1);
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i].trim();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1).trim();
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,455 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.dto.BulkEnrollmentRequest;
+import com.codigo.LMS.dto.BulkEnrollmentResult;
+import com.codigo.LMS.dto.VoucherValidationResult;
+import com.codigo.LMS.entity.*;
+import com.codigo.LMS.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Set-based bulk enrollment for admin imports.
+ *
+ * Everything the per-student path looks up row by row (users, existing enrollments,
+ * prerequisite completions, capacity) is prefetched with a handful of IN queries for
+ * the whole request. Enrollments and entitlements are then written with JDBC batch
+ * inserts, one transaction per chunk, so a large import neither holds one giant
+ * transaction nor loses finished chunks when a later one fails.
+ *
+ * Bulk enrollments are granted by an admin: the course's approval and payment steps
+ * do not apply, but the enrollment window, prerequisites and capacity do. Students
+ * beyond capacity are waitlisted.
+ *
+ * Students can still enroll themselves while an import runs, so each chunk re-reads
+ * its students' enrollments inside its own transaction, and its writes skip any
+ * student who enrolls after that re-read. Only that student's row fails; the seat,
+ * waitlist place and voucher use taken for it are given back.
+ */
+@Service
+public class BulkEnrollmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkEnrollmentService.class);
+
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    private static final Set<EnrollmentStatus> ENROLLED_STATUSES = EnumSet.of(EnrollmentStatus.ACTIVE, EnrollmentStatus.COMPLETED);
+    private static final Set<EnrollmentStatus> OPEN_REQUEST_STATUSES = EnumSet.of(EnrollmentStatus.PENDING_REVIEW, EnrollmentStatus.WAITLISTED);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private VoucherRepository voucherRepository;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private VoucherService voucherService;
+
+    @Autowired
+    private SeatLedgerService seatLedgerService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private EntitlementService entitlementService;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${lms.enrollment.bulk-chunk-size:500}")
+    private int chunkSize;
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkEnrollmentResult bulkEnroll(BulkEnrollmentRequest request, Long adminId) {
+        List<BulkRow> rows = new ArrayList<>();
+        Course course = transactionTemplate.execute(status -> prepare(request, rows));
+
+        List<BulkRow> pending = rows.stream().filter(BulkRow::isPending).toList();
+        if (course != null && !pending.isEmpty()) {
+            Voucher voucher = request.getVoucherCode() != null
+                ? voucherRepository.findByCode(request.getVoucherCode()).orElse(null)
+                : null;
+            LocalDateTime now = LocalDateTime.now();
+            for (int from = 0; from < pending.size(); from += chunkSize) {
+                List<BulkRow> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+                writeChunk(course, chunk, voucher, adminId, now);
+            }
+        }
+
+        return buildResult(rows);
+    }
+
+    /**
+     * Resolve the request into rows and run every check that does not need a write.
+     * Returns the course, or null when no row can be enrolled.
+     */
+    private Course prepare(BulkEnrollmentRequest request, List<BulkRow> rows) {
+        Map<Long, BulkRow> rowsByUser = new LinkedHashMap<>();
+        resolveUserIds(request.getUserIds(), rows, rowsByUser);
+        resolveEmails(request.getUserEmails(), rows, rowsByUser);
+
+        Course course = request.getCourseId() != null ? courseRepository.findById(request.getCourseId()).orElse(null) : null;
+        if (course == null) {
+            failPending(rows, "Course not found");
+            return null;
+        }
+        if (!course.isEnrollmentWindowOpen(LocalDateTime.now())) {
+            failPending(rows, "Enrollment window is closed for this course");
+            return null;
+        }
+        if (request.getVoucherCode() != null) {
+            VoucherValidationResult voucherResult = voucherService.validateVoucher(request.getVoucherCode(), course.getId());
+            if (!voucherResult.isValid()) {
+                failPending(rows, voucherResult.getMessage());
+                return null;
+            }
+        }
+
+        if (course.getInstructor() != null) {
+            BulkRow instructorRow = rowsByUser.get(course.getInstructor().getId());
+            if (instructorRow != null && instructorRow.isPending()) {
+                instructorRow.fail("Instructors cannot enroll in their own courses");
+            }
+        }
+
+        checkExistingEnrollments(course.getId(), rowsByUser);
+        checkPrerequisites(new ArrayList<>(course.getPrerequisiteCourseIds()), rowsByUser);
+        return course;
+    }
+
+    private void resolveUserIds(List<Long> userIds, List<BulkRow> rows, Map<Long, BulkRow> rowsByUser) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> batch : partition(new ArrayList<>(new LinkedHashSet<>(userIds)), LOOKUP_BATCH_SIZE)) {
+            existing.addAll(userRepository.findExistingIds(batch));
+        }
+        for (Long userId : userIds) {
+            BulkRow row = new BulkRow(userId, null);
+            rows.add(row);
+            if (userId == null || !existing.contains(userId)) {
+                row.fail("User not found");
+            } else if (rowsByUser.putIfAbsent(userId, row) != null) {
+                row.fail("Duplicate entry");
+            }
+        }
+    }
+
+    private void resolveEmails(List<String> emails, List<BulkRow> rows, Map<Long, BulkRow> rowsByUser) {
+        if (emails == null || emails.isEmpty()) {
+            return;
+        }
+        List<String> normalized = emails.stream().map(email -> email != null ? email.trim() : "").toList();
+        Map<String, Long> userIdsByEmail = new HashMap<>();
+        List<String> lookup = normalized.stream().filter(email -> !email.isEmpty()).distinct().toList();
+        for (List<String> batch : partition(lookup, LOOKUP_BATCH_SIZE)) {
+            for (Object[] row : userRepository.findIdsByEmailIn(batch)) {
+                userIdsByEmail.put((String) row[1], (Long) row[0]);
+            }
+        }
+        for (String email : normalized) {
+            Long userId = userIdsByEmail.get(email);
+            BulkRow row = new BulkRow(userId, email);
+            rows.add(row);
+            if (userId == null) {
+                row.fail("User not found");
+            } else if (rowsByUser.putIfAbsent(userId, row) != null) {
+                row.fail("Duplicate entry");
+            }
+        }
+    }
+
+    private void checkExistingEnrollments(Long courseId, Map<Long, BulkRow> rowsByUser) {
+        for (List<Long> batch : partition(pendingUserIds(rowsByUser), LOOKUP_BATCH_SIZE)) {
+            for (Object[] state : enrollmentRepository.findEnrollmentStatesByCourseAndStudents(courseId, batch)) {
+                BulkRow row = rowsByUser.get((Long) state[0]);
+                EnrollmentStatus status = (EnrollmentStatus) state[2];
+                if (ENROLLED_STATUSES.contains(status)) {
+                    row.fail("Student is already enrolled in this course");
+                } else if (OPEN_REQUEST_STATUSES.contains(status)) {
+                    row.fail("Student already has a pending or waitlisted enrollment");
+                } else if (row.isPending()) {
+                    // Withdrawn, denied or expired enrollments are re-opened in place
+                    row.existingEnrollmentId = (Long) state[1];
+                }
+            }
+        }
+    }
+
+    private void checkPrerequisites(List<Long> prerequisiteCourseIds, Map<Long, BulkRow> rowsByUser) {
+        if (prerequisiteCourseIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> completedCounts = new HashMap<>();
+        for (List<Long> batch : partition(pendingUserIds(rowsByUser), LOOKUP_BATCH_SIZE)) {
+            for (Object[] row : enrollmentRepository.countCompletedPrerequisitesByStudent(batch, prerequisiteCourseIds)) {
+                completedCounts.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        long required = prerequisiteCourseIds.stream().distinct().count();
+        rowsByUser.forEach((userId, row) -> {
+            if (row.isPending() && completedCounts.getOrDefault(userId, 0L) < required) {
+                row.fail("Prerequisites not met. Contact instructor for waiver.");
+            }
+        });
+    }
+
+    private void writeChunk(Course course, List<BulkRow> chunk, Voucher voucher, Long adminId, LocalDateTime now) {
+        try {
+            List<Enrollment> written = transactionTemplate.execute(status -> insertChunk(course, chunk, voucher, adminId, now));
+            notificationService.sendBulkEnrollmentConfirmations(course, written);
+        } catch (RuntimeException e) {
+            logger.warn("Bulk enrollment chunk of {} rows failed for course {}", chunk.size(), course.getId(), e);
+            for (BulkRow row : chunk) {
+                if (row.error == null) {
+                    row.status = null;
+                    row.enrollmentId = null;
+                    row.fail("Enrollment failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private List<Enrollment> insertChunk(Course course, List<BulkRow> chunk, Voucher voucher, Long adminId, LocalDateTime now) {
+        // Re-read inside the write transaction: students may have enrolled themselves since prepare
+        Map<Long, BulkRow> rowsByUser = new LinkedHashMap<>();
+        chunk.forEach(row -> rowsByUser.put(row.userId, row));
+        checkExistingEnrollments(course.getId(), rowsByUser);
+        List<BulkRow> rows = chunk.stream().filter(BulkRow::isPending).toList();
+        return rows.isEmpty() ? List.of() : writeRows(course, rows, voucher, adminId, now);
+    }
+
+    private List<Enrollment> writeRows(Course course, List<BulkRow> chunk, Voucher voucher, Long adminId, LocalDateTime now) {
+        // One ledger update takes every free seat the chunk needs; the rest join the waitlist together
+        int seats = seatLedgerService.tryAcquireSeats(course, chunk.size());
+        // Concurrent redemptions may have used the voucher up since the batch was validated
+        if (voucher != null && seats > 0 && voucherRepository.incrementUsage(voucher.getId(), seats) == 0) {
+            throw new IllegalStateException("Voucher has fewer than " + seats + " uses left");
+        }
+        int waitlisted = chunk.size() - seats;
+        int firstTicket = waitlisted > 0 ? waitlistService.joinMany(course.getId(), waitlisted) : 0;
+
+        Course courseRef = courseRepository.getReferenceById(course.getId());
+        List<Enrollment> enrollments = new ArrayList<>(chunk.size());
+        List<Enrollment> inserts = new ArrayList<>();
+        List<Enrollment> reopens = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            BulkRow row = chunk.get(i);
+            Enrollment enrollment = new Enrollment(userRepository.getReferenceById(row.userId), courseRef);
+            enrollment.setSource(EnrollmentSource.BULK);
+            enrollment.setEnrolledAt(now);
+            enrollment.setLastAccessedAt(now);
+            enrollment.setVoucherCodeUsed(voucher != null ? voucher.getCode() : null);
+            if (i < seats) {
+                enrollment.setStatus(EnrollmentStatus.ACTIVE);
+                enrollment.setActivatedAt(now);
+            } else {
+                enrollment.setStatus(EnrollmentStatus.WAITLISTED);
+                enrollment.setWaitlistPosition(firstTicket + i - seats);
+            }
+            if (row.existingEnrollmentId != null) {
+                enrollment.setId(row.existingEnrollmentId);
+                reopens.add(enrollment);
+            } else {
+                inserts.add(enrollment);
+            }
+            enrollments.add(enrollment);
+        }
+        int[] inserted = enrollmentRepository.batchInsert(inserts);
+        int[] reopened = enrollmentRepository.batchReopen(reopens);
+
+        // Rows the writes skipped belong to students who enrolled themselves since the re-read
+        Set<Enrollment> conflicts = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] == 0) {
+                conflicts.add(inserts.get(i));
+            }
+        }
+        for (int i = 0; i < reopened.length; i++) {
+            if (reopened[i] == 0) {
+                conflicts.add(reopens.get(i));
+            }
+        }
+        int releasedSeats = 0;
+        if (!conflicts.isEmpty()) {
+            releasedSeats = releaseConflicts(course.getId(), chunk, enrollments, conflicts, voucher);
+            seats -= releasedSeats;
+            waitlisted = chunk.size() - conflicts.size() - seats;
+        }
+
+        List<Enrollment> admitted = enrollments.stream()
+            .filter(e -> e.getStatus() == EnrollmentStatus.ACTIVE && !conflicts.contains(e))
+            .toList();
+        entitlementService.grantCourseEntitlements(course, admitted);
+        gameService.awardEnrollmentPoints(admitted.stream().map(e -> e.getStudent().getId()).toList(), course.getId());
+
+        AuditLog log = new AuditLog(adminId, "BULK_ENROLLMENT", "course", course.getId());
+        log.setPayloadJson(String.format("{\"enrolled\":%d,\"waitlisted\":%d}", seats, waitlisted));
+        auditLogRepository.save(log);
+
+        List<Enrollment> written = new ArrayList<>(enrollments.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!conflicts.contains(enrollments.get(i))) {
+                chunk.get(i).status = enrollments.get(i).getStatus();
+                chunk.get(i).enrollmentId = enrollments.get(i).getId();
+                written.add(enrollments.get(i));
+            }
+        }
+        if (releasedSeats > 0) {
+            // The seats given back go to the head of the queue, which may be this chunk's own students
+            Set<Long> promoted = new HashSet<>();
+            waitlistService.promote(course.getId()).forEach(e -> promoted.add(e.getId()));
+            for (int i = 0; i < chunk.size(); i++) {
+                if (promoted.contains(chunk.get(i).enrollmentId)) {
+                    chunk.get(i).status = EnrollmentStatus.ACTIVE;
+                    enrollments.get(i).setStatus(EnrollmentStatus.ACTIVE);
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Fail the rows whose writes were skipped and give back what was taken for them.
+     * Their waitlist tickets are left as gaps, which positions already tolerate.
+     * Returns the number of seats given back.
+     */
+    private int releaseConflicts(Long courseId, List<BulkRow> chunk, List<Enrollment> enrollments,
+                                  Set<Enrollment> conflicts, Voucher voucher) {
+        int seats = 0;
+        int waitlisted = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            Enrollment enrollment = enrollments.get(i);
+            if (!conflicts.contains(enrollment)) {
+                continue;
+            }
+            chunk.get(i).fail("Student enrolled in this course while the import was running");
+            if (enrollment.getStatus() == EnrollmentStatus.ACTIVE) {
+                seats++;
+            } else {
+                waitlisted++;
+            }
+        }
+        logger.info("Bulk enrollment skipped {} students of course {} who enrolled concurrently", conflicts.size(), courseId);
+        if (seats > 0) {
+            seatLedgerService.releaseSeats(courseId, seats);
+            if (voucher != null) {
+                // A negative count always fits under the cap
+                voucherRepository.incrementUsage(voucher.getId(), -seats);
+            }
+        }
+        if (waitlisted > 0) {
+            seatLedgerService.adjustWaitlisted(courseId, -waitlisted);
+        }
+        return seats;
+    }
+
+    private BulkEnrollmentResult buildResult(List<BulkRow> rows) {
+        int enrolled = 0;
+        int waitlisted = 0;
+        List<Map<String, Object>> failures = new ArrayList<>();
+        List<Map<String, Object>> results = new ArrayList<>(rows.size());
+        for (BulkRow row : rows) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (row.email != null) {
+                result.put("email", row.email);
+            }
+            if (row.userId != null) {
+                result.put("userId", row.userId);
+            }
+            if (row.error != null) {
+                result.put("status", "FAILED");
+                result.put("error", row.error);
+                failures.add(result);
+            } else {
+                result.put("status", row.status.name());
+                result.put("enrollmentId", row.enrollmentId);
+                if (row.status == EnrollmentStatus.ACTIVE) {
+                    enrolled++;
+                } else {
+                    waitlisted++;
+                }
+            }
+            results.add(result);
+        }
+
+        int successCount = enrolled + waitlisted;
+        String message = String.format("Bulk enrollment completed: %d successful (%d waitlisted), %d failed",
+            successCount, waitlisted, failures.size());
+        return new BulkEnrollmentResult(failures.isEmpty(), message, successCount, failures.size(), failures, waitlisted, results);
+    }
+
+    private static void failPending(List<BulkRow> rows, String error) {
+        for (BulkRow row : rows) {
+            if (row.isPending()) {
+                row.fail(error);
+            }
+        }
+    }
+
+    private static List<Long> pendingUserIds(Map<Long, BulkRow> rowsByUser) {
+        return rowsByUser.entrySet().stream()
+            .filter(entry -> entry.getValue().isPending())
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            batches.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * One requested student and what happened to them.
+     */
+    private static class BulkRow {
+        private final Long userId;
+        private final String email;
+        private Long existingEnrollmentId;
+        private Long enrollmentId;
+        private EnrollmentStatus status;
+        private String error;
+
+        BulkRow(Long userId, String email) {
+            this.userId = userId;
+            this.email = email;
+        }
+
+        boolean isPending() {
+            return error == null && status == null;
+        }
+
+        void fail(String error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.event.InvalidationEvent;
+import com.codigo.LMS.repository.CourseRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the published catalog from an in-memory {@link CatalogSnapshot}.
+ *
+ * Reads never touch the database or take a lock: they return whichever snapshot is
+ * current. A course change on any node queues a rebuild on this service's own thread;
+ * changes that arrive while a rebuild is still queued share it. The new snapshot is
+ * swapped in whole once built, so a reader sees either the old catalog or the new one.
+ * Only the very first read waits, for the initial build. Building off the caller's
+ * thread also keeps the shared courses out of any request's persistence context.
+ */
+@Service
+public class CatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogService.class);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile CatalogSnapshot snapshot;
+
+    // The queued rebuild that has not started yet, if any
+    private CompletableFuture<CatalogSnapshot> queued;
+
+    private Timer buildTimer;
+
+    private ExecutorService builder;
+
+    @PostConstruct
+    void start() {
+        buildTimer = Timer.builder("lms.catalog.snapshot.build")
+            .description("Time to load and index the published catalog")
+            .register(meterRegistry);
+        TimeGauge.builder("lms.catalog.snapshot.age", this, TimeUnit.MILLISECONDS, CatalogService::ageMillis)
+            .description("Time since the catalog snapshot being served was built")
+            .register(meterRegistry);
+        Gauge.builder("lms.catalog.snapshot.courses", this, service -> service.snapshot == null ? 0 : service.snapshot.size())
+            .description("Published courses in the catalog snapshot")
+            .register(meterRegistry);
+
+        builder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * The current catalog; the first call waits for it to be built.
+     */
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        try {
+            return rebuild().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        // Until the first read there is nothing to refresh
+        if (event.contains(InvalidationEvent.Type.COURSE) && snapshot != null) {
+            rebuild();
+        }
+    }
+
+    private synchronized CompletableFuture<CatalogSnapshot> rebuild() {
+        if (queued != null) {
+            return queued;
+        }
+        CompletableFuture<CatalogSnapshot> future = new CompletableFuture<>();
+        queued = future;
+        builder.execute(() -> {
+            // Changes from here on need another rebuild, since this one may have read past them
+            synchronized (this) {
+                queued = null;
+            }
+            try {
+                CatalogSnapshot built = buildTimer.recordCallable(this::build);
+                snapshot = built;
+                future.complete(built);
+            } catch (Exception e) {
+                logger.warn("Failed to rebuild the catalog snapshot: {}", e.getMessage());
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private CatalogSnapshot build() {
+        long startedAt = System.currentTimeMillis();
+        CatalogSnapshot built = new CatalogSnapshot(courseRepository.findPublishedForCatalog(), startedAt);
+        logger.debug("Built catalog snapshot of {} courses in {} ms", built.size(), System.currentTimeMillis() - startedAt);
+        return built;
+    }
+
+    private double ageMillis() {
+        CatalogSnapshot current = snapshot;
+        return current == null ? 0 : System.currentTimeMillis() - current.getBuiltAt();
+    }
+}
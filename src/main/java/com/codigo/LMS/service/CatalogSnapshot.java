@@ -0,0 +1,196 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.Course;
+import com.codigo.LMS.entity.Course.DifficultyLevel;
+import com.codigo.LMS.entity.EnrollmentPolicy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Immutable view of the published catalog with its lookups precomputed: courses by
+ * category, difficulty and enrollment policy, free and paid, and ordered by price for
+ * range queries, plus the {@link CourseFacets} bitsets, which address courses by their
+ * position in {@link #getCourses()}. Never changes once built; {@link CatalogService}
+ * swaps in a new one.
+ *
+ * Courses are detached, shared between threads, and must be treated as read-only. Their
+ * instructor is loaded; modules, enrollments and prerequisites are not.
+ */
+public final class CatalogSnapshot {
+
+    private static final Comparator<Course> BY_PRICE =
+        Comparator.comparing(Course::getPrice).thenComparing(Course::getId);
+
+    private final List<Course> courses;
+    // ids[i] is the id of courses.get(i), ascending
+    private final long[] ids;
+    private final Map<String, List<Course>> byCategory;
+    private final Map<DifficultyLevel, List<Course>> byDifficulty;
+    private final Map<EnrollmentPolicy, List<Course>> byPolicy;
+    private final List<Course> free;
+    private final List<Course> paid;
+    // Priced courses, cheapest first; prices[i] is the price of byPrice[i]
+    private final Course[] byPrice;
+    private final BigDecimal[] prices;
+    private final List<String> categories;
+    private final CourseFacets facets;
+    private final long builtAt;
+
+    /**
+     * @param courses published courses, in id order
+     */
+    public CatalogSnapshot(List<Course> courses, long builtAt) {
+        this.courses = Collections.unmodifiableList(new ArrayList<>(courses));
+        this.builtAt = builtAt;
+        this.ids = this.courses.stream().mapToLong(Course::getId).toArray();
+        this.facets = new CourseFacets(this.courses);
+
+        Map<String, List<Course>> categoryIndex = new HashMap<>();
+        Map<DifficultyLevel, List<Course>> difficultyIndex = new EnumMap<>(DifficultyLevel.class);
+        Map<EnrollmentPolicy, List<Course>> policyIndex = new EnumMap<>(EnrollmentPolicy.class);
+        List<Course> freeCourses = new ArrayList<>();
+        List<Course> paidCourses = new ArrayList<>();
+        List<Course> priced = new ArrayList<>();
+        TreeSet<String> categoryNames = new TreeSet<>();
+
+        for (Course course : this.courses) {
+            if (course.getCategory() != null) {
+                categoryIndex.computeIfAbsent(course.getCategory(), c -> new ArrayList<>()).add(course);
+                categoryNames.add(course.getCategory());
+            }
+            if (course.getDifficultyLevel() != null) {
+                difficultyIndex.computeIfAbsent(course.getDifficultyLevel(), d -> new ArrayList<>()).add(course);
+            }
+            if (course.getEnrollmentPolicy() != null) {
+                policyIndex.computeIfAbsent(course.getEnrollmentPolicy(), p -> new ArrayList<>()).add(course);
+            }
+            if (course.getPrice() != null) {
+                priced.add(course);
+                if (course.getPrice().signum() == 0) {
+                    freeCourses.add(course);
+                } else if (course.getPrice().signum() > 0) {
+                    paidCourses.add(course);
+                }
+            }
+        }
+
+        this.byCategory = freeze(categoryIndex);
+        this.byDifficulty = freeze(difficultyIndex);
+        this.byPolicy = freeze(policyIndex);
+        this.free = Collections.unmodifiableList(freeCourses);
+        this.paid = Collections.unmodifiableList(paidCourses);
+        this.categories = List.copyOf(categoryNames);
+
+        priced.sort(BY_PRICE);
+        this.byPrice = priced.toArray(new Course[0]);
+        this.prices = new BigDecimal[byPrice.length];
+        for (int i = 0; i < byPrice.length; i++) {
+            prices[i] = byPrice[i].getPrice();
+        }
+    }
+
+    /** Every published course, in id order. */
+    public List<Course> getCourses() { return courses; }
+
+    public List<Course> getByCategory(String category) {
+        return byCategory.getOrDefault(category, List.of());
+    }
+
+    public List<Course> getByDifficulty(DifficultyLevel difficultyLevel) {
+        return byDifficulty.getOrDefault(difficultyLevel, List.of());
+    }
+
+    public List<Course> getByPolicy(EnrollmentPolicy enrollmentPolicy) {
+        return byPolicy.getOrDefault(enrollmentPolicy, List.of());
+    }
+
+    public List<Course> getFree() { return free; }
+    public List<Course> getPaid() { return paid; }
+
+    /**
+     * Courses priced within {@code [minPrice, maxPrice]}, cheapest first; a null bound
+     * is open.
+     */
+    public List<Course> getByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        int from = minPrice == null ? 0 : firstAtLeast(minPrice, false);
+        int to = maxPrice == null ? prices.length : firstAtLeast(maxPrice, true);
+        return from >= to ? List.of() : Collections.unmodifiableList(Arrays.asList(byPrice).subList(from, to));
+    }
+
+    /**
+     * Position of a course in {@link #getCourses()}, or -1 if it is not in the catalog.
+     */
+    public int indexOf(Long courseId) {
+        if (courseId == null) {
+            return -1;
+        }
+        int position = Arrays.binarySearch(ids, courseId);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Position of the first course with an id greater than {@code courseId}.
+     */
+    public int positionAfter(Long courseId) {
+        int position = Arrays.binarySearch(ids, courseId);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    /**
+     * Positions of the given courses that are in the catalog.
+     */
+    public BitSet positionsOf(Collection<Long> courseIds) {
+        BitSet positions = new BitSet(ids.length);
+        for (Long courseId : courseIds) {
+            int position = indexOf(courseId);
+            if (position >= 0) {
+                positions.set(position);
+            }
+        }
+        return positions;
+    }
+
+    public CourseFacets getFacets() { return facets; }
+
+    /** Distinct categories of published courses, sorted. */
+    public List<String> getCategories() { return categories; }
+
+    public long getFreeCount() { return free.size(); }
+    public long getPaidCount() { return paid.size(); }
+    public int size() { return courses.size(); }
+
+    /** When the snapshot was built, in epoch milliseconds. */
+    public long getBuiltAt() { return builtAt; }
+
+    // First index whose price is >= price (> price when strictly is set)
+    private int firstAtLeast(BigDecimal price, boolean strictly) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = prices[mid].compareTo(price);
+            if (cmp < 0 || (strictly && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static <K> Map<K, List<Course>> freeze(Map<K, List<Course>> index) {
+        index.replaceAll((key, list) -> Collections.unmodifiableList(list));
+        return Collections.unmodifiableMap(index);
+    }
+}
@@ -0,0 +1,55 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.Lesson;
+import com.codigo.LMS.entity.Module;
+import com.codigo.LMS.event.InvalidationEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener on {@link Module} and {@link Lesson}: any insert, update or delete of
+ * course content publishes a COURSE invalidation for the owning course, delivered after
+ * commit on every node. Covers content written through the course cascade as well as
+ * directly through the repositories.
+ *
+ * Hibernate creates the listener while the EntityManagerFactory is still being built,
+ * so its collaborators are injected as lazy proxies; resolving them eagerly would need
+ * the repositories that factory backs.
+ */
+@Component
+public class ContentChangeListener {
+
+    @Autowired
+    @Lazy
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    @Lazy
+    private ResourceHierarchyResolver resourceHierarchyResolver;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onContentChange(Object content) {
+        Long courseId = null;
+        if (content instanceof Module module) {
+            courseId = module.getCourse() != null ? module.getCourse().getId() : null;
+        } else if (content instanceof Lesson lesson && lesson.getModule() != null) {
+            Module module = lesson.getModule();
+            // Don't load a lazy module from inside a flush; the snapshot knows its course
+            courseId = Hibernate.isInitialized(module) && module.getCourse() != null
+                ? module.getCourse().getId()
+                : resourceHierarchyResolver.resolveModuleCourse(module.getId());
+        }
+        if (courseId != null) {
+            invalidationBus.publish(InvalidationEvent.Type.COURSE, courseId);
+        } else {
+            invalidationBus.publishAll(InvalidationEvent.Type.COURSE);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.repository.CourseSeatLedgerRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Waitlist depth and seat utilization gauges, read from the seat ledger on a schedule.
+ *
+ * Per-course gauges carry a {@code course} tag, so only the courses with the longest
+ * waitlists (then the fullest) are reported, at most {@code lms.metrics.courses.max-tracked}
+ * of them; a course that drops out of that set stops being reported. Totals across all
+ * courses are reported untagged.
+ */
+@Service
+public class CourseCapacityMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseCapacityMetrics.class);
+
+    @Autowired
+    private CourseSeatLedgerRepository seatLedgerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lms.metrics.courses.max-tracked:50}")
+    private int maxTracked;
+
+    private final AtomicLong totalWaitlisted = new AtomicLong();
+    private final AtomicLong fullCourses = new AtomicLong();
+
+    private MultiGauge waitlistDepth;
+    private MultiGauge seatUtilization;
+
+    @PostConstruct
+    void registerGauges() {
+        waitlistDepth = MultiGauge.builder("lms.course.waitlist.depth")
+            .description("Students on the waitlist of the busiest courses")
+            .register(meterRegistry);
+        seatUtilization = MultiGauge.builder("lms.course.seat.utilization")
+            .description("Share of capacity taken or held, for the busiest courses with a capacity")
+            .register(meterRegistry);
+        Gauge.builder("lms.courses.waitlisted", totalWaitlisted, AtomicLong::get)
+            .description("Students waitlisted across all courses")
+            .register(meterRegistry);
+        Gauge.builder("lms.courses.full", fullCourses, AtomicLong::get)
+            .description("Courses with no free seat")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${lms.metrics.courses.refresh-ms:30000}",
+               initialDelayString = "${lms.metrics.courses.refresh-ms:30000}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        try {
+            List<MultiGauge.Row<?>> depthRows = new ArrayList<>();
+            List<MultiGauge.Row<?>> utilizationRows = new ArrayList<>();
+            for (Object[] row : seatLedgerRepository.findBusiestCourses(PageRequest.of(0, maxTracked))) {
+                Tags tags = Tags.of("course", String.valueOf(row[0]));
+                depthRows.add(MultiGauge.Row.of(tags, ((Number) row[2]).intValue()));
+                if (row[3] != null && ((Number) row[3]).intValue() > 0) {
+                    utilizationRows.add(MultiGauge.Row.of(tags, ((Number) row[1]).doubleValue() / ((Number) row[3]).intValue()));
+                }
+            }
+            waitlistDepth.register(depthRows, true);
+            seatUtilization.register(utilizationRows, true);
+
+            for (Object[] totals : seatLedgerRepository.findTotals()) {
+                totalWaitlisted.set(((Number) totals[0]).longValue());
+                fullCourses.set(((Number) totals[1]).longValue());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh course capacity metrics: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.Course;
+import com.codigo.LMS.entity.Course.DifficultyLevel;
+import com.codigo.LMS.entity.EnrollmentPolicy;
+import com.codigo.LMS.entity.PriceBucket;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Facet bitsets over the courses of one {@link CatalogSnapshot}: for every value of
+ * every facet, one bit per course, set when the course has that value.
+ *
+ * A filter is the AND of the selected values' bitsets, and a facet count the population
+ * count of that AND with the value's bitset, so results and every count come out of a
+ * few word-wise passes with no per-course work. Each facet is counted without its own
+ * selection, the usual faceted-navigation rule. Immutable, built with its snapshot.
+ */
+public final class CourseFacets {
+
+    public static final String CATEGORY = "category";
+    public static final String DIFFICULTY = "difficulty";
+    public static final String PRICE = "price";
+    public static final String POLICY = "policy";
+
+    private final int size;
+
+    private final long[] everyCourse;
+
+    // Facet -> value -> bitset words; categories sorted, enum facets list every constant
+    private final Map<String, Map<String, long[]>> facets;
+
+    CourseFacets(List<Course> courses) {
+        size = courses.size();
+        Map<String, BitSet> categories = new TreeMap<>();
+        Map<String, BitSet> difficulties = enumValues(DifficultyLevel.values());
+        Map<String, BitSet> prices = enumValues(PriceBucket.values());
+        Map<String, BitSet> policies = enumValues(EnrollmentPolicy.values());
+
+        for (int position = 0; position < size; position++) {
+            Course course = courses.get(position);
+            if (course.getCategory() != null) {
+                categories.computeIfAbsent(course.getCategory(), c -> new BitSet(size)).set(position);
+            }
+            if (course.getDifficultyLevel() != null) {
+                difficulties.get(course.getDifficultyLevel().name()).set(position);
+            }
+            PriceBucket bucket = PriceBucket.of(course.getPrice());
+            if (bucket != null) {
+                prices.get(bucket.name()).set(position);
+            }
+            if (course.getEnrollmentPolicy() != null) {
+                policies.get(course.getEnrollmentPolicy().name()).set(position);
+            }
+        }
+
+        BitSet all = new BitSet(size);
+        all.set(0, size);
+        everyCourse = words(all);
+        Map<String, Map<String, long[]>> built = new LinkedHashMap<>();
+        built.put(CATEGORY, toWords(categories));
+        built.put(DIFFICULTY, toWords(difficulties));
+        built.put(PRICE, toWords(prices));
+        built.put(POLICY, toWords(policies));
+        facets = Collections.unmodifiableMap(built);
+    }
+
+    /**
+     * Courses having every selected value, and the facet counts for that selection.
+     *
+     * @param selected facet name to value; a value no course has matches nothing
+     * @param within positions to stay within, such as the search matches, or null for all
+     */
+    public Result filter(Map<String, String> selected, BitSet within) {
+        long[] universe = within == null ? everyCourse : and(everyCourse, words(within));
+        Map<String, long[]> selections = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : selected.entrySet()) {
+            Map<String, long[]> values = facets.get(entry.getKey());
+            if (values == null) {
+                throw new IllegalArgumentException("Unknown facet: " + entry.getKey());
+            }
+            selections.put(entry.getKey(), values.getOrDefault(entry.getValue(), new long[0]));
+        }
+
+        long[] matches = universe;
+        for (long[] selection : selections.values()) {
+            matches = and(matches, selection);
+        }
+
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, long[]>> facet : facets.entrySet()) {
+            // Unselected facets share the full result; a selected one drops only itself
+            long[] base = matches;
+            if (selections.containsKey(facet.getKey())) {
+                base = universe;
+                for (Map.Entry<String, long[]> selection : selections.entrySet()) {
+                    if (!selection.getKey().equals(facet.getKey())) {
+                        base = and(base, selection.getValue());
+                    }
+                }
+            }
+            Map<String, Integer> valueCounts = new LinkedHashMap<>();
+            for (Map.Entry<String, long[]> value : facet.getValue().entrySet()) {
+                valueCounts.put(value.getKey(), andCardinality(base, value.getValue()));
+            }
+            counts.put(facet.getKey(), valueCounts);
+        }
+        return new Result(BitSet.valueOf(matches), counts);
+    }
+
+    public int size() { return size; }
+
+    /**
+     * Matching course positions in the snapshot, and the facet counts.
+     */
+    public static final class Result {
+
+        private final BitSet matches;
+        private final Map<String, Map<String, Integer>> counts;
+
+        private Result(BitSet matches, Map<String, Map<String, Integer>> counts) {
+            this.matches = matches;
+            this.counts = counts;
+        }
+
+        public boolean contains(int position) {
+            return position >= 0 && matches.get(position);
+        }
+
+        /** The first matching position at or after {@code from}, or -1 if there is none. */
+        public int nextMatch(int from) {
+            return matches.nextSetBit(from);
+        }
+
+        public int getTotal() { return matches.cardinality(); }
+
+        public Map<String, Map<String, Integer>> getCounts() { return counts; }
+    }
+
+    private static Map<String, BitSet> enumValues(Enum<?>[] constants) {
+        Map<String, BitSet> values = new LinkedHashMap<>();
+        for (Enum<?> constant : constants) {
+            values.put(constant.name(), new BitSet());
+        }
+        return values;
+    }
+
+    private long[] words(BitSet bits) {
+        // Padded to the full length so word-wise ANDs line up
+        long[] words = new long[(size + 63) >>> 6];
+        long[] set = bits.toLongArray();
+        System.arraycopy(set, 0, words, 0, Math.min(set.length, words.length));
+        return words;
+    }
+
+    private Map<String, long[]> toWords(Map<String, BitSet> values) {
+        Map<String, long[]> words = new LinkedHashMap<>();
+        values.forEach((value, bits) -> words.put(value, words(bits)));
+        return Collections.unmodifiableMap(words);
+    }
+
+    private static long[] and(long[] left, long[] right) {
+        long[] result = new long[left.length];
+        for (int i = 0; i < Math.min(left.length, right.length); i++) {
+            result[i] = left[i] & right[i];
+        }
+        return result;
+    }
+
+    private static int andCardinality(long[] left, long[] right) {
+        int count = 0;
+        for (int i = 0; i < Math.min(left.length, right.length); i++) {
+            count += Long.bitCount(left[i] & right[i]);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,428 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.Course;
+import com.codigo.LMS.event.CourseCountersChangedEvent;
+import com.codigo.LMS.event.InvalidationEvent;
+import com.codigo.LMS.repository.CourseRepository;
+import com.codigo.LMS.repository.EnrollmentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Most popular and trending courses, kept up to date in memory.
+ *
+ * Popularity is the number of active enrollments, the same count the seat ledger keeps.
+ * A committed counter change only marks the course dirty; the next flush reads its
+ * counters once, writes {@code courses.enrollment_count} and moves the course within a
+ * bounded top-K list. The list is only rebuilt from every course when one of its own
+ * members drops below the cut, so a flush costs the changed courses, not the catalog.
+ *
+ * Trending counts new enrollments in rolling time buckets. A course's score is the sum
+ * of its bucket counts, each halved for every {@code half-life} the bucket is older than
+ * the newest one; buckets older than the window fall away. Increases of a course's
+ * count between two flushes are counted as new enrollments, so an enrollment and a
+ * withdrawal in the same flush cancel out.
+ *
+ * Both lists are immutable and swapped in whole, so reading them is a memory read.
+ */
+@Service
+public class CoursePopularityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoursePopularityService.class);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private SeatLedgerService seatLedgerService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lms.popularity.top-k:50}")
+    private int topK;
+
+    @Value("${lms.popularity.trending.bucket-minutes:60}")
+    private long bucketMinutes;
+
+    @Value("${lms.popularity.trending.buckets:24}")
+    private int bucketCount;
+
+    @Value("${lms.popularity.trending.half-life-hours:6}")
+    private double halfLifeHours;
+
+    // Active enrollments per course; only written by load and flush, read by anyone
+    private final Map<Long, Integer> enrollmentCounts = new ConcurrentHashMap<>();
+
+    private final Set<Long> dirtyCourses = ConcurrentHashMap.newKeySet();
+
+    // Counts that failed to write; retried on the next flush
+    private final Map<Long, Integer> pendingWrites = new HashMap<>();
+
+    // Newest bucket first; guarded by this
+    private final Deque<Bucket> buckets = new ArrayDeque<>();
+
+    private final Map<Long, Double> trendingScores = new HashMap<>();
+
+    private volatile Ranking popular = Ranking.EMPTY;
+
+    private volatile Ranking trending = Ranking.EMPTY;
+
+    private volatile boolean loaded;
+
+    private volatile boolean reloadRequested;
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    void start() {
+        flushTimer = Timer.builder("lms.popularity.flush")
+            .description("Time to apply changed enrollment counts to the popular and trending lists")
+            .register(meterRegistry);
+        Gauge.builder("lms.popularity.courses", enrollmentCounts, Map::size)
+            .description("Courses with a tracked enrollment count")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Published courses with the most active enrollments, most first.
+     */
+    public List<Course> getMostPopular(int limit) {
+        ensureLoaded();
+        return toCourses(popular, limit);
+    }
+
+    /**
+     * Published courses with the highest trending score, highest first.
+     */
+    public List<Course> getTrending(int limit) {
+        ensureLoaded();
+        return toCourses(trending, limit);
+    }
+
+    public int getEnrollmentCount(Long courseId) {
+        ensureLoaded();
+        return enrollmentCounts.getOrDefault(courseId, 0);
+    }
+
+    @EventListener
+    public void onCountersChanged(CourseCountersChangedEvent event) {
+        // Until the first read or flush the load picks the change up anyway
+        if (loaded) {
+            dirtyCourses.add(event.getCourseId());
+        }
+    }
+
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        if (!event.contains(InvalidationEvent.Type.ENROLLMENT_COUNTERS)) {
+            return;
+        }
+        // The seat ledger was reconciled: our counts may have drifted the same way
+        if (event.isAll(InvalidationEvent.Type.ENROLLMENT_COUNTERS)) {
+            reloadRequested = true;
+        } else if (loaded) {
+            // Counters another node changed, or one course reconciled
+            dirtyCourses.addAll(event.getKeys(InvalidationEvent.Type.ENROLLMENT_COUNTERS));
+        }
+    }
+
+    /**
+     * Apply every counter change since the last flush, write the changed counts and
+     * age the trending buckets.
+     */
+    @Scheduled(fixedDelayString = "${lms.popularity.flush-ms:1000}")
+    public synchronized void flush() {
+        if (!loaded) {
+            return;
+        }
+        if (reloadRequested) {
+            reconcile();
+            return;
+        }
+        flushTimer.record(() -> {
+            long now = System.currentTimeMillis();
+            boolean rotated = rotate(now);
+
+            Map<Long, Integer> changed = new LinkedHashMap<>();
+            Set<Long> risers = new LinkedHashSet<>();
+            Iterator<Long> iterator = dirtyCourses.iterator();
+            while (iterator.hasNext()) {
+                Long courseId = iterator.next();
+                iterator.remove();
+                int count = (int) seatLedgerService.getCounters(courseId).getEnrolled();
+                int previous = enrollmentCounts.getOrDefault(courseId, 0);
+                if (count != previous) {
+                    changed.put(courseId, count);
+                    if (count > previous) {
+                        addToTrending(courseId, count - previous);
+                        risers.add(courseId);
+                    }
+                }
+            }
+
+            if (!changed.isEmpty()) {
+                double cut = popular.cut;
+                changed.forEach(enrollmentCounts::put);
+                popular = popular.update(changed.keySet(), cut, this::popularity, enrollmentCounts.keySet(), topK);
+                pendingWrites.putAll(changed);
+            }
+            if (rotated) {
+                trending = Ranking.of(trendingScores.keySet(), trendingScores::get, topK);
+            } else if (!risers.isEmpty()) {
+                // Scores only grow between rotations, so the current list plus the risers is exact
+                trending = trending.update(risers, Double.NEGATIVE_INFINITY, trendingScores::get,
+                    trendingScores.keySet(), topK);
+            }
+            writePending();
+        });
+    }
+
+    /**
+     * Background verifier: rewrites any course count that drifted from the enrollments
+     * table and reloads both lists.
+     */
+    @Scheduled(fixedDelayString = "${lms.popularity.reconcile-interval-ms:900000}",
+               initialDelayString = "${lms.popularity.reconcile-initial-delay-ms:120000}")
+    public synchronized int reconcile() {
+        reloadRequested = false;
+        Integer corrected = transactionTemplate.execute(status -> courseRepository.reconcileEnrollmentCounts());
+        if (corrected != null && corrected > 0) {
+            logger.warn("Popularity reconciliation corrected {} course enrollment counts", corrected);
+        }
+        if (loaded) {
+            load();
+        }
+        return corrected != null ? corrected : 0;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    load();
+                }
+            }
+        }
+    }
+
+    private void load() {
+        long startedAt = System.currentTimeMillis();
+        dirtyCourses.clear();
+        pendingWrites.clear();
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Object[] row : courseRepository.findEnrollmentCounts()) {
+            counts.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        // Replaced entry by entry so concurrent readers never see an empty map
+        enrollmentCounts.keySet().retainAll(counts.keySet());
+        enrollmentCounts.putAll(counts);
+        popular = Ranking.of(enrollmentCounts.keySet(), this::popularity, topK);
+
+        buckets.clear();
+        trendingScores.clear();
+        LocalDateTime since = LocalDateTime.ofInstant(
+            Instant.ofEpochMilli(bucketStart(startedAt) - (bucketCount - 1) * bucketMillis()), ZoneId.systemDefault());
+        buckets.addFirst(new Bucket(bucketStart(startedAt)));
+        for (Object[] row : enrollmentRepository.findActivationsSince(since)) {
+            long activatedAt = ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            bucketFor(Math.min(activatedAt, startedAt)).counts.merge((Long) row[0], 1, Integer::sum);
+        }
+        rescoreTrending();
+        trending = Ranking.of(trendingScores.keySet(), trendingScores::get, topK);
+
+        loaded = true;
+        logger.debug("Loaded enrollment counts of {} courses in {} ms",
+            enrollmentCounts.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    private void writePending() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> writes = new HashMap<>(pendingWrites);
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                writes.forEach(courseRepository::updateEnrollmentCount));
+            pendingWrites.keySet().removeAll(writes.keySet());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to write enrollment counts of {} courses, retrying on the next flush: {}",
+                writes.size(), e.getMessage());
+        }
+    }
+
+    // Trending buckets
+
+    private void addToTrending(Long courseId, int enrollments) {
+        Bucket newest = buckets.peekFirst();
+        newest.counts.merge(courseId, enrollments, Integer::sum);
+        // The newest bucket always weighs 1
+        trendingScores.merge(courseId, (double) enrollments, Double::sum);
+    }
+
+    // Open a new bucket if its time has come and drop the expired ones; true if anything moved
+    private boolean rotate(long now) {
+        long start = bucketStart(now);
+        if (buckets.peekFirst().start >= start) {
+            return false;
+        }
+        buckets.addFirst(new Bucket(start));
+        long oldest = start - (bucketCount - 1) * bucketMillis();
+        while (buckets.peekLast().start < oldest) {
+            buckets.removeLast();
+        }
+        // Weights are relative to the newest bucket, so they are recomputed when it changes
+        rescoreTrending();
+        return true;
+    }
+
+    private void rescoreTrending() {
+        trendingScores.clear();
+        long newest = buckets.peekFirst().start;
+        double halfLifeMillis = halfLifeHours * 3_600_000;
+        for (Bucket bucket : buckets) {
+            double weight = Math.pow(0.5, (newest - bucket.start) / halfLifeMillis);
+            bucket.counts.forEach((courseId, count) -> trendingScores.merge(courseId, count * weight, Double::sum));
+        }
+    }
+
+    private Bucket bucketFor(long time) {
+        long start = bucketStart(time);
+        for (Bucket bucket : buckets) {
+            if (bucket.start == start) {
+                return bucket;
+            }
+        }
+        Bucket bucket = new Bucket(start);
+        List<Bucket> ordered = new ArrayList<>(buckets);
+        ordered.add(bucket);
+        ordered.sort(Comparator.comparingLong((Bucket b) -> b.start).reversed());
+        buckets.clear();
+        buckets.addAll(ordered);
+        return bucket;
+    }
+
+    private long bucketStart(long time) {
+        return time - Math.floorMod(time, bucketMillis());
+    }
+
+    private long bucketMillis() {
+        return bucketMinutes * 60_000;
+    }
+
+    private double popularity(Long courseId) {
+        return enrollmentCounts.getOrDefault(courseId, 0);
+    }
+
+    private List<Course> toCourses(Ranking ranking, int limit) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        List<Course> courses = new ArrayList<>(Math.min(limit, ranking.courseIds.size()));
+        for (Long courseId : ranking.courseIds) {
+            if (courses.size() >= limit) {
+                break;
+            }
+            // Unpublished courses stay ranked but are not shown
+            int position = snapshot.indexOf(courseId);
+            if (position >= 0) {
+                courses.add(snapshot.getCourses().get(position));
+            }
+        }
+        return courses;
+    }
+
+    private static final class Bucket {
+
+        private final long start;
+        private final Map<Long, Integer> counts = new HashMap<>();
+
+        private Bucket(long start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * The best {@code k} courses by score, best first, ties by course id, and the lowest
+     * score among them.
+     */
+    static final class Ranking {
+
+        static final Ranking EMPTY = new Ranking(List.of(), 0);
+
+        final List<Long> courseIds;
+        final double cut;
+
+        private Ranking(List<Long> courseIds, double cut) {
+            this.courseIds = courseIds;
+            this.cut = cut;
+        }
+
+        static Ranking of(Collection<Long> candidates, ToDoubleFunction<Long> scores, int k) {
+            List<Long> ranked = new ArrayList<>();
+            for (Long courseId : candidates) {
+                if (scores.applyAsDouble(courseId) > 0) {
+                    ranked.add(courseId);
+                }
+            }
+            ranked.sort(Comparator.comparingDouble(scores::applyAsDouble).reversed().thenComparing(Comparator.naturalOrder()));
+            List<Long> top = List.copyOf(ranked.subList(0, Math.min(k, ranked.size())));
+            return new Ranking(top, top.isEmpty() ? 0 : scores.applyAsDouble(top.get(top.size() - 1)));
+        }
+
+        /**
+         * Re-rank after the scores of {@code changed} moved. The current members plus the
+         * changed courses are enough unless a member of a full list fell to or below
+         * {@code previousCut}: then a course outside the list may now outrank it, on
+         * score or on the id tie-break, and every course is ranked again.
+         */
+        Ranking update(Collection<Long> changed, double previousCut, ToDoubleFunction<Long> scores,
+                               Collection<Long> everyCourse, int k) {
+            if (courseIds.size() >= k) {
+                for (Long courseId : changed) {
+                    if (scores.applyAsDouble(courseId) <= previousCut && courseIds.contains(courseId)) {
+                        return of(everyCourse, scores, k);
+                    }
+                }
+            }
+            Set<Long> candidates = new LinkedHashSet<>(courseIds);
+            candidates.addAll(changed);
+            return of(candidates, scores, k);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.dto.CourseRating;
+import com.codigo.LMS.dto.CursorPage;
+import com.codigo.LMS.dto.KeysetCursor;
+import com.codigo.LMS.entity.CourseReview;
+import com.codigo.LMS.entity.Enrollment;
+import com.codigo.LMS.entity.EnrollmentStatus;
+import com.codigo.LMS.event.InvalidationEvent;
+import com.codigo.LMS.repository.CourseRatingAggregateRepository;
+import com.codigo.LMS.repository.CourseRepository;
+import com.codigo.LMS.repository.CourseReviewRepository;
+import com.codigo.LMS.repository.EnrollmentRepository;
+import com.codigo.LMS.repository.RatingTotalsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Learner reviews and the rating aggregates kept alongside them.
+ *
+ * Adding, editing or removing a review moves the course's {@link com.codigo.LMS.entity.CourseRatingAggregate}
+ * row and the platform {@link com.codigo.LMS.entity.RatingTotals} row by the change, in
+ * the same transaction, and rewrites {@code courses.rating}. Ratings are then read from
+ * those rows, and served from memory after the first read until a review of the course
+ * changes on any node. The Bayesian score is computed on read from the course's counts
+ * and the current platform mean. A scheduled rebuild rewrites any aggregate that drifted
+ * from the reviews table.
+ */
+@Service
+@Transactional
+public class CourseReviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseReviewService.class);
+
+    private static final Set<EnrollmentStatus> REVIEWER_STATUSES = Set.of(EnrollmentStatus.ACTIVE, EnrollmentStatus.COMPLETED);
+
+    // Prior mean used until the platform has any reviews
+    private static final double DEFAULT_PRIOR_MEAN = 3.0;
+
+    @Autowired
+    private CourseReviewRepository reviewRepository;
+
+    @Autowired
+    private CourseRatingAggregateRepository aggregateRepository;
+
+    @Autowired
+    private RatingTotalsRepository totalsRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${lms.reviews.prior-weight:10}")
+    private double priorWeight;
+
+    @Value("${lms.reviews.max-comment-length:5000}")
+    private int maxCommentLength;
+
+    // Unscored aggregates per course; scored against the current platform mean on read
+    private final Map<Long, CourseRating> ratings = new ConcurrentHashMap<>();
+
+    private volatile CourseRating platform;
+
+    // Bumped on every change; a read is only cached if no change overlapped it
+    private final AtomicLong ratingVersion = new AtomicLong();
+
+    /**
+     * Add the student's review of the course, or replace the one they already wrote.
+     *
+     * @throws IllegalArgumentException if the rating is not 1 to 5 or the comment is too long
+     * @throws IllegalStateException if the student is not enrolled in the course
+     */
+    public CourseReview submitReview(Long studentId, Long courseId, Integer rating, String comment) {
+        if (rating == null || rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+        if (comment != null && comment.length() > maxCommentLength) {
+            throw new IllegalArgumentException("Comment must be at most " + maxCommentLength + " characters");
+        }
+        Enrollment enrollment = enrollmentRepository.findByStudentIdAndCourseId(studentId, courseId).orElse(null);
+        if (enrollment == null || !REVIEWER_STATUSES.contains(enrollment.getStatus())) {
+            throw new IllegalStateException("Only enrolled students can review this course");
+        }
+
+        CourseReview review = reviewRepository.lockByCourseAndStudent(courseId, studentId).orElse(null);
+        if (review == null) {
+            if (reviewRepository.insertIfAbsent(courseId, studentId, rating, comment, LocalDateTime.now()) == 1) {
+                applyChange(courseId, 1, rating, 0, rating);
+                return reviewRepository.lockByCourseAndStudent(courseId, studentId).orElseThrow();
+            }
+            // A concurrent submit wrote it first; once that commits this one is an edit
+            review = reviewRepository.lockByCourseAndStudent(courseId, studentId)
+                .orElseThrow(() -> new IllegalStateException("The review was removed while being submitted"));
+        }
+        int previous = review.getRating();
+        review.setRating(rating);
+        review.setComment(comment);
+        applyChange(courseId, 0, rating - previous, previous, rating);
+        return review;
+    }
+
+    /**
+     * Remove the student's review of the course; false if they had none.
+     */
+    public boolean deleteReview(Long studentId, Long courseId) {
+        CourseReview review = reviewRepository.lockByCourseAndStudent(courseId, studentId).orElse(null);
+        if (review == null) {
+            return false;
+        }
+        reviewRepository.delete(review);
+        applyChange(courseId, -1, -review.getRating(), review.getRating(), 0);
+        return true;
+    }
+
+    /**
+     * A course's reviews, newest first, one keyset page at a time.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CourseReview> findReviews(Long courseId, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (after != null && after.getAt() == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int pageSize = CursorPage.clampSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<CourseReview> rows = after == null
+            ? reviewRepository.findPageByCourse(courseId, limit)
+            : reviewRepository.findPageByCourseAfter(courseId, after.getAt(), after.getId(), limit);
+        return CursorPage.of(rows, pageSize, r -> KeysetCursor.of(r.getCreatedAt(), r.getId()));
+    }
+
+    /**
+     * Review count, average, star histogram and Bayesian score of a course. Served from
+     * memory after the first read.
+     */
+    @Transactional(readOnly = true)
+    public CourseRating getCourseRating(Long courseId) {
+        CourseRating cached = ratings.get(courseId);
+        if (cached == null) {
+            long version = ratingVersion.get();
+            List<Object[]> rows = aggregateRepository.findCounts(courseId);
+            if (rows.isEmpty()) {
+                cached = new CourseRating(courseId, 0, 0, new int[5], 0);
+            } else {
+                Object[] row = rows.get(0);
+                int[] stars = new int[5];
+                for (int star = 0; star < 5; star++) {
+                    stars[star] = ((Number) row[2 + star]).intValue();
+                }
+                cached = new CourseRating(courseId, ((Number) row[0]).longValue(), ((Number) row[1]).longValue(), stars, 0);
+            }
+            if (cacheable() && ratingVersion.get() == version) {
+                ratings.put(courseId, cached);
+            }
+        }
+        return cached.scored(getPriorMean(), priorWeight);
+    }
+
+    /**
+     * Average rating over every review on the platform, 0 if there are none.
+     */
+    @Transactional(readOnly = true)
+    public double getPlatformAverage() {
+        return getPlatformTotals().getAverage();
+    }
+
+    /**
+     * Background rebuild: rewrites every aggregate, the platform totals and the course
+     * ratings that drifted from the reviews table.
+     */
+    @Scheduled(fixedDelayString = "${lms.reviews.reconcile-interval-ms:3600000}",
+               initialDelayString = "${lms.reviews.reconcile-initial-delay-ms:300000}")
+    public int reconcile() {
+        aggregateRepository.insertMissingAggregates();
+        totalsRepository.initializeTotals();
+        int corrected = aggregateRepository.reconcileWithReviews() + totalsRepository.reconcileWithReviews();
+        int ratingsCorrected = courseRepository.reconcileRatings();
+        if (corrected + ratingsCorrected > 0) {
+            logger.warn("Review reconciliation corrected {} rating aggregates and {} course ratings", corrected, ratingsCorrected);
+            dropAll();
+            invalidationBus.publishAll(InvalidationEvent.Type.COURSE_RATING);
+        }
+        return corrected + ratingsCorrected;
+    }
+
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        if (!event.contains(InvalidationEvent.Type.COURSE_RATING)) {
+            return;
+        }
+        if (event.isAll(InvalidationEvent.Type.COURSE_RATING)) {
+            dropAll();
+            return;
+        }
+        for (Long courseId : event.getKeys(InvalidationEvent.Type.COURSE_RATING)) {
+            drop(courseId);
+        }
+    }
+
+    // Move the course and platform aggregates by one review change: a removed star and an added one (0 for none)
+    private void applyChange(Long courseId, int count, int sum, int removedStar, int addedStar) {
+        int[] deltas = new int[6];
+        deltas[removedStar]--;
+        deltas[addedStar]++;
+        LocalDateTime now = LocalDateTime.now();
+        if (aggregateRepository.applyChange(courseId, count, sum, deltas[1], deltas[2], deltas[3], deltas[4], deltas[5], now) == 0) {
+            aggregateRepository.initializeAggregate(courseId);
+            aggregateRepository.applyChange(courseId, count, sum, deltas[1], deltas[2], deltas[3], deltas[4], deltas[5], now);
+        }
+
+        List<Object[]> rows = aggregateRepository.findCounts(courseId);
+        long reviews = ((Number) rows.get(0)[0]).longValue();
+        long total = ((Number) rows.get(0)[1]).longValue();
+        double average = reviews == 0 ? 0.0
+            : BigDecimal.valueOf(total).divide(BigDecimal.valueOf(reviews), 2, RoundingMode.HALF_UP).doubleValue();
+        courseRepository.updateRating(courseId, average);
+
+        // Last, so the one platform row is only locked from here to commit
+        if (count != 0 || sum != 0) {
+            if (totalsRepository.applyChange(count, sum, now) == 0) {
+                totalsRepository.initializeTotals();
+                totalsRepository.applyChange(count, sum, now);
+            }
+        }
+
+        evict(courseId);
+    }
+
+    /**
+     * Drop the course's cached rating now and again once the transaction completes, and
+     * tell the other nodes after commit.
+     */
+    private void evict(Long courseId) {
+        drop(courseId);
+        invalidationBus.publish(InvalidationEvent.Type.COURSE_RATING, courseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    drop(courseId);
+                }
+            });
+        }
+    }
+
+    private void drop(Long courseId) {
+        ratingVersion.incrementAndGet();
+        ratings.remove(courseId);
+        platform = null;
+    }
+
+    private void dropAll() {
+        ratingVersion.incrementAndGet();
+        ratings.clear();
+        platform = null;
+    }
+
+    private CourseRating getPlatformTotals() {
+        CourseRating current = platform;
+        if (current != null) {
+            return current;
+        }
+        long version = ratingVersion.get();
+        List<Object[]> rows = totalsRepository.findTotals();
+        current = rows.isEmpty()
+            ? new CourseRating(null, 0, 0, new int[5], 0)
+            : new CourseRating(null, ((Number) rows.get(0)[0]).longValue(), ((Number) rows.get(0)[1]).longValue(), new int[5], 0);
+        if (cacheable() && ratingVersion.get() == version) {
+            platform = current;
+        }
+        return current;
+    }
+
+    private double getPriorMean() {
+        CourseRating totals = getPlatformTotals();
+        return totals.getReviewCount() == 0 ? DEFAULT_PRIOR_MEAN : totals.getAverage();
+    }
+
+    // Not cached inside a writing transaction: its uncommitted counts must not leak to other readers
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+            || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
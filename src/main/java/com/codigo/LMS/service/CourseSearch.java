@@ -0,0 +1,27 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.dto.CourseSearchPage;
+
+import java.util.List;
+
+/**
+ * Full-text search over published courses.
+ *
+ * A query is split into words; a course matches when every word is a prefix of some
+ * word in its title, category or description. Title matches rank above category
+ * matches, which rank above description matches. Backed by a {@code tsvector} column on
+ * PostgreSQL and by an in-memory inverted index elsewhere.
+ */
+public interface CourseSearch {
+
+    /**
+     * One page of matching course ids, best first; ties are broken by course id so pages
+     * are stable. An empty or word-less query matches nothing.
+     */
+    CourseSearchPage search(String query, int page, int size);
+
+    /**
+     * Ids of every matching course, best first, for filtering a listing by a query.
+     */
+    List<Long> findMatchingIds(String query);
+}
@@ -1,5 +1,8 @@
 package com.codigo.LMS.service;
 
+import com.codigo.LMS.dto.CourseFilter;
+import com.codigo.LMS.dto.CourseSearchPage;
+import com.codigo.LMS.dto.FacetedCourses;
 import com.codigo.LMS.entity.Course;
 import com.codigo.LMS.entity.User;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,9 +19,12 @@ public interface CourseService {
     
     Course save(Course course);
     void delete(Long courseId);
+    Course unpublish(Long courseId, Long unpublishedBy);
     
     // Search and filtering
     List<Course> searchCourses(String searchTerm);
+    CourseSearchPage searchCourses(String query, int page, int size);
+    FacetedCourses filterCatalog(CourseFilter filter);
     List<Course> findFreeCourses();
     List<Course> findPaidCourses();
     List<Course> findByPriceRange(java.math.BigDecimal minPrice, java.math.BigDecimal maxPrice);
@@ -35,6 +41,7 @@ public interface CourseService {
     
     // Analytics
     List<Course> getMostPopularCourses();
+    List<Course> getTrendingCourses();
     double getAverageRating();
     long getFreeCourseCount();
     long getPaidCourseCount();
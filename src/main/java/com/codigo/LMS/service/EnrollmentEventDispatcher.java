@@ -0,0 +1,337 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.AuditLog;
+import com.codigo.LMS.entity.Enrollment;
+import com.codigo.LMS.entity.EnrollmentEventDeadLetter;
+import com.codigo.LMS.entity.EnrollmentEventType;
+import com.codigo.LMS.entity.EnrollmentStatus;
+import com.codigo.LMS.entity.Payment;
+import com.codigo.LMS.event.EnrollmentEvent;
+import com.codigo.LMS.repository.AuditLogRepository;
+import com.codigo.LMS.repository.EnrollmentEventDeadLetterRepository;
+import com.codigo.LMS.repository.EnrollmentRepository;
+import com.codigo.LMS.repository.PaymentRepository;
+import com.codigo.LMS.repository.VoucherRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs the side effects of enrollment transitions (points, notifications, audit log)
+ * after the enrollment transaction has committed, so the request only pays for the
+ * enrollment write and holds its row locks for that long.
+ *
+ * Each handler gets its own virtual thread and its own transaction per event, and is
+ * retried with exponential backoff on failure. At most {@code max-concurrency} handlers
+ * hold a transaction at once, kept well below the connection pool so request threads
+ * still get connections during a burst, and at most {@code max-pending} events wait
+ * for one; beyond that an event goes straight to the dead letters and is counted as
+ * rejected.
+ *
+ * Once its attempts are used up the event is written to
+ * {@code enrollment_event_dead_letters} for that handler alone, and can be redelivered
+ * from there. Events are kept in memory only, so the side effects of a commit are lost
+ * if the node stops before its handlers have run.
+ */
+@Service
+public class EnrollmentEventDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentEventDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private VoucherRepository voucherRepository;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private EnrollmentEventDeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lms.enrollment.events.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${lms.enrollment.events.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    // Handlers running a transaction at once; keep below spring.datasource.hikari.maximum-pool-size
+    @Value("${lms.enrollment.events.max-concurrency:4}")
+    private int maxConcurrency;
+
+    // Handler runs accepted but not finished, including those waiting for a slot or a retry
+    @Value("${lms.enrollment.events.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${lms.enrollment.events.shutdown-wait-seconds:10}")
+    private long shutdownWaitSeconds;
+
+    private final Map<String, Handler> handlers = new LinkedHashMap<>();
+
+    private final LongAdder handled = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private ExecutorService executor;
+
+    private Semaphore running;
+
+    private Semaphore pending;
+
+    @PostConstruct
+    void start() {
+        handlers.put("points", new Handler(
+            EnumSet.of(EnrollmentEventType.ACTIVATED, EnrollmentEventType.APPROVED), this::awardPoints));
+        handlers.put("notification", new Handler(EnumSet.allOf(EnrollmentEventType.class), this::notifyStudent));
+        handlers.put("audit", new Handler(
+            EnumSet.of(EnrollmentEventType.ACTIVATED, EnrollmentEventType.APPROVAL_REQUESTED,
+                EnrollmentEventType.APPROVED, EnrollmentEventType.DENIED), this::audit));
+
+        FunctionCounter.builder("lms.enrollment.events.handled", handled, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("lms.enrollment.events.retried", retried, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("lms.enrollment.events.dead.lettered", deadLettered, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("lms.enrollment.events.rejected", rejected, LongAdder::sum)
+            .register(meterRegistry);
+
+        running = new Semaphore(maxConcurrency);
+        pending = new Semaphore(maxPending);
+
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("enrollment-event-", 0).factory());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Let handlers that are mid-retry finish; anything still running after that is lost
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownWaitSeconds, TimeUnit.SECONDS)) {
+            logger.warn("Stopped with enrollment event handlers still running");
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Dispatch once the current transaction commits; nothing runs if it rolls back.
+     */
+    public void publish(EnrollmentEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    public List<EnrollmentEventDeadLetter> getDeadLetters(int limit) {
+        return deadLetterRepository.findLatest(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Hand a dead-lettered event back to its handler. The row is removed; if the handler
+     * fails again, a new one is written.
+     */
+    public boolean redeliver(Long deadLetterId) {
+        EnrollmentEventDeadLetter deadLetter = deadLetterRepository.findById(deadLetterId).orElse(null);
+        if (deadLetter == null || !handlers.containsKey(deadLetter.getHandler())) {
+            return false;
+        }
+        deadLetterRepository.delete(deadLetter);
+        submit(deadLetter.getHandler(), deadLetter.toEvent());
+        return true;
+    }
+
+    private void dispatch(EnrollmentEvent event) {
+        handlers.forEach((name, handler) -> {
+            if (handler.types.contains(event.getType())) {
+                submit(name, event);
+            }
+        });
+    }
+
+    private void submit(String name, EnrollmentEvent event) {
+        if (!pending.tryAcquire()) {
+            // Handlers are this far behind: park the event where it can be redelivered
+            rejected.increment();
+            deadLetter(name, event, 0, "Rejected: too many pending events");
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    run(name, event);
+                } finally {
+                    pending.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down: keep the event rather than drop it
+            pending.release();
+            rejected.increment();
+            deadLetter(name, event, 0, "Rejected during shutdown");
+        }
+    }
+
+    private void run(String name, EnrollmentEvent event) {
+        Handler handler = handlers.get(name);
+        long backoff = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            RuntimeException failure;
+            try {
+                running.acquire();
+            } catch (InterruptedException interrupted) {
+                deadLetter(name, event, attempt - 1, "Interrupted before running");
+                return;
+            }
+            // The slot is held for the transaction only, not while backing off
+            try {
+                transactionTemplate.executeWithoutResult(status -> handler.action.accept(event));
+                handled.increment();
+                return;
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                running.release();
+            }
+            if (attempt >= maxAttempts) {
+                logger.error("Enrollment event handler '{}' gave up on {} after {} attempts", name, event, attempt, failure);
+                deadLetter(name, event, attempt, failure.toString());
+                return;
+            }
+            logger.warn("Enrollment event handler '{}' failed on {} (attempt {}), retrying in {} ms: {}",
+                name, event, attempt, backoff, failure.getMessage());
+            retried.increment();
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException interrupted) {
+                deadLetter(name, event, attempt, "Interrupted before retry: " + failure);
+                return;
+            }
+            backoff *= 2;
+        }
+    }
+
+    private void deadLetter(String name, EnrollmentEvent event, int attempts, String error) {
+        String lastError = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                deadLetterRepository.save(new EnrollmentEventDeadLetter(name, event, attempts, lastError)));
+            deadLettered.increment();
+        } catch (RuntimeException e) {
+            logger.error("Lost enrollment event {} for handler '{}': could not write dead letter", event, name, e);
+        }
+    }
+
+    // Handlers
+
+    private void awardPoints(EnrollmentEvent event) {
+        gameService.awardEnrollmentPoints(event.getStudentId(), event.getCourseId());
+    }
+
+    private void notifyStudent(EnrollmentEvent event) {
+        Enrollment enrollment = enrollmentRepository.findById(event.getEnrollmentId()).orElse(null);
+        if (enrollment == null) {
+            logger.warn("Skipping notification for {}: enrollment no longer exists", event);
+            return;
+        }
+        switch (event.getType()) {
+            case ACTIVATED -> notificationService.sendEnrollmentConfirmation(
+                enrollment.getStudent(), enrollment.getCourse(), enrollment);
+            case APPROVAL_REQUESTED -> notificationService.sendApprovalRequest(
+                enrollment.getCourse(), enrollment.getStudent(), enrollment);
+            case APPROVED -> notificationService.sendEnrollmentApproved(
+                enrollment.getStudent(), enrollment.getCourse(), enrollment);
+            case DENIED -> notificationService.sendEnrollmentDenied(
+                enrollment.getStudent(), enrollment.getCourse(), enrollment, event.getReason());
+            case WAITLISTED -> notificationService.sendWaitlistConfirmation(
+                enrollment.getStudent(), enrollment.getCourse(), enrollment);
+            case WITHDRAWN -> notificationService.sendWithdrawalConfirmation(
+                enrollment.getStudent(), enrollment.getCourse(), enrollment);
+            case PAYMENT_FAILED -> {
+                Payment payment = paymentRepository.findById(event.getPaymentId()).orElse(null);
+                if (payment != null) {
+                    notificationService.sendPaymentFailed(enrollment.getStudent(), enrollment.getCourse(), payment);
+                }
+            }
+        }
+    }
+
+    private void audit(EnrollmentEvent event) {
+        switch (event.getType()) {
+            case ACTIVATED, APPROVAL_REQUESTED -> {
+                EnrollmentStatus status = event.getType() == EnrollmentEventType.ACTIVATED
+                    ? EnrollmentStatus.ACTIVE : EnrollmentStatus.PENDING_REVIEW;
+                Enrollment enrollment = enrollmentRepository.findById(event.getEnrollmentId()).orElse(null);
+                String payload = AuditLog.enrollmentCreatedPayload(event.getStudentId(), event.getCourseId(), status,
+                    enrollment != null ? enrollment.getSource() : null);
+                auditLogRepository.save(AuditLog.enrollmentCreated(event.getStudentId(), event.getEnrollmentId(), payload));
+            }
+            case APPROVED -> auditLogRepository.save(
+                AuditLog.enrollmentApproved(event.getActorId(), event.getEnrollmentId(), event.getStudentId()));
+            case DENIED -> auditLogRepository.save(
+                AuditLog.enrollmentDenied(event.getActorId(), event.getEnrollmentId(), event.getStudentId(), event.getReason()));
+            default -> { }
+        }
+        if (event.getVoucherId() != null) {
+            voucherRepository.findById(event.getVoucherId()).ifPresent(voucher ->
+                auditLogRepository.save(AuditLog.voucherUsed(event.getStudentId(), voucher.getId(), voucher.getCode())));
+        }
+    }
+
+    private static final class Handler {
+        private final Set<EnrollmentEventType> types;
+        private final Consumer<EnrollmentEvent> action;
+
+        Handler(Set<EnrollmentEventType> types, Consumer<EnrollmentEvent> action) {
+            this.types = types;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.dto.CourseEnrollmentCounters;
+import com.codigo.LMS.event.CourseCountersChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live enrollment counters pushed to course pages over Server-Sent Events.
+ *
+ * Every watched course has one shared feed. A committed counter change only marks the
+ * feed dirty; the next flush reads the counters once and fans the same frame out to all
+ * of its subscribers, so a launch page with thousands of viewers costs one read per
+ * flush instead of one stats query per viewer per poll.
+ *
+ * A frame carries the whole counter set, so a subscriber only ever needs the latest
+ * one: while it is still writing, a newer frame replaces the pending one instead of
+ * queueing behind it, and a subscriber that makes no progress for {@code max-lag-ms} is
+ * dropped and left to reconnect. Each subscriber is written from its own virtual thread,
+ * so a client that stops reading only parks its own writer. Event ids are
+ * {@code <node epoch>-<version>}, with versions drawn from one node-wide sequence, so an
+ * id is never reused for different counters even after a course's feed is closed and
+ * opened again; a client reconnecting with the current id as Last-Event-ID is not sent
+ * the snapshot again.
+ */
+@Service
+public class EnrollmentFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentFeedService.class);
+
+    private static final Frame HEARTBEAT = new Frame(0, null, null);
+
+    @Autowired
+    private SeatLedgerService seatLedgerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Below Tomcat's default of 8192 connections, so open streams cannot starve ordinary requests
+    @Value("${lms.enrollment.feed.max-connections:5000}")
+    private int maxConnections;
+
+    @Value("${lms.enrollment.feed.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${lms.enrollment.feed.max-lag-ms:30000}")
+    private long maxLagMs;
+
+    @Value("${lms.enrollment.feed.reconnect-ms:3000}")
+    private long reconnectMs;
+
+    // Ids from before a restart never match, so those clients get a fresh snapshot
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Long, CourseFeed> feeds = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyCourses = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong versions = new AtomicLong();
+
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder slowDisconnects = new LongAdder();
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    void start() {
+        sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("enrollment-feed-", 0).factory());
+
+        Gauge.builder("lms.enrollment.feed.connections", connections, AtomicInteger::get)
+            .register(meterRegistry);
+        Gauge.builder("lms.enrollment.feed.courses", feeds, Map::size)
+            .register(meterRegistry);
+        FunctionCounter.builder("lms.enrollment.feed.frames", framesSent, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("lms.enrollment.feed.rejected", rejected, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("lms.enrollment.feed.slow.disconnects", slowDisconnects, LongAdder::sum)
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        sender.shutdownNow();
+        feeds.values().forEach(feed -> feed.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * Subscribe to a course's counters, or null when this node is at its connection cap.
+     */
+    public SseEmitter subscribe(Long courseId, String lastEventId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(courseId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove(subscriber));
+
+        CourseFeed feed = feeds.compute(courseId, (id, existing) -> {
+            CourseFeed target = existing != null ? existing : new CourseFeed(id);
+            target.subscribers.add(subscriber);
+            return target;
+        });
+
+        Frame current = feed.current != null ? feed.current : refresh(feed);
+        if (current != null && !current.id.equals(lastEventId)) {
+            subscriber.offer(current);
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onCountersChanged(CourseCountersChangedEvent event) {
+        if (feeds.containsKey(event.getCourseId())) {
+            dirtyCourses.add(event.getCourseId());
+        }
+    }
+
+    /**
+     * Push the counters of every course that changed since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${lms.enrollment.feed.flush-ms:500}")
+    public void flush() {
+        Iterator<Long> iterator = dirtyCourses.iterator();
+        while (iterator.hasNext()) {
+            Long courseId = iterator.next();
+            // Removed before reading, so a change committed during the read marks it again
+            iterator.remove();
+            CourseFeed feed = feeds.get(courseId);
+            if (feed == null) {
+                continue;
+            }
+            try {
+                Frame frame = refresh(feed);
+                if (frame != null) {
+                    feed.subscribers.forEach(subscriber -> subscriber.offer(frame));
+                }
+            } catch (RuntimeException e) {
+                dirtyCourses.add(courseId);
+                logger.warn("Failed to refresh enrollment feed of course {}: {}", courseId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Keep idle streams open through proxies and drop subscribers that stopped reading.
+     */
+    @Scheduled(fixedRateString = "${lms.enrollment.feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (CourseFeed feed : feeds.values()) {
+            for (Subscriber subscriber : feed.subscribers) {
+                long busySince = subscriber.busySince;
+                if (busySince != 0 && now - busySince > maxLagMs) {
+                    slowDisconnects.increment();
+                    // The writer thread completes the emitter once its blocked write returns
+                    subscriber.dropped = true;
+                    remove(subscriber);
+                } else {
+                    subscriber.offerHeartbeat();
+                }
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Read the course's counters and return a new frame, or null if nothing changed.
+     */
+    private Frame refresh(CourseFeed feed) {
+        CourseEnrollmentCounters counters = seatLedgerService.getCounters(feed.courseId);
+        String json = toJson(counters);
+        synchronized (feed) {
+            if (feed.current != null && feed.current.json.equals(json)) {
+                return null;
+            }
+            long version = versions.incrementAndGet();
+            feed.current = new Frame(version, epoch + "-" + version, json);
+            return feed.current;
+        }
+    }
+
+    private String toJson(CourseEnrollmentCounters counters) {
+        Integer capacity = counters.getCapacity();
+        long inUse = counters.getEnrolled() + counters.getHeld();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("courseId", counters.getCourseId());
+        stats.put("capacity", capacity);
+        stats.put("enrolled", counters.getEnrolled());
+        stats.put("held", counters.getHeld());
+        stats.put("available", capacity != null ? Math.max(0, capacity - inUse) : null);
+        stats.put("waitlistSize", counters.getWaitlisted());
+        stats.put("pendingApprovals", counters.getPendingApprovals());
+        stats.put("isAtCapacity", capacity != null && inUse >= capacity);
+        stats.put("lastUpdated", counters.getUpdatedAt());
+        try {
+            return objectMapper.writeValueAsString(stats);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize enrollment counters", e);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connections.decrementAndGet();
+        feeds.computeIfPresent(subscriber.courseId, (id, feed) -> {
+            feed.subscribers.remove(subscriber);
+            return feed.subscribers.isEmpty() ? null : feed;
+        });
+    }
+
+    private static final class CourseFeed {
+        private final Long courseId;
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private volatile Frame current;
+
+        CourseFeed(Long courseId) {
+            this.courseId = courseId;
+        }
+    }
+
+    private static final class Frame {
+        private final long version;
+        private final String id;
+        private final String json;
+
+        Frame(long version, String id, String json) {
+            this.version = version;
+            this.id = id;
+            this.json = json;
+        }
+    }
+
+    /**
+     * One open stream. Holds at most one unsent frame and is written by at most one
+     * virtual thread at a time.
+     */
+    private final class Subscriber {
+        private final Long courseId;
+        private final SseEmitter emitter;
+        private final AtomicReference<Frame> pending = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean dropped;
+        private boolean retrySent;
+        private long sentVersion;
+        // Set while a frame waits for or is being written; 0 when idle
+        private volatile long busySince;
+
+        Subscriber(Long courseId, SseEmitter emitter) {
+            this.courseId = courseId;
+            this.emitter = emitter;
+        }
+
+        void offer(Frame frame) {
+            // A subscribe racing a flush may offer an older frame; never let it replace a newer one
+            Frame current;
+            do {
+                current = pending.get();
+                if (current != null && current.version >= frame.version) {
+                    break;
+                }
+            } while (!pending.compareAndSet(current, frame));
+            schedule();
+        }
+
+        void offerHeartbeat() {
+            if (pending.compareAndSet(null, HEARTBEAT)) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (closed.get() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            busySince = System.currentTimeMillis();
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                busySince = 0;
+                draining.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                Frame frame;
+                while (!closed.get() && (frame = pending.getAndSet(null)) != null) {
+                    send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter's error callback removes it
+                remove(this);
+            } finally {
+                busySince = 0;
+                draining.set(false);
+            }
+            if (dropped) {
+                emitter.complete();
+            } else if (pending.get() != null) {
+                // A frame offered while the flag was still set
+                schedule();
+            }
+        }
+
+        private void send(Frame frame) throws IOException {
+            if (frame == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            if (frame.version <= sentVersion) {
+                return;
+            }
+            sentVersion = frame.version;
+            SseEmitter.SseEventBuilder event = SseEmitter.event().id(frame.id).name("stats").data(frame.json);
+            if (!retrySent) {
+                event.reconnectTime(reconnectMs);
+                retrySent = true;
+            }
+            emitter.send(event);
+            framesSent.increment();
+        }
+    }
+}
@@ -3,21 +3,43 @@ package com.codigo.LMS.service;
 import com.codigo.LMS.entity.*;
 import com.codigo.LMS.repository.*;
 import com.codigo.LMS.dto.*;
-// Explicit import to avoid ambiguity with java.lang.Module
-import com.codigo.LMS.entity.Module;
+import com.codigo.LMS.event.EnrollmentEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Transactional
 public class EnrollmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentService.class);
+    
+    // Payment states a "succeeded" webhook may move to SUCCEEDED; refunds and disputes stay
+    private static final Set<PaymentStatus> SUCCEEDABLE_PAYMENT_STATUSES = EnumSet.of(
+        PaymentStatus.PENDING, PaymentStatus.PROCESSING, PaymentStatus.FAILED,
+        PaymentStatus.CANCELLED, PaymentStatus.EXPIRED);
+    
+    // Checkout enrollments a captured payment activates: still pending, or closed by a failure or expiry
+    private static final Set<EnrollmentStatus> ACTIVATABLE_CHECKOUT_STATUSES = EnumSet.of(
+        EnrollmentStatus.PENDING_REVIEW, EnrollmentStatus.DENIED, EnrollmentStatus.EXPIRED);
     
     @Autowired
     private EnrollmentRepository enrollmentRepository;
@@ -35,64 +57,113 @@ public class EnrollmentService {
     private VoucherRepository voucherRepository;
     
     @Autowired
-    private EntitlementRepository entitlementRepository;
+    private AuditLogRepository auditLogRepository;
     
     @Autowired
-    private AuditLogRepository auditLogRepository;
+    private PaymentService paymentService;
     
     @Autowired
-    private NotificationService notificationService;
+    private SeatLedgerService seatLedgerService;
     
     @Autowired
-    private PaymentService paymentService;
+    private SeatHoldService seatHoldService;
+    
+    @Autowired
+    private WaitlistService waitlistService;
     
     @Autowired
-    private GameService gameService;
+    private EntitlementService entitlementService;
+    
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+    
+    @Autowired
+    private PrerequisiteGraph prerequisiteGraph;
+    
+    @Autowired
+    private EnrollmentEventDispatcher enrollmentEventDispatcher;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     /**
      * Smart enrollment logic with comprehensive validation
      */
     public EnrollmentResult enrollStudent(Long studentId, Long courseId, EnrollmentRequest request) {
+        long startedAt = System.nanoTime();
+        Course course = null;
+        EnrollmentResult result;
         try {
             // Validate basic requirements
             User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new IllegalArgumentException("Student not found"));
-            Course course = courseRepository.findById(courseId)
+            course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new IllegalArgumentException("Course not found"));
-            
-            // Check for duplicate enrollment
-            Optional<Enrollment> existingEnrollment = enrollmentRepository.findByStudentIdAndCourseId(studentId, courseId);
-            if (existingEnrollment.isPresent()) {
-                Enrollment existing = existingEnrollment.get();
-                if (existing.getStatus() == EnrollmentStatus.ACTIVE || existing.getStatus() == EnrollmentStatus.COMPLETED) {
-                    return EnrollmentResult.error("Student is already enrolled in this course");
-                }
-                // Allow re-enrollment if previously withdrawn/denied
-            }
-            
-            // Validate instructor cannot enroll in own course
-            if (isInstructorOfCourse(studentId, courseId)) {
-                return EnrollmentResult.error("Instructors cannot enroll in their own courses");
-            }
-            
-            // Check enrollment window
-            if (!isEnrollmentWindowOpen(course)) {
-                return EnrollmentResult.error("Enrollment window is closed for this course");
-            }
-            
-            // Validate prerequisites
-            if (!hasMetPrerequisites(studentId, course.getPrerequisiteCourseIds()) && 
-                request.getPrereqOverrideBy() == null) {
-                return EnrollmentResult.error("Prerequisites not met. Contact instructor for waiver.");
-            }
-            
-            // Handle different enrollment types
-            return handleEnrollmentByPolicy(student, course, request);
-            
+            result = enrollStudent(student, course, request);
         } catch (Exception e) {
-            auditLogRepository.save(createErrorAuditLog(studentId, "ENROLLMENT_FAILED", "enrollment", null, e.getMessage()));
-            return EnrollmentResult.error("Enrollment failed: " + e.getMessage());
+            auditLogRepository.save(createErrorAuditLog(studentId, "ENROLLMENT_FAILED", "course", courseId, e.getMessage()));
+            result = EnrollmentResult.error("Enrollment failed: " + e.getMessage(), "ENROLLMENT_FAILED");
         }
+        recordEnrollment(course, result, System.nanoTime() - startedAt);
+        return result;
+    }
+    
+    private EnrollmentResult enrollStudent(User student, Course course, EnrollmentRequest request) {
+        // Check for duplicate enrollment
+        Optional<Enrollment> existingEnrollment = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), course.getId());
+        if (existingEnrollment.isPresent()) {
+            Enrollment existing = existingEnrollment.get();
+            if (existing.getStatus() == EnrollmentStatus.ACTIVE || existing.getStatus() == EnrollmentStatus.COMPLETED) {
+                return EnrollmentResult.error("Student is already enrolled in this course", "ALREADY_ENROLLED");
+            }
+            // Allow re-enrollment if previously withdrawn/denied
+        }
+        
+        // Validate instructor cannot enroll in own course
+        if (isInstructorOfCourse(student.getId(), course.getId())) {
+            return EnrollmentResult.error("Instructors cannot enroll in their own courses", "OWN_COURSE");
+        }
+        
+        // Check enrollment window
+        if (!isEnrollmentWindowOpen(course)) {
+            return EnrollmentResult.error("Enrollment window is closed for this course", "WINDOW_CLOSED");
+        }
+        
+        // Validate prerequisites
+        if (!hasMetPrerequisites(student.getId(), course.getPrerequisiteCourseIds()) && 
+            request.getPrereqOverrideBy() == null) {
+            return EnrollmentResult.error("Prerequisites not met. Contact instructor for waiver.", "PREREQUISITES_NOT_MET");
+        }
+        
+        // Handle different enrollment types
+        return handleEnrollmentByPolicy(student, course, request);
+    }
+    
+    /**
+     * One timer sample per enrollment attempt, tagged by policy and outcome. Failures are
+     * tagged with their error code, never the message, so the tag values stay a fixed set.
+     */
+    private void recordEnrollment(Course course, EnrollmentResult result, long nanos) {
+        String outcome;
+        if (result.isPaymentRequired()) {
+            outcome = "payment_required";
+        } else if (result.isSuccess()) {
+            EnrollmentStatus status = result.getEnrollment() != null ? result.getEnrollment().getStatus() : null;
+            outcome = status == EnrollmentStatus.WAITLISTED ? "waitlisted"
+                : status == EnrollmentStatus.PENDING_REVIEW ? "pending_approval" : "enrolled";
+        } else {
+            outcome = "rejected";
+        }
+        String reason = result.getErrorCode() != null ? result.getErrorCode().toLowerCase()
+            : result.isSuccess() ? "none" : "other";
+        String policy = course != null && course.getEnrollmentPolicy() != null
+            ? course.getEnrollmentPolicy().name().toLowerCase() : "unknown";
+        Timer.builder("lms.enrollment.requests")
+            .tag("policy", policy)
+            .tag("result", outcome)
+            .tag("reason", reason)
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
     }
     
     private EnrollmentResult handleEnrollmentByPolicy(User student, Course course, EnrollmentRequest request) {
@@ -112,14 +183,13 @@ public class EnrollmentService {
             case CORPORATE_BULK:
                 return handleCorporateBulkEnrollment(student, course, request);
             default:
-                return EnrollmentResult.error("Invalid enrollment policy");
+                return EnrollmentResult.error("Invalid enrollment policy", "INVALID_POLICY");
         }
     }
     
     private EnrollmentResult handleOpenEnrollment(User student, Course course, EnrollmentRequest request) {
-        // Check capacity
-        long activeEnrollments = enrollmentRepository.countActiveEnrollmentsByCourse(course.getId());
-        if (course.getCapacity() != null && activeEnrollments >= course.getCapacity()) {
+        // Reserve a seat atomically; a full course falls through to the waitlist
+        if (!seatLedgerService.tryAcquireSeat(course)) {
             return handleWaitlist(student, course, request);
         }
         
@@ -130,31 +200,21 @@ public class EnrollmentService {
         // Grant entitlements
         grantCourseEntitlements(student, course, enrollment);
         
-        // Award enrollment points
-        gameService.awardEnrollmentPoints(student.getId(), course.getId());
-        
-        // Send confirmation
-        notificationService.sendEnrollmentConfirmation(student, course, enrollment);
-        
-        // Audit log
-        auditLogRepository.save(AuditLog.enrollmentCreated(student.getId(), enrollment.getId(), 
-            createEnrollmentPayload(enrollment)));
+        // Points, confirmation and audit log run after commit
+        enrollmentEventDispatcher.publish(EnrollmentEvent.activated(enrollment, null));
         
         return EnrollmentResult.success(enrollment, "Successfully enrolled in course");
     }
     
     private EnrollmentResult handleApprovalRequiredEnrollment(User student, Course course, EnrollmentRequest request) {
         // Create pending enrollment
+        seatLedgerService.adjustPendingApprovals(course.getId(), 1);
         Enrollment enrollment = createEnrollment(student, course, EnrollmentStatus.PENDING_REVIEW, EnrollmentSource.SELF);
         enrollment.setApprovalRequestedAt(LocalDateTime.now());
         enrollment = enrollmentRepository.save(enrollment);
         
-        // Notify instructors
-        notificationService.sendApprovalRequest(course, student, enrollment);
-        
-        // Audit log
-        auditLogRepository.save(AuditLog.enrollmentCreated(student.getId(), enrollment.getId(), 
-            createEnrollmentPayload(enrollment)));
+        // Instructor notification and audit log run after commit
+        enrollmentEventDispatcher.publish(EnrollmentEvent.approvalRequested(enrollment));
         
         return EnrollmentResult.success(enrollment, "Enrollment request submitted for approval");
     }
@@ -165,8 +225,7 @@ public class EnrollmentService {
         }
         
         // Check capacity first
-        long activeEnrollments = enrollmentRepository.countActiveEnrollmentsByCourse(course.getId());
-        if (course.getCapacity() != null && activeEnrollments >= course.getCapacity()) {
+        if (!seatLedgerService.hasAvailableSeat(course)) {
             return handleWaitlist(student, course, request);
         }
         
@@ -184,28 +243,41 @@ public class EnrollmentService {
         
         // If final price is zero, treat as free enrollment
         if (finalPrice.compareTo(BigDecimal.ZERO) == 0) {
+            if (!seatLedgerService.tryAcquireSeat(course)) {
+                return handleWaitlist(student, course, request);
+            }
+            
             Enrollment enrollment = createEnrollment(student, course, EnrollmentStatus.ACTIVE, 
                 request.getVoucherCode() != null ? EnrollmentSource.VOUCHER : EnrollmentSource.SELF);
             
             if (voucher != null) {
+                // Concurrent redemptions may have taken the last use since the voucher was validated
+                if (voucherRepository.incrementUsage(voucher.getId(), 1) == 0) {
+                    seatLedgerService.releaseSeat(course.getId());
+                    return EnrollmentResult.error("Voucher usage limit has been reached", "VOUCHER_EXHAUSTED");
+                }
                 enrollment.setVoucherCodeUsed(voucher.getCode());
-                voucher.incrementUsage();
-                voucherRepository.save(voucher);
             }
             
             enrollment = enrollmentRepository.save(enrollment);
             grantCourseEntitlements(student, course, enrollment);
-            gameService.awardEnrollmentPoints(student.getId(), course.getId());
-            notificationService.sendEnrollmentConfirmation(student, course, enrollment);
+            enrollmentEventDispatcher.publish(EnrollmentEvent.activated(enrollment, voucher != null ? voucher.getId() : null));
             
             return EnrollmentResult.success(enrollment, "Successfully enrolled with voucher");
         }
         
+        // Hold a seat for the duration of checkout
+        if (!seatHoldService.tryHoldSeat(course)) {
+            return handleWaitlist(student, course, request);
+        }
+        
         // Create payment intent
         PaymentResult paymentResult = paymentService.createPaymentIntent(student, course, finalPrice, voucher);
         if (!paymentResult.isSuccess()) {
-            return EnrollmentResult.error("Payment setup failed: " + paymentResult.getErrorMessage());
+            seatHoldService.cancelUnboundHold(course);
+            return EnrollmentResult.error("Payment setup failed: " + paymentResult.getErrorMessage(), "PAYMENT_SETUP_FAILED");
         }
+        seatHoldService.createHold(student, course, paymentResult.getPayment());
         
         // Create pending enrollment linked to payment
         Enrollment enrollment = createEnrollment(student, course, EnrollmentStatus.PENDING_REVIEW, EnrollmentSource.SELF);
@@ -219,35 +291,36 @@ public class EnrollmentService {
     }
     
     private EnrollmentResult handleWaitlist(User student, Course course, EnrollmentRequest request) {
-        Integer nextPosition = enrollmentRepository.findMaxWaitlistPosition(course.getId());
-        nextPosition = (nextPosition == null) ? 1 : nextPosition + 1;
+        int ticket = waitlistService.join(course.getId());
         
         Enrollment enrollment = createEnrollment(student, course, EnrollmentStatus.WAITLISTED, EnrollmentSource.SELF);
-        enrollment.setWaitlistPosition(nextPosition);
+        enrollment.setWaitlistPosition(ticket);
         enrollment = enrollmentRepository.save(enrollment);
         
-        notificationService.sendWaitlistConfirmation(student, course, enrollment);
+        enrollmentEventDispatcher.publish(EnrollmentEvent.waitlisted(enrollment));
         
-        return EnrollmentResult.success(enrollment, "Added to waitlist at position " + nextPosition);
+        return EnrollmentResult.success(enrollment, "Added to waitlist at position " + 
+            waitlistService.positionOf(course.getId(), ticket));
     }
     
     /**
      * Approve pending enrollment
      */
     public EnrollmentResult approveEnrollment(Long enrollmentId, Long approverId, String reason) {
-        Enrollment enrollment = enrollmentRepository.findById(enrollmentId)
+        // Locked so a concurrent approval or denial waits and then sees the new status
+        Enrollment enrollment = enrollmentRepository.lockById(enrollmentId)
             .orElseThrow(() -> new IllegalArgumentException("Enrollment not found"));
         
         if (enrollment.getStatus() != EnrollmentStatus.PENDING_REVIEW) {
             return EnrollmentResult.error("Enrollment is not pending approval");
         }
         
-        // Check capacity
-        long activeEnrollments = enrollmentRepository.countActiveEnrollmentsByCourse(enrollment.getCourse().getId());
-        if (enrollment.getCourse().getCapacity() != null && activeEnrollments >= enrollment.getCourse().getCapacity()) {
+        // Reserve a seat
+        if (!seatLedgerService.tryAcquireSeat(enrollment.getCourse())) {
             return EnrollmentResult.error("Course is at capacity");
         }
         
+        closeApprovalRequest(enrollment);
         enrollment.setStatus(EnrollmentStatus.ACTIVE);
         enrollment.setApprovedAt(LocalDateTime.now());
         enrollment.setApprovedBy(approverId);
@@ -257,14 +330,8 @@ public class EnrollmentService {
         // Grant entitlements
         grantCourseEntitlements(enrollment.getStudent(), enrollment.getCourse(), enrollment);
         
-        // Award enrollment points
-        gameService.awardEnrollmentPoints(enrollment.getStudent().getId(), enrollment.getCourse().getId());
-        
-        // Send notification
-        notificationService.sendEnrollmentApproved(enrollment.getStudent(), enrollment.getCourse(), enrollment);
-        
-        // Audit log
-        auditLogRepository.save(AuditLog.enrollmentApproved(approverId, enrollmentId, enrollment.getStudent().getId()));
+        // Points, notification and audit log run after commit
+        enrollmentEventDispatcher.publish(EnrollmentEvent.approved(enrollment, approverId));
         
         return EnrollmentResult.success(enrollment, "Enrollment approved successfully");
     }
@@ -273,80 +340,109 @@ public class EnrollmentService {
      * Deny pending enrollment
      */
     public EnrollmentResult denyEnrollment(Long enrollmentId, Long denierId, String reason) {
-        Enrollment enrollment = enrollmentRepository.findById(enrollmentId)
+        // Locked so a concurrent approval or denial waits and then sees the new status
+        Enrollment enrollment = enrollmentRepository.lockById(enrollmentId)
             .orElseThrow(() -> new IllegalArgumentException("Enrollment not found"));
         
         if (enrollment.getStatus() != EnrollmentStatus.PENDING_REVIEW) {
             return EnrollmentResult.error("Enrollment is not pending approval");
         }
         
+        closeApprovalRequest(enrollment);
         enrollment.setStatus(EnrollmentStatus.DENIED);
         enrollment.setDenialReason(reason);
         enrollment = enrollmentRepository.save(enrollment);
         
-        // Send notification
-        notificationService.sendEnrollmentDenied(enrollment.getStudent(), enrollment.getCourse(), enrollment, reason);
-        
-        // Audit log
-        auditLogRepository.save(AuditLog.enrollmentDenied(denierId, enrollmentId, enrollment.getStudent().getId(), reason));
+        // Notification and audit log run after commit
+        enrollmentEventDispatcher.publish(EnrollmentEvent.denied(enrollment, denierId, reason));
         
         return EnrollmentResult.success(enrollment, "Enrollment denied");
     }
     
     /**
-     * Process payment webhook to activate enrollment
+     * Apply a payment webhook to the payment and the enrollment checked out with it.
+     * Transitions are idempotent: a duplicate or out-of-order webhook changes nothing and
+     * returns false. The payment row is locked, so webhooks for one payment apply one at a time.
      */
-    public void processPaymentWebhook(Long paymentId, String webhookStatus) {
-        Payment payment = paymentRepository.findById(paymentId).orElse(null);
-        if (payment == null) return;
-        
-        // Find enrollment linked to this payment
-        Optional<Enrollment> enrollmentOpt = enrollmentRepository.findByStudentIdAndCourseId(
-            payment.getUser().getId(), payment.getCourse().getId());
+    public boolean processPaymentWebhook(Long paymentId, String webhookStatus) {
+        Payment payment = paymentRepository.lockById(paymentId).orElse(null);
+        if (payment == null) return false;
         
-        if (!enrollmentOpt.isPresent()) return;
-        
-        Enrollment enrollment = enrollmentOpt.get();
+        Enrollment enrollment = enrollmentRepository.findByPaymentId(paymentId).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
         
         if ("succeeded".equals(webhookStatus)) {
+            // A capture also wins over an earlier failure or expiry, but not over a refund
+            boolean paymentChanged = payment.getStatus() != PaymentStatus.SUCCEEDED;
+            if (paymentChanged && !SUCCEEDABLE_PAYMENT_STATUSES.contains(payment.getStatus())) return false;
+            if (paymentChanged) {
+                payment.setStatus(PaymentStatus.SUCCEEDED);
+                payment.setProcessedAt(now);
+            }
+            payment.setWebhookReceivedAt(now);
+            paymentRepository.save(payment);
+            
+            if (enrollment == null || !ACTIVATABLE_CHECKOUT_STATUSES.contains(enrollment.getStatus())) return paymentChanged;
+            
+            // Convert the checkout hold, or take a free seat if it expired
+            if (!seatHoldService.convertHold(paymentId, enrollment.getCourse())) {
+                // The course filled up after the hold expired: never oversell, the paid student is next in line
+                enrollment.setStatus(EnrollmentStatus.WAITLISTED);
+                enrollment.setDenialReason(null);
+                enrollment.setWaitlistPosition(waitlistService.joinAtHead(enrollment.getCourse().getId()));
+                enrollment = enrollmentRepository.save(enrollment);
+                recordVoucherUse(enrollment, paymentId);
+                enrollmentEventDispatcher.publish(EnrollmentEvent.waitlisted(enrollment));
+                return true;
+            }
+            
             // Activate enrollment
             enrollment.setStatus(EnrollmentStatus.ACTIVE);
-            enrollment.setActivatedAt(LocalDateTime.now());
+            enrollment.setDenialReason(null);
+            enrollment.setActivatedAt(now);
             
             // Set refund eligibility
             if (enrollment.getCourse().getRefundPolicyDays() != null) {
-                enrollment.setRefundEligibleUntil(LocalDateTime.now().plusDays(enrollment.getCourse().getRefundPolicyDays()));
+                enrollment.setRefundEligibleUntil(now.plusDays(enrollment.getCourse().getRefundPolicyDays()));
             }
             
-            final Enrollment finalEnrollment = enrollmentRepository.save(enrollment);
-            enrollment = finalEnrollment;
+            enrollment = enrollmentRepository.save(enrollment);
             
             // Grant entitlements
-            grantCourseEntitlements(finalEnrollment.getStudent(), finalEnrollment.getCourse(), finalEnrollment);
-            
-            // Award points
-            gameService.awardEnrollmentPoints(finalEnrollment.getStudent().getId(), finalEnrollment.getCourse().getId());
+            grantCourseEntitlements(enrollment.getStudent(), enrollment.getCourse(), enrollment);
             
             // Use voucher if applicable
-            if (finalEnrollment.getVoucherCodeUsed() != null) {
-                voucherRepository.findByCode(finalEnrollment.getVoucherCodeUsed()).ifPresent(voucher -> {
-                    voucher.incrementUsage();
-                    voucherRepository.save(voucher);
-                    auditLogRepository.save(AuditLog.voucherUsed(finalEnrollment.getStudent().getId(), voucher.getId(), voucher.getCode()));
-                });
-            }
+            Long voucherId = recordVoucherUse(enrollment, paymentId);
             
-            // Send confirmation
-            notificationService.sendEnrollmentConfirmation(enrollment.getStudent(), enrollment.getCourse(), enrollment);
+            // Points, confirmation and audit log run after commit
+            enrollmentEventDispatcher.publish(EnrollmentEvent.activated(enrollment, voucherId));
+            return true;
             
         } else if ("failed".equals(webhookStatus)) {
+            // Only an open checkout can fail; a late failure after a capture is stale
+            boolean paymentChanged = payment.getStatus() == PaymentStatus.PENDING || payment.getStatus() == PaymentStatus.PROCESSING;
+            if (!paymentChanged && payment.getStatus() != PaymentStatus.FAILED) return false;
+            if (paymentChanged) {
+                payment.setStatus(PaymentStatus.FAILED);
+                payment.setFailureReason("Payment failed");
+            }
+            payment.setWebhookReceivedAt(now);
+            paymentRepository.save(payment);
+            
+            if (enrollment == null || enrollment.getStatus() != EnrollmentStatus.PENDING_REVIEW) return paymentChanged;
+            
+            seatHoldService.releaseHold(paymentId, enrollment.getCourse().getId());
+            waitlistService.promote(enrollment.getCourse().getId());
+            
             // Mark enrollment as failed
             enrollment.setStatus(EnrollmentStatus.DENIED);
             enrollment.setDenialReason("Payment failed");
-            enrollmentRepository.save(enrollment);
+            enrollment = enrollmentRepository.save(enrollment);
             
-            notificationService.sendPaymentFailed(enrollment.getStudent(), enrollment.getCourse(), payment);
+            enrollmentEventDispatcher.publish(EnrollmentEvent.paymentFailed(enrollment, paymentId));
+            return true;
         }
+        return false;
     }
     
     /**
@@ -360,12 +456,17 @@ public class EnrollmentService {
             return EnrollmentResult.error("Unauthorized withdrawal attempt");
         }
         
+        if (enrollment.getStatus() == EnrollmentStatus.WAITLISTED) {
+            return leaveWaitlist(enrollment);
+        }
+        
         if (enrollment.getStatus() != EnrollmentStatus.ACTIVE) {
             return EnrollmentResult.error("Can only withdraw from active enrollments");
         }
         
         enrollment.setStatus(EnrollmentStatus.WITHDRAWN);
         enrollment = enrollmentRepository.save(enrollment);
+        seatLedgerService.releaseSeat(enrollment.getCourse().getId());
         
         // Revoke entitlements
         revokeCourseEntitlements(enrollment);
@@ -379,42 +480,24 @@ public class EnrollmentService {
         }
         
         // Promote waitlist
-        promoteFromWaitlist(enrollment.getCourse().getId());
+        waitlistService.promote(enrollment.getCourse().getId());
         
-        // Send confirmation
-        notificationService.sendWithdrawalConfirmation(enrollment.getStudent(), enrollment.getCourse(), enrollment);
+        enrollmentEventDispatcher.publish(EnrollmentEvent.withdrawn(enrollment));
         
         return EnrollmentResult.success(enrollment, "Successfully withdrawn from course");
     }
     
-    /**
-     * Promote next person from waitlist
-     */
-    private void promoteFromWaitlist(Long courseId) {
-        List<Enrollment> waitlist = enrollmentRepository.findWaitlistByCourse(courseId);
-        if (!waitlist.isEmpty()) {
-            Enrollment nextInLine = waitlist.get(0);
-            
-            // Check capacity again
-            long activeEnrollments = enrollmentRepository.countActiveEnrollmentsByCourse(courseId);
-            Course course = courseRepository.findById(courseId).orElse(null);
-            
-            if (course != null && (course.getCapacity() == null || activeEnrollments < course.getCapacity())) {
-                nextInLine.setStatus(EnrollmentStatus.ACTIVE);
-                nextInLine.setActivatedAt(LocalDateTime.now());
-                nextInLine.setWaitlistPosition(null);
-                enrollmentRepository.save(nextInLine);
-                
-                // Grant entitlements
-                grantCourseEntitlements(nextInLine.getStudent(), course, nextInLine);
-                
-                // Award points
-                gameService.awardEnrollmentPoints(nextInLine.getStudent().getId(), courseId);
-                
-                // Send promotion notification
-                notificationService.sendWaitlistPromotion(nextInLine.getStudent(), course, nextInLine);
-            }
+    private EnrollmentResult leaveWaitlist(Enrollment enrollment) {
+        if (!waitlistService.leave(enrollment.getCourse().getId(), enrollment.getId())) {
+            return EnrollmentResult.error("Enrollment is no longer on the waitlist");
         }
+        enrollment.setStatus(EnrollmentStatus.WITHDRAWN);
+        enrollment.setWaitlistPosition(null);
+        enrollment = enrollmentRepository.save(enrollment);
+        
+        enrollmentEventDispatcher.publish(EnrollmentEvent.withdrawn(enrollment));
+        
+        return EnrollmentResult.success(enrollment, "Successfully removed from waitlist");
     }
     
     // Helper methods
@@ -425,9 +508,7 @@ public class EnrollmentService {
     }
     
     private boolean isEnrollmentWindowOpen(Course course) {
-        LocalDateTime now = LocalDateTime.now();
-        return (course.getEnrollmentWindowStart() == null || course.getEnrollmentWindowStart().isBefore(now)) &&
-               (course.getEnrollmentWindowEnd() == null || course.getEnrollmentWindowEnd().isAfter(now));
+        return course.isEnrollmentWindowOpen(LocalDateTime.now());
     }
     
     private boolean hasMetPrerequisites(Long studentId, List<Long> prerequisiteCourseIds) {
@@ -463,6 +544,25 @@ public class EnrollmentService {
         return VoucherValidationResult.valid(voucher);
     }
     
+    /**
+     * Count the use of the voucher a captured checkout was discounted with. Returns the
+     * voucher id, or null when the checkout had none.
+     */
+    private Long recordVoucherUse(Enrollment enrollment, Long paymentId) {
+        if (enrollment.getVoucherCodeUsed() == null) {
+            return null;
+        }
+        Voucher voucher = voucherRepository.findByCode(enrollment.getVoucherCodeUsed()).orElse(null);
+        if (voucher == null) {
+            return null;
+        }
+        // The discounted payment is already captured, so a checkout that outlived the cap is honoured
+        if (voucherRepository.incrementUsage(voucher.getId(), 1) == 0) {
+            logger.warn("Voucher {} reached its usage limit before payment {} was captured", voucher.getId(), paymentId);
+        }
+        return voucher.getId();
+    }
+    
     private boolean hasUserMadeSuccessfulPayment(Long userId) {
         return paymentRepository.countSuccessfulPaymentsByUser(userId) > 0;
     }
@@ -479,30 +579,19 @@ public class EnrollmentService {
         return enrollment;
     }
     
-    private void grantCourseEntitlements(User user, Course course, Enrollment enrollment) {
-        // Grant access to course modules
-        if (course.getModules() != null) {
-            for (Module module : course.getModules()) {
-                Entitlement entitlement = new Entitlement(user, ResourceType.LESSON, module.getId(), enrollment.getId());
-                entitlementRepository.save(entitlement);
-                
-                // Grant access to lessons within module
-                if (module.getLessons() != null) {
-                    for (Lesson lesson : module.getLessons()) {
-                        Entitlement lessonEntitlement = new Entitlement(user, ResourceType.LESSON, lesson.getId(), enrollment.getId());
-                        entitlementRepository.save(lessonEntitlement);
-                    }
-                }
-            }
+    private void closeApprovalRequest(Enrollment enrollment) {
+        // Paid checkouts also sit in PENDING_REVIEW but are counted as held seats
+        if (enrollment.getPaymentId() == null) {
+            seatLedgerService.adjustPendingApprovals(enrollment.getCourse().getId(), -1);
         }
     }
     
+    private void grantCourseEntitlements(User user, Course course, Enrollment enrollment) {
+        entitlementService.grantCourseEntitlements(user, course, enrollment);
+    }
+    
     private void revokeCourseEntitlements(Enrollment enrollment) {
-        List<Entitlement> entitlements = entitlementRepository.findByGrantedByEnrollmentId(enrollment.getId());
-        for (Entitlement entitlement : entitlements) {
-            entitlement.revoke(enrollment.getStudent().getId(), "Enrollment withdrawn");
-            entitlementRepository.save(entitlement);
-        }
+        entitlementService.revokeCourseEntitlements(enrollment);
     }
     
     private void processRefund(Enrollment enrollment) {
@@ -511,12 +600,6 @@ public class EnrollmentService {
         }
     }
     
-    private String createEnrollmentPayload(Enrollment enrollment) {
-        return String.format("{\"student_id\":%d,\"course_id\":%d,\"status\":\"%s\",\"source\":\"%s\"}", 
-            enrollment.getStudent().getId(), enrollment.getCourse().getId(), 
-            enrollment.getStatus(), enrollment.getSource());
-    }
-    
     private AuditLog createErrorAuditLog(Long actorId, String action, String entityType, Long entityId, String error) {
         AuditLog log = new AuditLog(actorId, action, entityType, entityId);
         log.setSuccess(false);
@@ -529,23 +612,29 @@ public class EnrollmentService {
         return enrollmentRepository.findByStudentIdAndCourseId(studentId, courseId).orElse(null);
     }
     
+    @Transactional(readOnly = true)
     public EnrollmentStats getCourseEnrollmentStats(Long courseId) {
-        long enrolled = enrollmentRepository.countActiveEnrollmentsByCourse(courseId);
-        long waitlist = enrollmentRepository.findWaitlistByCourse(courseId).size();
-        long pending = enrollmentRepository.findPendingApprovalsByCourse(courseId).size();
-        Course course = courseRepository.findById(courseId).orElse(null);
-        Integer capacity = course != null ? course.getCapacity() : null;
-        
-        return new EnrollmentStats(enrolled, capacity, waitlist, pending);
+        CourseEnrollmentCounters counters = seatLedgerService.getCounters(courseId);
+        return new EnrollmentStats(counters.getEnrolled(), counters.getCapacity(), counters.getWaitlisted(),
+            counters.getPendingApprovals(), counters.getHeld(), counters.getUpdatedAt());
     }
     
+    /**
+     * Current 1-based waitlist position of a student, or null when not waitlisted
+     */
+    public Integer getWaitlistPosition(Long studentId, Long courseId) {
+        Enrollment enrollment = findByStudentAndCourse(studentId, courseId);
+        if (enrollment == null || enrollment.getStatus() != EnrollmentStatus.WAITLISTED) {
+            return null;
+        }
+        return waitlistService.positionOf(courseId, enrollment.getWaitlistPosition());
+    }
+    
+    @Transactional(readOnly = true)
     public EnrollmentCapacityInfo getCapacityInfo(Long courseId) {
-        long enrolled = enrollmentRepository.countActiveEnrollmentsByCourse(courseId);
-        long waitlist = enrollmentRepository.findWaitlistByCourse(courseId).size();
-        Course course = courseRepository.findById(courseId).orElse(null);
-        Integer capacity = course != null ? course.getCapacity() : null;
-        
-        return new EnrollmentCapacityInfo(capacity, enrolled, waitlist);
+        CourseEnrollmentCounters counters = seatLedgerService.getCounters(courseId);
+        return new EnrollmentCapacityInfo(counters.getCapacity(), counters.getEnrolled(), counters.getHeld(),
+            counters.getWaitlisted());
     }
     
     public PrerequisiteCheckResult checkPrerequisites(Long studentId, Long courseId) {
@@ -562,6 +651,7 @@ public class EnrollmentService {
         
         List<Course> missing = java.util.Collections.emptyList();
         List<Course> completed = java.util.Collections.emptyList();
+        List<Course> remainingPath = java.util.Collections.emptyList();
         
         if (!met) {
             // Get missing prerequisites
@@ -571,60 +661,79 @@ public class EnrollmentService {
                 .filter(id -> !completedIds.contains(id)).toList();
             missing = courseRepository.findByIdIn(missingIds);
             completed = completedPrereqs.stream().map(Enrollment::getCourse).toList();
+            
+            List<Long> pathIds = prerequisiteGraph.findRemainingPath(studentId, courseId);
+            Map<Long, Course> pathCourses = new HashMap<>();
+            courseRepository.findByIdIn(pathIds).forEach(c -> pathCourses.put(c.getId(), c));
+            remainingPath = pathIds.stream().map(pathCourses::get).filter(Objects::nonNull).toList();
         }
         
-        return new PrerequisiteCheckResult(met, missing, completed, true);
+        PrerequisiteCheckResult result = new PrerequisiteCheckResult(met, missing, completed, true);
+        result.setRemainingPath(remainingPath);
+        return result;
+    }
+    
+    /**
+     * Missing prerequisites of each course for a student, in one query whatever the number
+     * of courses; an empty list means the prerequisites are met.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<Long>> checkPrerequisiteEligibility(Long studentId, List<Long> courseIds) {
+        return prerequisiteGraph.findMissingPrerequisites(studentId, courseIds);
     }
     
-    public List<Enrollment> findByStudentId(Long studentId) {
-        return enrollmentRepository.findByStudentIdOrderByEnrolledAtDesc(studentId);
+    /**
+     * A student's enrollments, newest first, one keyset page at a time.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Enrollment> findByStudentId(Long studentId, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Enrollment> rows = after == null
+            ? enrollmentRepository.findPageByStudent(studentId, limit)
+            : enrollmentRepository.findPageByStudentAfter(studentId, after.getAt(), after.getId(), limit);
+        return CursorPage.of(rows, pageSize, e -> KeysetCursor.of(e.getEnrolledAt(), e.getId()));
     }
     
-    public List<Enrollment> findPendingApprovalsByInstructor(Long instructorId) {
-        // This would need a more sophisticated query to find enrollments for courses taught by the instructor
-        return enrollmentRepository.findPendingApprovals();
+    /**
+     * Requests awaiting the instructor's approval on their courses, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Enrollment> findPendingApprovalsByInstructor(Long instructorId, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Enrollment> rows = after == null
+            ? enrollmentRepository.findPendingApprovalPage(instructorId, limit)
+            : enrollmentRepository.findPendingApprovalPageAfter(instructorId, after.getAt(), after.getId(), limit);
+        return CursorPage.of(rows, pageSize, e -> KeysetCursor.of(e.getApprovalRequestedAt(), e.getId()));
     }
     
+    /**
+     * Admin listing of all enrollments, newest first; a null course or status matches any.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Enrollment> findEnrollments(Long courseId, EnrollmentStatus status, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Enrollment> rows = after == null
+            ? enrollmentRepository.findPage(courseId, status, limit)
+            : enrollmentRepository.findPageAfter(courseId, status, after.getAt(), after.getId(), limit);
+        return CursorPage.of(rows, pageSize, e -> KeysetCursor.of(e.getEnrolledAt(), e.getId()));
+    }
+    
+    /**
+     * Admin bulk enrollment; see {@link BulkEnrollmentService}. Runs outside this
+     * service's transaction because the import commits chunk by chunk.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BulkEnrollmentResult bulkEnroll(BulkEnrollmentRequest request, Long adminId) {
-        int successCount = 0;
-        int failureCount = 0;
-        List<java.util.Map<String, Object>> failures = new java.util.ArrayList<>();
-        
-        // Process user IDs if provided
-        if (request.getUserIds() != null) {
-            for (Long userId : request.getUserIds()) {
-                try {
-                    EnrollmentRequest enrollReq = new EnrollmentRequest();
-                    enrollReq.setCourseId(request.getCourseId());
-                    enrollReq.setVoucherCode(request.getVoucherCode());
-                    
-                    EnrollmentResult result = enrollStudent(userId, request.getCourseId(), enrollReq);
-                    if (result.isSuccess()) {
-                        successCount++;
-                    } else {
-                        failureCount++;
-                        failures.add(java.util.Map.of("userId", userId, "error", result.getMessage()));
-                    }
-                } catch (Exception e) {
-                    failureCount++;
-                    failures.add(java.util.Map.of("userId", userId, "error", e.getMessage()));
-                }
-            }
-        }
-        
-        // Process emails (would need user lookup by email)
-        if (request.getUserEmails() != null) {
-            for (String email : request.getUserEmails()) {
-                // This would require a method to find user by email
-                failureCount++;
-                failures.add(java.util.Map.of("email", email, "error", "Email-based enrollment not implemented"));
-            }
-        }
-        
-        String message = String.format("Bulk enrollment completed: %d successful, %d failed", successCount, failureCount);
-        return new BulkEnrollmentResult(failureCount == 0, message, successCount, failureCount, failures);
+        return bulkEnrollmentService.bulkEnroll(request, adminId);
     }
     
+    @Transactional(readOnly = true)
     public EnrollmentStats getRealtimeStats(Long courseId) {
         return getCourseEnrollmentStats(courseId);
     }
@@ -632,21 +741,21 @@ public class EnrollmentService {
     // Additional methods for handling other enrollment types would go here...
     private EnrollmentResult handleInviteOnlyEnrollment(User student, Course course, EnrollmentRequest request) {
         // Implementation for invite-only enrollment
-        return EnrollmentResult.error("Invite-only enrollment not yet implemented");
+        return EnrollmentResult.error("Invite-only enrollment not yet implemented", "POLICY_NOT_SUPPORTED");
     }
     
     private EnrollmentResult handleVoucherOnlyEnrollment(User student, Course course, EnrollmentRequest request) {
         // Implementation for voucher-only enrollment
-        return EnrollmentResult.error("Voucher-only enrollment not yet implemented");
+        return EnrollmentResult.error("Voucher-only enrollment not yet implemented", "POLICY_NOT_SUPPORTED");
     }
     
     private EnrollmentResult handleCohortBasedEnrollment(User student, Course course, EnrollmentRequest request) {
         // Implementation for cohort-based enrollment
-        return EnrollmentResult.error("Cohort-based enrollment not yet implemented");
+        return EnrollmentResult.error("Cohort-based enrollment not yet implemented", "POLICY_NOT_SUPPORTED");
     }
     
     private EnrollmentResult handleCorporateBulkEnrollment(User student, Course course, EnrollmentRequest request) {
         // Implementation for corporate bulk enrollment
-        return EnrollmentResult.error("Corporate bulk enrollment not yet implemented");
+        return EnrollmentResult.error("Corporate bulk enrollment not yet implemented", "POLICY_NOT_SUPPORTED");
     }
 }
\ No newline at end of file
@@ -0,0 +1,308 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.EntitlementStatus;
+import com.codigo.LMS.entity.ResourceType;
+import com.codigo.LMS.event.EntitlementsExpiredEvent;
+import com.codigo.LMS.event.InvalidationEvent;
+import com.codigo.LMS.repository.EntitlementRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user cache of what a student may open, so access checks are in-memory lookups.
+ *
+ * Each user's entitlements are loaded with one projection query and kept as one id set
+ * per {@link ResourceType}: a bitmap over the id range when the ids are dense, a sorted
+ * array otherwise. An entry is dropped on grant and revoke (again after the transaction
+ * completes, so a read racing the commit cannot keep stale data) and when the expiry
+ * sweeper expires its rows; other nodes drop it when the invalidation bus delivers the
+ * change. It also stops being served once its earliest
+ * {@code expiresAt} has passed, and is evicted least-recently-used when the cache is full.
+ */
+@Service
+public class EntitlementCache {
+
+    private static final int STAMP_STRIPES = 1024;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Autowired
+    private EntitlementRepository entitlementRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${lms.entitlements.cache.max-users:50000}")
+    private int maxUsers;
+
+    @Value("${lms.entitlements.cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private final Map<Long, UserEntitlements> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation; a load only caches its result if its stripe did not move
+    private final AtomicLongArray invalidationStamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    void registerMetrics() {
+        FunctionCounter.builder("lms.entitlements.cache.requests", hits, LongAdder::sum)
+            .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("lms.entitlements.cache.requests", misses, LongAdder::sum)
+            .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("lms.entitlements.cache.evictions", evictions, LongAdder::sum)
+            .register(meterRegistry);
+        Gauge.builder("lms.entitlements.cache.size", entries, Map::size)
+            .register(meterRegistry);
+        Gauge.builder("lms.entitlements.cache.hit.ratio", this, EntitlementCache::hitRatio)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Entitlements of a user, loaded on a miss.
+     */
+    public UserEntitlements get(Long userId) {
+        long now = System.currentTimeMillis();
+        UserEntitlements cached = entries.get(userId);
+        if (cached != null && now < cached.validUntil) {
+            cached.lastAccess = now;
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        int stripe = stripe(userId);
+        long stamp = invalidationStamps.get(stripe);
+        UserEntitlements loaded = load(userId, now);
+        if (invalidationStamps.get(stripe) == stamp) {
+            entries.put(userId, loaded);
+            if (entries.size() > maxUsers) {
+                evictLeastRecentlyUsed();
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long userId) {
+        invalidationStamps.incrementAndGet(stripe(userId));
+        entries.remove(userId);
+    }
+
+    /**
+     * Drop the users now and once more when the current transaction completes.
+     */
+    public void invalidateAfterCommit(Collection<Long> userIds) {
+        List<Long> ids = List.copyOf(userIds);
+        ids.forEach(this::invalidate);
+        ids.forEach(userId -> invalidationBus.publish(InvalidationEvent.Type.ENTITLEMENTS, userId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(EntitlementCache.this::invalidate);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        // This node already dropped its own changes when they were made
+        if (!event.isRemote() || !event.contains(InvalidationEvent.Type.ENTITLEMENTS)) {
+            return;
+        }
+        if (event.isAll(InvalidationEvent.Type.ENTITLEMENTS)) {
+            invalidateAll();
+        } else {
+            event.getKeys(InvalidationEvent.Type.ENTITLEMENTS).forEach(this::invalidate);
+        }
+    }
+
+    @EventListener
+    public void onEntitlementsExpired(EntitlementsExpiredEvent event) {
+        event.getUserIds().forEach(this::invalidate);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            invalidationStamps.incrementAndGet(i);
+        }
+        entries.clear();
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private UserEntitlements load(Long userId, long now) {
+        Map<ResourceType, List<Long>> granted = new EnumMap<>(ResourceType.class);
+        Map<ResourceType, List<Long>> denied = new EnumMap<>(ResourceType.class);
+        long validUntil = now + ttlMinutes * 60_000;
+
+        LocalDateTime loadedAt = LocalDateTime.now();
+        for (Object[] row : entitlementRepository.findAccessRowsByUser(userId)) {
+            ResourceType type = (ResourceType) row[0];
+            Long resourceId = (Long) row[1];
+            EntitlementStatus status = (EntitlementStatus) row[2];
+            boolean explicit = row[3] == null;
+            LocalDateTime expiresAt = (LocalDateTime) row[4];
+
+            if (status == EntitlementStatus.ACTIVE) {
+                if (expiresAt != null) {
+                    if (!expiresAt.isAfter(loadedAt)) {
+                        continue;
+                    }
+                    validUntil = Math.min(validUntil, expiresAt.atZone(ZONE).toInstant().toEpochMilli());
+                }
+                granted.computeIfAbsent(type, t -> new ArrayList<>()).add(resourceId);
+            } else if (explicit && (status == EntitlementStatus.REVOKED || status == EntitlementStatus.SUSPENDED)) {
+                denied.computeIfAbsent(type, t -> new ArrayList<>()).add(resourceId);
+            }
+        }
+        return new UserEntitlements(toIdSets(granted), toIdSets(denied), validUntil, now);
+    }
+
+    private void evictLeastRecentlyUsed() {
+        // Evict a tenth at a time so a full cache does not sort on every miss
+        int excess = entries.size() - maxUsers + Math.max(1, maxUsers / 10);
+        entries.entrySet().stream()
+            .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+            .limit(excess)
+            .map(Map.Entry::getKey)
+            .toList()
+            .forEach(userId -> {
+                if (entries.remove(userId) != null) {
+                    evictions.increment();
+                }
+            });
+    }
+
+    private static int stripe(Long userId) {
+        return (int) (userId & (STAMP_STRIPES - 1));
+    }
+
+    private static Map<ResourceType, IdSet> toIdSets(Map<ResourceType, List<Long>> ids) {
+        Map<ResourceType, IdSet> sets = new EnumMap<>(ResourceType.class);
+        ids.forEach((type, list) -> sets.put(type, IdSet.of(list)));
+        return sets;
+    }
+
+    /**
+     * Immutable snapshot of one user's entitlements.
+     */
+    public static final class UserEntitlements {
+        private final Map<ResourceType, IdSet> granted;
+        private final Map<ResourceType, IdSet> denied;
+        private final long validUntil;
+        private volatile long lastAccess;
+
+        UserEntitlements(Map<ResourceType, IdSet> granted, Map<ResourceType, IdSet> denied, long validUntil, long lastAccess) {
+            this.granted = granted;
+            this.denied = denied;
+            this.validUntil = validUntil;
+            this.lastAccess = lastAccess;
+        }
+
+        /**
+         * Active, unexpired entitlement for the resource.
+         */
+        public boolean isGranted(ResourceType type, Long resourceId) {
+            IdSet ids = granted.get(type);
+            return ids != null && ids.contains(resourceId);
+        }
+
+        /**
+         * Explicit revoke or suspension of the resource, which overrides broader grants.
+         */
+        public boolean isDenied(ResourceType type, Long resourceId) {
+            IdSet ids = denied.get(type);
+            return ids != null && ids.contains(resourceId);
+        }
+
+        public List<Long> grantedIds(ResourceType type) {
+            IdSet ids = granted.get(type);
+            return ids != null ? ids.toList() : List.of();
+        }
+    }
+
+    /**
+     * Read-only set of resource ids. Identity ids granted to one user tend to cluster, so
+     * a bitmap offset by the smallest id is usually smaller than the ids themselves.
+     */
+    static final class IdSet {
+        private final long base;
+        private final BitSet bits;
+        private final long[] sorted;
+
+        private IdSet(long base, BitSet bits, long[] sorted) {
+            this.base = base;
+            this.bits = bits;
+            this.sorted = sorted;
+        }
+
+        static IdSet of(List<Long> ids) {
+            long[] values = ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+            if (values.length == 0) {
+                return new IdSet(0, null, values);
+            }
+            long span = values[values.length - 1] - values[0] + 1;
+            // A bitmap costs span/64 longs, the array one long per id; a span that overflows is huge
+            if (span > 0 && span <= (long) values.length * 64 && span <= Integer.MAX_VALUE) {
+                BitSet bits = new BitSet((int) span);
+                for (long value : values) {
+                    bits.set((int) (value - values[0]));
+                }
+                return new IdSet(values[0], bits, null);
+            }
+            return new IdSet(0, null, values);
+        }
+
+        boolean contains(Long id) {
+            if (id == null) {
+                return false;
+            }
+            if (bits != null) {
+                long offset = id - base;
+                return offset >= 0 && offset < bits.length() && bits.get((int) offset);
+            }
+            return Arrays.binarySearch(sorted, id) >= 0;
+        }
+
+        List<Long> toList() {
+            if (bits != null) {
+                return bits.stream().mapToObj(offset -> base + offset).toList();
+            }
+            return Arrays.stream(sorted).boxed().toList();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.ResourceType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Access checks against {@link EntitlementCache}.
+ *
+ * A lesson is resolved to its course through {@link ResourceHierarchyResolver}: free
+ * previews are open to everyone, an explicit revoke of the lesson or of its course
+ * denies access whatever else is granted, and otherwise a lesson or course grant
+ * allows it. Not transactional on purpose: a cache hit is a few map and bitmap
+ * lookups, and a transaction proxy would cost more than the check.
+ */
+@Service
+public class EntitlementCheckService {
+
+    @Autowired
+    private ResourceHierarchyResolver hierarchyResolver;
+
+    @Autowired
+    private EntitlementCache entitlementCache;
+
+    public boolean canAccessLesson(Long userId, Long lessonId) {
+        ResourceHierarchyResolver.LessonNode lesson = hierarchyResolver.resolveLesson(lessonId);
+        if (lesson == null) {
+            return false;
+        }
+        if (lesson.isFree()) {
+            return true;
+        }
+        if (userId == null) {
+            return false;
+        }
+
+        EntitlementCache.UserEntitlements entitlements = entitlementCache.get(userId);
+        if (entitlements.isDenied(ResourceType.LESSON, lessonId)
+                || entitlements.isDenied(ResourceType.COURSE, lesson.getCourseId())) {
+            return false;
+        }
+        return entitlements.isGranted(ResourceType.LESSON, lessonId)
+            || entitlements.isGranted(ResourceType.COURSE, lesson.getCourseId());
+    }
+
+    /**
+     * Active, unexpired entitlement to one resource that is not explicitly revoked.
+     */
+    public boolean hasEntitlement(Long userId, ResourceType resourceType, Long resourceId) {
+        EntitlementCache.UserEntitlements entitlements = entitlementCache.get(userId);
+        return !entitlements.isDenied(resourceType, resourceId) && entitlements.isGranted(resourceType, resourceId);
+    }
+
+    public List<Long> getAccessibleResourceIds(Long userId, ResourceType resourceType) {
+        return entitlementCache.get(userId).grantedIds(resourceType);
+    }
+}
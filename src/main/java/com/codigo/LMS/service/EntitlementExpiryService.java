@@ -0,0 +1,124 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.ResourceType;
+import com.codigo.LMS.event.EntitlementsExpiredEvent;
+import com.codigo.LMS.event.EntitlementsExpiredEvent.ExpiredEntitlement;
+import com.codigo.LMS.repository.EntitlementRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves time-boxed entitlements past their {@code expiresAt} from ACTIVE to EXPIRED.
+ *
+ * Expired rows are walked by keyset pagination on id, a fixed-size chunk per
+ * transaction, and each chunk is flipped with one set-based update, so memory stays
+ * flat however many grants lapse at once. After a chunk commits an
+ * {@link EntitlementsExpiredEvent} goes out for cache invalidation and notifications.
+ */
+@Service
+public class EntitlementExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitlementExpiryService.class);
+
+    @Autowired
+    private EntitlementRepository entitlementRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lms.entitlements.expiry-batch-size:1000}")
+    private int batchSize;
+
+    private Counter scannedCounter;
+    private Counter expiredCounter;
+    private Timer runTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        scannedCounter = Counter.builder("lms.entitlements.expiry.scanned").register(meterRegistry);
+        expiredCounter = Counter.builder("lms.entitlements.expiry.expired").register(meterRegistry);
+        runTimer = Timer.builder("lms.entitlements.expiry.run").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${lms.entitlements.expiry-interval-ms:60000}",
+               initialDelayString = "${lms.entitlements.expiry-initial-delay-ms:45000}")
+    public int expireEntitlements() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        long afterId = 0;
+        int scanned = 0;
+        int expired = 0;
+
+        List<Object[]> page;
+        do {
+            page = entitlementRepository.findExpiredActiveAfter(now, afterId, PageRequest.of(0, batchSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            scanned += page.size();
+            afterId = (Long) page.get(page.size() - 1)[0];
+
+            List<Object[]> chunk = page;
+            List<ExpiredEntitlement> chunkExpired = transactionTemplate.execute(status -> expireChunk(chunk, now));
+            if (chunkExpired != null && !chunkExpired.isEmpty()) {
+                expired += chunkExpired.size();
+                eventPublisher.publishEvent(new EntitlementsExpiredEvent(chunkExpired));
+            }
+        } while (page.size() == batchSize);
+
+        long elapsed = System.nanoTime() - start;
+        scannedCounter.increment(scanned);
+        expiredCounter.increment(expired);
+        runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        if (scanned > 0) {
+            logger.info("Entitlement expiry run: scanned {}, expired {} in {} ms",
+                scanned, expired, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        return expired;
+    }
+
+    private List<ExpiredEntitlement> expireChunk(List<Object[]> rows, LocalDateTime now) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+        }
+        int updated = entitlementRepository.markExpired(ids, now);
+
+        // Rows revoked between the read and the update are not ours to report
+        Set<Long> expiredIds = updated == ids.size()
+            ? new HashSet<>(ids)
+            : new HashSet<>(entitlementRepository.findExpiredIdsIn(ids));
+
+        List<ExpiredEntitlement> expired = new ArrayList<>(updated);
+        for (Object[] row : rows) {
+            if (expiredIds.contains((Long) row[0])) {
+                expired.add(new ExpiredEntitlement((Long) row[0], (Long) row[1], (ResourceType) row[2], (Long) row[3]));
+            }
+        }
+        return expired;
+    }
+}
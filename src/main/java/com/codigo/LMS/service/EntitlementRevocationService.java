@@ -0,0 +1,99 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.dto.RevokedEntitlement;
+import com.codigo.LMS.repository.EntitlementRepositoryCustom.RevocationScope;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Mass revocations (unpublishing a course, ending an organization's contract) run in
+ * the background, one chunk per transaction, so they neither hold one huge transaction
+ * nor block the request that triggered them.
+ *
+ * Runs are not persisted. A run cut short by a shutdown leaves the remaining rows
+ * active; revoking the same scope again finishes it, as revoked rows are skipped.
+ */
+@Service
+public class EntitlementRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitlementRevocationService.class);
+
+    @Autowired
+    private EntitlementService entitlementService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void startExecutor() {
+        // One run at a time keeps mass revocations from competing for the same rows
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entitlement-revocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    public void revokeCourseInBackground(Long courseId, Long revokedBy, String reason) {
+        submitAfterCommit(RevocationScope.COURSE, courseId, revokedBy, reason);
+    }
+
+    public void revokeOrganizationInBackground(Long orgId, Long revokedBy, String reason) {
+        submitAfterCommit(RevocationScope.ORGANIZATION, orgId, revokedBy, reason);
+    }
+
+    /**
+     * Start the run once the caller's transaction commits, so a rolled-back unpublish
+     * revokes nothing.
+     */
+    private void submitAfterCommit(RevocationScope scope, Long key, Long revokedBy, String reason) {
+        Runnable run = () -> revokeInChunks(scope, key, revokedBy, reason);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.submit(run);
+                }
+            });
+        } else {
+            executor.submit(run);
+        }
+    }
+
+    int revokeInChunks(RevocationScope scope, Long key, Long revokedBy, String reason) {
+        long start = System.currentTimeMillis();
+        int total = 0;
+        try {
+            List<RevokedEntitlement> chunk;
+            do {
+                chunk = transactionTemplate.execute(status -> entitlementService.revokeChunk(scope, key, revokedBy, reason));
+                total += chunk != null ? chunk.size() : 0;
+                if (chunk != null && !chunk.isEmpty()) {
+                    logger.debug("Revoked {} entitlements so far for {} {}", total, scope, key);
+                }
+            } while (chunk != null && !chunk.isEmpty() && !Thread.currentThread().isInterrupted());
+            logger.info("Revoked {} entitlements for {} {} in {} ms", total, scope, key, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Revocation for {} {} failed after {} entitlements", scope, key, total, e);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,125 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.dto.RevokedEntitlement;
+import com.codigo.LMS.entity.*;
+import com.codigo.LMS.repository.EntitlementRepository;
+import com.codigo.LMS.repository.EntitlementRepositoryCustom.RevocationScope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grants and revokes the content entitlements that come with an enrollment.
+ *
+ * An enrollment is one COURSE entitlement; explicit lesson-level rows (not granted by
+ * an enrollment) override it either way. Checks live in {@link EntitlementCheckService};
+ * every write here invalidates the {@link EntitlementCache} entries of the users it touches.
+ */
+@Service
+@Transactional
+public class EntitlementService {
+
+    @Autowired
+    private EntitlementRepository entitlementRepository;
+
+    @Autowired
+    private EntitlementCache entitlementCache;
+
+    @Value("${lms.entitlements.revoke-chunk-size:1000}")
+    private int revokeChunkSize;
+
+    /**
+     * Grant the course to one enrollment.
+     */
+    public void grantCourseEntitlements(User user, Course course, Enrollment enrollment) {
+        entitlementRepository.batchInsert(List.of(
+            new Entitlement(user, ResourceType.COURSE, course.getId(), enrollment.getId())));
+        entitlementCache.invalidateAfterCommit(List.of(user.getId()));
+    }
+
+    /**
+     * Grant the course to several enrollments with multi-row inserts, one row per enrollment.
+     */
+    public void grantCourseEntitlements(Course course, List<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return;
+        }
+        List<Entitlement> entitlements = new ArrayList<>(enrollments.size());
+        List<Long> userIds = new ArrayList<>(enrollments.size());
+        for (Enrollment enrollment : enrollments) {
+            entitlements.add(new Entitlement(enrollment.getStudent(), ResourceType.COURSE, course.getId(), enrollment.getId()));
+            userIds.add(enrollment.getStudent().getId());
+        }
+        entitlementRepository.batchInsert(entitlements);
+        entitlementCache.invalidateAfterCommit(userIds);
+    }
+
+    /**
+     * Revoke everything the enrollment granted: the course grant and, for enrollments
+     * from before course-level grants, their per-lesson rows.
+     */
+    public int revokeCourseEntitlements(Enrollment enrollment) {
+        return revokeAll(RevocationScope.ENROLLMENT, enrollment.getId(), enrollment.getStudent().getId(),
+            "Enrollment withdrawn").size();
+    }
+
+    /**
+     * Revoke every active entitlement in the scope within the current transaction. For
+     * scopes that can reach thousands of rows use {@link EntitlementRevocationService}.
+     */
+    public List<RevokedEntitlement> revokeAll(RevocationScope scope, Long key, Long revokedBy, String reason) {
+        List<RevokedEntitlement> revoked = new ArrayList<>();
+        List<RevokedEntitlement> chunk;
+        do {
+            chunk = revokeChunk(scope, key, revokedBy, reason);
+            revoked.addAll(chunk);
+        } while (!chunk.isEmpty());
+        return revoked;
+    }
+
+    /**
+     * Revoke the next {@code lms.entitlements.revoke-chunk-size} active entitlements in
+     * the scope with one set-based update; an empty result means the scope is done.
+     */
+    public List<RevokedEntitlement> revokeChunk(RevocationScope scope, Long key, Long revokedBy, String reason) {
+        List<RevokedEntitlement> chunk = entitlementRepository.revokeActive(scope, key, revokeChunkSize, revokedBy, reason);
+        if (!chunk.isEmpty()) {
+            entitlementCache.invalidateAfterCommit(chunk.stream().map(RevokedEntitlement::getUserId).distinct().toList());
+        }
+        return chunk;
+    }
+
+    /**
+     * Take one lesson away from a student regardless of their course grant.
+     */
+    public Entitlement revokeLessonAccess(User user, Long lessonId, Long revokedBy, String reason) {
+        Entitlement override = findOrCreateLessonOverride(user, lessonId);
+        override.revoke(revokedBy, reason);
+        override = entitlementRepository.save(override);
+        entitlementCache.invalidateAfterCommit(List.of(user.getId()));
+        return override;
+    }
+
+    /**
+     * Open one lesson to a student without a course grant, or lift an earlier lesson revoke.
+     */
+    public Entitlement grantLessonAccess(User user, Long lessonId) {
+        Entitlement override = findOrCreateLessonOverride(user, lessonId);
+        override.setStatus(EntitlementStatus.ACTIVE);
+        override.setRevokedAt(null);
+        override.setRevokedBy(null);
+        override.setRevokeReason(null);
+        override = entitlementRepository.save(override);
+        entitlementCache.invalidateAfterCommit(List.of(user.getId()));
+        return override;
+    }
+
+    private Entitlement findOrCreateLessonOverride(User user, Long lessonId) {
+        List<Entitlement> overrides = entitlementRepository.findOverrides(user.getId(), ResourceType.LESSON, lessonId);
+        return overrides.isEmpty() ? new Entitlement(user, ResourceType.LESSON, lessonId, null) : overrides.get(0);
+    }
+}
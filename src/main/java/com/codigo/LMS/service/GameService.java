@@ -6,6 +6,7 @@ public interface GameService {
     
     // Points system
     void awardEnrollmentPoints(Long userId, Long courseId);
+    void awardEnrollmentPoints(java.util.List<Long> userIds, Long courseId);
     void awardCompletionPoints(Long userId, Long courseId);
     void awardMilestonePoints(Long userId, Long courseId, String milestone);
     void awardStreakPoints(Long userId, int streakDays);
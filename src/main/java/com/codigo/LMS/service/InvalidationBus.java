@@ -0,0 +1,18 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.event.InvalidationEvent;
+
+/**
+ * Cluster-wide cache invalidation. Invalidations are sent once the current transaction
+ * commits (dropped if it rolls back), batched with duplicates coalesced, and delivered
+ * on every node, this one included, as an {@link InvalidationEvent}.
+ */
+public interface InvalidationBus {
+    
+    void publish(InvalidationEvent.Type type, Long key);
+    
+    /**
+     * Invalidate every cached entry of the type.
+     */
+    void publishAll(InvalidationEvent.Type type);
+}
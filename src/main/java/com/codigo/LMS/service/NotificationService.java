@@ -13,7 +13,9 @@ public interface NotificationService {
     void sendEnrollmentDenied(User student, Course course, Enrollment enrollment, String reason);
     void sendWaitlistConfirmation(User student, Course course, Enrollment enrollment);
     void sendWaitlistPromotion(User student, Course course, Enrollment enrollment);
+    void sendWaitlistPromotions(Course course, java.util.List<Enrollment> enrollments);
     void sendWithdrawalConfirmation(User student, Course course, Enrollment enrollment);
+    void sendBulkEnrollmentConfirmations(Course course, java.util.List<Enrollment> enrollments);
     
     // Payment notifications
     void sendPaymentConfirmation(User user, Course course, com.codigo.LMS.entity.Payment payment);
@@ -0,0 +1,280 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.PaymentWebhookEvent;
+import com.codigo.LMS.entity.PaymentWebhookStatus;
+import com.codigo.LMS.repository.PaymentRepository;
+import com.codigo.LMS.repository.PaymentWebhookEventRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Payment webhook ingestion.
+ *
+ * A delivery is stored as received and acknowledged straight away; the processor's
+ * event id is unique, so a redelivery is acknowledged without being stored twice. A
+ * single worker per node then applies stored webhooks a payment at a time: it locks the
+ * payment row, applies that payment's waiting webhooks in the order they arrived and
+ * marks them handled in the same transaction, so nodes never apply one payment's
+ * webhooks concurrently or out of order. A payment whose webhooks fail is retried with an
+ * exponential backoff and its webhooks are marked FAILED after the last attempt, until an
+ * admin requeues them. Webhooks can arrive before the payment they belong to is stored,
+ * so those of an unknown payment are retried the same way for a while before they are
+ * ignored.
+ */
+@Service
+public class PaymentWebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentWebhookService.class);
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    @Autowired
+    private PaymentWebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lms.payments.webhooks.poll-ms:1000}")
+    private long pollMs;
+
+    @Value("${lms.payments.webhooks.batch-size:100}")
+    private int batchSize;
+
+    @Value("${lms.payments.webhooks.max-attempts:5}")
+    private int maxAttempts;
+
+    // First retry delay after a failure, doubled on each further attempt up to the max
+    @Value("${lms.payments.webhooks.retry-base-ms:5000}")
+    private long retryBaseMs;
+
+    @Value("${lms.payments.webhooks.retry-max-ms:3600000}")
+    private long retryMaxMs;
+
+    // How long webhooks of a payment not stored yet keep being retried before they are ignored
+    @Value("${lms.payments.webhooks.unknown-payment-retry-minutes:60}")
+    private long unknownPaymentRetryMinutes;
+
+    @Value("${lms.payments.webhooks.retention-days:30}")
+    private long retentionDays;
+
+    private final AtomicBoolean wakeQueued = new AtomicBoolean();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder ignored = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private Timer lag;
+
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    void startWorker() {
+        FunctionCounter.builder("lms.payments.webhooks.received", received, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("lms.payments.webhooks.duplicates", duplicates, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("lms.payments.webhooks.handled", processed, LongAdder::sum)
+            .tag("result", "processed").register(meterRegistry);
+        FunctionCounter.builder("lms.payments.webhooks.handled", ignored, LongAdder::sum)
+            .tag("result", "ignored").register(meterRegistry);
+        FunctionCounter.builder("lms.payments.webhooks.failures", failures, LongAdder::sum)
+            .register(meterRegistry);
+        lag = Timer.builder("lms.payments.webhooks.lag")
+            .description("Time from receiving a webhook to applying it")
+            .register(meterRegistry);
+
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-webhooks");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::drain, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopWorker() {
+        // Webhooks not applied yet stay RECEIVED and are picked up by the next node to poll
+        worker.shutdownNow();
+    }
+
+    /**
+     * Store a webhook for processing. Returns false if this event id was already received.
+     */
+    public boolean ingest(String eventId, Long paymentId, String paymentStatus, String payload) {
+        if (webhookEventRepository.existsByEventId(eventId)) {
+            duplicates.increment();
+            return false;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> webhookEventRepository.save(
+                new PaymentWebhookEvent(eventId, paymentId, paymentStatus, payload)));
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent delivery of the same event
+            duplicates.increment();
+            return false;
+        }
+        received.increment();
+        wake();
+        return true;
+    }
+
+    /**
+     * Put FAILED webhooks back in the queue with a fresh set of attempts, those of one
+     * payment or all of them when {@code paymentId} is null. Returns how many were requeued.
+     */
+    public int requeueFailed(Long paymentId) {
+        Integer requeued = transactionTemplate.execute(status -> webhookEventRepository.requeueFailed(paymentId));
+        if (requeued != null && requeued > 0) {
+            logger.info("Requeued {} failed payment webhooks{}", requeued,
+                paymentId != null ? " of payment " + paymentId : "");
+            wake();
+        }
+        return requeued != null ? requeued : 0;
+    }
+
+    /**
+     * Drop handled webhooks once processors have stopped redelivering them.
+     */
+    @Scheduled(fixedDelayString = "${lms.payments.webhooks.purge-interval-ms:3600000}",
+               initialDelayString = "${lms.payments.webhooks.purge-initial-delay-ms:600000}")
+    @Transactional
+    public int purgeHandled() {
+        int purged = webhookEventRepository.deleteHandledBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            logger.info("Purged {} handled payment webhooks", purged);
+        }
+        return purged;
+    }
+
+    private void wake() {
+        if (wakeQueued.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the webhook is stored and another node will apply it
+                wakeQueued.set(false);
+            }
+        }
+    }
+
+    void drain() {
+        wakeQueued.set(false);
+        try {
+            List<Long> paymentIds;
+            int applied;
+            do {
+                paymentIds = webhookEventRepository.findPendingPaymentIds(LocalDateTime.now(), PageRequest.of(0, batchSize));
+                applied = 0;
+                for (Long paymentId : paymentIds) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    if (applyPayment(paymentId)) {
+                        applied++;
+                    }
+                }
+                // A page of only failing or deferred payments waits for the next poll instead of spinning
+            } while (paymentIds.size() == batchSize && applied > 0);
+        } catch (RuntimeException e) {
+            logger.warn("Payment webhook worker failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Apply every waiting webhook of one payment in one transaction. Returns false if
+     * none of them could be applied yet.
+     */
+    private boolean applyPayment(Long paymentId) {
+        int[] outcome = new int[2];
+        List<Duration> lags = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                outcome[0] = 0;
+                outcome[1] = 0;
+                lags.clear();
+                boolean known = paymentRepository.lockById(paymentId).isPresent();
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime giveUpBefore = now.minusMinutes(unknownPaymentRetryMinutes);
+                // Re-read under the lock; another node may have applied them meanwhile
+                for (PaymentWebhookEvent event : webhookEventRepository.findPendingByPaymentId(paymentId)) {
+                    event.setAttempts(event.getAttempts() + 1);
+                    if (!known && event.getReceivedAt().isAfter(giveUpBefore)) {
+                        // The payment may not be committed yet; look again later
+                        event.setError("Unknown payment");
+                        event.setNextAttemptAt(now.plus(retryDelay(event.getAttempts())));
+                        continue;
+                    }
+                    boolean changed = known && enrollmentService.processPaymentWebhook(paymentId, event.getPaymentStatus());
+                    event.setStatus(changed ? PaymentWebhookStatus.PROCESSED : PaymentWebhookStatus.IGNORED);
+                    event.setProcessedAt(now);
+                    event.setNextAttemptAt(null);
+                    if (!known) {
+                        event.setError("Unknown payment");
+                    }
+                    outcome[changed ? 0 : 1]++;
+                    lags.add(Duration.between(event.getReceivedAt(), event.getProcessedAt()));
+                }
+            });
+            processed.add(outcome[0]);
+            ignored.add(outcome[1]);
+            lags.forEach(lag::record);
+            return outcome[0] + outcome[1] > 0;
+        } catch (RuntimeException e) {
+            failures.increment();
+            String error = e.toString();
+            String truncated = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+            logger.warn("Failed to apply webhooks of payment {}: {}", paymentId, e.getMessage(), e);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Integer attempts = webhookEventRepository.findMaxPendingAttempts(paymentId);
+                    LocalDateTime nextAttemptAt = LocalDateTime.now().plus(retryDelay((attempts != null ? attempts : 0) + 1));
+                    webhookEventRepository.recordFailure(paymentId, truncated, maxAttempts, PaymentWebhookStatus.FAILED, nextAttemptAt);
+                });
+            } catch (RuntimeException recordError) {
+                logger.error("Could not record webhook failure for payment {}", paymentId, recordError);
+            }
+            return false;
+        }
+    }
+
+    // Backoff before the next try of a webhook that has had this many attempts
+    private Duration retryDelay(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Duration.ofMillis(Math.min(retryBaseMs << doublings, retryMaxMs));
+    }
+}
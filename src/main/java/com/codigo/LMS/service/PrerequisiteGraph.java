@@ -0,0 +1,330 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.event.InvalidationEvent;
+import com.codigo.LMS.repository.CourseRepository;
+import com.codigo.LMS.repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory DAG of course prerequisites, loaded from {@code course_prerequisites} with
+ * one id-only query.
+ *
+ * Courses that take part in a prerequisite edge get dense indexes, so a student's
+ * completed courses become a {@link BitSet} and "which of these courses can the student
+ * enroll in" is one pass over each course's direct prerequisites after a single query.
+ * Nodes also carry a topological rank, used to list transitive prerequisites in the
+ * order they can be taken. The snapshot is rebuilt on the next read after any course
+ * changes, on this node or another.
+ */
+@Service
+public class PrerequisiteGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrerequisiteGraph.class);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    private volatile Graph graph;
+
+    // Bumped on invalidation; a load only installs its snapshot if nothing changed meanwhile
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Missing direct prerequisites of each course for a student, keyed in the order given;
+     * an empty list means the student may enroll.
+     */
+    public Map<Long, List<Long>> findMissingPrerequisites(Long studentId, Collection<Long> courseIds) {
+        Graph current = currentGraph();
+        BitSet completed = current.toBitSet(enrollmentRepository.findCompletedCourseIds(studentId));
+        Map<Long, List<Long>> missing = new LinkedHashMap<>();
+        for (Long courseId : courseIds) {
+            missing.put(courseId, current.missing(current.indexOf(courseId), completed));
+        }
+        return missing;
+    }
+
+    /**
+     * Every course the student still has to complete before {@code courseId}, in an
+     * order they can be taken. A completed course's own prerequisites are not included.
+     */
+    public List<Long> findRemainingPath(Long studentId, Long courseId) {
+        Graph current = currentGraph();
+        int node = current.indexOf(courseId);
+        if (node < 0) {
+            return List.of();
+        }
+        BitSet completed = current.toBitSet(enrollmentRepository.findCompletedCourseIds(studentId));
+        return current.ancestors(node, completed);
+    }
+
+    /**
+     * Transitive prerequisites of a course, in an order they can be taken.
+     */
+    public List<Long> getAllPrerequisites(Long courseId) {
+        Graph current = currentGraph();
+        int node = current.indexOf(courseId);
+        return node < 0 ? List.of() : current.ancestors(node, new BitSet());
+    }
+
+    /**
+     * The cycle that giving {@code courseId} these prerequisites would create, as
+     * {@code [courseId, ..., courseId]}, or an empty list if there is none.
+     */
+    public List<Long> findCycle(Long courseId, Collection<Long> prerequisiteIds) {
+        if (courseId == null || prerequisiteIds == null) {
+            return List.of();
+        }
+        Graph current = currentGraph();
+        for (Long prerequisiteId : prerequisiteIds) {
+            if (courseId.equals(prerequisiteId)) {
+                return List.of(courseId, courseId);
+            }
+            List<Long> path = current.path(prerequisiteId, courseId);
+            if (!path.isEmpty()) {
+                List<Long> cycle = new ArrayList<>(path.size() + 1);
+                cycle.add(courseId);
+                cycle.addAll(path);
+                return cycle;
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Drop the snapshot; the next lookup rebuilds it.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        graph = null;
+    }
+
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        // Local events too: a course save may have changed its prerequisites
+        if (event.contains(InvalidationEvent.Type.COURSE)) {
+            invalidate();
+        }
+    }
+
+    private Graph currentGraph() {
+        Graph current = graph;
+        if (current == null) {
+            synchronized (this) {
+                current = graph;
+                if (current == null) {
+                    long loadedGeneration = generation.get();
+                    current = load();
+                    if (generation.get() == loadedGeneration) {
+                        graph = current;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    private Graph load() {
+        Map<Long, Integer> index = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        List<long[]> edges = new ArrayList<>();
+        for (Object[] row : courseRepository.findPrerequisiteEdges()) {
+            Long courseId = (Long) row[0];
+            Long prerequisiteId = (Long) row[1];
+            if (prerequisiteId == null) {
+                continue;
+            }
+            int course = index.computeIfAbsent(courseId, id -> { ids.add(id); return ids.size() - 1; });
+            int prerequisite = index.computeIfAbsent(prerequisiteId, id -> { ids.add(id); return ids.size() - 1; });
+            edges.add(new long[] {course, prerequisite});
+        }
+
+        int size = ids.size();
+        int[] degree = new int[size];
+        for (long[] edge : edges) {
+            degree[(int) edge[0]]++;
+        }
+        int[][] prerequisites = new int[size][];
+        int[][] dependents = new int[size][];
+        int[] dependentCount = new int[size];
+        for (int node = 0; node < size; node++) {
+            prerequisites[node] = new int[degree[node]];
+        }
+        int[] filled = new int[size];
+        for (long[] edge : edges) {
+            int course = (int) edge[0];
+            int prerequisite = (int) edge[1];
+            prerequisites[course][filled[course]++] = prerequisite;
+            dependentCount[prerequisite]++;
+        }
+        for (int node = 0; node < size; node++) {
+            dependents[node] = new int[dependentCount[node]];
+            dependentCount[node] = 0;
+        }
+        for (int node = 0; node < size; node++) {
+            for (int prerequisite : prerequisites[node]) {
+                dependents[prerequisite][dependentCount[prerequisite]++] = node;
+            }
+        }
+
+        // Kahn's algorithm: a course is ranked once all of its prerequisites are
+        int[] rank = new int[size];
+        Arrays.fill(rank, -1);
+        int[] remaining = degree.clone();
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int node = 0; node < size; node++) {
+            if (remaining[node] == 0) {
+                ready.add(node);
+            }
+        }
+        int ranked = 0;
+        while (!ready.isEmpty()) {
+            int node = ready.poll();
+            rank[node] = ranked++;
+            for (int dependent : dependents[node]) {
+                if (--remaining[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (ranked < size) {
+            // Only possible with data written around CourseService; those courses rank last
+            List<Long> cyclic = new ArrayList<>();
+            for (int node = 0; node < size; node++) {
+                if (rank[node] < 0) {
+                    rank[node] = ranked++;
+                    cyclic.add(ids.get(node));
+                }
+            }
+            logger.warn("Prerequisite cycle among courses {}", cyclic);
+        }
+
+        long[] idArray = ids.stream().mapToLong(Long::longValue).toArray();
+        return new Graph(index, idArray, prerequisites, rank);
+    }
+
+    private static final class Graph {
+        private final Map<Long, Integer> index;
+        private final long[] ids;
+        private final int[][] prerequisites;
+        private final int[] rank;
+
+        Graph(Map<Long, Integer> index, long[] ids, int[][] prerequisites, int[] rank) {
+            this.index = index;
+            this.ids = ids;
+            this.prerequisites = prerequisites;
+            this.rank = rank;
+        }
+
+        int indexOf(Long courseId) {
+            Integer node = index.get(courseId);
+            return node != null ? node : -1;
+        }
+
+        BitSet toBitSet(Collection<Long> courseIds) {
+            BitSet bits = new BitSet(ids.length);
+            for (Long courseId : courseIds) {
+                int node = indexOf(courseId);
+                if (node >= 0) {
+                    bits.set(node);
+                }
+            }
+            return bits;
+        }
+
+        List<Long> missing(int node, BitSet completed) {
+            if (node < 0) {
+                return List.of();
+            }
+            List<Long> missing = null;
+            for (int prerequisite : prerequisites[node]) {
+                if (!completed.get(prerequisite)) {
+                    if (missing == null) {
+                        missing = new ArrayList<>(prerequisites[node].length);
+                    }
+                    missing.add(ids[prerequisite]);
+                }
+            }
+            return missing != null ? missing : List.of();
+        }
+
+        /**
+         * Prerequisites reachable from {@code node} without passing through a node in
+         * {@code stop}, sorted by topological rank.
+         */
+        List<Long> ancestors(int node, BitSet stop) {
+            BitSet seen = new BitSet(ids.length);
+            Deque<Integer> pending = new ArrayDeque<>();
+            pending.push(node);
+            seen.set(node);
+            List<Integer> found = new ArrayList<>();
+            while (!pending.isEmpty()) {
+                for (int prerequisite : prerequisites[pending.pop()]) {
+                    if (!seen.get(prerequisite) && !stop.get(prerequisite)) {
+                        seen.set(prerequisite);
+                        found.add(prerequisite);
+                        pending.push(prerequisite);
+                    }
+                }
+            }
+            found.sort(Comparator.comparingInt(n -> rank[n]));
+            List<Long> result = new ArrayList<>(found.size());
+            found.forEach(n -> result.add(ids[n]));
+            return result;
+        }
+
+        /**
+         * Prerequisite chain from {@code fromId} down to {@code toId}, both included, or
+         * empty when {@code toId} is not a transitive prerequisite of {@code fromId}.
+         */
+        List<Long> path(Long fromId, Long toId) {
+            int from = indexOf(fromId);
+            int to = indexOf(toId);
+            if (from < 0 || to < 0) {
+                return List.of();
+            }
+            int[] parent = new int[ids.length];
+            Arrays.fill(parent, -1);
+            parent[from] = from;
+            Deque<Integer> pending = new ArrayDeque<>();
+            pending.add(from);
+            while (!pending.isEmpty()) {
+                int current = pending.poll();
+                if (current == to) {
+                    List<Long> path = new ArrayList<>();
+                    for (int node = to; node != from; node = parent[node]) {
+                        path.add(ids[node]);
+                    }
+                    path.add(ids[from]);
+                    return path.reversed();
+                }
+                for (int prerequisite : prerequisites[current]) {
+                    if (parent[prerequisite] < 0) {
+                        parent[prerequisite] = current;
+                        pending.add(prerequisite);
+                    }
+                }
+            }
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.event.InvalidationEvent;
+import com.codigo.LMS.repository.LessonRepository;
+import com.codigo.LMS.repository.ModuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves a lesson to its module and course without touching the database.
+ *
+ * The whole lesson→module→course map is loaded with two id-only queries into an
+ * immutable snapshot and swapped in atomically, so readers never lock. The snapshot is
+ * rebuilt on the next read after a course or its modules and lessons change, on this
+ * node or another (see {@link ContentChangeListener}); a periodic refresh picks up
+ * content written outside the application (seed scripts, SQL consoles).
+ */
+@Service
+public class ResourceHierarchyResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceHierarchyResolver.class);
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    private volatile Hierarchy hierarchy;
+
+    // Bumped on invalidation; a load only installs its snapshot if nothing changed meanwhile
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Module, course and free-preview flag of a lesson, or null for an unknown lesson.
+     */
+    public LessonNode resolveLesson(Long lessonId) {
+        return currentHierarchy().lessons.get(lessonId);
+    }
+
+    /**
+     * Course of a module, or null for an unknown module.
+     */
+    public Long resolveModuleCourse(Long moduleId) {
+        return currentHierarchy().moduleCourses.get(moduleId);
+    }
+
+    /**
+     * Drop the snapshot; the next lookup rebuilds it.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        hierarchy = null;
+    }
+
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        // Local events too: the lesson or module may have been written on this node
+        if (event.contains(InvalidationEvent.Type.COURSE)) {
+            invalidate();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lms.entitlements.hierarchy-refresh-ms:300000}",
+               initialDelayString = "${lms.entitlements.hierarchy-refresh-ms:300000}")
+    public void refresh() {
+        long loadedGeneration = generation.get();
+        Hierarchy loaded = load();
+        if (generation.get() == loadedGeneration) {
+            hierarchy = loaded;
+        }
+    }
+
+    private Hierarchy currentHierarchy() {
+        Hierarchy current = hierarchy;
+        if (current == null) {
+            synchronized (this) {
+                current = hierarchy;
+                if (current == null) {
+                    long loadedGeneration = generation.get();
+                    current = load();
+                    if (generation.get() == loadedGeneration) {
+                        hierarchy = current;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    private Hierarchy load() {
+        Map<Long, Long> moduleCourses = new HashMap<>();
+        for (Object[] row : moduleRepository.findModuleCourseIds()) {
+            moduleCourses.put((Long) row[0], (Long) row[1]);
+        }
+
+        Map<Long, LessonNode> lessons = new HashMap<>();
+        for (Object[] row : lessonRepository.findLessonHierarchyRows()) {
+            Long moduleId = (Long) row[1];
+            Long courseId = moduleCourses.get(moduleId);
+            if (courseId != null) {
+                lessons.put((Long) row[0], new LessonNode(moduleId, courseId, Boolean.TRUE.equals(row[2])));
+            }
+        }
+
+        logger.debug("Loaded content hierarchy: {} modules, {} lessons", moduleCourses.size(), lessons.size());
+        return new Hierarchy(Map.copyOf(lessons), Map.copyOf(moduleCourses));
+    }
+
+    /**
+     * Where a lesson sits in its course.
+     */
+    public static final class LessonNode {
+        private final Long moduleId;
+        private final Long courseId;
+        private final boolean free;
+
+        LessonNode(Long moduleId, Long courseId, boolean free) {
+            this.moduleId = moduleId;
+            this.courseId = courseId;
+            this.free = free;
+        }
+
+        public Long getModuleId() { return moduleId; }
+        public Long getCourseId() { return courseId; }
+        public boolean isFree() { return free; }
+    }
+
+    private static final class Hierarchy {
+        private final Map<Long, LessonNode> lessons;
+        private final Map<Long, Long> moduleCourses;
+
+        Hierarchy(Map<Long, LessonNode> lessons, Map<Long, Long> moduleCourses) {
+            this.lessons = lessons;
+            this.moduleCourses = moduleCourses;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.Course;
+import com.codigo.LMS.entity.Payment;
+import com.codigo.LMS.entity.SeatHold;
+import com.codigo.LMS.entity.SeatHoldStatus;
+import com.codigo.LMS.entity.User;
+import com.codigo.LMS.repository.EnrollmentRepository;
+import com.codigo.LMS.repository.PaymentRepository;
+import com.codigo.LMS.repository.SeatHoldRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Time-limited seat holds for paid enrollments.
+ *
+ * A hold is taken when the payment intent is created and counts against the course
+ * capacity until the payment webhook converts it into an active seat or the payment
+ * expires. Expiry is driven by {@link PaymentRepository#findExpiredPendingPaymentIds}
+ * and processed in fixed-size batches, one transaction per batch.
+ */
+@Service
+@Transactional
+public class SeatHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatHoldService.class);
+
+    @Autowired
+    private SeatHoldRepository seatHoldRepository;
+
+    @Autowired
+    private SeatLedgerService seatLedgerService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${lms.seats.hold-ttl-minutes:15}")
+    private long holdTtlMinutes;
+
+    @Value("${lms.seats.hold-expiry-batch-size:500}")
+    private int expiryBatchSize;
+
+    /**
+     * Reserve a seat for the checkout that is about to start. Returns false when the course is full.
+     */
+    public boolean tryHoldSeat(Course course) {
+        return seatLedgerService.tryHoldSeat(course);
+    }
+
+    /**
+     * Bind a seat taken with {@link #tryHoldSeat} to the payment that pays for it.
+     */
+    public SeatHold createHold(User user, Course course, Payment payment) {
+        LocalDateTime expiresAt = payment.getCreatedAt() != null
+            ? payment.getCreatedAt().plusMinutes(holdTtlMinutes)
+            : LocalDateTime.now().plusMinutes(holdTtlMinutes);
+        return seatHoldRepository.save(new SeatHold(course.getId(), user.getId(), payment.getId(), expiresAt));
+    }
+
+    /**
+     * Give back a seat taken with {@link #tryHoldSeat} that never got a payment attached.
+     */
+    public void cancelUnboundHold(Course course) {
+        seatLedgerService.releaseHeldSeats(course.getId(), 1);
+    }
+
+    /**
+     * Payment succeeded: the held seat becomes an active one. If the hold already expired
+     * its seat went back to the pool, so a free seat is taken instead; returns false when
+     * the course has filled up since.
+     */
+    public boolean convertHold(Long paymentId, Course course) {
+        int converted = seatHoldRepository.resolveHold(paymentId, SeatHoldStatus.CONVERTED, LocalDateTime.now());
+        if (converted == 1) {
+            seatLedgerService.convertHeldSeat(course.getId());
+            return true;
+        }
+        return seatLedgerService.tryAcquireSeat(course);
+    }
+
+    /**
+     * Payment failed: return the held seat to the pool.
+     */
+    public void releaseHold(Long paymentId, Long courseId) {
+        int released = seatHoldRepository.resolveHold(paymentId, SeatHoldStatus.RELEASED, LocalDateTime.now());
+        seatLedgerService.releaseHeldSeats(courseId, released);
+    }
+
+    @Transactional(readOnly = true)
+    public long countActiveHolds(Long courseId) {
+        return seatHoldRepository.countActiveHoldsByCourse(courseId);
+    }
+
+    /**
+     * Expire abandoned checkouts: pending payments older than the hold TTL are marked
+     * EXPIRED together with their enrollments, and their held seats are released.
+     */
+    @Scheduled(fixedDelayString = "${lms.seats.hold-expiry-interval-ms:60000}",
+               initialDelayString = "${lms.seats.hold-expiry-initial-delay-ms:30000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int expireHolds() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(holdTtlMinutes);
+        Set<Long> coursesWithFreedSeats = new HashSet<>();
+        int total = 0;
+        int batch;
+        do {
+            Integer processed = transactionTemplate.execute(status -> expireBatch(cutoff, coursesWithFreedSeats));
+            batch = processed != null ? processed : 0;
+            total += batch;
+        } while (batch == expiryBatchSize);
+
+        // Released seats go to the waitlist first
+        for (Long courseId : coursesWithFreedSeats) {
+            waitlistService.promote(courseId);
+        }
+
+        if (total > 0) {
+            logger.info("Expired {} pending payments and released their seat holds", total);
+        }
+        return total;
+    }
+
+    private int expireBatch(LocalDateTime cutoff, Set<Long> coursesWithFreedSeats) {
+        // Always page 0: every processed payment leaves the PENDING set
+        List<Long> candidates = paymentRepository.findExpiredPendingPaymentIds(cutoff, PageRequest.of(0, expiryBatchSize));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        // Payment before hold, the order the webhook path locks them in; a payment a
+        // webhook settled meanwhile is no longer pending and drops out here
+        List<Long> paymentIds = paymentRepository.lockExpiredPendingPayments(candidates, cutoff).stream()
+            .map(Payment::getId)
+            .toList();
+        if (paymentIds.isEmpty()) {
+            return candidates.size();
+        }
+
+        List<SeatHold> holds = seatHoldRepository.lockByPaymentIdsAndStatus(paymentIds, SeatHoldStatus.HELD);
+        if (!holds.isEmpty()) {
+            seatHoldRepository.releaseHolds(holds.stream().map(SeatHold::getId).toList(), LocalDateTime.now());
+
+            Map<Long, Long> releasedPerCourse = holds.stream()
+                .collect(Collectors.groupingBy(SeatHold::getCourseId, Collectors.counting()));
+            releasedPerCourse.forEach((courseId, count) ->
+                seatLedgerService.releaseHeldSeats(courseId, count.intValue()));
+            coursesWithFreedSeats.addAll(releasedPerCourse.keySet());
+        }
+
+        paymentRepository.markPaymentsExpired(paymentIds, "Checkout expired");
+        enrollmentRepository.expirePendingPaymentEnrollments(paymentIds, "Payment expired");
+
+        return candidates.size();
+    }
+}
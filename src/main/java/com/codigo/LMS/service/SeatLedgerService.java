@@ -0,0 +1,406 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.dto.CourseEnrollmentCounters;
+import com.codigo.LMS.entity.Course;
+import com.codigo.LMS.entity.CourseSeatLedger;
+import com.codigo.LMS.entity.EnrollmentStatus;
+import com.codigo.LMS.event.CourseCountersChangedEvent;
+import com.codigo.LMS.event.InvalidationEvent;
+import com.codigo.LMS.repository.CourseRepository;
+import com.codigo.LMS.repository.CourseSeatLedgerRepository;
+import com.codigo.LMS.repository.EnrollmentRepository;
+import com.codigo.LMS.repository.SeatHoldRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seat accounting for capacity-limited courses.
+ *
+ * Admission is a single conditional UPDATE on the course's ledger row, so it is O(1)
+ * and two concurrent requests can never both take the last seat. The increment runs
+ * inside the caller's transaction and is rolled back with it. Held seats (checkouts
+ * in progress) count against capacity exactly like taken ones.
+ *
+ * The same row counts waitlisted students and open approval requests. Reads for stats
+ * and capacity polls are served from an in-memory snapshot per course, dropped after
+ * every transaction that changed one of the course's counters.
+ */
+@Service
+@Transactional
+public class SeatLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatLedgerService.class);
+
+    @Autowired
+    private CourseSeatLedgerRepository seatLedgerRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private SeatHoldRepository seatHoldRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, CourseEnrollmentCounters> counterSnapshots = new ConcurrentHashMap<>();
+
+    // Bumped on every counter change; a snapshot is only kept if no change overlapped its read
+    private final AtomicLong counterVersion = new AtomicLong();
+
+    /**
+     * Take one seat if the course still has room. Courses without a capacity always admit.
+     */
+    public boolean tryAcquireSeat(Course course) {
+        evictCounters(course.getId());
+        if (course.getCapacity() == null) {
+            acquireSeat(course.getId());
+            return true;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (seatLedgerRepository.acquireSeatWithinCapacity(course.getId(), course.getCapacity(), now) == 1) {
+            return true;
+        }
+
+        // Zero rows means either the course is full or its ledger did not exist yet
+        initializeLedgerIfAbsent(course.getId());
+        return seatLedgerRepository.acquireSeatWithinCapacity(course.getId(), course.getCapacity(), now) == 1;
+    }
+
+    /**
+     * Take one seat regardless of capacity, e.g. when a payment has already been captured.
+     */
+    public void acquireSeat(Long courseId) {
+        evictCounters(courseId);
+        LocalDateTime now = LocalDateTime.now();
+        if (seatLedgerRepository.acquireSeat(courseId, now) == 0) {
+            initializeLedgerIfAbsent(courseId);
+            seatLedgerRepository.acquireSeat(courseId, now);
+        }
+    }
+
+    /**
+     * Take up to {@code requested} seats in one update and return how many were taken.
+     * Used for batch waitlist promotion.
+     */
+    public int tryAcquireSeats(Course course, int requested) {
+        evictCounters(course.getId());
+        if (requested <= 0) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (course.getCapacity() == null) {
+            if (seatLedgerRepository.acquireSeats(course.getId(), requested, now) == 0) {
+                initializeLedgerIfAbsent(course.getId());
+                seatLedgerRepository.acquireSeats(course.getId(), requested, now);
+            }
+            return requested;
+        }
+
+        initializeLedgerIfAbsent(course.getId());
+        // Another admission may take a seat between the read and the update; retry with the new count
+        for (int attempt = 0; attempt < 3; attempt++) {
+            int granted = (int) Math.min(requested, course.getCapacity() - getSeatsInUse(course.getId()));
+            if (granted <= 0) {
+                return 0;
+            }
+            if (seatLedgerRepository.acquireSeatsWithinCapacity(course.getId(), granted, course.getCapacity(), now) == 1) {
+                return granted;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reserve one seat for a checkout in progress. See {@link SeatHoldService}.
+     */
+    public boolean tryHoldSeat(Course course) {
+        evictCounters(course.getId());
+        LocalDateTime now = LocalDateTime.now();
+        if (course.getCapacity() == null) {
+            if (seatLedgerRepository.holdSeat(course.getId(), now) == 0) {
+                initializeLedgerIfAbsent(course.getId());
+                seatLedgerRepository.holdSeat(course.getId(), now);
+            }
+            return true;
+        }
+        
+        if (seatLedgerRepository.holdSeatWithinCapacity(course.getId(), course.getCapacity(), now) == 1) {
+            return true;
+        }
+        initializeLedgerIfAbsent(course.getId());
+        return seatLedgerRepository.holdSeatWithinCapacity(course.getId(), course.getCapacity(), now) == 1;
+    }
+
+    /**
+     * Turn a held seat into a taken one in a single update.
+     */
+    public void convertHeldSeat(Long courseId) {
+        evictCounters(courseId);
+        if (seatLedgerRepository.convertHeldSeat(courseId, LocalDateTime.now()) == 0) {
+            acquireSeat(courseId);
+        }
+    }
+
+    public void releaseHeldSeats(Long courseId, int count) {
+        evictCounters(courseId);
+        if (count > 0) {
+            seatLedgerRepository.releaseHeldSeats(courseId, count, LocalDateTime.now());
+        }
+    }
+
+    public void releaseSeat(Long courseId) {
+        evictCounters(courseId);
+        LocalDateTime now = LocalDateTime.now();
+        if (seatLedgerRepository.releaseSeat(courseId, now) == 0) {
+            // A freshly seeded ledger already reflects the caller's status change
+            initializeLedgerIfAbsent(courseId);
+        }
+    }
+
+    public void releaseSeats(Long courseId, int count) {
+        for (int i = 0; i < count; i++) {
+            releaseSeat(courseId);
+        }
+    }
+
+    /**
+     * Lock the course's ledger row until the transaction ends. Admissions, joins and
+     * promotions all write this row before the waitlist, so holding it keeps the queue still.
+     */
+    public void lockLedger(Long courseId) {
+        if (seatLedgerRepository.lockByCourseId(courseId).isEmpty()) {
+            initializeLedgerIfAbsent(courseId);
+            seatLedgerRepository.lockByCourseId(courseId);
+        }
+    }
+
+    /**
+     * Move the waitlist counter by {@code delta}. Call before writing the enrollment's own
+     * status change: a missing ledger is seeded from the enrollments table and the delta
+     * applied on top, in one statement so racing first writers cannot lose a delta.
+     */
+    public void adjustWaitlisted(Long courseId, int delta) {
+        evictCounters(courseId);
+        if (seatLedgerRepository.adjustWaitlisted(courseId, delta, LocalDateTime.now()) == 0) {
+            seatLedgerRepository.seedAndAdjustQueues(courseId, delta, 0);
+        }
+    }
+
+    /**
+     * Move the approval request counter by {@code delta}; same ordering rule as {@link #adjustWaitlisted}.
+     */
+    public void adjustPendingApprovals(Long courseId, int delta) {
+        evictCounters(courseId);
+        if (seatLedgerRepository.adjustPendingApprovals(courseId, delta, LocalDateTime.now()) == 0) {
+            seatLedgerRepository.seedAndAdjustQueues(courseId, 0, delta);
+        }
+    }
+
+    /**
+     * Enrolled, held, waitlisted and pending-approval counts of a course without touching
+     * the enrollments table. Served from memory after the first read.
+     */
+    @Transactional(readOnly = true)
+    public CourseEnrollmentCounters getCounters(Long courseId) {
+        CourseEnrollmentCounters cached = counterSnapshots.get(courseId);
+        if (cached != null) {
+            return cached;
+        }
+        long version = counterVersion.get();
+        Integer capacity = courseRepository.findCapacityById(courseId);
+        List<Object[]> rows = seatLedgerRepository.findCounters(courseId);
+        CourseEnrollmentCounters counters;
+        if (!rows.isEmpty()) {
+            Object[] row = rows.get(0);
+            counters = new CourseEnrollmentCounters(courseId, capacity,
+                (Integer) row[0], (Integer) row[1], (Integer) row[2], (Integer) row[3], (LocalDateTime) row[4]);
+        } else {
+            // No admission has touched the course yet; count once, the first write seeds the ledger
+            Map<EnrollmentStatus, Long> byStatus = new EnumMap<>(EnrollmentStatus.class);
+            for (Object[] row : enrollmentRepository.countOpenEnrollmentsByStatus(courseId)) {
+                byStatus.put((EnrollmentStatus) row[0], (Long) row[1]);
+            }
+            counters = new CourseEnrollmentCounters(courseId, capacity,
+                byStatus.getOrDefault(EnrollmentStatus.ACTIVE, 0L), 0,
+                byStatus.getOrDefault(EnrollmentStatus.WAITLISTED, 0L),
+                byStatus.getOrDefault(EnrollmentStatus.PENDING_REVIEW, 0L), null);
+        }
+        // Not cached inside a writing transaction: its uncommitted counts must not leak to other readers
+        if ((!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+                && counterVersion.get() == version) {
+            counterSnapshots.put(courseId, counters);
+        }
+        return counters;
+    }
+
+    @Transactional(readOnly = true)
+    public long getSeatsTaken(Long courseId) {
+        Integer seatsTaken = seatLedgerRepository.findSeatsTaken(courseId);
+        return seatsTaken != null ? seatsTaken : enrollmentRepository.countActiveEnrollmentsByCourse(courseId);
+    }
+
+    @Transactional(readOnly = true)
+    public long getWaitlisted(Long courseId) {
+        Integer waitlisted = seatLedgerRepository.findWaitlisted(courseId);
+        return waitlisted != null ? waitlisted : enrollmentRepository.countWaitlistedByCourse(courseId);
+    }
+
+    @Transactional(readOnly = true)
+    public long getSeatsHeld(Long courseId) {
+        return seatLedgerRepository.findById(courseId).map(CourseSeatLedger::getSeatsHeld).orElse(0);
+    }
+
+    /**
+     * Taken plus held seats, read straight from the row rather than the persistence
+     * context so it reflects bulk updates made earlier in the same transaction.
+     */
+    @Transactional(readOnly = true)
+    public long getSeatsInUse(Long courseId) {
+        Integer inUse = seatLedgerRepository.findSeatsInUse(courseId);
+        return inUse != null ? inUse : enrollmentRepository.countActiveEnrollmentsByCourse(courseId);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean hasAvailableSeat(Course course) {
+        return course.getCapacity() == null || getSeatsInUse(course.getId()) < course.getCapacity();
+    }
+
+    /**
+     * Background verifier: rewrites any counter that drifted from the enrollments table,
+     * e.g. after a failed request that committed without its status change.
+     *
+     * One short transaction per course: the ledger row is locked first, so admissions in
+     * flight have committed their enrollments before they are counted and new ones wait
+     * until the corrected counters are written.
+     */
+    @Scheduled(fixedDelayString = "${lms.seats.reconcile-interval-ms:300000}",
+               initialDelayString = "${lms.seats.reconcile-initial-delay-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reconcile() {
+        int corrected = 0;
+        for (Long courseId : seatLedgerRepository.findAllCourseIds()) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reconcileCourse(courseId)))) {
+                corrected++;
+            }
+        }
+        if (corrected > 0) {
+            logger.warn("Seat ledger reconciliation corrected {} course counters", corrected);
+        }
+        return corrected;
+    }
+
+    private boolean reconcileCourse(Long courseId) {
+        CourseSeatLedger ledger = seatLedgerRepository.lockByCourseId(courseId).orElse(null);
+        if (ledger == null) {
+            return false;
+        }
+        Map<EnrollmentStatus, Long> byStatus = new EnumMap<>(EnrollmentStatus.class);
+        for (Object[] row : enrollmentRepository.countOpenEnrollmentsByStatus(courseId)) {
+            byStatus.put((EnrollmentStatus) row[0], (Long) row[1]);
+        }
+        int taken = byStatus.getOrDefault(EnrollmentStatus.ACTIVE, 0L).intValue();
+        int held = (int) seatHoldRepository.countActiveHoldsByCourse(courseId);
+        int waitlisted = byStatus.getOrDefault(EnrollmentStatus.WAITLISTED, 0L).intValue();
+        int pendingApprovals = byStatus.getOrDefault(EnrollmentStatus.PENDING_REVIEW, 0L).intValue();
+        if (ledger.getSeatsTaken() == taken && ledger.getSeatsHeld() == held
+                && ledger.getWaitlisted() == waitlisted && ledger.getPendingApprovals() == pendingApprovals) {
+            return false;
+        }
+        logger.warn("Seat ledger of course {} drifted: taken {} -> {}, held {} -> {}, waitlisted {} -> {}, pending approvals {} -> {}",
+            courseId, ledger.getSeatsTaken(), taken, ledger.getSeatsHeld(), held,
+            ledger.getWaitlisted(), waitlisted, ledger.getPendingApprovals(), pendingApprovals);
+        ledger.setSeatsTaken(taken);
+        ledger.setSeatsHeld(held);
+        ledger.setWaitlisted(waitlisted);
+        ledger.setPendingApprovals(pendingApprovals);
+        evictCounters(courseId);
+        return true;
+    }
+
+    /**
+     * Drop the course's snapshot now and again once the transaction completes, so a read
+     * racing the commit cannot keep the old counts. Also used when a course's capacity changes.
+     */
+    public void evictCounters(Long courseId) {
+        dropSnapshot(courseId);
+        invalidationBus.publish(InvalidationEvent.Type.ENROLLMENT_COUNTERS, courseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    dropSnapshot(courseId);
+                    // Published after the drop so a listener reading the counters sees the committed values
+                    if (status == STATUS_COMMITTED) {
+                        eventPublisher.publishEvent(new CourseCountersChangedEvent(courseId));
+                    }
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(new CourseCountersChangedEvent(courseId));
+        }
+    }
+
+    /**
+     * Counters changed on another node: drop the snapshot and let this node's live feeds refresh.
+     */
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        if (!event.isRemote() || !event.contains(InvalidationEvent.Type.ENROLLMENT_COUNTERS)) {
+            return;
+        }
+        if (event.isAll(InvalidationEvent.Type.ENROLLMENT_COUNTERS)) {
+            counterVersion.incrementAndGet();
+            counterSnapshots.clear();
+            return;
+        }
+        for (Long courseId : event.getKeys(InvalidationEvent.Type.ENROLLMENT_COUNTERS)) {
+            dropSnapshot(courseId);
+            eventPublisher.publishEvent(new CourseCountersChangedEvent(courseId));
+        }
+    }
+
+    private void dropSnapshot(Long courseId) {
+        counterVersion.incrementAndGet();
+        counterSnapshots.remove(courseId);
+    }
+
+    /**
+     * Seed the course's ledger row unless it exists. The insert waits for a concurrent
+     * initializer and then does nothing, so the row always exists afterwards and callers
+     * can retry their update.
+     */
+    private void initializeLedgerIfAbsent(Long courseId) {
+        if (!seatLedgerRepository.existsById(courseId)) {
+            seatLedgerRepository.initializeLedger(courseId);
+        }
+    }
+}
@@ -31,6 +31,7 @@ public interface VoucherService {
     Voucher createVoucher(String code, String name, String discountType, BigDecimal value);
     void deactivateVoucher(String code);
     void deactivateExpiredVouchers();
+    void endOrganizationAccess(Long orgId, Long revokedBy, String reason);
     
     // Analytics
     List<Voucher> findVouchersForCourse(Long courseId);
@@ -0,0 +1,182 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.Course;
+import com.codigo.LMS.entity.Enrollment;
+import com.codigo.LMS.repository.CourseRepository;
+import com.codigo.LMS.repository.CourseWaitlistRepository;
+import com.codigo.LMS.repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-course waitlist queue.
+ *
+ * Joining takes the next ticket with an atomic increment of the queue's tail. Tickets are
+ * never renumbered: leaving only flips the enrollment's status, and promotion moves the
+ * head past the tickets it admitted. "My position" is computed on read as one plus the
+ * number of students still waiting between the head and my ticket, an index range count.
+ * Promotion admits as many students as there are free seats, in a single batch.
+ */
+@Service
+@Transactional
+public class WaitlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+
+    @Autowired
+    private CourseWaitlistRepository waitlistRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SeatLedgerService seatLedgerService;
+
+    @Autowired
+    private EntitlementService entitlementService;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    /**
+     * Append to the course waitlist and return the ticket to store on the enrollment.
+     */
+    public int join(Long courseId) {
+        seatLedgerService.adjustWaitlisted(courseId, 1);
+        LocalDateTime now = LocalDateTime.now();
+        if (waitlistRepository.appendTicket(courseId, now) == 0) {
+            waitlistRepository.initializeWaitlist(courseId);
+            waitlistRepository.appendTicket(courseId, now);
+        }
+        return waitlistRepository.findTailTicket(courseId);
+    }
+
+    /**
+     * Append {@code count} students at once and return the first of their consecutive tickets.
+     */
+    public int joinMany(Long courseId, int count) {
+        seatLedgerService.adjustWaitlisted(courseId, count);
+        LocalDateTime now = LocalDateTime.now();
+        if (waitlistRepository.appendTickets(courseId, count, now) == 0) {
+            waitlistRepository.initializeWaitlist(courseId);
+            waitlistRepository.appendTickets(courseId, count, now);
+        }
+        return waitlistRepository.findTailTicket(courseId) - count + 1;
+    }
+
+    /**
+     * Put a student in front of everyone already waiting and return their ticket. For
+     * students who have paid but lost their seat, so they get the next one that frees up.
+     */
+    public int joinAtHead(Long courseId) {
+        seatLedgerService.adjustWaitlisted(courseId, 1);
+        LocalDateTime now = LocalDateTime.now();
+        if (waitlistRepository.prependTicket(courseId, now) == 0) {
+            waitlistRepository.initializeWaitlist(courseId);
+            waitlistRepository.prependTicket(courseId, now);
+        }
+        return waitlistRepository.findHeadTicket(courseId);
+    }
+
+    /**
+     * Take a waitlisted enrollment out of the queue. Returns false if it is no longer
+     * waiting, e.g. because it was just promoted. Call before writing the enrollment's own
+     * status change; the tickets behind it are left as they are.
+     */
+    public boolean leave(Long courseId, Long enrollmentId) {
+        // Promotion takes the ledger first too, so the status is re-read once it cannot change
+        seatLedgerService.lockLedger(courseId);
+        if (enrollmentRepository.findWaitlistTicket(enrollmentId) == null) {
+            return false;
+        }
+        seatLedgerService.adjustWaitlisted(courseId, -1);
+        return true;
+    }
+
+    /**
+     * 1-based position for a ticket, or null when the ticket is no longer waiting.
+     */
+    @Transactional(readOnly = true)
+    public Integer positionOf(Long courseId, Integer ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        Integer head = waitlistRepository.findHeadTicket(courseId);
+        if (head == null) {
+            head = 1;
+        } else if (ticket < head) {
+            return null;
+        }
+        return (int) enrollmentRepository.countWaitlistedAhead(courseId, head, ticket) + 1;
+    }
+
+    @Transactional(readOnly = true)
+    public long size(Long courseId) {
+        return seatLedgerService.getWaitlisted(courseId);
+    }
+
+    /**
+     * Promote as many waitlisted students as the course has free seats.
+     */
+    public List<Enrollment> promote(Long courseId) {
+        return promote(courseId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Promote up to {@code maxCount} students from the head of the waitlist. Seats are
+     * taken, statuses flipped and entitlements granted with one write each for the batch.
+     */
+    public List<Enrollment> promote(Long courseId, int maxCount) {
+        long waiting = size(courseId);
+        if (waiting == 0 || maxCount <= 0) {
+            return Collections.emptyList();
+        }
+
+        Course course = courseRepository.findById(courseId).orElse(null);
+        if (course == null) {
+            return Collections.emptyList();
+        }
+
+        int seats = seatLedgerService.tryAcquireSeats(course, (int) Math.min(waiting, maxCount));
+        if (seats == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Long> ids = enrollmentRepository.findWaitlistHeadIds(courseId, PageRequest.of(0, seats));
+        if (ids.size() < seats) {
+            seatLedgerService.releaseSeats(courseId, seats - ids.size());
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        seatLedgerService.adjustWaitlisted(courseId, -ids.size());
+        waitlistRepository.advanceHead(courseId, enrollmentRepository.findMaxWaitlistTicketByIdIn(ids) + 1, now);
+        enrollmentRepository.activateWaitlisted(ids, now);
+
+        // Points are a bulk update, so award them before the students are loaded into the session
+        gameService.awardEnrollmentPoints(enrollmentRepository.findStudentIdsByIdIn(ids), courseId);
+
+        List<Enrollment> promoted = enrollmentRepository.findAllWithStudentByIdIn(ids);
+        entitlementService.grantCourseEntitlements(course, promoted);
+        notificationService.sendWaitlistPromotions(course, promoted);
+
+        logger.info("Promoted {} students from the waitlist of course {}", promoted.size(), courseId);
+        return promoted;
+    }
+}
@@ -0,0 +1,79 @@
+package com.codigo.LMS.service.impl;
+
+import com.codigo.LMS.dto.CourseSearchPage;
+import com.codigo.LMS.service.CourseSearch;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Query parsing and paging shared by both search implementations, so they agree on
+ * what a word is.
+ */
+public abstract class AbstractCourseSearch implements CourseSearch {
+
+    // Letters and digits; everything else separates words
+    private static final String WORD_SEPARATOR = "[^\\p{L}\\p{N}]+";
+
+    @Value("${lms.search.max-terms:8}")
+    private int maxTerms;
+
+    @Value("${lms.search.max-page-size:100}")
+    private int maxPageSize;
+
+    @Override
+    public CourseSearchPage search(String query, int page, int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), maxPageSize);
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return CourseSearchPage.empty(query, pageNumber, pageSize);
+        }
+        return find(query, terms.subList(0, Math.min(terms.size(), maxTerms)), pageNumber, pageSize);
+    }
+
+    @Override
+    public List<Long> findMatchingIds(String query) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        return findIds(terms.subList(0, Math.min(terms.size(), maxTerms)));
+    }
+
+    /**
+     * Courses matching every term as a prefix.
+     */
+    protected abstract CourseSearchPage find(String query, List<String> terms, int page, int size);
+
+    /**
+     * Ids of all courses matching every term as a prefix, best first.
+     */
+    protected abstract List<Long> findIds(List<String> terms);
+
+    /**
+     * Lower-cased distinct words of the query, in order.
+     */
+    static List<String> terms(String query) {
+        return new ArrayList<>(new LinkedHashSet<>(words(query)));
+    }
+
+    /**
+     * Lower-cased words of the text, repeats included.
+     */
+    static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split(WORD_SEPARATOR)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,186 @@
+package com.codigo.LMS.service.impl;
+
+import com.codigo.LMS.event.InvalidationEvent;
+import com.codigo.LMS.service.InvalidationBus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batching shared by the bus implementations. Invalidations published after commit
+ * collect in a set, so a burst touching the same key many times sends it once, and are
+ * flushed every {@code lms.invalidation.batch-ms}: delivered locally and handed to
+ * {@link #send} for the other nodes. Lag from publish to delivery is recorded as
+ * {@code lms.invalidation.lag}, tagged local or remote.
+ */
+public abstract class AbstractInvalidationBus implements InvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractInvalidationBus.class);
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lms.invalidation.batch-ms:50}")
+    private long batchMs;
+
+    // Key -> when it was first published; a duplicate keeps the earlier time
+    private final Map<InvalidationKey, Long> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private Timer localLag;
+    private Timer remoteLag;
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void startFlusher() {
+        localLag = Timer.builder("lms.invalidation.lag").tag("source", "local").register(meterRegistry);
+        remoteLag = Timer.builder("lms.invalidation.lag").tag("source", "remote").register(meterRegistry);
+        FunctionCounter.builder("lms.invalidation.published", published, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("lms.invalidation.coalesced", coalesced, LongAdder::sum)
+            .register(meterRegistry);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invalidation-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, batchMs, batchMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopFlusher() {
+        flusher.shutdown();
+        flush();
+    }
+
+    @Override
+    public void publish(InvalidationEvent.Type type, Long key) {
+        InvalidationKey invalidation = new InvalidationKey(type, key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(invalidation);
+                }
+            });
+        } else {
+            enqueue(invalidation);
+        }
+    }
+
+    @Override
+    public void publishAll(InvalidationEvent.Type type) {
+        publish(type, null);
+    }
+
+    /**
+     * Send a batch to the other nodes.
+     */
+    protected abstract void send(List<InvalidationKey> batch, long publishedAt);
+
+    /**
+     * Hand an event to this node's listeners.
+     */
+    protected void deliver(InvalidationEvent event, long publishedAt) {
+        long lag = Math.max(0, System.currentTimeMillis() - publishedAt);
+        (event.isRemote() ? remoteLag : localLag).record(lag, TimeUnit.MILLISECONDS);
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            logger.warn("Invalidation listener failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void enqueue(InvalidationKey invalidation) {
+        published.increment();
+        if (pending.putIfAbsent(invalidation, System.currentTimeMillis()) != null) {
+            coalesced.increment();
+        }
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<InvalidationKey> batch = new ArrayList<>();
+        InvalidationEvent event = new InvalidationEvent(false);
+        long oldest = Long.MAX_VALUE;
+        Iterator<Map.Entry<InvalidationKey, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<InvalidationKey, Long> entry = iterator.next();
+            iterator.remove();
+            batch.add(entry.getKey());
+            event.add(entry.getKey().getType(), entry.getKey().getKey());
+            oldest = Math.min(oldest, entry.getValue());
+        }
+
+        try {
+            send(batch, oldest);
+        } catch (RuntimeException e) {
+            // Other nodes fall back on their caches' own expiry
+            logger.warn("Failed to send {} invalidations: {}", batch.size(), e.getMessage());
+        }
+        deliver(event, oldest);
+    }
+
+    protected static final class InvalidationKey {
+        private final InvalidationEvent.Type type;
+        private final Long key;
+
+        InvalidationKey(InvalidationEvent.Type type, Long key) {
+            this.type = type;
+            this.key = key;
+        }
+
+        public InvalidationEvent.Type getType() { return type; }
+
+        /**
+         * Null when every entry of the type is invalidated.
+         */
+        public Long getKey() { return key; }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof InvalidationKey)) {
+                return false;
+            }
+            InvalidationKey that = (InvalidationKey) other;
+            return type == that.type && Objects.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Objects.hashCode(key);
+        }
+    }
+}
@@ -1,28 +1,82 @@
 package com.codigo.LMS.service.impl;
 
+import com.codigo.LMS.dto.CourseFilter;
+import com.codigo.LMS.dto.CourseSearchPage;
+import com.codigo.LMS.dto.CursorPage;
+import com.codigo.LMS.dto.FacetedCourses;
+import com.codigo.LMS.dto.KeysetCursor;
 import com.codigo.LMS.entity.Course;
 import com.codigo.LMS.entity.User;
+import com.codigo.LMS.event.InvalidationEvent;
 import com.codigo.LMS.repository.CourseRepository;
 import com.codigo.LMS.repository.UserRepository;
+import com.codigo.LMS.service.CatalogService;
+import com.codigo.LMS.service.CatalogSnapshot;
+import com.codigo.LMS.service.CourseFacets;
+import com.codigo.LMS.service.CoursePopularityService;
+import com.codigo.LMS.service.CourseReviewService;
+import com.codigo.LMS.service.CourseSearch;
 import com.codigo.LMS.service.CourseService;
+import com.codigo.LMS.service.EntitlementRevocationService;
+import com.codigo.LMS.service.InvalidationBus;
+import com.codigo.LMS.service.PrerequisiteGraph;
+import com.codigo.LMS.service.SeatLedgerService;
+import com.codigo.LMS.service.WaitlistService;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class CourseServiceImpl implements CourseService {
 
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    
+    private static final int POPULAR_LIMIT = 10;
+
     @Autowired
     private CourseRepository courseRepository;
     
     @Autowired
     private UserRepository userRepository;
+    
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @Autowired
+    private EntitlementRevocationService entitlementRevocationService;
+    
+    @Autowired
+    private SeatLedgerService seatLedgerService;
+    
+    @Autowired
+    private InvalidationBus invalidationBus;
+    
+    @Autowired
+    private PrerequisiteGraph prerequisiteGraph;
+    
+    @Autowired
+    private CourseSearch courseSearch;
+    
+    @Autowired
+    private CatalogService catalogService;
+    
+    @Autowired
+    private CoursePopularityService coursePopularityService;
+    
+    @Autowired
+    private CourseReviewService courseReviewService;
 
     @Override
     public Course findById(Long courseId) {
@@ -35,13 +89,15 @@ public class CourseServiceImpl implements CourseService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Course> findByCategory(String category) {
-        return courseRepository.findByCategory(category);
+        return catalogService.snapshot().getByCategory(category);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Course> findPublishedCourses() {
-        return courseRepository.findByIsPublishedTrue();
+        return catalogService.snapshot().getCourses();
     }
 
     @Override
@@ -51,32 +107,145 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     public Course save(Course course) {
-        return courseRepository.save(course);
+        // An unloaded collection on a detached course was not edited, so it cannot add a cycle
+        List<Long> cycle = Hibernate.isInitialized(course.getPrerequisiteCourseIds())
+            ? prerequisiteGraph.findCycle(course.getId(), course.getPrerequisiteCourseIds())
+            : List.of();
+        if (!cycle.isEmpty()) {
+            throw new IllegalArgumentException("Prerequisites would create a cycle: "
+                + cycle.stream().map(String::valueOf).collect(Collectors.joining(" -> ")));
+        }
+        Course saved = courseRepository.save(course);
+        if (saved.getId() != null) {
+            invalidationBus.publish(InvalidationEvent.Type.COURSE, saved.getId());
+            // Capacity is part of the cached enrollment counters
+            seatLedgerService.evictCounters(saved.getId());
+        }
+        // A raised capacity frees seats for anyone already waiting
+        if (saved.getId() != null && saved.getCapacity() != null) {
+            waitlistService.promote(saved.getId());
+        }
+        return saved;
+    }
+
+    @Override
+    public Course unpublish(Long courseId, Long unpublishedBy) {
+        Course course = courseRepository.findById(courseId).orElse(null);
+        if (course == null) {
+            return null;
+        }
+        course.setIsPublished(false);
+        course = courseRepository.save(course);
+        invalidationBus.publish(InvalidationEvent.Type.COURSE, courseId);
+        // Can be tens of thousands of rows; revoked in chunks once this commits
+        entitlementRevocationService.revokeCourseInBackground(courseId, unpublishedBy, "Course unpublished");
+        return course;
     }
 
     @Override
     public void delete(Long courseId) {
         courseRepository.deleteById(courseId);
+        invalidationBus.publish(InvalidationEvent.Type.COURSE, courseId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Course> searchCourses(String searchTerm) {
-        return courseRepository.searchCourses(searchTerm);
+        return searchCourses(searchTerm, 0, DEFAULT_SEARCH_PAGE_SIZE).getHits().stream()
+                .map(CourseSearchPage.Hit::getCourse)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CourseSearchPage searchCourses(String query, int page, int size) {
+        CourseSearchPage results = courseSearch.search(query, page, size);
+        if (results.getHits().isEmpty()) {
+            return results;
+        }
+        List<Long> courseIds = results.getHits().stream()
+                .map(CourseSearchPage.Hit::getCourseId)
+                .collect(Collectors.toList());
+        Map<Long, Course> courses = courseRepository.findByIdIn(courseIds).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+        // A course deleted since it was indexed is left out of the page
+        List<CourseSearchPage.Hit> hits = new ArrayList<>(results.getHits().size());
+        for (CourseSearchPage.Hit hit : results.getHits()) {
+            Course course = courses.get(hit.getCourseId());
+            if (course != null) {
+                hit.setCourse(course);
+                hits.add(hit);
+            }
+        }
+        return new CourseSearchPage(results.getQuery(), results.getPage(), results.getSize(), results.getTotal(), hits);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public FacetedCourses filterCatalog(CourseFilter filter) {
+        CatalogSnapshot catalog = catalogService.snapshot();
+        Map<String, String> selected = new LinkedHashMap<>();
+        if (filter.getCategory() != null && !filter.getCategory().isBlank()) {
+            selected.put(CourseFacets.CATEGORY, filter.getCategory());
+        }
+        if (filter.getDifficulty() != null) {
+            selected.put(CourseFacets.DIFFICULTY, filter.getDifficulty().name());
+        }
+        if (filter.getPrice() != null) {
+            selected.put(CourseFacets.PRICE, filter.getPrice().name());
+        }
+        if (filter.getPolicy() != null) {
+            selected.put(CourseFacets.POLICY, filter.getPolicy().name());
+        }
+        List<Long> ranked = filter.getSearch() != null && !filter.getSearch().isBlank()
+                ? courseSearch.findMatchingIds(filter.getSearch())
+                : null;
+
+        CourseFacets.Result result = catalog.getFacets()
+                .filter(selected, ranked != null ? catalog.positionsOf(ranked) : null);
+
+        // Keyset on the last course served: in id order, or its place in the search ranking
+        KeysetCursor after = KeysetCursor.decode(filter.getCursor());
+        int size = CursorPage.clampSize(filter.getSize());
+        List<Course> rows = new ArrayList<>(size + 1);
+        if (ranked != null) {
+            int start = after == null ? 0 : ranked.indexOf(after.getId()) + 1;
+            // A last course that no longer matches ends the listing rather than restarting it
+            if (after == null || start > 0) {
+                for (int i = start; i < ranked.size() && rows.size() <= size; i++) {
+                    int position = catalog.indexOf(ranked.get(i));
+                    if (result.contains(position)) {
+                        rows.add(catalog.getCourses().get(position));
+                    }
+                }
+            }
+        } else {
+            int position = result.nextMatch(after == null ? 0 : catalog.positionAfter(after.getId()));
+            while (position >= 0 && rows.size() <= size) {
+                rows.add(catalog.getCourses().get(position));
+                position = result.nextMatch(position + 1);
+            }
+        }
+        CursorPage<Course> page = CursorPage.of(rows, size, course -> KeysetCursor.of(course.getId()));
+        return new FacetedCourses(page, result.getTotal(), result.getCounts());
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Course> findFreeCourses() {
-        return courseRepository.findFreeCourses();
+        return catalogService.snapshot().getFree();
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Course> findPaidCourses() {
-        return courseRepository.findPaidCourses();
+        return catalogService.snapshot().getPaid();
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Course> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return courseRepository.findByPriceRange(minPrice, maxPrice);
+        return catalogService.snapshot().getByPriceRange(minPrice, maxPrice);
     }
 
     @Override
@@ -113,32 +282,38 @@ public class CourseServiceImpl implements CourseService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Course> getMostPopularCourses() {
-        List<Object[]> results = courseRepository.findMostPopularCourses();
-        return results.stream()
-                .map(result -> (Course) result[0])
-                .limit(10)
-                .collect(Collectors.toList());
+        return coursePopularityService.getMostPopular(POPULAR_LIMIT);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Course> getTrendingCourses() {
+        return coursePopularityService.getTrending(POPULAR_LIMIT);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public double getAverageRating() {
-        Double avgRating = courseRepository.getAverageRating();
-        return avgRating != null ? avgRating : 0.0;
+        return courseReviewService.getPlatformAverage();
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getFreeCourseCount() {
-        return courseRepository.countFreeCourses();
+        return catalogService.snapshot().getFreeCount();
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getPaidCourseCount() {
-        return courseRepository.countPaidCourses();
+        return catalogService.snapshot().getPaidCount();
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<String> getAllCategories() {
-        return courseRepository.findAllCategories();
+        return catalogService.snapshot().getCategories();
     }
 }
\ No newline at end of file
@@ -35,6 +35,7 @@ public class GameServiceImpl implements GameService {
     private static final int COMPLETION_POINTS = 200;
     private static final int MILESTONE_POINTS = 25;
     private static final int STREAK_BONUS_POINTS = 10;
+    private static final int[] POINTS_THRESHOLDS = {1000, 5000, 10000};
     
     @Override
     public void awardEnrollmentPoints(Long userId, Long courseId) {
@@ -50,6 +51,24 @@ public class GameServiceImpl implements GameService {
         }
     }
     
+    @Override
+    public void awardEnrollmentPoints(List<Long> userIds, Long courseId) {
+        if (userIds.isEmpty()) return;
+        logger.info("Awarding enrollment points to {} users for course {}", userIds.size(), courseId);
+        
+        userRepository.addPoints(userIds, ENROLLMENT_POINTS);
+        
+        // Enrollment points only move totals, so only users crossing a points threshold need a badge check
+        java.util.Set<Long> crossed = new java.util.HashSet<>();
+        for (int threshold : POINTS_THRESHOLDS) {
+            crossed.addAll(userRepository.findIdsCrossingPoints(userIds, ENROLLMENT_POINTS, threshold));
+        }
+        for (Long userId : crossed) {
+            checkAndAwardBadges(userId);
+            checkAchievements(userId);
+        }
+    }
+    
     @Override
     public void awardCompletionPoints(Long userId, Long courseId) {
         logger.info("Awarding completion points to user {} for course {}", userId, courseId);
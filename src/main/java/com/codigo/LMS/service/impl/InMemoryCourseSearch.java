@@ -0,0 +1,155 @@
+package com.codigo.LMS.service.impl;
+
+import com.codigo.LMS.dto.CourseSearchPage;
+import com.codigo.LMS.event.InvalidationEvent;
+import com.codigo.LMS.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Course search for H2 and tests: an inverted index of published courses, word to
+ * course to weight, kept in memory.
+ *
+ * Words are kept sorted, so the words starting with a query term are one contiguous
+ * range. Each occurrence of a word scores its field's weight, the same weights
+ * PostgreSQL gives the A, B and C parts of the search vector. The index is rebuilt on
+ * the next search after any course changes. Used unless the datasource is PostgreSQL
+ * with Flyway enabled, or with {@code lms.search.engine=memory}.
+ */
+@Service
+@ConditionalOnExpression("!('${lms.search.engine:auto}' == 'postgres' or ('${lms.search.engine:auto}' == 'auto' and '${spring.datasource.url:}'.startsWith('jdbc:postgresql') and '${spring.flyway.enabled:true}' == 'true'))")
+public class InMemoryCourseSearch extends AbstractCourseSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryCourseSearch.class);
+
+    private static final double TITLE_WEIGHT = 1.0;
+    private static final double CATEGORY_WEIGHT = 0.4;
+    private static final double DESCRIPTION_WEIGHT = 0.2;
+
+    private static final Comparator<Map.Entry<Long, Double>> BEST_FIRST =
+        Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private volatile NavigableMap<String, Map<Long, Double>> index;
+
+    // Bumped on invalidation; a load only installs its index if nothing changed meanwhile
+    private final AtomicLong generation = new AtomicLong();
+
+    @Override
+    protected CourseSearchPage find(String query, List<String> terms, int page, int size) {
+        List<Map.Entry<Long, Double>> ranked = rank(terms);
+        int from = (int) Math.min((long) page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        List<CourseSearchPage.Hit> hits = new ArrayList<>(to - from);
+        for (Map.Entry<Long, Double> entry : ranked.subList(from, to)) {
+            hits.add(new CourseSearchPage.Hit(entry.getKey(), entry.getValue()));
+        }
+        return new CourseSearchPage(query, page, size, ranked.size(), hits);
+    }
+
+    @Override
+    protected List<Long> findIds(List<String> terms) {
+        List<Map.Entry<Long, Double>> ranked = rank(terms);
+        List<Long> courseIds = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Double> entry : ranked) {
+            courseIds.add(entry.getKey());
+        }
+        return courseIds;
+    }
+
+    /**
+     * Drop the index; the next search rebuilds it.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        index = null;
+    }
+
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.contains(InvalidationEvent.Type.COURSE)) {
+            invalidate();
+        }
+    }
+
+    // Matching courses and their scores, best first
+    private List<Map.Entry<Long, Double>> rank(List<String> terms) {
+        NavigableMap<String, Map<Long, Double>> current = currentIndex();
+        Map<Long, Double> scores = null;
+        for (String term : terms) {
+            Map<Long, Double> matched = scores;
+            Map<Long, Double> termScores = new HashMap<>();
+            for (Map<Long, Double> postings : current.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                for (Map.Entry<Long, Double> posting : postings.entrySet()) {
+                    // Only courses that matched every earlier term stay in the running
+                    if (matched == null || matched.containsKey(posting.getKey())) {
+                        termScores.merge(posting.getKey(), posting.getValue(), Double::sum);
+                    }
+                }
+            }
+            if (matched != null) {
+                termScores.replaceAll((courseId, score) -> score + matched.get(courseId));
+            }
+            scores = termScores;
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(BEST_FIRST);
+        return ranked;
+    }
+
+    private NavigableMap<String, Map<Long, Double>> currentIndex() {
+        NavigableMap<String, Map<Long, Double>> current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    long loadedGeneration = generation.get();
+                    current = load();
+                    if (generation.get() == loadedGeneration) {
+                        index = current;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    private NavigableMap<String, Map<Long, Double>> load() {
+        NavigableMap<String, Map<Long, Double>> loaded = new TreeMap<>();
+        int courses = 0;
+        for (Object[] row : courseRepository.findPublishedSearchFields()) {
+            Long courseId = (Long) row[0];
+            addField(loaded, courseId, (String) row[1], TITLE_WEIGHT);
+            addField(loaded, courseId, (String) row[2], CATEGORY_WEIGHT);
+            addField(loaded, courseId, (String) row[3], DESCRIPTION_WEIGHT);
+            courses++;
+        }
+        logger.debug("Indexed {} published courses, {} distinct words", courses, loaded.size());
+        return loaded;
+    }
+
+    private static void addField(Map<String, Map<Long, Double>> index, Long courseId, String text, double weight) {
+        for (String word : words(text)) {
+            index.computeIfAbsent(word, w -> new HashMap<>()).merge(courseId, weight, Double::sum);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.codigo.LMS.service.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Invalidation bus for single-node runs and tests: batches are only delivered locally.
+ * Used unless the datasource is PostgreSQL or {@code lms.invalidation.bus=postgres}.
+ */
+@Service
+@ConditionalOnExpression("!('${lms.invalidation.bus:auto}' == 'postgres' or ('${lms.invalidation.bus:auto}' == 'auto' and '${spring.datasource.url:}'.startsWith('jdbc:postgresql')))")
+public class InMemoryInvalidationBus extends AbstractInvalidationBus {
+
+    @Override
+    protected void send(List<InvalidationKey> batch, long publishedAt) {
+        // Nobody else to tell
+    }
+}
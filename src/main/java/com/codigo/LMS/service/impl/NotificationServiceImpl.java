@@ -1,9 +1,11 @@
 package com.codigo.LMS.service.impl;
 
 import com.codigo.LMS.entity.*;
+import com.codigo.LMS.event.EntitlementsExpiredEvent;
 import com.codigo.LMS.service.NotificationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -48,6 +50,25 @@ public class NotificationServiceImpl implements NotificationService {
         // TODO: Implement email notification
     }
     
+    @Override
+    public void sendWaitlistPromotions(Course course, java.util.List<Enrollment> enrollments) {
+        logger.info("Sending waitlist promotion notifications to {} users for course {}", enrollments.size(), course.getId());
+        // TODO: Implement batched email notification
+    }
+    
+    @Override
+    public void sendBulkEnrollmentConfirmations(Course course, java.util.List<Enrollment> enrollments) {
+        logger.info("Sending bulk enrollment notifications to {} users for course {}", enrollments.size(), course.getId());
+        // TODO: Implement batched email notification
+    }
+    
+    @EventListener
+    public void onEntitlementsExpired(EntitlementsExpiredEvent event) {
+        logger.info("Sending access expiry notices to {} users for {} entitlements",
+            event.getUserIds().size(), event.getEntitlements().size());
+        // TODO: Implement batched email notification
+    }
+    
     @Override
     public void sendWithdrawalConfirmation(User student, Course course, Enrollment enrollment) {
         logger.info("Sending withdrawal confirmation to user {} for course {}", student.getId(), course.getId());
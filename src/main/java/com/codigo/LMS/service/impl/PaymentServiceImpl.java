@@ -4,6 +4,8 @@ import com.codigo.LMS.entity.*;
 import com.codigo.LMS.repository.PaymentRepository;
 import com.codigo.LMS.service.PaymentService;
 import com.codigo.LMS.dto.PaymentResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
@@ -20,8 +23,15 @@ public class PaymentServiceImpl implements PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     @Override
     public PaymentResult createPaymentIntent(User user, Course course, BigDecimal amount, Voucher voucher) {
+        return timed("create_intent", () -> createIntent(user, course, amount, voucher));
+    }
+    
+    private PaymentResult createIntent(User user, Course course, BigDecimal amount, Voucher voucher) {
         logger.info("Creating payment intent for user {} course {} amount {}", user.getId(), course.getId(), amount);
         
         try {
@@ -48,6 +58,10 @@ public class PaymentServiceImpl implements PaymentService {
     
     @Override
     public PaymentResult processPayment(Long paymentId, String paymentMethodId) {
+        return timed("capture", () -> capture(paymentId, paymentMethodId));
+    }
+    
+    private PaymentResult capture(Long paymentId, String paymentMethodId) {
         logger.info("Processing payment {} with method {}", paymentId, paymentMethodId);
         
         try {
@@ -72,6 +86,10 @@ public class PaymentServiceImpl implements PaymentService {
     
     @Override
     public PaymentResult processRefund(Long paymentId, String reason) {
+        return timed("refund", () -> refund(paymentId, reason));
+    }
+    
+    private PaymentResult refund(Long paymentId, String reason) {
         logger.info("Processing refund for payment {} reason: {}", paymentId, reason);
         
         try {
@@ -101,6 +119,10 @@ public class PaymentServiceImpl implements PaymentService {
     
     @Override
     public PaymentResult processPartialRefund(Long paymentId, BigDecimal amount, String reason) {
+        return timed("partial_refund", () -> partialRefund(paymentId, amount, reason));
+    }
+    
+    private PaymentResult partialRefund(Long paymentId, BigDecimal amount, String reason) {
         logger.info("Processing partial refund for payment {} amount {} reason: {}", paymentId, amount, reason);
         
         try {
@@ -193,4 +215,17 @@ public class PaymentServiceImpl implements PaymentService {
         // TODO: Implement subscription cancellation
         return PaymentResult.error("Subscription cancellation not yet implemented");
     }
-}
\ No newline at end of file
+    
+    /**
+     * Time a processor call under {@code lms.payments.operations}, tagged by operation and result.
+     */
+    private PaymentResult timed(String operation, Supplier<PaymentResult> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PaymentResult result = action.get();
+        sample.stop(Timer.builder("lms.payments.operations")
+            .tag("operation", operation)
+            .tag("result", result.isSuccess() ? "success" : "failure")
+            .register(meterRegistry));
+        return result;
+    }
+}
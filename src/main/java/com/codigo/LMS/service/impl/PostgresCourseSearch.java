@@ -0,0 +1,75 @@
+package com.codigo.LMS.service.impl;
+
+import com.codigo.LMS.dto.CourseSearchPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Course search over the {@code courses.search_vector} column and its GIN index (V12).
+ *
+ * The vector uses the {@code simple} configuration, without stemming or stop words, so
+ * results match the in-memory index. Rank is {@code ts_rank} with the default weights:
+ * title (A) 1.0, category (B) 0.4, description (C) 0.2.
+ *
+ * Only chosen automatically when Flyway manages the schema: with Flyway off, Hibernate's
+ * ddl-auto does not create the generated column. {@code lms.search.engine=postgres}
+ * forces it.
+ */
+@Service
+@ConditionalOnExpression("'${lms.search.engine:auto}' == 'postgres' or ('${lms.search.engine:auto}' == 'auto' and '${spring.datasource.url:}'.startsWith('jdbc:postgresql') and '${spring.flyway.enabled:true}' == 'true')")
+public class PostgresCourseSearch extends AbstractCourseSearch {
+
+    // The total rides along on every row, so a page costs one round trip
+    private static final String SEARCH_SQL =
+        "SELECT c.id, ts_rank(c.search_vector, q) AS score, count(*) OVER () AS total " +
+        "FROM courses c, to_tsquery('simple', ?) q " +
+        "WHERE c.is_published = true AND c.search_vector @@ q " +
+        "ORDER BY score DESC, c.id " +
+        "LIMIT ? OFFSET ?";
+
+    private static final String COUNT_SQL =
+        "SELECT count(*) FROM courses c " +
+        "WHERE c.is_published = true AND c.search_vector @@ to_tsquery('simple', ?)";
+
+    private static final String IDS_SQL =
+        "SELECT c.id FROM courses c, to_tsquery('simple', ?) q " +
+        "WHERE c.is_published = true AND c.search_vector @@ q " +
+        "ORDER BY ts_rank(c.search_vector, q) DESC, c.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    protected CourseSearchPage find(String query, List<String> terms, int page, int size) {
+        String tsQuery = toTsQuery(terms);
+        List<CourseSearchPage.Hit> hits = new ArrayList<>();
+        long[] total = {0};
+        jdbcTemplate.query(SEARCH_SQL, rs -> {
+            hits.add(new CourseSearchPage.Hit(rs.getLong(1), rs.getDouble(2)));
+            total[0] = rs.getLong(3);
+        }, tsQuery, size, (long) page * size);
+
+        if (hits.isEmpty() && page > 0) {
+            // Past the last page: no row to read the total from
+            Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, tsQuery);
+            total[0] = count != null ? count : 0;
+        }
+        return new CourseSearchPage(query, page, size, total[0], hits);
+    }
+
+    @Override
+    protected List<Long> findIds(List<String> terms) {
+        return jdbcTemplate.queryForList(IDS_SQL, Long.class, toTsQuery(terms));
+    }
+
+    private static String toTsQuery(List<String> terms) {
+        // Terms are letters and digits only, so they cannot carry tsquery operators
+        return terms.stream().map(term -> term + ":*").collect(Collectors.joining(" & "));
+    }
+}
@@ -0,0 +1,180 @@
+package com.codigo.LMS.service.impl;
+
+import com.codigo.LMS.event.InvalidationEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Invalidation bus over PostgreSQL {@code LISTEN/NOTIFY}.
+ *
+ * A batch goes out as one {@code pg_notify} per 8000-byte payload,
+ * {@code <node>;<published at>;<TYPE>:<key>,...} with {@code *} for "every key". Each
+ * node listens on a dedicated connection outside the pool and skips its own
+ * notifications, which it already delivered locally. Notifications sent while the
+ * listener was reconnecting are lost, so after a reconnect every cache is treated as stale.
+ */
+@Service
+@ConditionalOnExpression("'${lms.invalidation.bus:auto}' == 'postgres' or ('${lms.invalidation.bus:auto}' == 'auto' and '${spring.datasource.url:}'.startsWith('jdbc:postgresql'))")
+public class PostgresInvalidationBus extends AbstractInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+
+    static final String CHANNEL = "lms_invalidation";
+
+    // NOTIFY payloads must stay under 8000 bytes; keys are ASCII
+    private static final int MAX_PAYLOAD = 7900;
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${lms.invalidation.postgres.url:}")
+    private String listenUrl;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile boolean running;
+
+    private Thread listener;
+
+    @PostConstruct
+    void startListener() {
+        running = true;
+        listener = new Thread(this::listen, "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    void stopListener() {
+        running = false;
+        listener.interrupt();
+    }
+
+    @Override
+    protected void send(List<InvalidationKey> batch, long publishedAt) {
+        String header = nodeId + ";" + publishedAt + ";";
+        StringBuilder payload = new StringBuilder(header);
+        for (InvalidationKey invalidation : batch) {
+            String entry = invalidation.getType().name() + ":" + (invalidation.getKey() != null ? invalidation.getKey() : "*");
+            if (payload.length() + entry.length() + 1 > MAX_PAYLOAD) {
+                notify(payload.toString());
+                payload.setLength(0);
+                payload.append(header);
+            }
+            if (payload.length() > header.length()) {
+                payload.append(',');
+            }
+            payload.append(entry);
+        }
+        notify(payload.toString());
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+    }
+
+    private void listen() {
+        long backoff = 1000;
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(resolveListenUrl(), username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnecting) {
+                    deliver(everything(), System.currentTimeMillis());
+                    logger.info("Invalidation listener reconnected; dropped all cached entries");
+                }
+                reconnecting = true;
+                backoff = 1000;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Invalidation listener lost its connection, retrying in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        String[] parts = payload.split(";", 3);
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        try {
+            InvalidationEvent event = new InvalidationEvent(true);
+            for (String entry : parts[2].split(",")) {
+                int separator = entry.indexOf(':');
+                InvalidationEvent.Type type = InvalidationEvent.Type.valueOf(entry.substring(0, separator));
+                String key = entry.substring(separator + 1);
+                event.add(type, key.equals("*") ? null : Long.valueOf(key));
+            }
+            deliver(event, Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            // Sent by a node running a different version
+            logger.warn("Ignoring malformed invalidation payload: {}", payload);
+        }
+    }
+
+    private InvalidationEvent everything() {
+        InvalidationEvent event = new InvalidationEvent(true);
+        for (InvalidationEvent.Type type : InvalidationEvent.Type.values()) {
+            event.add(type, null);
+        }
+        return event;
+    }
+
+    /**
+     * LISTEN needs a session-level connection. Neon's "-pooler" endpoint runs PgBouncer in
+     * transaction mode, which drops notifications, so listen on the direct endpoint.
+     */
+    private String resolveListenUrl() {
+        if (listenUrl != null && !listenUrl.isBlank()) {
+            return listenUrl;
+        }
+        return datasourceUrl.replace("-pooler.", ".");
+    }
+}
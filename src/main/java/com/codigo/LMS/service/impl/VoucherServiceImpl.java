@@ -3,7 +3,10 @@ package com.codigo.LMS.service.impl;
 import com.codigo.LMS.entity.Voucher;
 import com.codigo.LMS.entity.DiscountType;
 import com.codigo.LMS.dto.VoucherValidationResult;
+import com.codigo.LMS.event.InvalidationEvent;
 import com.codigo.LMS.repository.VoucherRepository;
+import com.codigo.LMS.service.EntitlementRevocationService;
+import com.codigo.LMS.service.InvalidationBus;
 import com.codigo.LMS.service.VoucherService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,12 @@ public class VoucherServiceImpl implements VoucherService {
     @Autowired
     private VoucherRepository voucherRepository;
 
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private EntitlementRevocationService entitlementRevocationService;
+
     @Override
     public Voucher findById(Long voucherId) {
         return voucherRepository.findById(voucherId).orElse(null);
@@ -51,12 +60,15 @@ public class VoucherServiceImpl implements VoucherService {
             voucher.setCreatedAt(LocalDateTime.now());
         }
         voucher.setUpdatedAt(LocalDateTime.now());
-        return voucherRepository.save(voucher);
+        Voucher saved = voucherRepository.save(voucher);
+        invalidationBus.publish(InvalidationEvent.Type.VOUCHER, saved.getId());
+        return saved;
     }
 
     @Override
     public void delete(Long voucherId) {
         voucherRepository.deleteById(voucherId);
+        invalidationBus.publish(InvalidationEvent.Type.VOUCHER, voucherId);
     }
 
     @Override
@@ -146,6 +158,21 @@ public class VoucherServiceImpl implements VoucherService {
         }
     }
 
+    /**
+     * End an organization's contract: its vouchers stop being redeemable and every
+     * entitlement granted through them is revoked in the background after commit.
+     */
+    @Override
+    public void endOrganizationAccess(Long orgId, Long revokedBy, String reason) {
+        for (Voucher voucher : voucherRepository.findByOrgId(orgId)) {
+            if (Boolean.TRUE.equals(voucher.getIsActive())) {
+                voucher.setIsActive(false);
+                save(voucher);
+            }
+        }
+        entitlementRevocationService.revokeOrganizationInBackground(orgId, revokedBy, reason);
+    }
+
     @Override
     public List<Voucher> findVouchersForCourse(Long courseId) {
         return voucherRepository.findValidVouchersForCourse(courseId, LocalDateTime.now());
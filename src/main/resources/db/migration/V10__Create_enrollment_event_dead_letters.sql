@@ -0,0 +1,20 @@
+-- Enrollment side effects that failed after every retry, kept for redelivery
+-- V10__Create_enrollment_event_dead_letters.sql
+
+CREATE TABLE IF NOT EXISTS enrollment_event_dead_letters (
+    id BIGSERIAL PRIMARY KEY,
+    handler VARCHAR(50) NOT NULL,
+    event_type VARCHAR(30) NOT NULL,
+    enrollment_id BIGINT,
+    student_id BIGINT,
+    course_id BIGINT,
+    actor_id BIGINT,
+    payment_id BIGINT,
+    voucher_id BIGINT,
+    reason TEXT,
+    attempts INTEGER NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_event_dead_letter_created ON enrollment_event_dead_letters(created_at);
@@ -0,0 +1,19 @@
+-- Raw payment webhook deliveries, deduplicated by the processor's event id
+-- V11__Create_payment_webhook_events.sql
+
+CREATE TABLE IF NOT EXISTS payment_webhook_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_id VARCHAR(255) NOT NULL,
+    payment_id BIGINT NOT NULL,
+    payment_status VARCHAR(50),
+    payload TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'RECEIVED',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    error VARCHAR(255),
+    received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_webhook_event_id ON payment_webhook_events(event_id);
+CREATE INDEX IF NOT EXISTS idx_webhook_status ON payment_webhook_events(status, id);
+CREATE INDEX IF NOT EXISTS idx_webhook_payment ON payment_webhook_events(payment_id, status, id);
@@ -0,0 +1,12 @@
+-- Full-text search vector for courses: title (A), category (B), description (C)
+-- V12__Add_course_search_vector.sql
+
+-- 'simple' keeps every word unstemmed, matching the in-memory index used on H2
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(category, '')), 'B') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_courses_search_vector ON courses USING GIN (search_vector);
@@ -0,0 +1,11 @@
+-- Keyset pagination over enrollments: each listing's sort order, led by its filter column
+-- V13__Index_keyset_pagination.sql
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_student_recent ON enrollments(student_id, enrolled_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_course_recent ON enrollments(course_id, enrolled_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_recent ON enrollments(enrolled_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_pending_review ON enrollments(approval_requested_at, id)
+    WHERE status = 'PENDING_REVIEW';
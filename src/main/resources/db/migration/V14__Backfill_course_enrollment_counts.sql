@@ -0,0 +1,7 @@
+-- Courses.enrollment_count becomes the live active-enrollment count; seed it once from enrollments
+-- V14__Backfill_course_enrollment_counts.sql
+
+UPDATE courses c SET enrollment_count =
+    (SELECT COUNT(*) FROM enrollments e WHERE e.course_id = c.id AND e.status = 'ACTIVE');
+
+ALTER TABLE courses ALTER COLUMN enrollment_count SET DEFAULT 0;
@@ -0,0 +1,39 @@
+-- Learner reviews with per-course and platform-wide running rating aggregates
+-- V15__Create_course_reviews.sql
+
+CREATE TABLE IF NOT EXISTS course_reviews (
+    id BIGSERIAL PRIMARY KEY,
+    course_id BIGINT NOT NULL,
+    student_id BIGINT NOT NULL,
+    rating INTEGER NOT NULL CHECK (rating BETWEEN 1 AND 5),
+    comment TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT uk_course_review_student UNIQUE (course_id, student_id),
+    FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE,
+    FOREIGN KEY (student_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_course_reviews_recent ON course_reviews(course_id, created_at, id);
+
+CREATE TABLE IF NOT EXISTS course_rating_aggregates (
+    course_id BIGINT PRIMARY KEY,
+    review_count INTEGER NOT NULL DEFAULT 0,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    rating_1 INTEGER NOT NULL DEFAULT 0,
+    rating_2 INTEGER NOT NULL DEFAULT 0,
+    rating_3 INTEGER NOT NULL DEFAULT 0,
+    rating_4 INTEGER NOT NULL DEFAULT 0,
+    rating_5 INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS rating_totals (
+    id INTEGER PRIMARY KEY,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO rating_totals (id, review_count, rating_sum) VALUES (1, 0, 0) ON CONFLICT DO NOTHING;
@@ -0,0 +1,23 @@
+-- Course-level grant for every active enrollment without one, whatever lesson rows it had before V7
+-- V16__Backfill_course_entitlements.sql
+--
+-- Idempotent: also run once by CourseEntitlementBackfill when Flyway is disabled, where
+-- ddl-auto=update keeps the enum check constraint Hibernate created before COURSE existed.
+
+ALTER TABLE entitlements DROP CONSTRAINT IF EXISTS entitlements_resource_type_check;
+
+INSERT INTO entitlements (user_id, resource_type, resource_id, granted_by_enrollment_id, status, granted_at, expires_at)
+SELECT en.student_id, 'COURSE', en.course_id, en.id, 'ACTIVE', COALESCE(en.activated_at, en.enrolled_at, CURRENT_TIMESTAMP), NULL
+FROM enrollments en
+WHERE en.status = 'ACTIVE'
+  -- A course row in any status counts: a revoked grant (e.g. the course was unpublished) stays revoked
+  AND NOT EXISTS (SELECT 1 FROM entitlements e
+                  WHERE e.resource_type = 'COURSE'
+                    AND (e.granted_by_enrollment_id = en.id
+                         OR (e.user_id = en.student_id AND e.resource_id = en.course_id)));
+
+-- Enrollment-derived module and lesson rows are covered by the course grant. Per-module
+-- grants were stored as LESSON rows keyed by module id, so one predicate removes both;
+-- explicit overrides (granted_by_enrollment_id IS NULL) stay
+DELETE FROM entitlements
+WHERE resource_type = 'LESSON' AND granted_by_enrollment_id IS NOT NULL;
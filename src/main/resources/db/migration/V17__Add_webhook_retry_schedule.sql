@@ -0,0 +1,6 @@
+-- Failed webhooks wait out an exponential backoff instead of being retried on every poll
+-- V17__Add_webhook_retry_schedule.sql
+
+ALTER TABLE payment_webhook_events ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_webhook_due ON payment_webhook_events(status, next_attempt_at);
@@ -0,0 +1,7 @@
+-- The approval queue leaves out paid checkouts waiting in PENDING_REVIEW; match its predicate
+-- V18__Index_pending_approvals.sql
+
+DROP INDEX IF EXISTS idx_enrollments_pending_review;
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_pending_review ON enrollments(approval_requested_at, id)
+    WHERE status = 'PENDING_REVIEW' AND payment_id IS NULL;
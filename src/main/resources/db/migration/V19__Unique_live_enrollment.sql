@@ -0,0 +1,5 @@
+-- At most one live enrollment per student and course; withdrawn, denied and expired rows stay as history
+-- V19__Unique_live_enrollment.sql
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_enrollments_live_student_course ON enrollments(student_id, course_id)
+    WHERE status IN ('ACTIVE', 'COMPLETED', 'PENDING_REVIEW', 'WAITLISTED');
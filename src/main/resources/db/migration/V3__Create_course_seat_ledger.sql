@@ -0,0 +1,9 @@
+-- Per-course seat counter used for O(1) atomic admission
+-- V3__Create_course_seat_ledger.sql
+
+CREATE TABLE IF NOT EXISTS course_seat_ledger (
+    course_id BIGINT PRIMARY KEY,
+    seats_taken INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE
+);
@@ -0,0 +1,21 @@
+-- Time-limited seat holds for paid checkouts
+-- V4__Create_seat_holds.sql
+
+ALTER TABLE course_seat_ledger ADD COLUMN IF NOT EXISTS seats_held INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS seat_holds (
+    id BIGSERIAL PRIMARY KEY,
+    course_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    payment_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'HELD',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    resolved_at TIMESTAMP,
+    FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_seat_hold_payment ON seat_holds(payment_id);
+CREATE INDEX IF NOT EXISTS idx_seat_hold_course_status ON seat_holds(course_id, status);
+CREATE INDEX IF NOT EXISTS idx_seat_hold_expires ON seat_holds(status, expires_at);
@@ -0,0 +1,12 @@
+-- Per-course waitlist queue pointers for gap-free, O(1) positions
+-- V5__Create_course_waitlists.sql
+
+CREATE TABLE IF NOT EXISTS course_waitlists (
+    course_id BIGINT PRIMARY KEY,
+    head_ticket INTEGER NOT NULL DEFAULT 1,
+    tail_ticket INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_waitlist ON enrollments(course_id, status, waitlist_position);
@@ -0,0 +1,38 @@
+-- Background bulk enrollment jobs and their staged roster rows
+-- V6__Create_bulk_enrollment_jobs.sql
+
+CREATE TABLE IF NOT EXISTS bulk_enrollment_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    course_id BIGINT NOT NULL,
+    created_by BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    voucher_code VARCHAR(50),
+    file_name VARCHAR(255),
+    total_rows INTEGER NOT NULL DEFAULT 0,
+    processed_rows INTEGER NOT NULL DEFAULT 0,
+    succeeded_rows INTEGER NOT NULL DEFAULT 0,
+    waitlisted_rows INTEGER NOT NULL DEFAULT 0,
+    failed_rows INTEGER NOT NULL DEFAULT 0,
+    error_message VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_bulk_job_status ON bulk_enrollment_jobs(status, updated_at);
+
+CREATE TABLE IF NOT EXISTS bulk_enrollment_job_rows (
+    id BIGSERIAL PRIMARY KEY,
+    job_id BIGINT NOT NULL,
+    line_number INTEGER NOT NULL,
+    user_id BIGINT,
+    email VARCHAR(255),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    enrollment_id BIGINT,
+    error VARCHAR(255),
+    FOREIGN KEY (job_id) REFERENCES bulk_enrollment_jobs(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_bulk_job_row ON bulk_enrollment_job_rows(job_id, status, line_number);
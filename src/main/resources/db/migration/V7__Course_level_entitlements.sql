@@ -0,0 +1,20 @@
+-- Collapse per-lesson enrollment entitlements into one course-level grant per enrollment
+-- V7__Course_level_entitlements.sql
+
+-- Hibernate generates a check constraint listing the enum values; COURSE is new
+ALTER TABLE entitlements DROP CONSTRAINT IF EXISTS entitlements_resource_type_check;
+
+INSERT INTO entitlements (user_id, resource_type, resource_id, granted_by_enrollment_id, status, granted_at, expires_at)
+SELECT en.student_id, 'COURSE', en.course_id, en.id, 'ACTIVE', MIN(e.granted_at),
+       CASE WHEN COUNT(e.expires_at) < COUNT(*) THEN NULL ELSE MAX(e.expires_at) END
+FROM entitlements e
+JOIN enrollments en ON en.id = e.granted_by_enrollment_id
+WHERE e.resource_type = 'LESSON' AND e.status = 'ACTIVE'
+GROUP BY en.student_id, en.course_id, en.id;
+
+-- Enrollment-derived lesson rows are covered by the course grant; explicit overrides
+-- (granted_by_enrollment_id IS NULL) stay
+DELETE FROM entitlements
+WHERE resource_type = 'LESSON' AND granted_by_enrollment_id IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_entitlement_user_resource ON entitlements(user_id, resource_type, resource_id);
@@ -0,0 +1,5 @@
+-- Keyset walk over active entitlements that can expire, for the expiry sweeper
+-- V8__Index_expiring_entitlements.sql
+
+CREATE INDEX IF NOT EXISTS idx_entitlement_expiring ON entitlements(id)
+    WHERE status = 'ACTIVE' AND expires_at IS NOT NULL;
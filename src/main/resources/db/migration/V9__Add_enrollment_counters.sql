@@ -0,0 +1,10 @@
+-- Waitlist and approval counters on the seat ledger, so enrollment stats are one row read
+-- V9__Add_enrollment_counters.sql
+
+ALTER TABLE course_seat_ledger ADD COLUMN IF NOT EXISTS waitlisted INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE course_seat_ledger ADD COLUMN IF NOT EXISTS pending_approvals INTEGER NOT NULL DEFAULT 0;
+
+UPDATE course_seat_ledger l SET
+    waitlisted = (SELECT COUNT(*) FROM enrollments e WHERE e.course_id = l.course_id AND e.status = 'WAITLISTED'),
+    pending_approvals = (SELECT COUNT(*) FROM enrollments e WHERE e.course_id = l.course_id
+                         AND e.status = 'PENDING_REVIEW' AND e.payment_id IS NULL);
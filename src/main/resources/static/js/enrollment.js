@@ -136,6 +136,33 @@ class EnrollmentManager {
     
     // ==================== REAL-TIME UPDATES ====================
     
+    /**
+     * Subscribe to live enrollment counters over Server-Sent Events.
+     * The browser reconnects on its own and resends the last event id, so the server
+     * only replays the snapshot when it changed. Falls back to polling when the
+     * browser has no EventSource or the server refuses the stream (connection cap).
+     */
+    subscribeToEnrollmentUpdates(courseId, onStats = (stats) => this.updateCapacityDisplay(stats)) {
+        if (typeof EventSource === 'undefined') {
+            return this.setupCapacityMonitoring(courseId);
+        }
+        
+        const source = new EventSource(`${this.apiBase}/stream/${courseId}`);
+        source.addEventListener('stats', (event) => {
+            onStats(JSON.parse(event.data));
+        });
+        source.onerror = () => {
+            // CLOSED means the server answered with an error instead of a stream
+            if (source.readyState === EventSource.CLOSED) {
+                this.eventListeners.delete(`stream_${courseId}`);
+                this.setupCapacityMonitoring(courseId);
+            }
+        };
+        
+        this.eventListeners.set(`stream_${courseId}`, source);
+        return source;
+    }
+    
     /**
      * Setup real-time capacity monitoring
      */
@@ -641,6 +668,8 @@ class EnrollmentManager {
         this.eventListeners.forEach((listener, key) => {
             if (typeof listener === 'number') {
                 clearInterval(listener);
+            } else if (typeof EventSource !== 'undefined' && listener instanceof EventSource) {
+                listener.close();
             }
         });
         this.eventListeners.clear();
@@ -0,0 +1,102 @@
+package com.codigo.LMS.dto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetCursorTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        LocalDateTime at = LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_456_000);
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.of(at, 42L).encode());
+
+        assertEquals(at, cursor.getAt());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    void decodesIdOnlyCursors() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.of(7L).encode());
+
+        assertNull(cursor.getAt());
+        assertEquals(7L, cursor.getId());
+    }
+
+    @Test
+    void missingCursorIsTheFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(""));
+        assertNull(KeysetCursor.decode("   "));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "%2F%2F", "====", "abc"})
+    void rejectsStringsThatAreNotBase64Cursors(String cursor) {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(cursor));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "42",                                   // no separator
+        "|",                                    // no id
+        "|null",                                // non-numeric id
+        "|1|2",                                 // extra separator
+        "|99999999999999999999",                // id overflows a long
+        "2026-13-01T00:00|1",                   // impossible date
+        "yesterday|1",                          // not a timestamp
+        "2026-03-01T12:00|1 OR 1=1",            // injected tail
+    })
+    void rejectsTamperedPayloads(String raw) {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(cursor));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+
+    @Test
+    void pageWithoutExtraRowHasNoNextCursor() {
+        CursorPage<Long> page = CursorPage.of(List.of(1L, 2L, 3L), 3, KeysetCursor::of);
+
+        assertEquals(List.of(1L, 2L, 3L), page.getItems());
+        assertFalse(page.hasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void extraRowIsDroppedAndTheCursorPointsAtTheLastItem() {
+        CursorPage<Long> page = CursorPage.of(List.of(10L, 9L, 8L), 2, KeysetCursor::of);
+
+        assertEquals(List.of(10L, 9L), page.getItems());
+        assertTrue(page.hasNext());
+        assertEquals(9L, KeysetCursor.decode(page.getNextCursor()).getId());
+    }
+
+    @Test
+    void emptyPageHasNoNextCursor() {
+        CursorPage<Long> page = CursorPage.of(List.of(), 20, KeysetCursor::of);
+
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void requestedSizesAreClamped() {
+        assertEquals(CursorPage.DEFAULT_SIZE, CursorPage.clampSize(null));
+        assertEquals(1, CursorPage.clampSize(0));
+        assertEquals(1, CursorPage.clampSize(-5));
+        assertEquals(CursorPage.MAX_SIZE, CursorPage.clampSize(Integer.MAX_VALUE));
+        assertEquals(35, CursorPage.clampSize(35));
+    }
+}
@@ -0,0 +1,110 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.entity.Course;
+import com.codigo.LMS.entity.Course.DifficultyLevel;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CourseFacetsTest {
+
+    // 130 courses span three bitset words. Even positions are Java, odd ones Python;
+    // difficulty cycles with the position, and the first 100 are free.
+    private static final int COURSES = 130;
+
+    private final CourseFacets facets = new CourseFacets(courses());
+
+    @Test
+    void selectedFacetIsCountedWithoutItsOwnSelection() {
+        CourseFacets.Result result = facets.filter(Map.of(CourseFacets.CATEGORY, "Java"), null);
+
+        assertEquals(65, result.getTotal());
+        assertEquals(65, count(result, CourseFacets.CATEGORY, "Java"));
+        assertEquals(65, count(result, CourseFacets.CATEGORY, "Python"));
+        assertEquals(22, count(result, CourseFacets.DIFFICULTY, "BEGINNER"));
+        assertEquals(21, count(result, CourseFacets.DIFFICULTY, "INTERMEDIATE"));
+        assertEquals(22, count(result, CourseFacets.DIFFICULTY, "ADVANCED"));
+    }
+
+    @Test
+    void eachSelectedFacetDropsOnlyItself() {
+        Map<String, String> selected = new LinkedHashMap<>();
+        selected.put(CourseFacets.CATEGORY, "Java");
+        selected.put(CourseFacets.PRICE, "FREE");
+        CourseFacets.Result result = facets.filter(selected, null);
+
+        assertEquals(50, result.getTotal());
+        // Categories among the free courses
+        assertEquals(50, count(result, CourseFacets.CATEGORY, "Java"));
+        assertEquals(50, count(result, CourseFacets.CATEGORY, "Python"));
+        // Prices among the Java courses
+        assertEquals(50, count(result, CourseFacets.PRICE, "FREE"));
+        assertEquals(15, count(result, CourseFacets.PRICE, "FROM_100_TO_200"));
+        // Unselected facets are counted over the full result
+        assertEquals(50, count(result, CourseFacets.POLICY, "OPEN"));
+    }
+
+    @Test
+    void withinLimitsResultsAndEveryCount() {
+        BitSet within = new BitSet();
+        within.set(100, COURSES);
+        CourseFacets.Result result = facets.filter(Map.of(CourseFacets.CATEGORY, "Python"), within);
+
+        assertEquals(15, result.getTotal());
+        assertEquals(101, result.nextMatch(0));
+        assertFalse(result.contains(99));
+        assertEquals(15, count(result, CourseFacets.CATEGORY, "Java"));
+        assertEquals(0, count(result, CourseFacets.PRICE, "FREE"));
+    }
+
+    @Test
+    void unknownValueMatchesNothingButKeepsItsFacetCounts() {
+        CourseFacets.Result result = facets.filter(Map.of(CourseFacets.CATEGORY, "Rust"), null);
+
+        assertEquals(0, result.getTotal());
+        assertEquals(-1, result.nextMatch(0));
+        assertEquals(65, count(result, CourseFacets.CATEGORY, "Java"));
+        assertEquals(0, count(result, CourseFacets.DIFFICULTY, "BEGINNER"));
+    }
+
+    @Test
+    void emptySelectionMatchesEveryCourse() {
+        CourseFacets.Result result = facets.filter(Map.of(), null);
+
+        assertEquals(COURSES, result.getTotal());
+        assertTrue(result.contains(COURSES - 1));
+        assertFalse(result.contains(COURSES));
+        assertEquals(100, count(result, CourseFacets.PRICE, "FREE"));
+    }
+
+    @Test
+    void unknownFacetIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> facets.filter(Map.of("language", "en"), null));
+    }
+
+    private static int count(CourseFacets.Result result, String facet, String value) {
+        return result.getCounts().get(facet).get(value);
+    }
+
+    private static List<Course> courses() {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < COURSES; i++) {
+            Course course = new Course("Course " + i, "", i % 2 == 0 ? "Java" : "Python", null);
+            course.setDifficultyLevel(DifficultyLevel.values()[i % 3]);
+            course.setPrice(i < 100 ? BigDecimal.ZERO : BigDecimal.valueOf(120));
+            courses.add(course);
+        }
+        return courses;
+    }
+}
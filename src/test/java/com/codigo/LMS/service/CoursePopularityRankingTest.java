@@ -0,0 +1,119 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.service.CoursePopularityService.Ranking;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoursePopularityRankingTest {
+
+    private final Map<Long, Double> scores = new HashMap<>();
+
+    @Test
+    void ranksByScoreThenIdAndSkipsUnscoredCourses() {
+        score(1L, 5);
+        score(2L, 9);
+        score(3L, 5);
+        score(4L, 0);
+        Ranking ranking = Ranking.of(scores.keySet(), scores::get, 10);
+
+        assertEquals(List.of(2L, 1L, 3L), ranking.courseIds);
+        assertEquals(5, ranking.cut);
+    }
+
+    @Test
+    void memberFallingBelowTheCutLetsAnOutsiderIn() {
+        score(1L, 10);
+        score(2L, 8);
+        score(3L, 6);
+        score(4L, 4);
+        Ranking ranking = Ranking.of(scores.keySet(), scores::get, 3);
+        assertEquals(List.of(1L, 2L, 3L), ranking.courseIds);
+
+        score(1L, 1);
+        Ranking updated = update(ranking, 1L, 3);
+
+        assertEquals(List.of(2L, 3L, 4L), updated.courseIds);
+        assertEquals(4, updated.cut);
+    }
+
+    @Test
+    void memberFallingToTheCutLosesTheTieBreakToAnOutsider() {
+        score(5L, 10);
+        score(2L, 5);
+        score(3L, 5);
+        Ranking ranking = Ranking.of(scores.keySet(), scores::get, 2);
+        assertEquals(List.of(5L, 2L), ranking.courseIds);
+
+        score(5L, 5);
+        Ranking updated = update(ranking, 5L, 2);
+
+        // All three tie on score, so the lower ids win
+        assertEquals(List.of(2L, 3L), updated.courseIds);
+    }
+
+    @Test
+    void memberDroppingWithinTheListOnlyReorders() {
+        score(1L, 10);
+        score(2L, 8);
+        score(3L, 6);
+        score(4L, 4);
+        Ranking ranking = Ranking.of(scores.keySet(), scores::get, 3);
+
+        score(1L, 7);
+        Ranking updated = update(ranking, 1L, 3);
+
+        assertEquals(List.of(2L, 1L, 3L), updated.courseIds);
+        assertEquals(6, updated.cut);
+    }
+
+    @Test
+    void risingOutsiderDisplacesTheLastMember() {
+        score(1L, 10);
+        score(2L, 8);
+        score(3L, 6);
+        score(4L, 4);
+        Ranking ranking = Ranking.of(scores.keySet(), scores::get, 3);
+
+        score(4L, 9);
+        Ranking updated = update(ranking, 4L, 3);
+
+        assertEquals(List.of(1L, 4L, 2L), updated.courseIds);
+        assertEquals(8, updated.cut);
+    }
+
+    @Test
+    void memberDroppingToZeroLeavesAPartialList() {
+        score(1L, 3);
+        score(2L, 2);
+        Ranking ranking = Ranking.of(scores.keySet(), scores::get, 3);
+
+        score(1L, 0);
+        Ranking updated = update(ranking, 1L, 3);
+
+        assertEquals(List.of(2L), updated.courseIds);
+        assertEquals(2, updated.cut);
+    }
+
+    @Test
+    void emptyRankingPicksUpNewScores() {
+        score(7L, 1);
+        Ranking updated = Ranking.EMPTY.update(List.of(7L), 0, scores::get, scores.keySet(), 3);
+
+        assertEquals(List.of(7L), updated.courseIds);
+        assertTrue(Ranking.EMPTY.courseIds.isEmpty());
+    }
+
+    private Ranking update(Ranking ranking, Long changed, int k) {
+        return ranking.update(List.of(changed), ranking.cut, scores::get, scores.keySet(), k);
+    }
+
+    private void score(Long courseId, double score) {
+        scores.put(courseId, score);
+    }
+}
@@ -0,0 +1,112 @@
+package com.codigo.LMS.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntitlementCacheIdSetTest {
+
+    @Test
+    void idsOnWordBoundariesAreFoundFromAnyBase() {
+        // Offsets 0, 63, 64, 127 and 128 sit at the edges of the first three words
+        long base = 1_000;
+        List<Long> ids = List.of(base, base + 63, base + 64, base + 127, base + 128);
+        EntitlementCache.IdSet set = EntitlementCache.IdSet.of(ids);
+
+        assertTrue(isBitmap(set));
+        for (Long id : ids) {
+            assertTrue(set.contains(id), "missing " + id);
+        }
+        assertFalse(set.contains(base + 1));
+        assertFalse(set.contains(base + 62));
+        assertFalse(set.contains(base + 65));
+        assertEquals(ids, set.toList());
+    }
+
+    @Test
+    void idsOutsideTheBitmapAreNotContained() {
+        EntitlementCache.IdSet set = EntitlementCache.IdSet.of(List.of(500L, 501L, 502L));
+
+        assertFalse(set.contains(499L));
+        assertFalse(set.contains(503L));
+        // Past the last word the bitmap allocated, and far past it
+        assertFalse(set.contains(500L + 64));
+        assertFalse(set.contains(Long.MAX_VALUE));
+        assertFalse(set.contains(Long.MIN_VALUE));
+        assertFalse(set.contains(null));
+    }
+
+    @Test
+    void switchesToSortedArrayOnceTheBitmapWouldBeLarger() {
+        // Two ids: a bitmap pays off up to a span of 128
+        EntitlementCache.IdSet atLimit = EntitlementCache.IdSet.of(List.of(1L, 128L));
+        EntitlementCache.IdSet pastLimit = EntitlementCache.IdSet.of(List.of(1L, 129L));
+
+        assertTrue(isBitmap(atLimit));
+        assertFalse(isBitmap(pastLimit));
+        for (EntitlementCache.IdSet set : List.of(atLimit, pastLimit)) {
+            assertTrue(set.contains(1L));
+            assertFalse(set.contains(2L));
+            assertFalse(set.contains(0L));
+        }
+        assertTrue(atLimit.contains(128L));
+        assertTrue(pastLimit.contains(129L));
+        assertEquals(List.of(1L, 129L), pastLimit.toList());
+    }
+
+    @Test
+    void sparseIdsKeepTheirOrderAndDropDuplicates() {
+        List<Long> ids = new ArrayList<>(List.of(9_000_000_000L, 7L, 1_000_000L, 7L));
+        EntitlementCache.IdSet set = EntitlementCache.IdSet.of(ids);
+
+        assertFalse(isBitmap(set));
+        assertEquals(List.of(7L, 1_000_000L, 9_000_000_000L), set.toList());
+        assertTrue(set.contains(9_000_000_000L));
+        assertFalse(set.contains(8L));
+    }
+
+    @Test
+    void denseRunsUseTheBitmap() {
+        List<Long> ids = LongStream.rangeClosed(10_000, 10_999).boxed().toList();
+        EntitlementCache.IdSet set = EntitlementCache.IdSet.of(ids);
+
+        assertTrue(isBitmap(set));
+        assertEquals(ids, set.toList());
+        assertTrue(set.contains(10_500L));
+        assertFalse(set.contains(11_000L));
+    }
+
+    @Test
+    void spanThatOverflowsFallsBackToTheArray() {
+        EntitlementCache.IdSet set = EntitlementCache.IdSet.of(List.of(0L, Long.MAX_VALUE));
+
+        assertFalse(isBitmap(set));
+        assertTrue(set.contains(Long.MAX_VALUE));
+        assertFalse(set.contains(1L));
+    }
+
+    @Test
+    void emptySetContainsNothing() {
+        EntitlementCache.IdSet set = EntitlementCache.IdSet.of(List.of());
+
+        assertFalse(set.contains(1L));
+        assertTrue(set.toList().isEmpty());
+    }
+
+    private static boolean isBitmap(EntitlementCache.IdSet set) {
+        try {
+            Field bits = EntitlementCache.IdSet.class.getDeclaredField("bits");
+            bits.setAccessible(true);
+            return bits.get(set) != null;
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.codigo.LMS.service;
+
+import com.codigo.LMS.repository.CourseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PrerequisiteGraphTest {
+
+    @Test
+    void selfPrerequisiteIsACycleOfOne() {
+        PrerequisiteGraph graph = graph();
+
+        assertEquals(List.of(5L, 5L), graph.findCycle(5L, List.of(5L)));
+        assertEquals(List.of(1L, 1L), graph.findCycle(1L, List.of(2L, 1L)));
+    }
+
+    @Test
+    void findsTheChainBackToTheCourse() {
+        // 3 requires 2, which requires 1
+        PrerequisiteGraph graph = graph(3L, 2L, 2L, 1L);
+
+        assertEquals(List.of(1L, 3L, 2L, 1L), graph.findCycle(1L, List.of(3L)));
+        assertEquals(List.of(2L, 3L, 2L), graph.findCycle(2L, List.of(3L)));
+    }
+
+    @Test
+    void acyclicAdditionsAreAccepted() {
+        PrerequisiteGraph graph = graph(3L, 2L, 2L, 1L);
+
+        assertTrue(graph.findCycle(3L, List.of(1L)).isEmpty());
+        assertTrue(graph.findCycle(4L, List.of(3L, 1L)).isEmpty());
+        assertTrue(graph.findCycle(1L, List.of(99L)).isEmpty());
+        assertTrue(graph.findCycle(1L, List.of()).isEmpty());
+    }
+
+    @Test
+    void newCourseWithoutAnIdCannotCloseACycle() {
+        PrerequisiteGraph graph = graph(3L, 2L, 2L, 1L);
+
+        assertTrue(graph.findCycle(null, List.of(1L, 3L)).isEmpty());
+        assertTrue(graph.findCycle(1L, null).isEmpty());
+        assertTrue(graph.findCycle(3L, Arrays.asList(null, 1L)).isEmpty());
+    }
+
+    @Test
+    void storedSelfEdgeDoesNotTrapTraversals() {
+        // Data written around CourseService: 4 lists itself next to a real prerequisite
+        PrerequisiteGraph graph = graph(4L, 4L, 4L, 1L);
+
+        assertEquals(List.of(1L), graph.getAllPrerequisites(4L));
+        assertEquals(List.of(4L, 4L), graph.findCycle(4L, List.of(4L)));
+        assertEquals(List.of(1L, 4L, 1L), graph.findCycle(1L, List.of(4L)));
+    }
+
+    /**
+     * A graph over the given (course, prerequisite) pairs.
+     */
+    private static PrerequisiteGraph graph(Long... pairs) {
+        List<Object[]> edges = new ArrayList<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            edges.add(new Object[] {pairs[i], pairs[i + 1]});
+        }
+        CourseRepository courseRepository = mock(CourseRepository.class);
+        when(courseRepository.findPrerequisiteEdges()).thenReturn(edges);
+        PrerequisiteGraph graph = new PrerequisiteGraph();
+        ReflectionTestUtils.setField(graph, "courseRepository", courseRepository);
+        return graph;
+    }
+}